@@ -0,0 +1,96 @@
+package benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH result files written with {@code -rf json}, typically from two commits,
+ * and exits with status 1 if any benchmark got slower by more than the threshold.
+ * <p>
+ * Usage: {@code java -cp dueling-bench/target/dueling-bench-1.0-SNAPSHOT-benchmarks.jar
+ * benchmark.BenchmarkComparison baseline.json candidate.json [threshold-percent]}; the
+ * threshold defaults to 10. Benchmarks are matched by name and parameters; those present in
+ * only one file are listed but never fail the comparison.
+ */
+public final class BenchmarkComparison {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <candidate.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, Score> baseline = read(Path.of(args[0]));
+        Map<String, Score> candidate = read(Path.of(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Candidate", "Change");
+        for (Map.Entry<String, Score> entry : candidate.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s  %s%n", entry.getKey(), "-", after.value(), "new", after.unit());
+                continue;
+            }
+            double change = (after.value() - before.value()) / before.value() * 100;
+            // Time per operation gets worse as it grows, throughput as it shrinks
+            double slowdown = after.higherIsBetter() ? -change : change;
+            boolean regressed = slowdown > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s%s%n", entry.getKey(), before.value(), after.value(),
+                    change, after.unit(), regressed ? "  REGRESSION" : "");
+        }
+        for (String removed : baseline.keySet()) {
+            if (!candidate.containsKey(removed)) {
+                System.out.printf("%-90s %14.3f %14s %9s%n", removed, baseline.get(removed).value(), "-", "removed");
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%n%d benchmark(s) slower by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> read(Path path) throws IOException {
+        JsonArray results;
+        try (Reader reader = Files.newBufferedReader(path)) {
+            results = JsonParser.parseReader(reader).getAsJsonArray();
+        }
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonElement element : results) {
+            JsonObject result = element.getAsJsonObject();
+            StringBuilder key = new StringBuilder(result.get("benchmark").getAsString().replaceFirst("^benchmark\\.", ""));
+            if (result.has("params")) {
+                Map<String, String> params = new TreeMap<>();
+                result.getAsJsonObject("params").entrySet()
+                        .forEach(param -> params.put(param.getKey(), param.getValue().getAsString()));
+                key.append(params);
+            }
+            JsonObject metric = result.getAsJsonObject("primaryMetric");
+            scores.put(key.toString(), new Score(metric.get("score").getAsDouble(), metric.get("scoreUnit").getAsString(),
+                    "thrpt".equals(result.get("mode").getAsString())));
+        }
+        return scores;
+    }
+
+    private record Score(double value, String unit, boolean higherIsBetter) {
+    }
+}
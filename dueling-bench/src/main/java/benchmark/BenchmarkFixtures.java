@@ -0,0 +1,158 @@
+package benchmark;
+
+import controller.GameFacade;
+import model.Card;
+import model.GameSession;
+import model.Player;
+import model.service.PlayerStateManager;
+import model.service.ScenarioManager;
+import model.service.TurnManager;
+import org.mockito.Mockito;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import repository.CardRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Game state and stubbed collaborators shared by the benchmarks.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * @return a card repository whose Redis client is a stub; card stock claims fail
+     */
+    static CardRepository cardRepository() {
+        return new CardRepository(Mockito.mock(RedissonClient.class, Mockito.RETURNS_DEEP_STUBS));
+    }
+
+    /**
+     * @return a card repository that claims packs from an in-memory stock, see {@link InMemoryStock}
+     */
+    static CardRepository cardRepository(InMemoryStock stock) {
+        RedissonClient redissonClient = Mockito.mock(RedissonClient.class, Mockito.withSettings()
+                .defaultAnswer(Mockito.RETURNS_DEEP_STUBS).stubOnly());
+        RScript script = stock.asScript();
+        Mockito.when(redissonClient.getScript(Mockito.any(Codec.class))).thenReturn(script);
+        return new CardRepository(redissonClient);
+    }
+
+    /**
+     * @return a facade that drops every notification; stub-only, so it does not record calls
+     */
+    static GameFacade gameFacade() {
+        return Mockito.mock(GameFacade.class, Mockito.withSettings().stubOnly());
+    }
+
+    /**
+     * A session on turn 4 with five cards in each hand, as stored between two moves. The
+     * runtime collaborators are not attached.
+     *
+     * @param turnEndTime when the current turn of {@code player-1} runs out
+     */
+    static GameSession midGameSession(CardRepository cardRepository, long turnEndTime) {
+        Player player1 = new Player("player-1", "Alice");
+        player1.setCharacter("Elf", "Mage");
+        Player player2 = new Player("player-2", "Bob");
+        player2.setCharacter("Orc", "Warrior");
+
+        List<Card> deckP1 = new ArrayList<>(player1.getCardCollection());
+        List<Card> deckP2 = new ArrayList<>(player2.getCardCollection());
+        List<Card> handP1 = new ArrayList<>(deckP1.subList(0, 5));
+        List<Card> handP2 = new ArrayList<>(deckP2.subList(0, 5));
+        deckP1.subList(0, 5).clear();
+        deckP2.subList(0, 5).clear();
+
+        PlayerStateManager state = new PlayerStateManager(player1, player2, deckP1, deckP2, handP1, handP2, 5, 4, 0, 2);
+        TurnManager turnManager = new TurnManager(4, player1.getId(), turnEndTime, List.of(handP1.get(0)));
+        ScenarioManager scenarioManager = new ScenarioManager();
+        cardRepository.findById("scenario-1").ifPresent(card -> scenarioManager.setActiveScenario(card, 2));
+        return new GameSession("match-1", false, state, turnManager, scenarioManager, false, 0, null, null);
+    }
+
+    /**
+     * Card stock kept in memory, claimed by a Java port of the pack-claim script in
+     * {@link CardRepository}: one weighted draw per slot, falling back to any card in stock.
+     * Claims are serialized, as Redis runs scripts one at a time.
+     */
+    static final class InMemoryStock {
+
+        private final long initialStock;
+        private long[] stock = new long[0];
+
+        InMemoryStock(long initialStock) {
+            this.initialStock = initialStock;
+        }
+
+        synchronized void refill() {
+            Arrays.fill(stock, initialStock);
+        }
+
+        private RScript asScript() {
+            return (RScript) Proxy.newProxyInstance(RScript.class.getClassLoader(), new Class<?>[]{RScript.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "scriptLoad" -> "in-memory";
+                        case "evalSha" -> claim(((List<?>) args[3]).size(), (Object[]) args[4]);
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        private synchronized List<Long> claim(int keyCount, Object[] argv) {
+            if (stock.length != keyCount) {
+                stock = new long[keyCount];
+                Arrays.fill(stock, initialStock);
+            }
+            int slots = Integer.parseInt((String) argv[0]);
+            List<Long> result = new ArrayList<>(slots + keyCount);
+            int pos = 1;
+            for (int slot = 0; slot < slots; slot++) {
+                double random = Double.parseDouble((String) argv[pos]);
+                int candidateCount = Integer.parseInt((String) argv[pos + 1]);
+                pos += 2;
+                List<Integer> candidates = new ArrayList<>();
+                long total = 0;
+                for (int i = 0; i < candidateCount; i++) {
+                    int key = Integer.parseInt((String) argv[pos++]) - 1;
+                    if (stock[key] > 0) {
+                        candidates.add(key);
+                        total += stock[key];
+                    }
+                }
+                if (total == 0) {
+                    for (int key = 0; key < keyCount; key++) {
+                        if (stock[key] > 0) {
+                            candidates.add(key);
+                            total += stock[key];
+                        }
+                    }
+                }
+                long chosen = 0;
+                if (total > 0) {
+                    double target = random * total;
+                    int pick = candidates.get(candidates.size() - 1);
+                    for (int key : candidates) {
+                        target -= stock[key];
+                        if (target < 0) {
+                            pick = key;
+                            break;
+                        }
+                    }
+                    stock[pick]--;
+                    chosen = pick + 1;
+                }
+                result.add(chosen);
+            }
+            for (long remaining : stock) {
+                result.add(remaining);
+            }
+            return result;
+        }
+    }
+}
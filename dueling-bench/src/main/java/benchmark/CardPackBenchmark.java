@@ -0,0 +1,74 @@
+package benchmark;
+
+import model.Card;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import service.store.CardPackFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures opening a pack from {@link CardPackFactory}: building the per-slot candidate lists,
+ * claiming the cards and shuffling them. The stock lives in memory
+ * ({@link BenchmarkFixtures.InMemoryStock}), so the figures exclude the Redis round trip that
+ * a real claim adds; the contended variant shows how four buyers queue on the claim.
+ * <p>
+ * Run with: {@code java -jar dueling-bench/target/dueling-bench-1.0-SNAPSHOT-benchmarks.jar CardPackBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CardPackBenchmark {
+
+    @Param({"BASIC", "PREMIUM", "LEGENDARY"})
+    public String packType;
+
+    private BenchmarkFixtures.InMemoryStock stock;
+    private CardPackFactory factory;
+
+    @Setup(Level.Trial)
+    public void createFactory() {
+        stock = new BenchmarkFixtures.InMemoryStock(10_000_000);
+        factory = new CardPackFactory(BenchmarkFixtures.cardRepository(stock));
+    }
+
+    @Setup(Level.Iteration)
+    public void refillStock() {
+        stock.refill();
+    }
+
+    @Benchmark
+    public List<Card> open() {
+        return factory.createCardPack(packType).open();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Card> openContended() {
+        return factory.createCardPack(packType).open();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CardPackBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
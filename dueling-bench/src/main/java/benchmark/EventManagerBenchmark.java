@@ -0,0 +1,79 @@
+package benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import pubsub.EventManager;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link EventManager#publish} fanning a game update out to every subscriber of a
+ * topic, from one thread and from four threads publishing to random topics at once.
+ * Subscribers write to a discarding writer, so the figures exclude socket I/O.
+ * <p>
+ * Run with: {@code java -jar dueling-bench/target/dueling-bench-1.0-SNAPSHOT-benchmarks.jar EventManagerBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventManagerBenchmark {
+
+    private static final int TOPICS = 1000;
+    private static final String MESSAGE = "UPDATE:NEW_TURN:player-1:1700000000000";
+
+    @Param({"1", "8", "64"})
+    public int subscribersPerTopic;
+
+    private EventManager eventManager;
+    private String[] topics;
+
+    @Setup(Level.Trial)
+    public void subscribe() {
+        eventManager = new EventManager(new SimpleMeterRegistry());
+        topics = new String[TOPICS];
+        for (int i = 0; i < TOPICS; i++) {
+            topics[i] = "player-" + i;
+            for (int s = 0; s < subscribersPerTopic; s++) {
+                eventManager.subscribe(topics[i], new PrintWriter(Writer.nullWriter()));
+            }
+        }
+    }
+
+    @Benchmark
+    public void publish() {
+        eventManager.publish(topics[ThreadLocalRandom.current().nextInt(TOPICS)], MESSAGE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void publishContended() {
+        eventManager.publish(topics[ThreadLocalRandom.current().nextInt(TOPICS)], MESSAGE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EventManagerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package benchmark;
+
+import controller.GameFacade;
+import model.Card;
+import model.GameSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import repository.CardRepository;
+import repository.codec.GameSessionCodec;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one move of a match: {@code playCard} by the current player and {@code forceEndTurn}
+ * once the turn has run out, which auto-plays the cheapest card or passes the turn.
+ * <p>
+ * Both change the session, so every invocation starts from a fresh copy of the same mid-game
+ * snapshot, decoded with {@link GameSessionCodec} outside the measured call. Notifications go
+ * to a stub facade, so the figures exclude delivery to the players.
+ * <p>
+ * Run with: {@code java -jar dueling-bench/target/dueling-bench-1.0-SNAPSHOT-benchmarks.jar GameSessionBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameSessionBenchmark {
+
+    /** Whether the current turn has already run out; if not, {@code forceEndTurn} returns without a move. */
+    @Param({"false", "true"})
+    public boolean turnExpired;
+
+    private GameFacade facade;
+    private CardRepository cardRepository;
+    private GameSessionCodec codec;
+    private byte[] snapshot;
+    private String cardId;
+
+    private GameSession session;
+
+    @Setup(Level.Trial)
+    public void createSnapshot() throws IOException {
+        facade = BenchmarkFixtures.gameFacade();
+        cardRepository = BenchmarkFixtures.cardRepository();
+        codec = new GameSessionCodec(cardRepository);
+        long turnEndTime = turnExpired ? System.currentTimeMillis() - 1 : System.currentTimeMillis() + 3_600_000;
+        GameSession midGame = BenchmarkFixtures.midGameSession(cardRepository, turnEndTime);
+        snapshot = codec.toBytes(midGame);
+        cardId = midGame.getPlayerStateManager().getHand("player-1").stream()
+                .filter(card -> card.getCardType() == Card.CardType.ATTACK)
+                .findFirst()
+                .orElseThrow()
+                .getId();
+    }
+
+    @Setup(Level.Invocation)
+    public void restoreSession() throws IOException {
+        session = codec.fromBytes(snapshot);
+        session.attach(facade, cardRepository);
+    }
+
+    @Benchmark
+    public int playCard() {
+        session.playCard("player-1", cardId);
+        return session.getPlayerStateManager().getHand("player-1").size();
+    }
+
+    @Benchmark
+    public int forceEndTurn() {
+        session.forceEndTurn();
+        return session.getTurnManager().getTurn();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GameSessionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
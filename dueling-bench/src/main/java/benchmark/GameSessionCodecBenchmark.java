@@ -0,0 +1,105 @@
+package benchmark;
+
+import com.esotericsoftware.kryo.Kryo;
+import io.netty.buffer.ByteBuf;
+import model.GameSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.redisson.client.codec.Codec;
+import org.redisson.codec.Kryo5Codec;
+import org.redisson.codec.SerializationCodec;
+import repository.CardRepository;
+import repository.codec.GameSessionCodec;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the size and encode/decode time of a mid-game {@link GameSession} snapshot
+ * between {@link GameSessionCodec}, Redisson's default {@link Kryo5Codec} and plain
+ * Java serialization ({@link SerializationCodec}). Snapshot sizes are printed during setup.
+ * <p>
+ * The stock {@link Kryo5Codec} has reference tracking disabled and overflows the stack on
+ * the {@code Player} / {@code PlayerRanking} cycle, so the Kryo variant enables references.
+ * <p>
+ * Run with: {@code java -jar dueling-bench/target/dueling-bench-1.0-SNAPSHOT-benchmarks.jar GameSessionCodecBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameSessionCodecBenchmark {
+
+    @Param({"binary", "kryo5", "java"})
+    public String format;
+
+    private Codec codec;
+    private GameSession session;
+    private ByteBuf encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        CardRepository cardRepository = BenchmarkFixtures.cardRepository();
+        codec = switch (format) {
+            case "binary" -> new GameSessionCodec(cardRepository);
+            case "kryo5" -> new Kryo5Codec() {
+                @Override
+                protected Kryo createKryo(ClassLoader classLoader) {
+                    Kryo kryo = super.createKryo(classLoader);
+                    kryo.setReferences(true);
+                    return kryo;
+                }
+            };
+            case "java" -> new SerializationCodec();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        session = BenchmarkFixtures.midGameSession(cardRepository, System.currentTimeMillis() + 20_000);
+        encoded = codec.getValueEncoder().encode(session);
+
+        GameSession decoded = (GameSession) codec.getValueDecoder().decode(encoded.duplicate(), null);
+        if (!decoded.getPlayerStateManager().getHand("player-1").equals(session.getPlayerStateManager().getHand("player-1"))
+                || decoded.getTurnManager().getTurn() != session.getTurnManager().getTurn()) {
+            throw new IllegalStateException(format + " did not round-trip the session");
+        }
+        System.out.printf("%n[%s] snapshot size: %d bytes%n", format, encoded.readableBytes());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        encoded.release();
+    }
+
+    @Benchmark
+    public int encode() throws Exception {
+        ByteBuf buf = codec.getValueEncoder().encode(session);
+        int size = buf.readableBytes();
+        buf.release();
+        return size;
+    }
+
+    @Benchmark
+    public Object decode() throws Exception {
+        return codec.getValueDecoder().decode(encoded.duplicate(), null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GameSessionCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
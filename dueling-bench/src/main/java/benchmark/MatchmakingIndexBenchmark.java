@@ -0,0 +1,146 @@
+package benchmark;
+
+import model.Player;
+import model.PlayerRanking;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import service.matchmaking.EloMatchmakingIndex;
+import service.matchmaking.PlayerWithDeck;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link EloMatchmakingIndex} with the previous single queue that was scanned
+ * linearly for every match, for 10k and 100k waiting players.
+ * <p>
+ * Half of the queued players have a rating no one else is close to, as happens when
+ * matchmaking runs often and only players without an opponent stay queued. {@code matchPass}
+ * forms up to {@link #MATCHES_PER_PASS} matches from a freshly filled queue; the old queue
+ * needs one call per head it examines, and each unmatched head costs a full scan.
+ * {@code isInQueue} looks up a player near the back of the queue.
+ * <p>
+ * Run with: {@code java -jar dueling-bench/target/dueling-bench-1.0-SNAPSHOT-benchmarks.jar MatchmakingIndexBenchmark}
+ */
+@Fork(1)
+@State(Scope.Thread)
+public class MatchmakingIndexBenchmark {
+
+    private static final int MATCHES_PER_PASS = 1000;
+    private static final int MAX_ELO_DIFFERENCE = 100;
+
+    @Param({"10000", "100000"})
+    public int queuedPlayers;
+
+    @Param({"index", "scan"})
+    public String queue;
+
+    private List<PlayerWithDeck> players;
+    private EloMatchmakingIndex index;
+    private Queue<PlayerWithDeck> scanQueue;
+    private String lookupId;
+
+    @Setup(Level.Trial)
+    public void createPlayers() {
+        Random random = new Random(42);
+        players = new ArrayList<>(queuedPlayers);
+        for (int i = 0; i < queuedPlayers; i++) {
+            Player player = new Player();
+            player.setId("player-" + i);
+            player.setNickname("player-" + i);
+            PlayerRanking ranking = new PlayerRanking();
+            ranking.setEloRating(i % 2 == 0 ? 800 + random.nextInt(1600) : 10_000 + i * 2 * MAX_ELO_DIFFERENCE);
+            player.setPlayerRanking(ranking);
+            players.add(new PlayerWithDeck(player, null));
+        }
+        lookupId = players.get(queuedPlayers - 10).getPlayer().getId();
+    }
+
+    @Setup(Level.Iteration)
+    public void fillQueue() {
+        long now = System.currentTimeMillis();
+        index = new EloMatchmakingIndex();
+        scanQueue = new ConcurrentLinkedQueue<>();
+        for (PlayerWithDeck player : players) {
+            player.setQueuedAt(0);
+            if (queue.equals("index")) {
+                index.add(player, now);
+            } else {
+                scanQueue.offer(player);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    public int matchPass() {
+        if (queue.equals("index")) {
+            return index.pollPairs(MATCHES_PER_PASS, System.currentTimeMillis()).size();
+        }
+        int matches = 0;
+        for (int attempts = scanQueue.size(); attempts > 0 && matches < MATCHES_PER_PASS; attempts--) {
+            if (scanFindMatch()) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public boolean isInQueue() {
+        if (queue.equals("index")) {
+            return index.contains(lookupId);
+        }
+        return scanQueue.stream().anyMatch(p -> p.getPlayer().getId().equals(lookupId));
+    }
+
+    /**
+     * The matching loop the services used before the index: poll the head, scan the rest
+     * of the queue for a close rating and remove the opponent by value.
+     */
+    private boolean scanFindMatch() {
+        PlayerWithDeck first = scanQueue.poll();
+        if (first == null) {
+            return false;
+        }
+        int firstElo = first.getPlayer().getPlayerRanking().getEloRating();
+        for (PlayerWithDeck second : scanQueue) {
+            if (Math.abs(firstElo - second.getPlayer().getPlayerRanking().getEloRating()) <= MAX_ELO_DIFFERENCE) {
+                scanQueue.remove(second);
+                return true;
+            }
+        }
+        scanQueue.offer(first);
+        return false;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MatchmakingIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
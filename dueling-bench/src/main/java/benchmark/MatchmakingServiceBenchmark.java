@@ -0,0 +1,133 @@
+package benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.Player;
+import model.PlayerRanking;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import repository.MatchRepository;
+import service.election.LeaderElectionService;
+import service.matchmaking.ClaimedPartner;
+import service.matchmaking.ConcurrentMatchmakingService;
+import service.matchmaking.PartnerClaim;
+import service.matchmaking.PlayerWithDeck;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ConcurrentMatchmakingService} at different queue sizes, through the calls
+ * the matchmaking loop and peer servers make:
+ * <ul>
+ *     <li>{@code findMatches}: one pass forming up to {@link #MATCHES_PER_PASS} matches from a
+ *     freshly filled queue;</li>
+ *     <li>{@code claimPartners}: a peer claiming {@link #BATCH} opponents near given ratings,
+ *     which are put back afterwards;</li>
+ *     <li>{@code lockPartners}: taking the {@link #BATCH} longest-waiting players to offer them
+ *     to peers, and handing them back.</li>
+ * </ul>
+ * <p>
+ * Run with: {@code java -jar dueling-bench/target/dueling-bench-1.0-SNAPSHOT-benchmarks.jar MatchmakingServiceBenchmark}
+ */
+@Fork(1)
+@State(Scope.Thread)
+public class MatchmakingServiceBenchmark {
+
+    private static final int MATCHES_PER_PASS = 1000;
+    private static final int BATCH = 16;
+
+    @Param({"100", "10000", "100000"})
+    public int queuedPlayers;
+
+    private List<Player> players;
+    private List<PartnerClaim> claims;
+    private LeaderElectionService leaderElectionService;
+    private ConcurrentMatchmakingService service;
+
+    @Setup(Level.Trial)
+    public void createPlayers() {
+        Random random = new Random(42);
+        players = new ArrayList<>(queuedPlayers);
+        for (int i = 0; i < queuedPlayers; i++) {
+            Player player = new Player();
+            player.setId("player-" + i);
+            player.setNickname("player-" + i);
+            PlayerRanking ranking = new PlayerRanking();
+            ranking.setEloRating(800 + random.nextInt(1600));
+            player.setPlayerRanking(ranking);
+            players.add(player);
+        }
+        claims = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            claims.add(new PartnerClaim("remote-" + i, 800 + random.nextInt(1600), 100));
+        }
+        leaderElectionService = Mockito.mock(LeaderElectionService.class, Mockito.withSettings().stubOnly());
+        Mockito.when(leaderElectionService.getSelfUrl()).thenReturn("http://server-1:8080");
+    }
+
+    @Setup(Level.Iteration)
+    public void fillQueue() {
+        service = new ConcurrentMatchmakingService(leaderElectionService, Mockito.mock(MatchRepository.class),
+                new SimpleMeterRegistry());
+        for (Player player : players) {
+            service.addPlayerToQueue(player);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    public int findMatches() {
+        return service.findMatches(MATCHES_PER_PASS).size();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public int claimPartners() {
+        List<ClaimedPartner> claimed = service.claimPartners(claims);
+        List<PlayerWithDeck> partners = new ArrayList<>(claimed.size());
+        for (ClaimedPartner partner : claimed) {
+            partners.add(new PlayerWithDeck(partner.getPartner(), null));
+        }
+        service.requeue(partners);
+        return partners.size();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public int lockPartners() {
+        List<PlayerWithDeck> locked = service.lockPartners(BATCH);
+        service.requeue(locked);
+        return locked.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MatchmakingServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import model.Card;
+import model.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a player's card collection as it grows:
+ * <ul>
+ *     <li>{@code javaSerialization}: a Java serialization round trip of the player, which
+ *     carries the per-card counts, followed by resolving the card list from them;</li>
+ *     <li>{@code legacyJson}: writing and re-reading the full card list as JSON, the
+ *     {@code card_collection} format players were stored in before the per-card counts;</li>
+ *     <li>{@code changeCards}: removing and adding back one copy, then reading the card list,
+ *     as after a trade or a pack purchase.</li>
+ * </ul>
+ * <p>
+ * Run with: {@code java -jar dueling-bench/target/dueling-bench-1.0-SNAPSHOT-benchmarks.jar PlayerCardsBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayerCardsBenchmark {
+
+    @Param({"50", "500", "5000"})
+    public int ownedCopies;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Player player;
+    private Card tradedCard;
+
+    @Setup(Level.Trial)
+    public void createPlayer() {
+        List<Card> catalog = new ArrayList<>(BenchmarkFixtures.cardRepository().getAllCards().values());
+        player = new Player("player-1", "Alice");
+        List<Card> cards = new ArrayList<>();
+        for (int i = player.getCardCollection().size(); i < ownedCopies; i++) {
+            cards.add(catalog.get(i % catalog.size()));
+        }
+        player.addCards(cards);
+        tradedCard = player.getCardCollection().get(0);
+    }
+
+    @Benchmark
+    public int javaSerialization() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(player);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return ((Player) in.readObject()).getCardCollection().size();
+        }
+    }
+
+    @Benchmark
+    public int legacyJson() throws Exception {
+        String json = objectMapper.writeValueAsString(player.getCardCollection());
+        return objectMapper.readTree(json).size();
+    }
+
+    @Benchmark
+    public int changeCards() {
+        player.removeCards(List.of(tradedCard.getId()));
+        player.addCards(List.of(tradedCard));
+        return player.getCardCollection().size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PlayerCardsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,98 @@
+package benchmark;
+
+import common.cluster.ConsistentHashRing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares the consistent-hash ring that assigns players to servers in
+ * {@code DistributedPlayerRepository} with the previous assignment, which copied and sorted
+ * the server list on every lookup and took the player ID's hash modulo the server count.
+ * <p>
+ * {@code ownerOf} looks up the owner of one player. At the end of each trial the fraction of
+ * {@value #SAMPLE_PLAYERS} players that change owner when a server joins, and when one
+ * leaves, is printed: about {@code 1/(n+1)} and {@code 1/n} for the ring, most players for
+ * the modulo assignment.
+ * <p>
+ * Run with: {@code java -jar dueling-bench/target/dueling-bench-1.0-SNAPSHOT-benchmarks.jar PlayerOwnershipBenchmark}
+ */
+@Fork(1)
+@State(Scope.Thread)
+public class PlayerOwnershipBenchmark {
+
+    private static final int SAMPLE_PLAYERS = 100_000;
+
+    @Param({"4", "16"})
+    public int servers;
+
+    @Param({"ring", "modulo"})
+    public String assignment;
+
+    private Set<String> members;
+    private ConsistentHashRing ring;
+    private String[] playerIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createCluster() {
+        members = servers(servers);
+        ring = ConsistentHashRing.of(members);
+        playerIds = new String[SAMPLE_PLAYERS];
+        for (int i = 0; i < SAMPLE_PLAYERS; i++) {
+            playerIds[i] = "player-" + i;
+        }
+    }
+
+    @Benchmark
+    public String ownerOf() {
+        String playerId = playerIds[next++ % SAMPLE_PLAYERS];
+        return "ring".equals(assignment) ? ring.nodeFor(playerId) : moduloOwner(members, playerId);
+    }
+
+    @TearDown(Level.Trial)
+    public void printRemapFractions() {
+        Set<String> joined = servers(servers + 1);
+        Set<String> left = servers(servers - 1);
+        System.out.printf("%n%s, %d servers: %.1f%% of players move when a server joins, %.1f%% when one leaves%n",
+                assignment, servers, remappedPercent(members, joined), remappedPercent(members, left));
+    }
+
+    private double remappedPercent(Set<String> before, Set<String> after) {
+        ConsistentHashRing ringBefore = ConsistentHashRing.of(before);
+        ConsistentHashRing ringAfter = ConsistentHashRing.of(after);
+        int moved = 0;
+        for (String playerId : playerIds) {
+            String ownerBefore = "ring".equals(assignment) ? ringBefore.nodeFor(playerId) : moduloOwner(before, playerId);
+            String ownerAfter = "ring".equals(assignment) ? ringAfter.nodeFor(playerId) : moduloOwner(after, playerId);
+            if (!ownerBefore.equals(ownerAfter)) {
+                moved++;
+            }
+        }
+        return 100.0 * moved / playerIds.length;
+    }
+
+    private static String moduloOwner(Set<String> members, String playerId) {
+        List<String> sorted = new ArrayList<>(members);
+        sorted.sort(String::compareTo);
+        return sorted.get(Math.abs(playerId.hashCode() % sorted.size()));
+    }
+
+    private static Set<String> servers(int count) {
+        Set<String> urls = new HashSet<>();
+        for (int i = 1; i <= count; i++) {
+            urls.add("http://server-" + i + ":8080");
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,96 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import service.timer.HashedTimerWheel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-tick cost of the timer wheel against the previous approach of
+ * checking every active session once per tick.
+ * <p>
+ * Every match has a turn deadline spread evenly over one turn duration and is
+ * re-scheduled one turn later when it fires, as in a steady-state server. Both variants
+ * look sessions up by key, standing in for the session load from Redis: the wheel only
+ * loads the matches due in the current tick, while the scan loads every match. The
+ * lookup is an in-memory map here, so the scan figures are a lower bound for the old
+ * Redis-backed scan.
+ * <p>
+ * Run with: {@code java -jar dueling-bench/target/dueling-bench-1.0-SNAPSHOT-benchmarks.jar TurnTimerBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TurnTimerBenchmark {
+
+    private static final long TICK_MILLIS = 100;
+    private static final long TURN_MILLIS = 20_000;
+
+    @Param({"1000", "10000", "100000"})
+    public int activeMatches;
+
+    private HashedTimerWheel wheel;
+    private Map<String, long[]> sessions;
+    private long now;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        now = 0;
+        wheel = new HashedTimerWheel(TICK_MILLIS, 512, now);
+        sessions = new HashMap<>();
+        for (int i = 0; i < activeMatches; i++) {
+            long deadline = TICK_MILLIS + (TURN_MILLIS * i) / activeMatches;
+            sessions.put("match-" + i, new long[]{deadline});
+            wheel.schedule("match-" + i, deadline);
+        }
+    }
+
+    @Benchmark
+    public void timerWheelTick(Blackhole blackhole) {
+        now += TICK_MILLIS;
+        for (HashedTimerWheel.Timeout timeout : wheel.advance(now)) {
+            long[] session = sessions.get(timeout.getKey());
+            session[0] = now + TURN_MILLIS;
+            wheel.schedule(timeout.getKey(), session[0]);
+            blackhole.consume(session);
+        }
+    }
+
+    @Benchmark
+    public void fullScanTick(Blackhole blackhole) {
+        now += TICK_MILLIS;
+        for (String matchId : sessions.keySet()) {
+            long[] session = sessions.get(matchId);
+            if (now >= session[0]) {
+                session[0] = now + TURN_MILLIS;
+            }
+            blackhole.consume(session);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TurnTimerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
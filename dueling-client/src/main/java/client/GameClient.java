@@ -932,7 +932,12 @@ public final class GameClient {
 
         @Override
         public void onMessage(String message) {
-            processServerMessage(message);
+            // The server batches queued messages into one frame, one message per line
+            for (String line : message.split("\n")) {
+                if (!line.isBlank()) {
+                    processServerMessage(line.trim());
+                }
+            }
             
             // Reset connection start time when receiving any message from server
             if (inGame) {
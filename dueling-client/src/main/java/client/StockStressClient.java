@@ -141,20 +141,27 @@ public class StockStressClient implements WebSocket.Listener {
 
     @Override
     public CompletionStage<?> onText(WebSocket webSocketParam, CharSequence data, boolean last) {
-        String message = data.toString();
-        logger.info("[{}] Received: {}", username, message);
         webSocketParam.request(1);
 
-        if (message.contains("SUCCESS:Character created.")) {
-            // Character setup successful, now send the buy command
-            String buyCommand = "STORE:BUY:BASIC";
-            logger.info("[{}] Sending: {}", username, buyCommand);
-            webSocketParam.sendText(buyCommand, true);
-        } else if (message.contains("SUCCESS:Pack purchased") || message.contains("OUT_OF_STOCK") || message.contains("ERROR")) {
-            // Close the connection after receiving the result
-            webSocketParam.sendClose(WebSocket.NORMAL_CLOSURE, "Operation completed.");
+        // The server writes lines, and several can share a frame
+        for (String message : data.toString().split("\n")) {
+            if (message.isBlank()) {
+                continue;
+            }
+            logger.info("[{}] Received: {}", username, message);
+
+            if (message.contains("SUCCESS:Character created.")) {
+                // Character setup successful, now send the buy command
+                String buyCommand = "STORE:BUY:BASIC";
+                logger.info("[{}] Sending: {}", username, buyCommand);
+                webSocketParam.sendText(buyCommand, true);
+            } else if (message.contains("SUCCESS:Pack purchased") || message.contains("OUT_OF_STOCK") || message.contains("ERROR")) {
+                // Close the connection after receiving the result
+                webSocketParam.sendClose(WebSocket.NORMAL_CLOSURE, "Operation completed.");
+                return null;
+            }
         }
-        
+
         return null;
     }
 
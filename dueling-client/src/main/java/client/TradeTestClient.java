@@ -96,7 +96,12 @@ public class TradeTestClient {
                     if (last) {
                         String message = messageBuffer.toString();
                         messageBuffer.setLength(0);
-                        handleMessage(message);
+                        // The server writes lines, and several can share a frame
+                        for (String line : message.split("\n")) {
+                            if (!line.isBlank()) {
+                                handleMessage(line.strip());
+                            }
+                        }
                     }
                     return WebSocket.Listener.super.onText(ws, data, last);
                 }
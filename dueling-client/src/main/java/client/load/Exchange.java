@@ -0,0 +1,26 @@
+package client.load;
+
+/**
+ * A request and the response that completes it, timed by the load generator.
+ */
+public enum Exchange {
+    REGISTER("POST /api/auth/register"),
+    LOGIN("POST /api/auth/login"),
+    CONNECT("WebSocket open -> SUCCESS:CONNECTED"),
+    CHARACTER_SETUP("CHARACTER_SETUP -> SUCCESS:Character created"),
+    MATCHMAKING("MATCHMAKING:ENTER -> UPDATE:GAME_START"),
+    PLAY_CARD("PLAY_CARD -> UPDATE:ACTION"),
+    BUY_PACK("STORE:BUY -> SUCCESS:Pack purchased"),
+    PROPOSE_TRADE("TRADE:PROPOSE -> SUCCESS:Trade proposal sent"),
+    ACCEPT_TRADE("TRADE:ACCEPT -> UPDATE:TRADE_COMPLETE");
+
+    private final String description;
+
+    Exchange(String description) {
+        this.description = description;
+    }
+
+    public String description() {
+        return description;
+    }
+}
@@ -0,0 +1,73 @@
+package client.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and failure counts per {@link Exchange}, shared by all simulated players.
+ * Latencies are recorded in microseconds, up to one hour, with three significant digits.
+ */
+public class LatencyRecorder {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final Map<Exchange, Histogram> histograms = new EnumMap<>(Exchange.class);
+    private final Map<Exchange, LongAdder> errors = new EnumMap<>(Exchange.class);
+    private final Map<Exchange, LongAdder> timeouts = new EnumMap<>(Exchange.class);
+
+    public LatencyRecorder() {
+        for (Exchange exchange : Exchange.values()) {
+            histograms.put(exchange, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(exchange, new LongAdder());
+            timeouts.put(exchange, new LongAdder());
+        }
+    }
+
+    /**
+     * Records a successful exchange that started at {@code startNanos} ({@link System#nanoTime()}).
+     */
+    public void recordSuccess(Exchange exchange, long startNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        histograms.get(exchange).recordValue(Math.min(Math.max(micros, 0), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    /**
+     * Records an exchange answered with an error; its latency is not part of the histogram.
+     */
+    public void recordError(Exchange exchange) {
+        errors.get(exchange).increment();
+    }
+
+    public void recordTimeout(Exchange exchange) {
+        timeouts.get(exchange).increment();
+    }
+
+    /**
+     * @param elapsedNanos how long the run took, used for the per-second rates
+     * @return a table with one line per exchange: count, rate, failures and latency percentiles in milliseconds
+     */
+    public String summary(long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos / 1e9, 1e-3);
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-44s %9s %8s %7s %8s %9s %9s %9s %9s %9s %9s%n", "Exchange", "OK", "OK/s",
+                "Errors", "Timeouts", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms"));
+        for (Exchange exchange : Exchange.values()) {
+            Histogram histogram = histograms.get(exchange).copy();
+            report.append(String.format("%-44s %9d %8.1f %7d %8d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    exchange.description(), histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                    errors.get(exchange).sum(), timeouts.get(exchange).sum(), histogram.getMean() / 1000.0,
+                    millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / 1000.0));
+        }
+        return report.toString();
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,125 @@
+package client.load;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Scenario-driven load generator: starts {@link SimulatedPlayer}s at a fixed arrival rate, one
+ * virtual thread each, against a running cluster, and prints latency percentiles per
+ * {@link Exchange} when all players are done or the run time is over.
+ * <p>
+ * Run with: {@code java -cp dueling-client/target/dueling-client-1.0-SNAPSHOT.jar
+ * -Dloader.main=client.load.LoadGenerator org.springframework.boot.loader.launch.PropertiesLauncher
+ * --url=http://localhost:8080 --players=10000 --arrival-rate=200}; see {@link LoadTestConfig} for
+ * the options.
+ */
+public class LoadGenerator {
+
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(10);
+
+    private final LoadTestConfig config;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final LongAdder started = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+
+    public LoadGenerator(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config;
+        try {
+            config = LoadTestConfig.fromArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadTestConfig.USAGE);
+            System.exit(1);
+            return;
+        }
+        new LoadGenerator(config).run();
+    }
+
+    public void run() throws InterruptedException, IOException {
+        System.out.printf("Starting %d players at %.1f/s against %s for at most %ds%n", config.players(),
+                config.arrivalRate(), config.baseUrl(), config.duration().toSeconds());
+        long start = System.nanoTime();
+        long deadline = start + config.duration().toNanos();
+
+        try (ExecutorService players = Executors.newVirtualThreadPerTaskExecutor();
+             ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+             HttpClient httpClient = HttpClient.newBuilder()
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .connectTimeout(config.responseTimeout())
+                     .build()) {
+            progress.scheduleAtFixedRate(() -> printProgress(start), PROGRESS_INTERVAL.toMillis(),
+                    PROGRESS_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+
+            // Open workload: arrivals follow the schedule whether or not earlier players are done
+            double arrivalIntervalNanos = 1e9 / config.arrivalRate();
+            for (int i = 0; i < config.players(); i++) {
+                long due = start + (long) (i * arrivalIntervalNanos);
+                if (due >= deadline) {
+                    break;
+                }
+                LockSupport.parkNanos(due - System.nanoTime());
+                started.increment();
+                players.submit(new SimulatedPlayer(this, config, recorder, httpClient, i));
+            }
+
+            players.shutdown();
+            if (!players.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                System.out.println("Run time is over, stopping the remaining players");
+                running.set(false);
+                players.shutdownNow();
+            }
+        }
+
+        String report = report(System.nanoTime() - start);
+        System.out.print(report);
+        if (config.reportFile() != null) {
+            Files.writeString(config.reportFile(), report);
+            System.out.println("Report written to " + config.reportFile());
+        }
+    }
+
+    boolean isRunning() {
+        return running.get();
+    }
+
+    void playerFinished(boolean completedAllRounds) {
+        (completedAllRounds ? completed : failed).increment();
+    }
+
+    void matchPlayed() {
+        matches.increment();
+    }
+
+    private void printProgress(long start) {
+        long active = started.sum() - completed.sum() - failed.sum();
+        System.out.printf("[%4ds] started %d, active %d, finished %d, stopped early %d, matches %d%n",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), started.sum(), active,
+                completed.sum(), failed.sum(), matches.sum());
+    }
+
+    private String report(long elapsedNanos) {
+        return String.format("%n=== Load test report (%s) ===%n", LocalDateTime.now().withNano(0))
+                + String.format("Target: %s, arrival rate %.1f/s, %d rounds per player, think time %dms%n",
+                        config.baseUrl(), config.arrivalRate(), config.matchesPerPlayer(), config.thinkTime().toMillis())
+                + String.format("Elapsed: %.1fs; players started %d, finished %d, stopped early %d; matches played %d%n%n",
+                        elapsedNanos / 1e9, started.sum(), completed.sum(), failed.sum(), matches.sum())
+                + recorder.summary(elapsedNanos);
+    }
+}
@@ -0,0 +1,80 @@
+package client.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings of a load test run, read from {@code --name=value} arguments.
+ *
+ * @param baseUrl          HTTP URL of the gateway or of one server, e.g. {@code http://localhost:8080}
+ * @param players          how many simulated players to start in total
+ * @param arrivalRate      how many new players start per second
+ * @param duration         how long the run lasts; players still active afterwards are stopped
+ * @param matchesPerPlayer how many matchmake, play, buy and trade rounds each player goes through
+ * @param thinkTime        pause before each move, like a human reading the board
+ * @param responseTimeout  how long to wait for the answer to a command before counting a timeout
+ * @param packType         the pack bought after each match
+ * @param userPrefix       prefix of the simulated usernames; change it to register new players
+ * @param password         password of every simulated player
+ * @param reportFile       where the summary is written besides the console, or null
+ */
+public record LoadTestConfig(String baseUrl, int players, double arrivalRate, Duration duration, int matchesPerPlayer,
+                             Duration thinkTime, Duration responseTimeout, String packType, String userPrefix,
+                             String password, Path reportFile) {
+
+    static final String USAGE = """
+            Usage: LoadGenerator [--name=value ...]
+              --url=http://localhost:8080   gateway or server URL
+              --players=1000                simulated players in total
+              --arrival-rate=50             new players per second
+              --duration=300                run length in seconds
+              --matches=3                   matchmake/play/buy/trade rounds per player
+              --think-ms=500                pause before each move
+              --timeout-ms=30000            wait for a response before counting a timeout
+              --pack=BASIC                  pack bought after each match
+              --user-prefix=load            username prefix (username = prefix-<n>)
+              --password=loadtest123        password of every player
+              --report=load-report.txt      also write the summary to this file
+            """;
+
+    private static final Set<String> OPTIONS = Set.of("url", "players", "arrival-rate", "duration", "matches",
+            "think-ms", "timeout-ms", "pack", "user-prefix", "password", "report");
+
+    public static LoadTestConfig fromArgs(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Unexpected argument '" + arg + "'");
+            }
+            int separator = arg.indexOf('=');
+            String name = arg.substring(2, separator);
+            if (!OPTIONS.contains(name)) {
+                throw new IllegalArgumentException("Unknown option '--" + name + "'");
+            }
+            values.put(name, arg.substring(separator + 1));
+        }
+        LoadTestConfig config = new LoadTestConfig(
+                values.getOrDefault("url", "http://localhost:8080"),
+                Integer.parseInt(values.getOrDefault("players", "1000")),
+                Double.parseDouble(values.getOrDefault("arrival-rate", "50")),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "300"))),
+                Integer.parseInt(values.getOrDefault("matches", "3")),
+                Duration.ofMillis(Long.parseLong(values.getOrDefault("think-ms", "500"))),
+                Duration.ofMillis(Long.parseLong(values.getOrDefault("timeout-ms", "30000"))),
+                values.getOrDefault("pack", "BASIC"),
+                values.getOrDefault("user-prefix", "load"),
+                values.getOrDefault("password", "loadtest123"),
+                values.containsKey("report") ? Path.of(values.get("report")) : null);
+        if (config.players() <= 0 || config.arrivalRate() <= 0 || config.matchesPerPlayer() < 0) {
+            throw new IllegalArgumentException("players and arrival-rate must be positive, matches not negative");
+        }
+        return config;
+    }
+
+    String webSocketUrl() {
+        return baseUrl.replaceFirst("^http", "ws") + "/ws";
+    }
+}
@@ -0,0 +1,380 @@
+package client.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * One simulated player, run on its own virtual thread: registers, logs in, connects, creates a
+ * character, then plays {@link LoadTestConfig#matchesPerPlayer()} rounds of matchmaking, a full
+ * match, a pack purchase and a trade with the last opponent.
+ * <p>
+ * The WebSocket listener only queues incoming messages; this thread reads them, keeps track of
+ * the match and completes the pending {@link Exchange}s, so the player's state has a single
+ * writer. Trade proposals from other players are accepted as they arrive.
+ */
+class SimulatedPlayer implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedPlayer.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String CLOSED = "\u0000CLOSED";
+    // Every player owns one copy from the starter deck; swapping it keeps the collections valid
+    private static final String TRADED_CARD = "basic-0";
+
+    private final LoadGenerator generator;
+    private final LoadTestConfig config;
+    private final LatencyRecorder recorder;
+    private final HttpClient httpClient;
+    private final String username;
+
+    private final LinkedBlockingQueue<String> inbox = new LinkedBlockingQueue<>();
+    private final Map<Exchange, Long> pending = new EnumMap<>(Exchange.class);
+    private Exchange lastSent;
+    private WebSocket webSocket;
+
+    // Match state, from the server's UPDATE messages
+    private String matchId;
+    private boolean gameOver = true;
+    private String currentTurnPlayerId;
+    private String opponentId;
+    private final List<String> hand = new ArrayList<>();
+    private final Set<String> unaffordable = new HashSet<>();
+    private String playedCard;
+
+    SimulatedPlayer(LoadGenerator generator, LoadTestConfig config, LatencyRecorder recorder,
+                    HttpClient httpClient, int index) {
+        this.generator = generator;
+        this.config = config;
+        this.recorder = recorder;
+        this.httpClient = httpClient;
+        this.username = config.userPrefix() + "-" + index;
+    }
+
+    @Override
+    public void run() {
+        boolean completed = false;
+        try {
+            String token = login();
+            connect(token);
+            if (!exchange(Exchange.CHARACTER_SETUP, "CHARACTER_SETUP:" + username + ":Human:Warrior")) {
+                return;
+            }
+            for (int round = 0; round < config.matchesPerPlayer() && generator.isRunning(); round++) {
+                if (!playMatch()) {
+                    return;
+                }
+                generator.matchPlayed();
+                exchange(Exchange.BUY_PACK, "STORE:BUY:" + config.packType());
+                if (opponentId != null) {
+                    exchange(Exchange.PROPOSE_TRADE, "TRADE:PROPOSE:" + opponentId + ":" + TRADED_CARD + ":" + TRADED_CARD);
+                }
+            }
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.debug("[{}] stopped: {}", username, e.getMessage(), e);
+        } finally {
+            pending.keySet().forEach(recorder::recordTimeout);
+            if (webSocket != null) {
+                try {
+                    webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "Load test finished").get(1, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    logger.debug("[{}] close failed: {}", username, e.getMessage());
+                }
+                webSocket.abort();
+            }
+            generator.playerFinished(completed);
+        }
+    }
+
+    private String login() throws IOException, InterruptedException {
+        String credentials = objectMapper.createObjectNode()
+                .put("username", username)
+                .put("password", config.password())
+                .put("playerId", username)
+                .toString();
+
+        long start = System.nanoTime();
+        HttpResponse<String> registered = post(Exchange.REGISTER, "/api/auth/register", credentials);
+        // 409: registered by an earlier run with the same user prefix
+        if (registered.statusCode() == 200 || registered.statusCode() == 409) {
+            recorder.recordSuccess(Exchange.REGISTER, start);
+        } else {
+            recorder.recordError(Exchange.REGISTER);
+            throw new IOException("register returned HTTP " + registered.statusCode());
+        }
+
+        start = System.nanoTime();
+        HttpResponse<String> loggedIn = post(Exchange.LOGIN, "/api/auth/login", credentials);
+        JsonNode token = loggedIn.statusCode() == 200 ? objectMapper.readTree(loggedIn.body()).get("token") : null;
+        if (token == null) {
+            recorder.recordError(Exchange.LOGIN);
+            throw new IOException("login returned HTTP " + loggedIn.statusCode());
+        }
+        recorder.recordSuccess(Exchange.LOGIN, start);
+        return token.asText();
+    }
+
+    private HttpResponse<String> post(Exchange exchange, String path, String json)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(config.baseUrl() + path))
+                .timeout(config.responseTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (HttpTimeoutException e) {
+            recorder.recordTimeout(exchange);
+            throw e;
+        } catch (IOException e) {
+            recorder.recordError(exchange);
+            throw e;
+        }
+    }
+
+    private void connect(String token) throws Exception {
+        pending.put(Exchange.CONNECT, System.nanoTime());
+        URI uri = URI.create(config.webSocketUrl() + "?token=" + URLEncoder.encode(token, StandardCharsets.UTF_8));
+        try {
+            webSocket = httpClient.newWebSocketBuilder()
+                    .buildAsync(uri, new Listener())
+                    .get(config.responseTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            pending.remove(Exchange.CONNECT);
+            recorder.recordError(Exchange.CONNECT);
+            throw new IOException("WebSocket handshake failed", e.getCause());
+        }
+        if (!await(() -> !pending.containsKey(Exchange.CONNECT), config.responseTimeout())) {
+            pending.remove(Exchange.CONNECT);
+            recorder.recordTimeout(Exchange.CONNECT);
+            throw new IOException("no SUCCESS:CONNECTED");
+        }
+    }
+
+    /**
+     * Enters matchmaking and plays the match until it ends.
+     *
+     * @return false if no match started, or the match stalled
+     */
+    private boolean playMatch() throws Exception {
+        gameOver = false;
+        matchId = null;
+        if (!exchange(Exchange.MATCHMAKING, "MATCHMAKING:ENTER") || matchId == null) {
+            return false;
+        }
+        while (!gameOver && generator.isRunning()) {
+            // Turns of an idle player run out on the server's turn timer, so a silence longer than the timeout means trouble
+            if (!await(() -> gameOver || isPlayableTurn(), config.responseTimeout())) {
+                return false;
+            }
+            if (gameOver) {
+                break;
+            }
+            Thread.sleep(config.thinkTime().toMillis());
+            playCard();
+        }
+        return true;
+    }
+
+    private boolean isPlayableTurn() {
+        return username.equals(currentTurnPlayerId) && hand.stream().anyMatch(card -> !unaffordable.contains(card));
+    }
+
+    private void playCard() throws Exception {
+        String card = hand.stream().filter(c -> !unaffordable.contains(c)).findFirst().orElse(null);
+        if (card == null || !username.equals(currentTurnPlayerId)) {
+            return;
+        }
+        playedCard = card;
+        exchange(Exchange.PLAY_CARD, "PLAY_CARD:" + matchId + ":" + card);
+    }
+
+    /**
+     * Sends a command and waits until its response arrived or the response timeout passed.
+     *
+     * @return false on timeout
+     */
+    private boolean exchange(Exchange exchange, String command) throws InterruptedException, IOException {
+        pending.put(exchange, System.nanoTime());
+        lastSent = exchange;
+        send(command);
+        if (await(() -> !pending.containsKey(exchange), config.responseTimeout())) {
+            return true;
+        }
+        pending.remove(exchange);
+        recorder.recordTimeout(exchange);
+        return false;
+    }
+
+    /**
+     * Processes incoming messages until the condition holds.
+     *
+     * @return false if the condition still does not hold after {@code timeout} without messages
+     * @throws IOException if the connection closed
+     */
+    private boolean await(BooleanSupplier condition, Duration timeout) throws InterruptedException, IOException {
+        while (!condition.getAsBoolean()) {
+            String message = inbox.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (message == null) {
+                return false;
+            }
+            if (message.equals(CLOSED)) {
+                throw new IOException("connection closed");
+            }
+            observe(message);
+        }
+        return true;
+    }
+
+    private void observe(String message) {
+        String[] parts = message.split(":");
+        if (message.startsWith("SUCCESS:CONNECTED")) {
+            succeed(Exchange.CONNECT);
+        } else if (message.startsWith("SUCCESS:Character created") || message.startsWith("ERROR:Character already exists")) {
+            succeed(Exchange.CHARACTER_SETUP);
+        } else if (message.startsWith("UPDATE:GAME_START:") && parts.length > 2) {
+            matchId = parts[2];
+            hand.clear();
+            currentTurnPlayerId = null;
+            succeed(Exchange.MATCHMAKING);
+        } else if (message.startsWith("UPDATE:DRAW_CARDS:")) {
+            hand.clear();
+            if (parts.length > 2 && !parts[2].isBlank()) {
+                hand.addAll(List.of(parts[2].split(",")));
+            }
+        } else if (message.startsWith("UPDATE:NEW_TURN:") && parts.length > 2) {
+            currentTurnPlayerId = parts[2];
+            unaffordable.clear();
+            if (!username.equals(currentTurnPlayerId)) {
+                opponentId = currentTurnPlayerId;
+            }
+        } else if (message.startsWith("UPDATE:ACTION:")) {
+            if (pending.containsKey(Exchange.PLAY_CARD)) {
+                hand.remove(playedCard);
+                succeed(Exchange.PLAY_CARD);
+            }
+        } else if (message.startsWith("UPDATE:GAME_OVER")) {
+            gameOver = true;
+        } else if (message.startsWith("SUCCESS:Pack purchased")) {
+            succeed(Exchange.BUY_PACK);
+        } else if (message.startsWith("SUCCESS:Trade proposal sent")) {
+            succeed(Exchange.PROPOSE_TRADE);
+        } else if (message.startsWith("UPDATE:TRADE_PROPOSAL:") && parts.length > 2) {
+            pending.put(Exchange.ACCEPT_TRADE, System.nanoTime());
+            send("TRADE:ACCEPT:" + parts[2]);
+        } else if (message.startsWith("UPDATE:TRADE_COMPLETE")) {
+            if (message.contains("SUCCESS")) {
+                succeed(Exchange.ACCEPT_TRADE);
+            } else {
+                fail(Exchange.ACCEPT_TRADE);
+            }
+        } else if (message.startsWith("ERROR:")) {
+            onError(message);
+        }
+    }
+
+    private void onError(String message) {
+        if (message.toLowerCase().contains("trade")) {
+            fail(lastSent == Exchange.PROPOSE_TRADE && pending.containsKey(Exchange.PROPOSE_TRADE)
+                    ? Exchange.PROPOSE_TRADE : Exchange.ACCEPT_TRADE);
+            return;
+        }
+        if (lastSent == Exchange.PLAY_CARD && pending.containsKey(Exchange.PLAY_CARD)) {
+            // Rule rejections are part of playing, not server failures, and are not timed
+            if (message.startsWith("ERROR:INSUFFICIENT_RESOURCE")) {
+                unaffordable.add(playedCard);
+                pending.remove(Exchange.PLAY_CARD);
+                return;
+            }
+            if (message.startsWith("ERROR:NOT_YOUR_TURN") || message.startsWith("ERROR:You must wait")) {
+                currentTurnPlayerId = null;
+                pending.remove(Exchange.PLAY_CARD);
+                return;
+            }
+            if (message.startsWith("ERROR:Card not in hand")) {
+                hand.remove(playedCard);
+            }
+        }
+        if (lastSent != null) {
+            fail(lastSent);
+        }
+    }
+
+    /**
+     * Sends a text frame and waits until it is written, as the WebSocket allows one send at a time.
+     */
+    private void send(String command) {
+        webSocket.sendText(command, true).join();
+    }
+
+    private void succeed(Exchange exchange) {
+        Long start = pending.remove(exchange);
+        if (start != null) {
+            recorder.recordSuccess(exchange, start);
+        }
+    }
+
+    private void fail(Exchange exchange) {
+        if (pending.remove(exchange) != null) {
+            recorder.recordError(exchange);
+        }
+    }
+
+    private final class Listener implements WebSocket.Listener {
+
+        private final StringBuilder buffer = new StringBuilder();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+            buffer.append(data);
+            if (last) {
+                // The server writes lines, and several can share a frame
+                for (String line : buffer.toString().split("\n")) {
+                    if (!line.isBlank()) {
+                        inbox.add(line.strip());
+                    }
+                }
+                buffer.setLength(0);
+            }
+            return WebSocket.Listener.super.onText(ws, data, last);
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+            inbox.add(CLOSED);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket ws, Throwable error) {
+            logger.debug("[{}] WebSocket error: {}", username, error.getMessage());
+            inbox.add(CLOSED);
+        }
+    }
+}
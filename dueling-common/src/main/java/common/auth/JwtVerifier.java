@@ -0,0 +1,105 @@
+package common.auth;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Checks HS256-signed JWTs with a signing key and parser built once, and remembers the
+ * tokens it has accepted so a client sending the same token on every request pays for the
+ * signature check only once.
+ * <p>
+ * Accepted tokens are cached by the SHA-256 digest of the token, so the cache does not
+ * hold the bearer credentials themselves. The cache is bounded to {@code maxEntries}
+ * tokens; an entry is dropped once its token expires and after {@link #MAX_CACHE_AGE}
+ * at the latest, so tokens without an {@code exp} claim are checked again periodically.
+ * Rejected tokens are never cached.
+ */
+public class JwtVerifier {
+
+    public static final Duration MAX_CACHE_AGE = Duration.ofMinutes(15);
+
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final Cache<ByteBuffer, VerifiedToken> verified;
+    private final Clock clock;
+
+    public JwtVerifier(String secret, long maxEntries) {
+        this(secret, maxEntries, Clock.systemUTC());
+    }
+
+    JwtVerifier(String secret, long maxEntries, Clock clock) {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.clock = clock;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .setClock(() -> Date.from(clock.instant()))
+                .build();
+        this.verified = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(MAX_CACHE_AGE)
+                .build();
+    }
+
+    /**
+     * @return the key tokens are verified with, for issuing new ones
+     */
+    public Key signingKey() {
+        return signingKey;
+    }
+
+    /**
+     * Verifies a token's signature and expiry.
+     *
+     * @return the token's claims
+     * @throws JwtException if the token is malformed, badly signed or expired
+     * @throws IllegalArgumentException if the token is null or empty
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT token is empty");
+        }
+        ByteBuffer digest = digest(token);
+        VerifiedToken cached = verified.getIfPresent(digest);
+        if (cached != null) {
+            if (!cached.isExpiredAt(clock.instant())) {
+                return cached;
+            }
+            // Parsed again below, which reports the expiry like any other expired token
+            verified.invalidate(digest);
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        VerifiedToken accepted = new VerifiedToken(claims);
+        verified.put(digest, accepted);
+        return accepted;
+    }
+
+    long cachedTokens() {
+        verified.cleanUp();
+        return verified.size();
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            // MessageDigest is not thread-safe; getInstance is cheap next to a cache miss
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
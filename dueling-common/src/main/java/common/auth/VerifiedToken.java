@@ -0,0 +1,84 @@
+package common.auth;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.function.Function;
+
+/**
+ * The claims of a JWT whose signature {@link JwtVerifier} has checked, shared by every
+ * request carrying the same token while it stays in the verifier's cache.
+ */
+public final class VerifiedToken {
+
+    /** Player id of the token's user, added by the server when it issues the token */
+    public static final String PLAYER_ID_CLAIM = "playerId";
+
+    private static final String ROLES_CLAIM = "roles";
+
+    private final Claims claims;
+    private final Instant expiresAt;
+    private volatile String playerId;
+
+    VerifiedToken(Claims claims) {
+        this.claims = claims;
+        Date expiration = claims.getExpiration();
+        this.expiresAt = expiration != null ? expiration.toInstant() : null;
+        this.playerId = claims.get(PLAYER_ID_CLAIM, String.class);
+    }
+
+    /**
+     * @return the username the token was issued to
+     */
+    public String subject() {
+        return claims.getSubject();
+    }
+
+    /**
+     * @return the comma-separated roles claim, or {@code defaultRoles} if the token has none
+     */
+    public String roles(String defaultRoles) {
+        String roles = claims.get(ROLES_CLAIM, String.class);
+        return roles != null ? roles : defaultRoles;
+    }
+
+    /**
+     * @return when the token expires, or {@code null} if it has no {@code exp} claim
+     */
+    public Instant expiresAt() {
+        return expiresAt;
+    }
+
+    public Claims claims() {
+        return claims;
+    }
+
+    boolean isExpiredAt(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+
+    /**
+     * @return the player id carried in the token, or {@code null} for tokens issued without one
+     */
+    public String playerIdClaim() {
+        return claims.get(PLAYER_ID_CLAIM, String.class);
+    }
+
+    /**
+     * Returns the player id of the token's user: the one carried in the token, or else the
+     * one found by username on the first call. A {@code null} result is not remembered, so
+     * a user created later is found on the next call.
+     *
+     * @param lookup maps a username to its player id, or {@code null} if there is no such user
+     */
+    public String playerId(Function<String, String> lookup) {
+        String resolved = playerId;
+        if (resolved == null) {
+            // Concurrent first calls may both look up; they resolve the same id
+            resolved = lookup.apply(subject());
+            playerId = resolved;
+        }
+        return resolved;
+    }
+}
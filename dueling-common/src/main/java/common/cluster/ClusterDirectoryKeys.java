@@ -0,0 +1,24 @@
+package common.cluster;
+
+/**
+ * Redis hashes through which the servers publish where players and matches are hosted, and
+ * the channel through which they announce that they are alive, read by the gateway to route
+ * connections. Keys, values and messages are plain UTF-8 strings.
+ */
+public final class ClusterDirectoryKeys {
+
+    /** Player ID to the ID of the match the player is in */
+    public static final String PLAYER_MATCH = "cluster_directory:player_match";
+
+    /** Match ID to the URL of the node hosting the match, as in the server registry */
+    public static final String MATCH_OWNER = "cluster_directory:match_owner";
+
+    /** Match ID to the number of times the match was claimed, which fences off snapshots of earlier owners */
+    public static final String MATCH_EPOCH = "cluster_directory:match_epoch";
+
+    /** Channel on which every server publishes its heartbeat, a JSON object with its {@code node} URL */
+    public static final String HEARTBEAT_CHANNEL = "cluster-heartbeats";
+
+    private ClusterDirectoryKeys() {
+    }
+}
@@ -0,0 +1,120 @@
+package common.cluster;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring mapping keys such as player IDs to cluster nodes.
+ * <p>
+ * Every node is placed on the ring at {@code virtualNodes} points, and a key belongs to the
+ * node at the first point at or after the key's hash. Adding or removing a node therefore
+ * only moves the keys in the ranges next to that node's points, about {@code 1/n} of them,
+ * and the virtual nodes spread each node's share evenly. The gateway and the servers build
+ * their rings from the same node URLs, so they agree on every key's owner.
+ * <p>
+ * A ring is built once per membership change; {@link #nodeFor} is a binary search over a
+ * sorted array and does not allocate.
+ */
+public final class ConsistentHashRing {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private static final ConsistentHashRing EMPTY = new ConsistentHashRing(Set.of(), DEFAULT_VIRTUAL_NODES);
+
+    private final Set<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be at least 1");
+        }
+        // Sorted, so equal memberships build identical rings whatever the input order
+        TreeSet<String> members = new TreeSet<>(nodes);
+        this.nodes = Set.copyOf(members);
+
+        int size = members.size() * virtualNodes;
+        long[] hashes = new long[size];
+        String[] hashOwners = new String[size];
+        int i = 0;
+        for (String node : members) {
+            for (int v = 0; v < virtualNodes; v++) {
+                hashes[i] = hash(node + "#" + v);
+                hashOwners[i] = node;
+                i++;
+            }
+        }
+
+        Integer[] order = new Integer[size];
+        for (int j = 0; j < size; j++) {
+            order[j] = j;
+        }
+        // Ties between points of different nodes are broken by node name
+        Arrays.sort(order, (a, b) -> hashes[a] != hashes[b]
+                ? Long.compare(hashes[a], hashes[b])
+                : hashOwners[a].compareTo(hashOwners[b]));
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int j = 0; j < size; j++) {
+            points[j] = hashes[order[j]];
+            owners[j] = hashOwners[order[j]];
+        }
+    }
+
+    public static ConsistentHashRing of(Collection<String> nodes) {
+        return nodes.isEmpty() ? EMPTY : new ConsistentHashRing(nodes, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public static ConsistentHashRing empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return the node owning the key, or {@code null} if the ring has no nodes
+     */
+    public String nodeFor(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        long h = hash(key);
+        int index = Arrays.binarySearch(points, h);
+        if (index < 0) {
+            index = -index - 1;
+        } else {
+            // Several points may share the hash; take the first of them
+            while (index > 0 && points[index - 1] == h) {
+                index--;
+            }
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public Set<String> nodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    public boolean contains(String node) {
+        return nodes.contains(node);
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units, finished with the SplitMix64 mixer so
+     * that similar keys such as {@code player-1} and {@code player-2} land far apart.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
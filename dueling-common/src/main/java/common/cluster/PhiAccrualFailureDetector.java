@@ -0,0 +1,110 @@
+package common.cluster;
+
+import java.time.Duration;
+
+/**
+ * Phi-accrual failure detector for the heartbeats of one node (Hayashibara et al.).
+ * <p>
+ * Instead of declaring a node dead after a fixed number of missed heartbeats, the detector
+ * keeps a window of the recent intervals between heartbeats and reports {@code phi}: the
+ * suspicion that the node is down given how long it has now been silent, on a log10 scale.
+ * {@code phi = 1} means a heartbeat this late would be seen 10% of the time, {@code phi = 8}
+ * once in 10^8. A node whose heartbeats are regular is suspected soon after it stops; one
+ * whose heartbeats jitter gets more slack.
+ * <p>
+ * {@code minStdDeviation} keeps perfectly regular heartbeats from making the detector
+ * hair-triggered, and {@code acceptablePause} is added to the expected interval to tolerate
+ * pauses such as garbage collection. Until a second heartbeat arrives the interval is
+ * estimated as {@code firstHeartbeatEstimate}. Times are in milliseconds from one clock;
+ * pass the time a heartbeat was received, not the time it was sent, so clock skew between
+ * nodes does not matter.
+ */
+public final class PhiAccrualFailureDetector {
+
+    private final long[] intervals;
+    private final double minStdDeviation;
+    private final double acceptablePause;
+    private int count;
+    private int next;
+    private double sum;
+    private double sumOfSquares;
+    private long lastHeartbeat = -1;
+
+    public PhiAccrualFailureDetector(int maxSampleSize, Duration minStdDeviation, Duration acceptablePause,
+                                     Duration firstHeartbeatEstimate) {
+        if (maxSampleSize < 1) {
+            throw new IllegalArgumentException("maxSampleSize must be at least 1");
+        }
+        if (minStdDeviation.isNegative() || minStdDeviation.isZero()) {
+            throw new IllegalArgumentException("minStdDeviation must be positive");
+        }
+        this.intervals = new long[maxSampleSize];
+        this.minStdDeviation = minStdDeviation.toMillis();
+        this.acceptablePause = acceptablePause.toMillis();
+        // Seed with two samples around the estimate, so the first phi has a mean and a deviation
+        long estimate = firstHeartbeatEstimate.toMillis();
+        long deviation = estimate / 4;
+        addInterval(estimate - deviation);
+        addInterval(estimate + deviation);
+    }
+
+    /**
+     * Records a heartbeat received at {@code nowMillis}.
+     */
+    public synchronized void heartbeat(long nowMillis) {
+        if (lastHeartbeat >= 0) {
+            long interval = nowMillis - lastHeartbeat;
+            if (interval >= 0) {
+                addInterval(interval);
+            }
+        }
+        lastHeartbeat = nowMillis;
+    }
+
+    /**
+     * @return the suspicion level at {@code nowMillis}; 0 before the first heartbeat
+     */
+    public synchronized double phi(long nowMillis) {
+        if (lastHeartbeat < 0) {
+            return 0.0;
+        }
+        double mean = sum / count + acceptablePause;
+        double variance = sumOfSquares / count - (sum / count) * (sum / count);
+        double stdDeviation = Math.max(Math.sqrt(Math.max(variance, 0.0)), minStdDeviation);
+        return phi(nowMillis - lastHeartbeat, mean, stdDeviation);
+    }
+
+    /**
+     * @return whether the suspicion level at {@code nowMillis} is below {@code threshold}
+     */
+    public boolean isAvailable(long nowMillis, double threshold) {
+        return phi(nowMillis) < threshold;
+    }
+
+    /**
+     * -log10 of the probability that a heartbeat comes later than {@code elapsed}, with the
+     * normal distribution approximated by a logistic function so the tail stays finite.
+     */
+    static double phi(double elapsed, double mean, double stdDeviation) {
+        double y = (elapsed - mean) / stdDeviation;
+        double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+        if (elapsed > mean) {
+            return -Math.log10(e / (1.0 + e));
+        }
+        return -Math.log10(1.0 - 1.0 / (1.0 + e));
+    }
+
+    private void addInterval(long interval) {
+        if (count == intervals.length) {
+            long evicted = intervals[next];
+            sum -= evicted;
+            sumOfSquares -= (double) evicted * evicted;
+        } else {
+            count++;
+        }
+        intervals[next] = interval;
+        next = (next + 1) % intervals.length;
+        sum += interval;
+        sumOfSquares += (double) interval * interval;
+    }
+}
@@ -0,0 +1,120 @@
+package common.auth;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JwtVerifierTest {
+
+    private static final String SECRET = "mySecretKeyForDuelingProtocolThatShouldBeLongerThan256Bits";
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T12:00:00Z"));
+    private final JwtVerifier verifier = new JwtVerifier(SECRET, 100, clock);
+
+    @Test
+    void returnsTheCachedClaimsForARepeatedToken() {
+        String token = token("alice", Duration.ofHours(1));
+
+        VerifiedToken first = verifier.verify(token);
+
+        assertThat(first.subject()).isEqualTo("alice");
+        assertThat(first.roles("USER")).isEqualTo("USER");
+        assertThat(verifier.verify(token)).isSameAs(first);
+        assertThat(verifier.cachedTokens()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotCacheRejectedTokens() {
+        JwtVerifier otherSecret = new JwtVerifier(SECRET + "-rotated", 100, clock);
+        String forged = Jwts.builder()
+                .setSubject("mallory")
+                .setExpiration(Date.from(clock.instant().plus(Duration.ofHours(1))))
+                .signWith(otherSecret.signingKey(), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThatThrownBy(() -> verifier.verify(forged)).isInstanceOf(SignatureException.class);
+        assertThatThrownBy(() -> verifier.verify(forged)).isInstanceOf(SignatureException.class);
+        assertThat(verifier.cachedTokens()).isZero();
+    }
+
+    @Test
+    void rejectsACachedTokenOnceItExpires() {
+        String token = token("alice", Duration.ofMinutes(1));
+        verifier.verify(token);
+
+        clock.advance(Duration.ofMinutes(2));
+
+        assertThatThrownBy(() -> verifier.verify(token)).isInstanceOf(ExpiredJwtException.class);
+        assertThat(verifier.cachedTokens()).isZero();
+    }
+
+    @Test
+    void looksUpThePlayerIdOncePerToken() {
+        String token = token("alice", Duration.ofHours(1));
+        AtomicInteger lookups = new AtomicInteger();
+
+        assertThat(verifier.verify(token).playerId(username -> {
+            lookups.incrementAndGet();
+            return null;
+        })).isNull();
+        for (int i = 0; i < 3; i++) {
+            assertThat(verifier.verify(token).playerId(username -> {
+                lookups.incrementAndGet();
+                return "player-" + username;
+            })).isEqualTo("player-alice");
+        }
+
+        // The miss is retried, the hit is remembered
+        assertThat(lookups).hasValue(2);
+    }
+
+    private String token(String username, Duration validFor) {
+        return Jwts.builder()
+                .setSubject(username)
+                .setIssuedAt(Date.from(clock.instant()))
+                .setExpiration(Date.from(clock.instant().plus(validFor)))
+                .signWith(verifier.signingKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package common.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConsistentHashRingTest {
+
+    private static final List<String> NODES = List.of(
+            "http://server-1:8080", "http://server-2:8080", "http://server-3:8080", "http://server-4:8080");
+
+    @Test
+    void buildsTheSameRingWhateverTheNodeOrder() {
+        ConsistentHashRing ring = ConsistentHashRing.of(NODES);
+        ConsistentHashRing reversed = ConsistentHashRing.of(NODES.reversed());
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(reversed.nodeFor("player-" + i)).isEqualTo(ring.nodeFor("player-" + i));
+        }
+    }
+
+    @Test
+    void onlyMovesTheKeysOfARemovedNode() {
+        ConsistentHashRing ring = ConsistentHashRing.of(NODES);
+        ConsistentHashRing shrunk = ConsistentHashRing.of(NODES.subList(0, 3));
+
+        for (int i = 0; i < 10_000; i++) {
+            String key = "player-" + i;
+            String owner = ring.nodeFor(key);
+            if (!owner.equals("http://server-4:8080")) {
+                assertThat(shrunk.nodeFor(key)).isEqualTo(owner);
+            }
+        }
+    }
+
+    @Test
+    void spreadsKeysEvenlyAcrossNodes() {
+        ConsistentHashRing ring = ConsistentHashRing.of(NODES);
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < 40_000; i++) {
+            counts.merge(ring.nodeFor("player-" + i), 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(4);
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(8_000, 12_000));
+    }
+
+    @Test
+    void hasNoOwnerWithoutNodes() {
+        assertThat(ConsistentHashRing.empty().nodeFor("player-1")).isNull();
+    }
+}
@@ -0,0 +1,64 @@
+package common.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PhiAccrualFailureDetectorTest {
+
+    private static final double THRESHOLD = 8.0;
+
+    private static PhiAccrualFailureDetector detector() {
+        return new PhiAccrualFailureDetector(100, Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250));
+    }
+
+    @Test
+    void suspectsNothingBeforeTheFirstHeartbeat() {
+        assertThat(detector().phi(10_000)).isZero();
+    }
+
+    @Test
+    void suspectsANodeWithinASecondOfItsLastRegularHeartbeat() {
+        PhiAccrualFailureDetector detector = detector();
+        long now = 0;
+        for (int i = 0; i < 50; i++) {
+            detector.heartbeat(now);
+            now += 250;
+        }
+        long last = now - 250;
+
+        assertThat(detector.isAvailable(last + 300, THRESHOLD)).isTrue();
+        assertThat(detector.isAvailable(last + 1_000, THRESHOLD)).isFalse();
+        assertThat(detector.phi(last + 600)).isLessThan(detector.phi(last + 800));
+    }
+
+    @Test
+    void givesJitteryHeartbeatsMoreSlack() {
+        PhiAccrualFailureDetector regular = detector();
+        PhiAccrualFailureDetector jittery = detector();
+        long regularNow = 0;
+        long jitteryNow = 0;
+        for (int i = 0; i < 50; i++) {
+            regular.heartbeat(regularNow);
+            jittery.heartbeat(jitteryNow);
+            regularNow += 250;
+            jitteryNow += i % 2 == 0 ? 50 : 450;
+        }
+
+        assertThat(jittery.phi(jitteryNow + 500)).isLessThan(regular.phi(regularNow + 500));
+    }
+
+    @Test
+    void recoversOnceHeartbeatsResume() {
+        PhiAccrualFailureDetector detector = detector();
+        detector.heartbeat(0);
+        detector.heartbeat(250);
+        assertThat(detector.isAvailable(2_000, THRESHOLD)).isFalse();
+
+        detector.heartbeat(2_000);
+
+        assertThat(detector.isAvailable(2_100, THRESHOLD)).isTrue();
+    }
+}
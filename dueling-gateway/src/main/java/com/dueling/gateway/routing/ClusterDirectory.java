@@ -0,0 +1,65 @@
+package com.dueling.gateway.routing;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import common.cluster.ClusterDirectoryKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Reads the cluster directory the servers keep in Redis (see {@link ClusterDirectoryKeys})
+ * without blocking the gateway's event loop.
+ * <p>
+ * Answers are cached for {@code gateway.affinity.cache-ttl}, including "not in a match",
+ * which is what most handshakes get. Concurrent handshakes of the same player share one
+ * lookup. A lookup taking longer than {@code gateway.affinity.lookup-timeout}, or failing,
+ * answers "unknown" so the caller falls back to hashing instead of holding up the
+ * handshake.
+ */
+@Component
+public class ClusterDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterDirectory.class);
+
+    private final ReactiveHashOperations<String, String, String> hashes;
+    private final Duration lookupTimeout;
+    private final Cache<String, Mono<String>> matchHosts;
+
+    public ClusterDirectory(ReactiveStringRedisTemplate redisTemplate,
+                            @Value("${gateway.affinity.lookup-timeout:50ms}") Duration lookupTimeout,
+                            @Value("${gateway.affinity.cache-ttl:2s}") Duration cacheTtl,
+                            @Value("${gateway.affinity.cache-size:10000}") long cacheSize) {
+        this.hashes = redisTemplate.opsForHash();
+        this.lookupTimeout = lookupTimeout;
+        this.matchHosts = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    /**
+     * @return the URL of the node hosting the player's current match, or empty if the player
+     *         is not in a match or the directory could not be read in time
+     */
+    public Mono<String> findMatchHost(String playerId) {
+        return matchHosts.asMap().computeIfAbsent(playerId, this::lookupMatchHost);
+    }
+
+    private Mono<String> lookupMatchHost(String playerId) {
+        return hashes.get(ClusterDirectoryKeys.PLAYER_MATCH, playerId)
+                .flatMap(matchId -> hashes.get(ClusterDirectoryKeys.MATCH_OWNER, matchId))
+                .timeout(lookupTimeout)
+                .onErrorResume(e -> {
+                    logger.debug("Cluster directory lookup for player {} failed: {}", playerId, e.toString());
+                    return Mono.empty();
+                })
+                .cache();
+    }
+}
@@ -0,0 +1,157 @@
+package com.dueling.gateway.routing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import common.cluster.ClusterDirectoryKeys;
+import common.cluster.ConsistentHashRing;
+import common.cluster.PhiAccrualFailureDetector;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The servers that are alive, and the {@link ConsistentHashRing} over them that decides which
+ * server owns each player's data.
+ * <p>
+ * The gateway listens to the heartbeats the servers publish on
+ * {@link ClusterDirectoryKeys#HEARTBEAT_CHANNEL}, the same heartbeats each server builds its
+ * own ring from, so both sides hash a player to the same server. Each server is tracked with a
+ * {@link PhiAccrualFailureDetector} configured like the servers' ({@code cluster.membership.*})
+ * and dropped once suspected, or at once when it announces it is leaving. Until a heartbeat
+ * is heard, for example while Redis cannot be reached, the ring spans {@code gateway.affinity.nodes}.
+ */
+@Component
+public class ClusterMembership {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterMembership.class);
+    private static final int MAX_SAMPLE_SIZE = 200;
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Set<String> configuredNodes;
+    private final Duration heartbeatInterval;
+    private final double phiThreshold;
+    private final Duration minStdDeviation;
+    private final Duration acceptablePause;
+    private final Map<String, PhiAccrualFailureDetector> detectors = new ConcurrentHashMap<>();
+    private volatile ConsistentHashRing ring;
+    private Disposable subscription;
+
+    public ClusterMembership(ReactiveStringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                             @Value("${gateway.affinity.nodes:}") List<String> nodes,
+                             @Value("${cluster.membership.heartbeat-interval:250ms}") Duration heartbeatInterval,
+                             @Value("${cluster.membership.phi-threshold:8.0}") double phiThreshold,
+                             @Value("${cluster.membership.min-std-deviation:100ms}") Duration minStdDeviation,
+                             @Value("${cluster.membership.acceptable-pause:100ms}") Duration acceptablePause) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.configuredNodes = nodes.stream()
+                .map(String::trim)
+                .filter(node -> !node.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.heartbeatInterval = heartbeatInterval;
+        this.phiThreshold = phiThreshold;
+        this.minStdDeviation = minStdDeviation;
+        this.acceptablePause = acceptablePause;
+        this.ring = ConsistentHashRing.of(configuredNodes);
+        logger.info("Player affinity routing across {} until a server heartbeat is heard", ring.nodes());
+    }
+
+    @PostConstruct
+    public void start() {
+        // Deferred so a Redis that cannot be reached is retried instead of failing startup
+        Flux<?> heartbeats = Flux.defer(() -> redisTemplate.listenToChannel(ClusterDirectoryKeys.HEARTBEAT_CHANNEL))
+                .doOnNext(message -> onHeartbeat(message.getMessage(), nowMillis()))
+                .doOnError(e -> logger.debug("Heartbeat subscription failed, retrying: {}", e.toString()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)));
+        Flux<?> checks = Flux.interval(heartbeatInterval)
+                .doOnNext(tick -> evictSuspected(nowMillis()));
+        subscription = Flux.merge(heartbeats, checks).subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * @return the ring over the live servers
+     */
+    public ConsistentHashRing ring() {
+        return ring;
+    }
+
+    void onHeartbeat(String message, long nowMillis) {
+        String node;
+        boolean leaving;
+        try {
+            JsonNode heartbeat = objectMapper.readTree(message);
+            node = heartbeat.path("node").asText(null);
+            leaving = heartbeat.path("leaving").asBoolean(false);
+        } catch (Exception e) {
+            logger.warn("Discarding malformed heartbeat: {}", message);
+            return;
+        }
+        if (node == null) {
+            return;
+        }
+        if (leaving) {
+            if (detectors.remove(node) != null) {
+                logger.info("Server {} left the cluster", node);
+                rebuildRing();
+            }
+            return;
+        }
+        boolean joined = detectors.get(node) == null;
+        detectors.computeIfAbsent(node, n -> new PhiAccrualFailureDetector(MAX_SAMPLE_SIZE, minStdDeviation,
+                acceptablePause, heartbeatInterval)).heartbeat(nowMillis);
+        if (joined) {
+            logger.info("Server {} joined the cluster", node);
+            rebuildRing();
+        }
+    }
+
+    void evictSuspected(long nowMillis) {
+        boolean changed = false;
+        for (Map.Entry<String, PhiAccrualFailureDetector> entry : detectors.entrySet()) {
+            if (!entry.getValue().isAvailable(nowMillis, phiThreshold)
+                    && detectors.remove(entry.getKey(), entry.getValue())) {
+                logger.warn("Server {} stopped sending heartbeats", entry.getKey());
+                changed = true;
+            }
+        }
+        if (changed) {
+            rebuildRing();
+        }
+    }
+
+    private synchronized void rebuildRing() {
+        Set<String> live = Set.copyOf(detectors.keySet());
+        ConsistentHashRing rebuilt = ConsistentHashRing.of(live.isEmpty() ? configuredNodes : live);
+        if (!rebuilt.nodes().equals(ring.nodes())) {
+            ring = rebuilt;
+            logger.info("Player affinity routing across {}", ring.nodes());
+        }
+    }
+
+    private static long nowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
@@ -0,0 +1,106 @@
+package com.dueling.gateway.routing;
+
+import common.auth.JwtVerifier;
+import common.auth.VerifiedToken;
+import common.cluster.ConsistentHashRing;
+import io.jsonwebtoken.JwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+
+/**
+ * Pins a player's connection to the node where the player's state lives, so game commands
+ * do not have to fetch the match or the player from another node.
+ * <p>
+ * A player in a match goes to the node hosting it, as recorded in the {@link ClusterDirectory}.
+ * Any other player goes to the node owning the player's data, found on the
+ * {@link ConsistentHashRing} of the live servers kept by {@link ClusterMembership}, the same
+ * ring the servers use. Requests without a valid token keep the route's URI; the server
+ * rejects them.
+ */
+@Component
+public class PlayerAffinityGatewayFilterFactory extends AbstractGatewayFilterFactory<PlayerAffinityGatewayFilterFactory.Config> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlayerAffinityGatewayFilterFactory.class);
+
+    private final JwtVerifier jwtVerifier;
+    private final ClusterDirectory clusterDirectory;
+    private final ClusterMembership clusterMembership;
+
+    public PlayerAffinityGatewayFilterFactory(JwtVerifier jwtVerifier, ClusterDirectory clusterDirectory,
+                                              ClusterMembership clusterMembership) {
+        super(Config.class);
+        this.jwtVerifier = jwtVerifier;
+        this.clusterDirectory = clusterDirectory;
+        this.clusterMembership = clusterMembership;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        GatewayFilter filter = (exchange, chain) -> {
+            ConsistentHashRing ring = clusterMembership.ring();
+            String playerId = ring.isEmpty() ? null : playerIdOf(exchange.getRequest());
+            if (playerId == null) {
+                return chain.filter(exchange);
+            }
+            return clusterDirectory.findMatchHost(playerId)
+                    .filter(ring::contains)
+                    .defaultIfEmpty(ring.nodeFor(playerId))
+                    .flatMap(node -> {
+                        pinTo(exchange, node);
+                        logger.debug("Routing player {} to {}", playerId, node);
+                        return chain.filter(exchange);
+                    });
+        };
+        // Runs once the route's URI is on the exchange and before the request is proxied
+        return new OrderedGatewayFilter(filter, RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1);
+    }
+
+    private String playerIdOf(ServerHttpRequest request) {
+        String token = request.getQueryParams().getFirst("token");
+        if (token == null) {
+            String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                token = authHeader.substring(7);
+            }
+        }
+        if (token == null) {
+            return null;
+        }
+        try {
+            VerifiedToken verified = jwtVerifier.verify(token);
+            String playerId = verified.playerIdClaim();
+            // Older tokens carry no player id; registration uses the username unless one is given
+            return playerId != null ? playerId : verified.subject();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void pinTo(ServerWebExchange exchange, String node) {
+        URI requestUrl = exchange.getRequiredAttribute(GATEWAY_REQUEST_URL_ATTR);
+        URI nodeUri = URI.create(node);
+        URI pinned = UriComponentsBuilder.fromUri(requestUrl)
+                .host(nodeUri.getHost())
+                .port(nodeUri.getPort())
+                .build(true)
+                .toUri();
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, pinned);
+    }
+
+    public static class Config {
+        // Configuration properties if needed
+    }
+}
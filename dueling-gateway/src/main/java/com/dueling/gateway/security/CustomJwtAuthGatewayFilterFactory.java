@@ -1,12 +1,9 @@
 package com.dueling.gateway.security;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import common.auth.JwtVerifier;
+import common.auth.VerifiedToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.core.io.buffer.DataBuffer;
@@ -18,7 +15,6 @@ import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
 import java.util.List;
 
 @Component
@@ -26,11 +22,11 @@ public class CustomJwtAuthGatewayFilterFactory extends AbstractGatewayFilterFact
 
     private static final Logger logger = LoggerFactory.getLogger(CustomJwtAuthGatewayFilterFactory.class);
     
-    @Value("${jwt.secret:mySecretKeyForDuelingProtocol}")
-    private String jwtSecret;
+    private final JwtVerifier jwtVerifier;
 
-    public CustomJwtAuthGatewayFilterFactory() {
+    public CustomJwtAuthGatewayFilterFactory(JwtVerifier jwtVerifier) {
         super(Config.class);
+        this.jwtVerifier = jwtVerifier;
     }
 
     @Override
@@ -76,17 +72,14 @@ public class CustomJwtAuthGatewayFilterFactory extends AbstractGatewayFilterFact
 
             try {
                 logger.debug("Attempting to validate JWT token for path: {}", request.getURI().getPath());
-                Claims claims = parseJwtClaims(token);
-                logger.debug("JWT token validated successfully for user: {}", claims.getSubject());
+                VerifiedToken verified = jwtVerifier.verify(token);
+                logger.debug("JWT token validated successfully for user: {}", verified.subject());
                 
-                String roles = claims.get("roles", String.class);
-                if (roles == null) {
-                    roles = "USER"; // Default role if not specified in token
-                }
+                String roles = verified.roles("USER"); // Default role if not specified in token
                 
                 // Repassar o cabeçalho Authorization original e adicionar os cabeçalhos customizados
                 ServerHttpRequest.Builder requestBuilder = request.mutate()
-                        .header("X-User-Id", claims.getSubject())
+                        .header("X-User-Id", verified.subject())
                         .header("X-User-Roles", roles);
                 
                 // Se tivermos o cabeçalho Authorization original, repassá-lo também
@@ -122,15 +115,6 @@ public class CustomJwtAuthGatewayFilterFactory extends AbstractGatewayFilterFact
     }
 
 
-    private Claims parseJwtClaims(String token) {
-        Key key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-        Jws<Claims> jws = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token);
-        return jws.getBody();
-    }
-
     public static class Config {
         // Configuration properties if needed
     }
@@ -1,5 +1,7 @@
 package com.dueling.gateway.security;
 
+import common.auth.JwtVerifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
@@ -20,4 +22,14 @@ public class SecurityConfig {
             );
         return http.build();
     }
+
+    /**
+     * Shared by the JWT filter and affinity routing, so a handshake's token is checked once
+     */
+    @Bean
+    public JwtVerifier jwtVerifier(@Value("${jwt.secret:mySecretKeyForDuelingProtocol}") String jwtSecret,
+                                   @Value("${jwt.verified-cache-size:10000}") long verifiedCacheSize) {
+        // Key and parser are built once; clients reusing a token skip the signature check
+        return new JwtVerifier(jwtSecret, verifiedCacheSize);
+    }
 }
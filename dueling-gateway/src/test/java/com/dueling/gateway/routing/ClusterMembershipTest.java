@@ -0,0 +1,60 @@
+package com.dueling.gateway.routing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ClusterMembershipTest {
+
+    private final ClusterMembership membership = new ClusterMembership(mock(ReactiveStringRedisTemplate.class),
+            new ObjectMapper(), List.of("http://seed:8080"), Duration.ofMillis(250), 8.0,
+            Duration.ofMillis(100), Duration.ofMillis(100));
+
+    @Test
+    void spansTheConfiguredNodesUntilAHeartbeatIsHeard() {
+        assertThat(membership.ring().nodes()).containsExactly("http://seed:8080");
+
+        membership.onHeartbeat(heartbeat("http://server-1:8080", false), 0);
+        membership.onHeartbeat(heartbeat("http://server-2:8080", false), 0);
+
+        assertThat(membership.ring().nodes()).containsExactlyInAnyOrder("http://server-1:8080", "http://server-2:8080");
+    }
+
+    @Test
+    void dropsServersThatLeaveOrFallSilent() {
+        for (long now = 0; now <= 1000; now += 250) {
+            membership.onHeartbeat(heartbeat("http://server-1:8080", false), now);
+            membership.onHeartbeat(heartbeat("http://server-2:8080", false), now);
+            membership.onHeartbeat(heartbeat("http://server-3:8080", false), now);
+        }
+
+        membership.onHeartbeat(heartbeat("http://server-3:8080", true), 1000);
+        assertThat(membership.ring().nodes()).containsExactlyInAnyOrder("http://server-1:8080", "http://server-2:8080");
+
+        // server-2 keeps beating, server-1 has been silent for several seconds
+        for (long now = 1250; now <= 5000; now += 250) {
+            membership.onHeartbeat(heartbeat("http://server-2:8080", false), now);
+        }
+        membership.evictSuspected(5000);
+        assertThat(membership.ring().nodes()).containsExactly("http://server-2:8080");
+    }
+
+    @Test
+    void ignoresMalformedHeartbeats() {
+        membership.onHeartbeat("not json", 0);
+        membership.onHeartbeat("{\"activeSessions\":3}", 0);
+
+        assertThat(membership.ring().nodes()).containsExactly("http://seed:8080");
+    }
+
+    private static String heartbeat(String node, boolean leaving) {
+        return "{\"node\":\"" + node + "\",\"activeSessions\":0,\"activeMatches\":0,\"queueDepth\":0,\"leaving\":"
+                + leaving + "}";
+    }
+}
@@ -0,0 +1,98 @@
+package com.dueling.gateway.routing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import common.auth.JwtVerifier;
+import common.auth.VerifiedToken;
+import common.cluster.ConsistentHashRing;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+
+public class PlayerAffinityGatewayFilterFactoryTest {
+
+    private static final List<String> NODES = List.of(
+            "http://server-1:8080", "http://server-2:8080", "http://server-3:8080");
+    private static final URI ROUTE_URL = URI.create("ws://localhost:8083/ws/game?token=");
+
+    private final JwtVerifier jwtVerifier = new JwtVerifier("mySecretKeyForDuelingProtocolThatShouldBeLongerThan256Bits", 100);
+    private final ClusterDirectory clusterDirectory = mock(ClusterDirectory.class);
+    private final ClusterMembership clusterMembership = new ClusterMembership(mock(ReactiveStringRedisTemplate.class),
+            new ObjectMapper(), NODES, Duration.ofMillis(250), 8.0, Duration.ofMillis(100), Duration.ofMillis(100));
+    private final GatewayFilter filter = new PlayerAffinityGatewayFilterFactory(jwtVerifier, clusterDirectory,
+            clusterMembership).apply(new PlayerAffinityGatewayFilterFactory.Config());
+
+    @Test
+    void routesAPlayerInAMatchToTheNodeHostingIt() {
+        when(clusterDirectory.findMatchHost("player-7")).thenReturn(Mono.just("http://server-3:8080"));
+
+        assertThat(route(token("alice", "player-7"))).isEqualTo(URI.create("ws://server-3:8080/ws/game?token=" + token("alice", "player-7")));
+    }
+
+    @Test
+    void routesOtherPlayersToTheOwnerOfTheirData() {
+        when(clusterDirectory.findMatchHost(anyString())).thenReturn(Mono.empty());
+        String owner = ConsistentHashRing.of(NODES).nodeFor("player-7");
+
+        assertThat(route(token("alice", "player-7")).getAuthority()).isEqualTo(URI.create(owner).getAuthority());
+    }
+
+    @Test
+    void ignoresDirectoryEntriesForUnknownNodes() {
+        when(clusterDirectory.findMatchHost("player-7")).thenReturn(Mono.just("http://retired-server:8080"));
+        String owner = ConsistentHashRing.of(NODES).nodeFor("player-7");
+
+        assertThat(route(token("alice", "player-7")).getAuthority()).isEqualTo(URI.create(owner).getAuthority());
+    }
+
+    @Test
+    void routesOnlyToServersThatAreAlive() {
+        when(clusterDirectory.findMatchHost(anyString())).thenReturn(Mono.empty());
+        clusterMembership.onHeartbeat("{\"node\":\"http://server-2:8080\",\"leaving\":false}", 0);
+
+        for (String playerId : List.of("player-1", "player-2", "player-3", "player-7")) {
+            assertThat(route(token("alice", playerId)).getAuthority()).isEqualTo("server-2:8080");
+        }
+    }
+
+    @Test
+    void keepsTheRouteUrlWithoutAValidToken() {
+        assertThat(route("not-a-jwt")).isEqualTo(URI.create(ROUTE_URL + "not-a-jwt"));
+    }
+
+    private URI route(String token) {
+        URI requestUrl = URI.create(ROUTE_URL + token);
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("http://gateway:8080/ws/game?token=" + token).build());
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, requestUrl);
+        GatewayFilterChain chain = ignored -> Mono.empty();
+
+        filter.filter(exchange, chain).block();
+        return exchange.getRequiredAttribute(GATEWAY_REQUEST_URL_ATTR);
+    }
+
+    private String token(String username, String playerId) {
+        return Jwts.builder()
+                .setSubject(username)
+                .claim(VerifiedToken.PLAYER_ID_CLAIM, playerId)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(jwtVerifier.signingKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
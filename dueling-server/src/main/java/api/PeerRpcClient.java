@@ -0,0 +1,175 @@
+package api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking HTTP client for calls between servers.
+ * <p>
+ * One {@link HttpClient} keeps connections to each peer open and reuses them. It asks for
+ * HTTP/2 (cleartext, by upgrade), so concurrent calls to a peer are multiplexed over one
+ * connection; against a peer that only speaks HTTP/1.1 it falls back to a pool of keep-alive
+ * connections. Every call has a deadline, {@code peer.rpc.deadline} unless the caller gives
+ * one, and completes its future exceptionally with a {@link PeerRpcException} once it passes.
+ * <p>
+ * String bodies are sent as plain text and every other body as JSON. Call latencies are
+ * published as {@code dueling.peer.rpc}, tagged by peer and by outcome: {@code success},
+ * {@code error} (error status or unreachable peer) or {@code timeout}.
+ */
+@Component
+public class PeerRpcClient {
+
+    private final HttpClient httpClient;
+    private final ExecutorService responseExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration defaultDeadline;
+    private final Map<String, PeerMeters> peerMeters = new ConcurrentHashMap<>();
+
+    public PeerRpcClient(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                         @Value("${peer.rpc.connect-timeout:2s}") Duration connectTimeout,
+                         @Value("${peer.rpc.deadline:5s}") Duration defaultDeadline) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.defaultDeadline = defaultDeadline;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .executor(responseExecutor)
+                .build();
+    }
+
+    @PreDestroy
+    public void stop() {
+        httpClient.shutdownNow();
+        responseExecutor.shutdownNow();
+    }
+
+    public <T> CompletableFuture<T> get(String peer, String path, Class<T> responseType) {
+        return send(peer, HttpRequest.newBuilder(URI.create(peer + path)).GET(), responseType, defaultDeadline);
+    }
+
+    public <T> CompletableFuture<T> get(String peer, String path, Class<T> responseType, Duration deadline) {
+        return send(peer, HttpRequest.newBuilder(URI.create(peer + path)).GET(), responseType, deadline);
+    }
+
+    public <T> CompletableFuture<T> post(String peer, String path, Object body, Class<T> responseType) {
+        return post(peer, path, body, responseType, defaultDeadline);
+    }
+
+    public <T> CompletableFuture<T> post(String peer, String path, Object body, Class<T> responseType, Duration deadline) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(peer + path));
+        if (body instanceof String text) {
+            request.header("Content-Type", "text/plain;charset=UTF-8")
+                    .POST(HttpRequest.BodyPublishers.ofString(text));
+        } else {
+            byte[] json;
+            try {
+                json = objectMapper.writeValueAsBytes(body);
+            } catch (JsonProcessingException e) {
+                return CompletableFuture.failedFuture(new PeerRpcException(peer, "Could not encode request to " + path, e));
+            }
+            request.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(json));
+        }
+        return send(peer, request, responseType, deadline);
+    }
+
+    /**
+     * Waits for a call and rethrows its failure unwrapped, for callers that need the result
+     * before they go on.
+     */
+    public static <T> T await(CompletableFuture<T> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private <T> CompletableFuture<T> send(String peer, HttpRequest.Builder request, Class<T> responseType,
+                                          Duration deadline) {
+        PeerMeters meters = peerMeters.computeIfAbsent(peer, this::registerMeters);
+        HttpRequest httpRequest = request.timeout(deadline).build();
+        String path = httpRequest.uri().getPath();
+        long start = System.nanoTime();
+        return httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    long elapsed = System.nanoTime() - start;
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        boolean timedOut = cause instanceof HttpTimeoutException
+                                && !(cause instanceof HttpConnectTimeoutException);
+                        (timedOut ? meters.timeout : meters.error).record(elapsed, TimeUnit.NANOSECONDS);
+                        throw new PeerRpcException(peer, (timedOut ? "No answer within " + deadline.toMillis() + " ms to "
+                                : "Could not call ") + path + ": " + cause, cause);
+                    }
+                    if (response.statusCode() >= 300) {
+                        meters.error.record(elapsed, TimeUnit.NANOSECONDS);
+                        throw new PeerRpcException(peer, response.statusCode(),
+                                "Peer answered " + response.statusCode() + " to " + path);
+                    }
+                    meters.success.record(elapsed, TimeUnit.NANOSECONDS);
+                    return decode(peer, path, response.body(), responseType);
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T decode(String peer, String path, byte[] body, Class<T> responseType) {
+        if (responseType == Void.class || body.length == 0) {
+            return null;
+        }
+        if (responseType == String.class) {
+            return (T) new String(body, StandardCharsets.UTF_8);
+        }
+        try {
+            JavaType type = objectMapper.constructType(responseType);
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new PeerRpcException(peer, "Could not decode answer to " + path, new UncheckedIOException(e));
+        }
+    }
+
+    private PeerMeters registerMeters(String peer) {
+        return new PeerMeters(timer(peer, "success"), timer(peer, "error"), timer(peer, "timeout"));
+    }
+
+    private Timer timer(String peer, String outcome) {
+        return Timer.builder("dueling.peer.rpc")
+                .description("Latency of calls to peer servers")
+                .tag("peer", peer)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    private record PeerMeters(Timer success, Timer error, Timer timeout) {
+    }
+}
@@ -0,0 +1,34 @@
+package api;
+
+/**
+ * A call to a peer server that failed: the peer answered with an error status, did not
+ * answer within the call's deadline, or could not be reached.
+ */
+public class PeerRpcException extends RuntimeException {
+
+    private final String peer;
+    private final int status;
+
+    public PeerRpcException(String peer, int status, String message) {
+        super(message);
+        this.peer = peer;
+        this.status = status;
+    }
+
+    public PeerRpcException(String peer, String message, Throwable cause) {
+        super(message, cause);
+        this.peer = peer;
+        this.status = 0;
+    }
+
+    public String getPeer() {
+        return peer;
+    }
+
+    /**
+     * @return the HTTP status the peer answered with, or 0 if there was no answer
+     */
+    public int getStatus() {
+        return status;
+    }
+}
@@ -3,68 +3,109 @@ package api;
 import model.Player;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.ResponseEntity;
+import service.matchmaking.ClaimedPartner;
+import service.matchmaking.PartnerClaim;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Calls to the REST API of peer servers. The blocking methods wait for the answer and throw
+ * {@link PeerRpcException} when the call fails; the {@code Async} ones return at once.
+ */
 @Component
 public class ServerApiClient {
 
-    private final RestTemplate restTemplate;
+    private static final int NOT_FOUND = 404;
+
+    private final PeerRpcClient rpcClient;
 
     @Autowired
-    public ServerApiClient(RestTemplate aRestTemplate) {
-        this.restTemplate = aRestTemplate;
+    public ServerApiClient(PeerRpcClient aRpcClient) {
+        this.rpcClient = aRpcClient;
     }
 
     public void registerWithServer(String targetServerUrl, String selfUrl) {
         // The URL for the endpoint is http://<targetServerUrl>/api/servers/register
-        String registrationUrl = targetServerUrl + "/api/servers/register";
-        restTemplate.postForEntity(registrationUrl, selfUrl, String.class);
+        PeerRpcClient.await(rpcClient.post(targetServerUrl, "/api/servers/register", selfUrl, Void.class));
     }
 
+    @SuppressWarnings("unchecked")
     public Set<String> getRegisteredServers(String serverUrl) {
-        String url = serverUrl + "/api/servers";
-        ResponseEntity<Set> response = restTemplate.getForEntity(url, Set.class);
-        return response.getBody();
+        return PeerRpcClient.await(rpcClient.get(serverUrl, "/api/servers", Set.class));
     }
 
     public void enqueuePlayer(String serverUrl, Player player) {
-        String url = serverUrl + "/api/matchmaking/enqueue";
-        restTemplate.postForEntity(url, player, String.class);
+        PeerRpcClient.await(enqueuePlayerAsync(serverUrl, player));
+    }
+
+    public CompletableFuture<Void> enqueuePlayerAsync(String serverUrl, Player player) {
+        return rpcClient.post(serverUrl, "/api/matchmaking/enqueue", player, Void.class);
     }
 
+    /**
+     * @return the player, or null if the server does not have it
+     */
     public Player getPlayer(String serverUrl, String playerId) {
-        String url = serverUrl + "/api/players/" + playerId;
-        ResponseEntity<Player> response = restTemplate.getForEntity(url, Player.class);
-        return response.getBody();
+        try {
+            return PeerRpcClient.await(rpcClient.get(serverUrl, "/api/players/" + playerId, Player.class));
+        } catch (PeerRpcException e) {
+            if (e.getStatus() == NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
     }
 
     public void savePlayer(String serverUrl, Player player) {
-        String url = serverUrl + "/api/players";
-        restTemplate.postForEntity(url, player, String.class);
+        PeerRpcClient.await(rpcClient.post(serverUrl, "/api/players", player, Void.class));
+    }
+
+    /**
+     * Hands a player over to the server that now owns it, which stores it as it is instead of
+     * routing it by its own view of the ring.
+     */
+    public void handOverPlayer(String serverUrl, Player player) {
+        PeerRpcClient.await(rpcClient.post(serverUrl, "/api/players/handoff/store", player, Void.class));
+    }
+
+    /**
+     * Takes over a player the server stored before the caller became its owner; the server
+     * deletes its copy.
+     *
+     * @return the player, or null if the server does not store it
+     */
+    public Player takePlayer(String serverUrl, String playerId) {
+        try {
+            return PeerRpcClient.await(rpcClient.post(serverUrl, "/api/players/handoff/take", playerId, Player.class));
+        } catch (PeerRpcException e) {
+            if (e.getStatus() == NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    public List<ClaimedPartner> claimPartners(String serverUrl, List<PartnerClaim> claims) {
+        return PeerRpcClient.await(claimPartnersAsync(serverUrl, claims));
     }
 
-    public Player findAndLockPartner(String serverUrl) {
-        String url = serverUrl + "/api/matchmaking/find-and-lock-partner";
-        ResponseEntity<Player> response = restTemplate.postForEntity(url, null, Player.class);
-        return response.getBody();
+    public CompletableFuture<List<ClaimedPartner>> claimPartnersAsync(String serverUrl, List<PartnerClaim> claims) {
+        return rpcClient.post(serverUrl, "/api/matchmaking/claim-partners", claims, ClaimedPartner[].class)
+                .thenApply(claimed -> claimed != null ? Arrays.asList(claimed) : List.of());
     }
 
-    public boolean acquireLock(String leaderUrl) {
-        String url = leaderUrl + "/api/lock/acquire";
-        ResponseEntity<String> response = restTemplate.postForEntity(url, null, String.class);
-        return response.getStatusCode().is2xxSuccessful();
+    public void forwardGameCommand(String serverUrl, String matchId, String command) {
+        PeerRpcClient.await(rpcClient.post(serverUrl, "/api/matches/" + matchId + "/commands", command, Void.class));
     }
 
-    public void releaseLock(String leaderUrl) {
-        String url = leaderUrl + "/api/lock/release";
-        restTemplate.postForEntity(url, null, String.class);
+    public void abandonMatch(String serverUrl, String matchId, String playerId) {
+        PeerRpcClient.await(rpcClient.post(serverUrl, "/api/matches/" + matchId + "/abandon", playerId, Void.class));
     }
 
     public void proposeTrade(String serverUrl, model.TradeProposal proposal) {
-        String url = serverUrl + "/api/trades/propose";
-        restTemplate.postForEntity(url, proposal, model.TradeProposal.class);
+        PeerRpcClient.await(rpcClient.post(serverUrl, "/api/trades/propose", proposal, Void.class));
     }
 }
@@ -2,8 +2,11 @@ package api;
 
 import api.registry.ServerRegistry;
 import controller.GameFacade;
+import controller.command.GameCommand;
+import controller.command.GameCommandDecoder;
 import model.Player;
 import model.TradeProposal;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import org.springframework.context.annotation.Profile;
@@ -17,12 +20,18 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import repository.DistributedPlayerRepository;
 import repository.PlayerRepository;
-import service.election.LeaderElectionService;
-import service.lock.LockService;
+import service.matchmaking.ClaimedPartner;
 import service.matchmaking.MatchmakingService;
+import service.matchmaking.PartnerClaim;
+import service.registry.ClusterMembershipService;
+import service.registry.NodeHeartbeat;
 import service.trade.TradeService;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 @Profile("server")
@@ -36,25 +45,25 @@ public class ServerSynchronizationController {
     private final ServerRegistry serverRegistry;
     private final PlayerRepository localPlayerRepository;
     private final MatchmakingService matchmakingService;
-    private final LeaderElectionService leaderElectionService;
-    private final LockService lockService;
     private final TradeService tradeService;
+    private final ClusterMembershipService clusterMembershipService;
+    private final ObjectProvider<DistributedPlayerRepository> distributedPlayerRepository;
 
     @Autowired
     public ServerSynchronizationController(GameFacade aGameFacade,
                                            ServerRegistry aServerRegistry,
                                            PlayerRepository aLocalPlayerRepository,
                                            MatchmakingService aMatchmakingService,
-                                           LeaderElectionService aLeaderElectionService,
-                                           LockService aLockService,
-                                           TradeService aTradeService) {
+                                           TradeService aTradeService,
+                                           ClusterMembershipService aClusterMembershipService,
+                                           ObjectProvider<DistributedPlayerRepository> aDistributedPlayerRepository) {
         this.gameFacade = aGameFacade;
         this.serverRegistry = aServerRegistry;
         this.localPlayerRepository = aLocalPlayerRepository;
         this.matchmakingService = aMatchmakingService;
-        this.leaderElectionService = aLeaderElectionService;
-        this.lockService = aLockService;
         this.tradeService = aTradeService;
+        this.clusterMembershipService = aClusterMembershipService;
+        this.distributedPlayerRepository = aDistributedPlayerRepository;
     }
 
     /**
@@ -81,6 +90,16 @@ public class ServerSynchronizationController {
         return ResponseEntity.ok(serverRegistry.getRegisteredServers());
     }
 
+    /**
+     * Retrieves the load each server reported in its last cluster heartbeat.
+     *
+     * @return A {@link ResponseEntity} containing the last {@link NodeHeartbeat} of each server, by URL.
+     */
+    @GetMapping("/servers/load")
+    public ResponseEntity<Map<String, NodeHeartbeat>> getServerLoads() {
+        return ResponseEntity.ok(clusterMembershipService.getMemberLoads());
+    }
+
     /**
      * Enqueues a player into the matchmaking system.
      * This endpoint is typically called by other servers to add players from their local queues
@@ -92,7 +111,6 @@ public class ServerSynchronizationController {
     @PostMapping("/matchmaking/enqueue")
     public ResponseEntity<String> enqueuePlayer(@RequestBody Player player) {
         matchmakingService.addPlayerToQueue(player);
-        gameFacade.tryToCreateMatch(); 
         return ResponseEntity.ok("Player " + player.getId() + " added to matchmaking queue.");
     }
 
@@ -142,54 +160,50 @@ public class ServerSynchronizationController {
     }
 
     /**
-     * Attempts to find and lock a player from the matchmaking queue to serve as a partner.
-     * This endpoint is called by other servers when they need a remote player
-     * to complete a match.
+     * Hands a player this server stored over to the calling server, which now owns it on the
+     * ring. Only this server's own copy is read, never a peer's, so two servers that disagree
+     * about the ring cannot send the request back and forth.
      *
-     * @return A {@link ResponseEntity} containing the locked {@link Player} if successful,
-     *         or a 404 Not Found status if no partner could be found.
+     * @param playerId The ID of the player to hand over.
+     * @return A {@link ResponseEntity} containing the {@link Player}, whose local copy is deleted,
+     *         or a 404 Not Found status if this server does not store it.
      */
-    @PostMapping("/matchmaking/find-and-lock-partner")
-    public ResponseEntity<Player> findAndLockPartner() {
-        return matchmakingService.findAndLockPartner()
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    @PostMapping("/players/handoff/take")
+    public ResponseEntity<Player> handOverPlayer(@RequestBody String playerId) {
+        DistributedPlayerRepository repository = distributedPlayerRepository.getIfAvailable();
+        Optional<Player> player = repository != null ? repository.handOver(playerId) : Optional.empty();
+        return player.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     /**
-     * Acquires a distributed lock.
-     * This endpoint can only be called by the current leader server.
-     * It attempts to acquire a global lock to ensure exclusive access to a critical section.
+     * Stores a player another server handed over to this one. Unlike {@link #savePlayer}, the
+     * player is kept here whatever this server's view of the ring, so a sender whose ring is
+     * ahead of this server's cannot have the player routed back to it while it deletes its copy.
      *
-     * @return A {@link ResponseEntity} indicating whether the lock was successfully acquired
-     *         or if it was already held, or if the calling server is not the leader.
+     * @param player The {@link Player} handed over.
+     * @return A {@link ResponseEntity} indicating the player was stored.
      */
-    @PostMapping("/lock/acquire")
-    public ResponseEntity<String> acquireLock() {
-        if (!leaderElectionService.isLeader()) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("This server is not the leader.");
-        }
-        if (lockService.acquire()) {
-            return ResponseEntity.ok("Lock acquired.");
+    @PostMapping("/players/handoff/store")
+    public ResponseEntity<String> receivePlayer(@RequestBody Player player) {
+        DistributedPlayerRepository repository = distributedPlayerRepository.getIfAvailable();
+        if (repository != null) {
+            repository.receive(player);
         } else {
-            return ResponseEntity.status(HttpStatus.CONFLICT).body("Lock already held.");
+            localPlayerRepository.save(player);
         }
+        return ResponseEntity.ok("Player " + player.getId() + " taken over.");
     }
 
     /**
-     * Releases a previously acquired distributed lock.
-     * This endpoint can only be called by the current leader server.
+     * Claims partners from the local matchmaking queue for players waiting on another server.
+     * Each claim removes the waiting player closest to the claim's rating, within its window.
      *
-     * @return A {@link ResponseEntity} indicating that the lock has been released,
-     *         or if the calling server is not the leader.
+     * @param claims The claims sent by the requesting server.
+     * @return A {@link ResponseEntity} containing the satisfied claims; unsatisfied claims are omitted.
      */
-    @PostMapping("/lock/release")
-    public ResponseEntity<String> releaseLock() {
-        if (!leaderElectionService.isLeader()) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("This server is not the leader.");
-        }
-        lockService.release();
-        return ResponseEntity.ok("Lock released.");
+    @PostMapping("/matchmaking/claim-partners")
+    public ResponseEntity<List<ClaimedPartner>> claimPartners(@RequestBody List<PartnerClaim> claims) {
+        return ResponseEntity.ok(matchmakingService.claimPartners(claims));
     }
 
     /**
@@ -228,6 +242,42 @@ public class ServerSynchronizationController {
         }
     }
     
+    /**
+     * Executes a game command forwarded by another server.
+     * Commands for a match are executed on the server that owns its live game session.
+     *
+     * @param matchId The unique identifier of the match.
+     * @param command The game command in {@code GAME:<playerId>:ACTION...} form.
+     * @return A {@link ResponseEntity} indicating that the command was accepted,
+     *         or a 400 Bad Request status if it does not name a player.
+     */
+    @PostMapping("/matches/{matchId}/commands")
+    public ResponseEntity<String> executeGameCommand(@PathVariable String matchId, @RequestBody String command) {
+        logger.debug("Received forwarded command for match {}: {}", matchId, command);
+        GameCommand decoded;
+        try {
+            decoded = GameCommandDecoder.decodeFacadeFrame(command);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        gameFacade.processGameCommand(decoded);
+        return ResponseEntity.ok("Command accepted.");
+    }
+
+    /**
+     * Ends a match hosted on this server because one of its players disconnected
+     * from another server.
+     *
+     * @param matchId  The unique identifier of the match.
+     * @param playerId The ID of the player who disconnected.
+     * @return A {@link ResponseEntity} indicating that the match was abandoned.
+     */
+    @PostMapping("/matches/{matchId}/abandon")
+    public ResponseEntity<String> abandonMatch(@PathVariable String matchId, @RequestBody String playerId) {
+        gameFacade.abandonMatch(matchId, playerId);
+        return ResponseEntity.ok("Match abandoned.");
+    }
+
     /**
      * Provides a basic health check endpoint for the server.
      *
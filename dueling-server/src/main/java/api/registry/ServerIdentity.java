@@ -0,0 +1,23 @@
+package api.registry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The URL this server is known by in the cluster, in the form the {@link ServerRegistry},
+ * the match owner directory and the gateway use.
+ */
+@Component
+public class ServerIdentity {
+
+    private final String selfUrl;
+
+    public ServerIdentity(@Value("${server.name}") String serverName,
+                          @Value("${server.port}") String serverPort) {
+        this.selfUrl = "http://" + serverName + ":" + serverPort;
+    }
+
+    public String getSelfUrl() {
+        return selfUrl;
+    }
+}
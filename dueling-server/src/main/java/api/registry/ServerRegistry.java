@@ -1,17 +1,30 @@
 package api.registry;
 
+import common.cluster.ConsistentHashRing;
 import org.springframework.stereotype.Component;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 
+/**
+ * The servers known to this node, and the {@link ConsistentHashRing} over them that decides
+ * which server owns each player. The ring is rebuilt only when a server joins or leaves,
+ * and membership listeners get the rings before and after the change.
+ */
 @Component
 public class ServerRegistry {
 
     private final Set<String> registeredServers = Collections.synchronizedSet(new HashSet<>());
+    private final List<BiConsumer<ConsistentHashRing, ConsistentHashRing>> membershipListeners = new CopyOnWriteArrayList<>();
+    private volatile ConsistentHashRing ring = ConsistentHashRing.empty();
 
     public void registerServer(String serverUrl) {
-        registeredServers.add(serverUrl);
+        if (registeredServers.add(serverUrl)) {
+            membershipChanged();
+        }
     }
 
     public Set<String> getRegisteredServers() {
@@ -19,6 +32,39 @@ public class ServerRegistry {
     }
 
     public void unregisterServer(String serverUrl) {
-        registeredServers.remove(serverUrl);
+        if (registeredServers.remove(serverUrl)) {
+            membershipChanged();
+        }
+    }
+
+    /**
+     * @return the ring over the registered servers; empty until a server registers
+     */
+    public ConsistentHashRing getRing() {
+        return ring;
+    }
+
+    /**
+     * Adds a listener called with the previous and the new ring after each membership change,
+     * on the thread that changed the membership.
+     */
+    public void addMembershipListener(BiConsumer<ConsistentHashRing, ConsistentHashRing> listener) {
+        membershipListeners.add(listener);
+    }
+
+    private synchronized void membershipChanged() {
+        Set<String> members;
+        synchronized (registeredServers) {
+            members = Set.copyOf(registeredServers);
+        }
+        if (members.equals(ring.nodes())) {
+            // A concurrent change already rebuilt the ring with this membership
+            return;
+        }
+        ConsistentHashRing previous = ring;
+        ring = ConsistentHashRing.of(members);
+        for (BiConsumer<ConsistentHashRing, ConsistentHashRing> listener : membershipListeners) {
+            listener.accept(previous, ring);
+        }
     }
 }
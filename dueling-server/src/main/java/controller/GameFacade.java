@@ -2,31 +2,36 @@ package controller;
 
 import api.ServerApiClient;
 import api.registry.ServerRegistry;
+import controller.command.GameCommand;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import model.*;
-import org.redisson.api.RedissonClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.context.annotation.Profile;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
 import pubsub.IEventManager;
 import repository.CardRepository;
-import repository.GameSessionRepository;
+import repository.LocalGameSessionRepository;
+import repository.PlayerMatchIndex;
 import repository.PlayerRepository;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import service.chat.ChatGroupService;
 import service.deck.DeckService;
 import service.election.LeaderElectionService;
 import service.emote.EmoteService;
 import service.ingamechat.InGameChatService;
+import service.journal.MatchJournal;
+import service.mailbox.MatchMailboxService;
+import service.matchmaking.MatchmakingEngine;
 import service.matchmaking.MatchmakingService;
 import service.store.PurchaseResult;
 import service.store.StoreService;
+import service.timer.TurnTimerService;
 import service.trade.TradeService;
 
 import service.ranking.RankingService;
@@ -34,7 +39,7 @@ import service.achievement.AchievementService;
 import websocket.WebSocketSessionManager;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 @Profile("server")
 @Service
@@ -42,7 +47,6 @@ public class GameFacade {
     private final MatchmakingService matchmakingService;
     private final StoreService storeService;
     private final PlayerRepository playerRepository;
-    private final repository.JpaPlayerRepository jpaPlayerRepository;
     private final IEventManager eventManager;
     private final ServerRegistry serverRegistry;
     private final ServerApiClient serverApiClient;
@@ -50,45 +54,44 @@ public class GameFacade {
     private final LeaderElectionService leaderElectionService;
     private final CardRepository cardRepository;
     private final DeckService deckService;
-    private final GameSessionRepository gameSessionRepository;
-    private final RedissonClient redissonClient;
+    private final LocalGameSessionRepository gameSessionRepository;
     private final InGameChatService inGameChatService;
     private final EmoteService emoteService;
     private final RankingService rankingService;
     private final AchievementService achievementService;
     private final WebSocketSessionManager sessionManager;
-    private final org.springframework.jdbc.core.JdbcTemplate jdbcTemplate;
+    private final TurnTimerService turnTimerService;
+    private final MatchMailboxService matchMailboxes;
+    private final MatchJournal matchJournal;
+    private final PlayerMatchIndex playerMatchIndex;
+    private final Map<Class<?>, Timer> commandTimers;
+    private final Timer playCardTimer;
 
-    @Value("${server.name}")
-    private String serverName;
-    @Value("${server.port}")
-    private String serverPort;
-    private String selfUrl;
 
     private static final Logger logger = LoggerFactory.getLogger(GameFacade.class);
 
     private final ChatGroupService chatGroupService;
     private final service.lock.LockService lockService;
 
-    @PersistenceContext
-    private EntityManager entityManager;
-
     private TransactionTemplate transactionTemplate;
 
     @Autowired
     public GameFacade(MatchmakingService matchmakingService, StoreService storeService,
-                      PlayerRepository playerRepository, repository.JpaPlayerRepository jpaPlayerRepository,
+                      PlayerRepository playerRepository,
                       IEventManager eventManager, ServerRegistry serverRegistry, ServerApiClient serverApiClient,
                       TradeService tradeService, LeaderElectionService leaderElectionService,
-                      CardRepository cardRepository, DeckService deckService, GameSessionRepository gameSessionRepository,
-                      RedissonClient redissonClient, RankingService rankingService, AchievementService achievementService,
+                      CardRepository cardRepository, DeckService deckService, LocalGameSessionRepository gameSessionRepository,
+                      RankingService rankingService, AchievementService achievementService,
                       ChatGroupService chatGroupService, InGameChatService inGameChatService, EmoteService emoteService,
                       service.lock.LockService lockService, WebSocketSessionManager sessionManager,
-                      TransactionTemplate transactionTemplate, org.springframework.jdbc.core.JdbcTemplate jdbcTemplate) {
+                      TransactionTemplate transactionTemplate,
+                      TurnTimerService turnTimerService, PlayerMatchIndex playerMatchIndex,
+                      MatchmakingEngine matchmakingEngine,
+                      MatchMailboxService matchMailboxes, MatchJournal matchJournal,
+                      MeterRegistry meterRegistry) {
         this.matchmakingService = matchmakingService;
         this.storeService = storeService;
         this.playerRepository = playerRepository;
-        this.jpaPlayerRepository = jpaPlayerRepository;
         this.eventManager = eventManager;
         this.serverRegistry = serverRegistry;
         this.serverApiClient = serverApiClient;
@@ -97,7 +100,6 @@ public class GameFacade {
         this.cardRepository = cardRepository;
         this.deckService = deckService;
         this.gameSessionRepository = gameSessionRepository;
-        this.redissonClient = redissonClient;
         this.inGameChatService = inGameChatService;
         this.chatGroupService = chatGroupService;
         this.emoteService = emoteService;
@@ -106,16 +108,33 @@ public class GameFacade {
         this.lockService = lockService;
         this.sessionManager = sessionManager;
         this.transactionTemplate = transactionTemplate;
-        this.jdbcTemplate = jdbcTemplate;
+        this.turnTimerService = turnTimerService;
+        this.playerMatchIndex = playerMatchIndex;
+        this.matchMailboxes = matchMailboxes;
+        this.matchJournal = matchJournal;
+        this.commandTimers = registerCommandTimers(meterRegistry);
+        this.playCardTimer = Timer.builder("dueling.game.play")
+                .description("Time to apply a played card on the match owner, including journaling and the snapshot")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.turnTimerService.setExpiryHandler(matchId -> matchMailboxes.post(matchId, () -> handleTurnDeadline(matchId)));
+        matchmakingEngine.setMatchStarter(this::startMatch);
     }
 
-    private String getSelfUrl() {
-        if (selfUrl == null) {
-            // Use localhost for local-distributed mode
-            String hostname = serverName.contains("server-") ? "localhost" : serverName;
-            selfUrl = "http://" + hostname + ":" + serverPort;
-        }
-        return selfUrl;
+    /**
+     * Registers one {@code dueling.game.command} timer per command type, tagged with the type
+     * in upper snake case, so timing a command is a map lookup rather than a meter registration.
+     */
+    private static Map<Class<?>, Timer> registerCommandTimers(MeterRegistry meterRegistry) {
+        Map<Class<?>, Timer> timers = new HashMap<>();
+        for (Class<?> type : GameCommand.class.getPermittedSubclasses()) {
+            timers.put(type, Timer.builder("dueling.game.command")
+                    .description("Time to handle a game command on the server that received it")
+                    .tag("action", type.getSimpleName().replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase())
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+        return Map.copyOf(timers);
     }
 
     public IEventManager getEventManager() {
@@ -124,36 +143,76 @@ public class GameFacade {
 
     public void registerPlayer(String playerId) {
         logger.info("Player registered in facade: {}", playerId);
+
+        // A reconnecting player may still be recorded in a running match
+        Optional<String> matchIdOpt = playerMatchIndex.findMatchId(playerId);
+        if (matchIdOpt.isPresent()) {
+            String matchId = matchIdOpt.get();
+            if (gameSessionRepository.findById(matchId).isPresent()) {
+                sessionManager.setPlayerInMatch(playerId, true);
+                logger.info("Player {} reconnected to match {}", playerId, matchId);
+            } else {
+                playerMatchIndex.unbind(matchId, playerId);
+            }
+        }
     }
 
     public void unregisterPlayer(String playerId) {
-        Iterable<String> keys = redissonClient.getKeys().getKeysByPattern("game_session:*");
-        for (String key : keys) {
-            String matchId = key.substring("game_session:".length());
-            Optional<GameSession> sessionOpt = gameSessionRepository.findById(matchId);
-            if (sessionOpt.isPresent()) {
-                GameSession session = sessionOpt.get();
-                if (session.getPlayer1().getId().equals(playerId) || session.getPlayer2().getId().equals(playerId)) {
-                    String opponentId = session.getPlayer1().getId().equals(playerId) ?
-                            session.getPlayer2().getId() : session.getPlayer1().getId();
-                    
-                    // Update opponent's match status
-                    sessionManager.setPlayerInMatch(opponentId, false);
-                    
-                    notifyPlayer(opponentId, "UPDATE:GAME_OVER:OPPONENT_DISCONNECT");
-                    gameSessionRepository.deleteById(matchId);
-                    logger.info("Game {} removed due to player {} disconnection", matchId, playerId);
+        Optional<String> matchIdOpt = playerMatchIndex.findMatchId(playerId);
+        if (matchIdOpt.isPresent()) {
+            String matchId = matchIdOpt.get();
+            Optional<String> owner = findRemoteOwner(matchId);
+            if (owner.isPresent()) {
+                try {
+                    serverApiClient.abandonMatch(owner.get(), matchId, playerId);
+                } catch (Exception e) {
+                    logger.warn("Could not notify owner {} that player {} left match {}: {}",
+                            owner.get(), playerId, matchId, e.getMessage());
+                    abandonMatch(matchId, playerId);
                 }
+            } else {
+                abandonMatch(matchId, playerId);
             }
         }
         logger.info("Player unregistered and games cleaned up: {}", playerId);
     }
 
+    /**
+     * Ends a match because one of its players disconnected. Runs on the node that owns the match.
+     */
+    public void abandonMatch(String matchId, String playerId) {
+        matchMailboxes.post(matchId, () -> abandonMatchInternal(matchId, playerId));
+    }
+
+    private void abandonMatchInternal(String matchId, String playerId) {
+        Optional<GameSession> sessionOpt = gameSessionRepository.findById(matchId);
+        if (sessionOpt.isEmpty()) {
+            playerMatchIndex.unbind(matchId, playerId);
+            return;
+        }
+        GameSession session = sessionOpt.get();
+        if (!session.getPlayer1().getId().equals(playerId) && !session.getPlayer2().getId().equals(playerId)) {
+            logger.warn("Player {} is not part of match {}", playerId, matchId);
+            return;
+        }
+        String opponentId = session.getOpponent(playerId).getId();
+
+        // Update opponent's match status
+        sessionManager.setPlayerInMatch(opponentId, false);
+
+        notifyPlayer(opponentId, "UPDATE:GAME_OVER:OPPONENT_DISCONNECT");
+        matchJournal.recordEnd(matchId, null, null);
+        gameSessionRepository.deleteById(matchId);
+        turnTimerService.cancel(matchId);
+        playerMatchIndex.unbind(matchId, playerId, opponentId);
+        logger.info("Game {} removed due to player {} disconnection", matchId, playerId);
+    }
+
     public void enterMatchmaking(Player player) {
         logger.info("[MATCHMAKING] Player {} entering matchmaking", player.getId());
         
         // Check if player is already in a match
-        boolean inMatch = sessionManager.isPlayerInMatch(player.getId());
+        boolean inMatch = playerMatchIndex.isInMatch(player.getId());
         logger.info("[MATCHMAKING] Player {} in match? {}", player.getId(), inMatch);
         if (inMatch) {
             logger.warn("[MATCHMAKING] Player {} tried to enter matchmaking while in a match", player.getId());
@@ -170,14 +229,14 @@ public class GameFacade {
             return;
         }
         
+        // The matchmaking engine is signalled by the queue and pairs the player on its own thread
         matchmakingService.addPlayerToQueue(player);
-        logger.info("[MATCHMAKING] Player {} added to matchmaking queue - triggering match creation", player.getId());
-        tryToCreateMatch();
+        logger.info("[MATCHMAKING] Player {} added to matchmaking queue", player.getId());
     }
 
     public void enterMatchmaking(Player player, String deckId) {
         // Check if player is already in a match
-        if (sessionManager.isPlayerInMatch(player.getId())) {
+        if (playerMatchIndex.isInMatch(player.getId())) {
             logger.warn("Player {} tried to enter matchmaking while in a match", player.getId());
             notifyPlayer(player.getId(), "ERROR:You are already in a match. Please finish your current match first.");
             return;
@@ -192,96 +251,6 @@ public class GameFacade {
         
         matchmakingService.addPlayerToQueueWithDeck(player, deckId);
         logger.info("Player {} added to matchmaking queue with deck {}", player.getId(), deckId);
-        tryToCreateMatch();
-    }
-
-    public void tryToCreateMatch() {
-        // First, try to find any immediate local matches
-        Optional<Match> localMatch = matchmakingService.findMatch();
-        if (localMatch.isPresent()) {
-            logger.info("[MATCH] Local match found, starting match");
-            startMatch(localMatch.get());
-            return;
-        }
-
-        // Try two-way matching: local player with remote partner AND remote player with local partner
-        List<String> remoteServers = new ArrayList<>(serverRegistry.getRegisteredServers());
-        String currentSelfUrl = getSelfUrl();
-        remoteServers.remove(currentSelfUrl);
-        logger.info("[MATCH] Attempting cross-server matching. Self: {}, Remote servers: {}", currentSelfUrl, remoteServers);
-        
-        // Strategy 1: Try to find a local player and match with a remote partner
-        Optional<Player> localPlayerOpt = matchmakingService.findAndLockPartner();
-        if (localPlayerOpt.isPresent()) {
-            Player p1 = localPlayerOpt.get();
-            logger.info("[MATCH] Strategy 1: Found local player {}, searching remote partner on {} servers", 
-                p1.getNickname(), remoteServers.size());
-            boolean matchFound = false;
-            
-            for (String serverUrl : remoteServers) {
-                try {
-                    logger.info("[MATCH] Requesting partner from remote server: {}", serverUrl);
-                    Player p2 = serverApiClient.findAndLockPartner(serverUrl);
-                    if (p2 != null) {
-                        logger.info("[MATCH] ✓ Found remote partner {} for {} on server {}", 
-                            p2.getNickname(), p1.getNickname(), serverUrl);
-                        startMatch(new Match(p1, p2));
-                        matchFound = true;
-                        break;
-                    } else {
-                        logger.info("[MATCH] No partner available on server {}", serverUrl);
-                    }
-                } catch (Exception e) {
-                    logger.warn("[MATCH] Could not request partner from server {}: {}", serverUrl, e.getMessage());
-                }
-            }
-
-            // If no remote partner found, put local player back in queue with cooldown
-            if (!matchFound) {
-                logger.info("[MATCH] No remote partner found for {}. Returning to queue with cooldown.", p1.getNickname());
-                matchmakingService.returnPlayerToQueue(p1);
-            }
-        } else {
-            logger.debug("[MATCH] Strategy 1: No local player available to match");
-        }
-        
-        // Strategy 2: Try to get a remote player and match with a local partner
-        for (String serverUrl : remoteServers) {
-            try {
-                Player remotePlayer = serverApiClient.findAndLockPartner(getSelfUrl());
-                if (remotePlayer != null) {
-                    logger.info("Received remote player {} from server {} for local matching", remotePlayer.getNickname(), serverUrl);
-                    
-                    // Try to find a local partner for the remote player
-                    Optional<Player> localPlayerOpt2 = matchmakingService.findAndLockPartner();
-                    if (localPlayerOpt2.isPresent()) {
-                        Player localPlayer = localPlayerOpt2.get();
-                        logger.info("Matching remote player {} with local player {}", remotePlayer.getNickname(), localPlayer.getNickname());
-                        startMatch(new Match(remotePlayer, localPlayer));
-                        return; // Exit early if we found a match
-                    } else {
-                        // If no local partner available, put the remote player in our queue
-                        logger.info("No local partner for remote player {}, adding to local queue", remotePlayer.getNickname());
-                        matchmakingService.addPlayerToQueue(remotePlayer);
-                    }
-                }
-            } catch (Exception e) {
-                logger.warn("Could not receive partner from server {}: {}", serverUrl, e.getMessage());
-            }
-        }
-        
-        // Improve coordination between servers by triggering their matching as well
-        // This helps when both players connect to different servers simultaneously
-        for (String serverUrl : remoteServers) {
-            // Trigger the remote server to try matchmaking too
-            try {
-                // Since we can't directly trigger their scheduling, we'll just ensure
-                // both servers are actively trying to match players
-                // This is achieved through the regular scheduled calls
-            } catch (Exception e) {
-                logger.debug("Could not coordinate with remote server {}: {}", serverUrl, e.getMessage());
-            }
-        }
     }
 
     private void startMatch(Match match) {
@@ -293,13 +262,19 @@ public class GameFacade {
         List<Card> deckP2 = new ArrayList<>(p2.getCardCollection());
 
         GameSession session = new GameSession(matchId, p1, p2, deckP1, deckP2, this, cardRepository);
-        gameSessionRepository.save(session);
 
         // Update player match status
+        playerMatchIndex.bind(matchId, p1.getId(), p2.getId());
         sessionManager.setPlayerInMatch(p1.getId(), true);
         sessionManager.setPlayerInMatch(p2.getId(), true);
 
-        session.startGame();
+        // Commands for the new match queue up behind its start
+        matchMailboxes.post(matchId, () -> {
+            session.startGame();
+            matchJournal.recordStart(session);
+            gameSessionRepository.save(session);
+            turnTimerService.schedule(matchId, session.getNextDeadline());
+        });
 
         logger.info("New match created between {} and {} with ID {}", p1.getId(), p2.getId(), matchId);
     }
@@ -328,13 +303,19 @@ public class GameFacade {
         }
 
         GameSession session = new GameSession(matchId, p1, p2, deckP1, deckP2, this, cardRepository);
-        gameSessionRepository.save(session);
 
         // Update player match status
+        playerMatchIndex.bind(matchId, p1.getId(), p2.getId());
         sessionManager.setPlayerInMatch(p1.getId(), true);
         sessionManager.setPlayerInMatch(p2.getId(), true);
 
-        session.startGame();
+        // Commands for the new match queue up behind its start
+        matchMailboxes.post(matchId, () -> {
+            session.startGame();
+            matchJournal.recordStart(session);
+            gameSessionRepository.save(session);
+            turnTimerService.schedule(matchId, session.getNextDeadline());
+        });
 
         logger.info("New match created between {} and {} with ID {} using decks {} and {}",
                 p1.getId(), p2.getId(), matchId, deckId1, deckId2);
@@ -368,206 +349,159 @@ public class GameFacade {
         }
     }
 
-    public void processGameCommand(String[] command) {
-        logger.debug("processGameCommand called with command: [{}]", String.join(":", command));
-        if (command.length < 3) {
-            logger.warn("Invalid command structure: {}", String.join(":", command));
+    /**
+     * Executes a decoded game command. The sender's {@link Player} is loaded only for
+     * commands that need it. Cards played are applied on the match mailbox, which is
+     * timed separately as {@code dueling.game.play}.
+     */
+    public void processGameCommand(GameCommand command) {
+        long start = System.nanoTime();
+        try {
+            dispatch(command);
+        } finally {
+            commandTimers.get(command.getClass()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void dispatch(GameCommand command) {
+        String playerId = command.playerId();
+        logger.debug("Processing {} for player {}", command, playerId);
+
+        Player player = null;
+        if (command.requiresPlayer()) {
+            player = playerRepository.findById(playerId).orElse(null);
+            if (player == null) {
+                notifyPlayer(playerId, "ERROR:Player not found. Please set up your character first.");
+                return;
+            }
+        }
+
+        switch (command) {
+            case GameCommand.CharacterSetup setup -> setUpCharacter(setup);
+            case GameCommand.EnterMatchmaking enter -> handleEnterMatchmaking(player, enter.deckId());
+            case GameCommand.PlayCard play -> playCard(play);
+            case GameCommand.BuyPack buy -> handleBuyPack(player, buy.packType());
+            case GameCommand.ProposeTrade propose -> handleTradeProposal(playerId, propose.targetPlayerId(),
+                    propose.offeredCardIds(), propose.requestedCardIds());
+            case GameCommand.AcceptTrade accept -> handleTradeAcceptance(playerId, accept.tradeId());
+            case GameCommand.RejectTrade reject -> handleTradeRejection(playerId, reject.tradeId());
+            case GameCommand.SendPrivateMessage message ->
+                    handlePrivateMessage(playerId, message.recipientId(), message.content());
+            case GameCommand.InGameChat chat ->
+                    inGameChatService.handleInGameChatMessage(playerId, chat.matchId(), chat.message());
+            case GameCommand.SendEmote emote ->
+                    emoteService.handleSendEmote(playerId, emote.channelType(), emote.channelId(), emote.emoteId());
+            case GameCommand.ShowCards showCards -> showCards(player);
+            case GameCommand.Invalid invalid -> {
+                logger.warn("Invalid command from player {}: {}", playerId, invalid.error());
+                notifyPlayer(playerId, "ERROR:" + invalid.error());
+            }
+        }
+    }
+
+    private void setUpCharacter(GameCommand.CharacterSetup setup) {
+        String playerId = setup.playerId();
+        // Check if player already has a character
+        if (playerRepository.findById(playerId).isPresent()) {
+            notifyPlayer(playerId, "ERROR:Character already exists for this player. Character creation is only allowed once.");
             return;
         }
-        String playerId = command[1];
-        String action = command[2];
-        logger.debug("Processing action '{}' for player {}", action, playerId);
+        logger.debug("Processing CHARACTER_SETUP for player {}: nickname={}, race={}, class={}",
+                playerId, setup.nickname(), setup.race(), setup.playerClass());
+        Player newPlayer = new Player(playerId, setup.nickname());
+        newPlayer.setCharacter(setup.race(), setup.playerClass());
+        playerRepository.save(newPlayer);
+        notifyPlayer(playerId, "SUCCESS:Character created. Player ID: " + playerId);
+    }
 
-        Player player = playerRepository.findById(playerId).orElse(null);
-        if (player == null && !"CHARACTER_SETUP".equals(action)) {
-            notifyPlayer(playerId, "ERROR:Player not found. Please set up your character first.");
+    private void handleEnterMatchmaking(Player player, String deckId) {
+        String playerId = player.getId();
+        // Check if player is already in a match
+        if (playerMatchIndex.isInMatch(playerId)) {
+            notifyPlayer(playerId, "ERROR:You are already in a match. Please finish your current match first.");
             return;
         }
 
-        switch (action) {
-            case "CHARACTER_SETUP":
-                // Check if player already has a character
-                if (player != null) {
-                    notifyPlayer(playerId, "ERROR:Character already exists for this player. Character creation is only allowed once.");
-                    return;
-                }
-                logger.debug("Processing CHARACTER_SETUP for player {}: nickname={}, race={}, class={}", playerId, command[3], command[4], command[5]);
-                if (command.length < 6) {
-                    logger.warn("Incomplete CHARACTER_SETUP command for player {}: {}", playerId, String.join(":", command));
-                    notifyPlayer(playerId, "ERROR:Incomplete character setup command. Expected: NICKNAME:RACE:CLASS");
-                    return;
-                }
-                Player newPlayer = new Player(playerId, command[3]);
-                newPlayer.setCharacter(command[4], command[5]);
-                playerRepository.save(newPlayer);
-                // Refresh the player object for use in subsequent operations
-                player = newPlayer;
-                logger.debug("Character created for player {}, sending response: SUCCESS:Character created. Player ID: {}", playerId, playerId);
-                notifyPlayer(playerId, "SUCCESS:Character created. Player ID: " + playerId);
-                logger.debug("Response sent to player {}", playerId);
-                break;
-
-            case "MATCHMAKING":
-                String matchmakingAction = command.length > 3 ? command[3].trim() : "";
-                logger.info("[MATCHMAKING] Action: '{}', command length: {}", matchmakingAction, command.length);
-                if (command.length > 3 && "ENTER".equals(matchmakingAction)) {
-                    // Check if player is already in a match
-                    if (sessionManager.isPlayerInMatch(playerId)) {
-                        notifyPlayer(playerId, "ERROR:You are already in a match. Please finish your current match first.");
-                        break;
-                    }
-                    
-                    // Check if player is already in the matchmaking queue
-                    if (matchmakingService.isPlayerInQueue(player)) {
-                        notifyPlayer(playerId, "ERROR:You are already in the matchmaking queue.");
-                        break;
-                    }
-                    
-                    String deckId = null;
-                    if (command.length > 4) {
-                        deckId = command[4];
-                    }
-
-                    if (deckId != null && !deckId.isEmpty()) {
-                        if (deckService.isValidDeckForGame(deckId, playerId)) {
-                            enterMatchmaking(player, deckId);
-                            notifyPlayer(playerId, "SUCCESS:Entered matchmaking queue with deck: " + deckId);
-                        } else {
-                            notifyPlayer(playerId, "ERROR:Invalid or non-existent deck: " + deckId);
-                        }
-                    } else {
-                        enterMatchmaking(player);
-                        notifyPlayer(playerId, "SUCCESS:Entered matchmaking queue with default deck.");
-                    }
-                }
-                break;
+        // Check if player is already in the matchmaking queue
+        if (matchmakingService.isPlayerInQueue(player)) {
+            notifyPlayer(playerId, "ERROR:You are already in the matchmaking queue.");
+            return;
+        }
 
-            case "PLAY_CARD":
-                if (command.length < 5) {
-                    notifyPlayer(playerId, "ERROR:Incomplete PLAY_CARD command.");
-                    return;
-                }
-                String matchId = command[3];
-                String cardId = command[4];
-                Optional<GameSession> sessionOpt = gameSessionRepository.findById(matchId);
-                if (sessionOpt.isPresent()) {
-                    GameSession session = sessionOpt.get();
-                    session.playCard(playerId, cardId);
-                    gameSessionRepository.save(session);
-                } else {
-                    notifyPlayer(playerId, "ERROR:Match not found for PLAY_CARD command.");
-                }
-                break;
-
-            case "STORE":
-                logger.debug("STORE command received. Command length: {}, Full command: [{}]", command.length, String.join(":", command));
-                if (command.length > 4 && "BUY".equals(command[3])) {
-                    String packType = command[4];
-                    logger.debug("Processing BUY request for pack type: {} by player: {}", packType, playerId);
-                    PurchaseResult result = buyPack(player, packType);
-                    if (result.isSuccess()) {
-                        // Reload player from database to get updated card collection
-                        player = playerRepository.findById(playerId).orElse(player);
-                        List<Card> cards = result.getCards();
-                        logger.info("Purchase successful for player {}: received {} cards from {} pack", playerId, cards.size(), packType);
-                        logger.debug("Player {} now has {} total cards", playerId, player.getCardCollection().size());
-                        StringBuilder cardList = new StringBuilder("SUCCESS:Pack purchased. Cards received: ");
-                        for (int i = 0; i < cards.size(); i++) {
-                            Card card = cards.get(i);
-                            // Use underscores instead of colons to avoid parsing conflicts
-                            cardList.append(card.getName()).append("(ID_").append(card.getId()).append(")");
-                            if (i < cards.size() - 1) {
-                                cardList.append(", ");
-                            }
-                        }
-                        notifyPlayer(playerId, cardList.toString());
-                    } else {
-                        logger.warn("Purchase failed for player {}: {}", playerId, result.getStatus());
-                        notifyPlayer(playerId, "ERROR:Purchase failed: " + result.getStatus());
-                    }
-                } else {
-                    logger.warn("Invalid STORE command format. Expected: STORE:BUY:PACKTYPE, received: [{}]", String.join(":", command));
-                }
-                break;
+        if (deckId != null) {
+            if (deckService.isValidDeckForGame(deckId, playerId)) {
+                enterMatchmaking(player, deckId);
+                notifyPlayer(playerId, "SUCCESS:Entered matchmaking queue with deck: " + deckId);
+            } else {
+                notifyPlayer(playerId, "ERROR:Invalid or non-existent deck: " + deckId);
+            }
+        } else {
+            enterMatchmaking(player);
+            notifyPlayer(playerId, "SUCCESS:Entered matchmaking queue with default deck.");
+        }
+    }
 
-            case "TRADE":
-                if (command.length < 4) {
-                    notifyPlayer(playerId, "ERROR:Incomplete TRADE command.");
-                    return;
+    private void playCard(GameCommand.PlayCard play) {
+        String matchId = play.matchId();
+        matchMailboxes.post(matchId, () -> {
+            Optional<GameSession> sessionOpt = findHostedSession(matchId);
+            if (sessionOpt.isPresent()) {
+                long start = System.nanoTime();
+                GameSession session = sessionOpt.get();
+                if (!session.isGameEnded()) {
+                    matchJournal.recordPlayCard(matchId, play.playerId(), play.cardId());
                 }
-
-                String tradeAction = command[3];
-                if ("PROPOSE".equals(tradeAction) && command.length >= 7) {
-                    String targetPlayerId = command[4];
-                    String[] offeredCards = command[5].trim().split(",");
-                    String[] requestedCards = command[6].trim().split(",");
-
-                    handleTradeProposal(playerId, targetPlayerId, offeredCards, requestedCards);
-                } else if ("ACCEPT".equals(tradeAction) && command.length >= 5) {
-                    String tradeId = command[4];
-                    handleTradeAcceptance(playerId, tradeId);
-                } else if ("REJECT".equals(tradeAction) && command.length >= 5) {
-                    String tradeId = command[4];
-                    handleTradeRejection(playerId, tradeId);
-                } else {
-                    notifyPlayer(playerId, "ERROR:Invalid trade command format or action.");
+                session.playCard(play.playerId(), play.cardId());
+                matchJournal.inputApplied(session);
+                if (!session.isGameEnded()) {
+                    gameSessionRepository.save(session);
+                    turnTimerService.schedule(matchId, session.getNextDeadline());
                 }
-                break;
+                playCardTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            } else if (!forwardToOwner(matchId, play)) {
+                notifyPlayer(play.playerId(), "ERROR:Match not found for PLAY_CARD command.");
+            }
+        });
+    }
 
-            case "PRIVATE_MESSAGE":
-                if (command.length < 4) {
-                    notifyPlayer(playerId, "ERROR:Incomplete PRIVATE_MESSAGE command.");
-                    return;
+    private void handleBuyPack(Player player, String packType) {
+        String playerId = player.getId();
+        logger.debug("Processing BUY request for pack type: {} by player: {}", packType, playerId);
+        PurchaseResult result = buyPack(player, packType);
+        if (result.isSuccess()) {
+            List<Card> cards = result.getCards();
+            logger.info("Purchase successful for player {}: received {} cards from {} pack", playerId, cards.size(), packType);
+            StringBuilder cardList = new StringBuilder("SUCCESS:Pack purchased. Cards received: ");
+            for (int i = 0; i < cards.size(); i++) {
+                Card card = cards.get(i);
+                // Use underscores instead of colons to avoid parsing conflicts
+                cardList.append(card.getName()).append("(ID_").append(card.getId()).append(")");
+                if (i < cards.size() - 1) {
+                    cardList.append(", ");
                 }
+            }
+            notifyPlayer(playerId, cardList.toString());
+        } else {
+            logger.warn("Purchase failed for player {}: {}", playerId, result.getStatus());
+            notifyPlayer(playerId, "ERROR:Purchase failed: " + result.getStatus());
+        }
+    }
 
-                String recipientId = command[3];
-                String messageContent = String.join(":", java.util.Arrays.copyOfRange(command, 4, command.length));
-
-                handlePrivateMessage(playerId, recipientId, messageContent);
-                break;
-
-            case "IN_GAME_CHAT":
-                if (command.length < 4) {
-                    notifyPlayer(playerId, "ERROR:Incomplete IN_GAME_CHAT command.");
-                    return;
-                }
-                String matchIdChat = command[2];
-                String chatMessage = String.join(":", java.util.Arrays.copyOfRange(command, 3, command.length));
-                inGameChatService.handleInGameChatMessage(playerId, matchIdChat, chatMessage);
-                break;
-
-            case "SEND_EMOTE":
-                if (command.length < 5) {
-                    notifyPlayer(playerId, "ERROR:Incomplete SEND_EMOTE command.");
-                    return;
-                }
-                String channelType = command[2];
-                String channelId = command[3];
-                String emoteId = command[4];
-                emoteService.handleSendEmote(playerId, channelType, channelId, emoteId);
-                break;
-
-            case "SHOW_CARDS":
-                // Send the player's card collection
-                List<Card> playerCards = player.getCardCollection();
-                if (playerCards.isEmpty()) {
-                    notifyPlayer(playerId, "INFO:Your card collection is empty. Buy a card pack first!");
-                } else {
-                    StringBuilder cardList = new StringBuilder("INFO:YOUR_CARDS:");
-                    for (int i = 0; i < playerCards.size(); i++) {
-                        Card card = playerCards.get(i);
-                        cardList.append(card.getId()).append("(").append(card.getName()).append(")");
-                        if (i < playerCards.size() - 1) {
-                            cardList.append(";");
-                        }
-                    }
-                    notifyPlayer(playerId, cardList.toString());
+    private void showCards(Player player) {
+        // Send the player's card collection
+        List<Card> playerCards = player.getCardCollection();
+        if (playerCards.isEmpty()) {
+            notifyPlayer(player.getId(), "INFO:Your card collection is empty. Buy a card pack first!");
+        } else {
+            StringBuilder cardList = new StringBuilder("INFO:YOUR_CARDS:");
+            for (int i = 0; i < playerCards.size(); i++) {
+                Card card = playerCards.get(i);
+                cardList.append(card.getId()).append("(").append(card.getName()).append(")");
+                if (i < playerCards.size() - 1) {
+                    cardList.append(";");
                 }
-                break;
-
-            default:
-                notifyPlayer(playerId, "ERROR:Unknown command '" + action + "'.");
-                break;
+            }
+            notifyPlayer(player.getId(), cardList.toString());
         }
     }
 
@@ -591,52 +525,24 @@ public class GameFacade {
     @Transactional
     public PurchaseResult buyPack(Player player, String packType) {
         logger.debug("buyPack called for player {} with packType: {}", player.getId(), packType);
+        // The store reloads and saves the player under the player's lock
         PurchaseResult result = storeService.purchaseCardPack(player, packType);
         if (result.isSuccess()) {
-            // Force serialization and save to DB
-            player.serializeCardCollectionNow();
-            String json = player.getCardCollectionJson();
-            logger.debug("Cards in player {} collection after purchase: {} (JSON length: {})", 
-                        player.getId(), player.getCardCollection().size(), json != null ? json.length() : 0);
-            
-            // Update DB using transactional method
-            updatePlayerCardsInDb(player.getId(), json);
-            
-            // Reload from DB to verify
-            entityManager.clear();
-            Player reloaded = jpaPlayerRepository.findById(player.getId()).orElse(player);
-            logger.info("Player {} bought pack. Memory: {} cards, DB: {} cards", 
-                       player.getId(), player.getCardCollection().size(), reloaded.getCardCollection().size());
+            logger.info("Player {} bought pack with {} cards", player.getId(), result.getCards().size());
         } else {
             logger.warn("Failed to buy pack for player {}: {}", player.getId(), result.getStatus());
         }
         return result;
     }
 
-    public void updatePlayerCardsInDb(String playerId, String cardCollectionJson) {
-        logger.debug("Updating player {} cards in DB with JSON length: {}", playerId, cardCollectionJson != null ? cardCollectionJson.length() : 0);
-        
-        try {
-            // Use JdbcTemplate which handles transactions automatically
-            // Player ID in DB is VARCHAR, so pass as String directly
-            int updated = jdbcTemplate.update(
-                "UPDATE players SET card_collection = ? WHERE id = ?",
-                cardCollectionJson,
-                playerId
-            );
-            logger.info("Player {} - JDBC UPDATE executed: {} rows affected", playerId, updated);
-        } catch (Exception e) {
-            logger.error("Error updating player {} cards: {}", playerId, e.getMessage(), e);
-            e.printStackTrace();
-        }
-    }
-
     public void finishGame(String matchId, String winnerId, String loserId) {
         if (gameSessionRepository.findById(matchId).isEmpty()) {
             logger.warn("Attempt to finish non-existent match: {}", matchId);
             return;
         }
+        matchJournal.recordEnd(matchId, winnerId, loserId);
         gameSessionRepository.deleteById(matchId);
+        turnTimerService.cancel(matchId);
 
         Optional<Player> winnerOpt = playerRepository.findById(winnerId);
         if (winnerOpt.isPresent()) {
@@ -648,6 +554,7 @@ public class GameFacade {
         }
 
         // Update player match status
+        playerMatchIndex.unbind(matchId, winnerId, loserId);
         sessionManager.setPlayerInMatch(winnerId, false);
         sessionManager.setPlayerInMatch(loserId, false);
 
@@ -701,22 +608,27 @@ public class GameFacade {
     private boolean executeTradeInternal(TradeProposal proposal) {
         String tradeId = proposal.getTradeId();
 
-        boolean lockAcquired = false;
+        logger.info("[TRADE-EXEC] Attempting to acquire distributed lock for trade {}", tradeId);
+        Optional<service.lock.LockService.HeldLock> lock = lockService.tryLockTrade(
+                tradeId, proposal.getProposingPlayerId(), proposal.getTargetPlayerId());
+        if (lock.isEmpty()) {
+            logger.warn("[TRADE-EXEC] Could not acquire lock to execute trade {}", tradeId);
+            return false;
+        }
         try {
-            logger.info("[TRADE-EXEC] Attempting to acquire distributed lock for trade {}", tradeId);
-            lockAcquired = lockService.acquire();
-            if (!lockAcquired) {
-                logger.warn("[TRADE-EXEC] Could not acquire lock to execute trade {}", tradeId);
+            logger.info("[TRADE-EXEC] Lock acquired for trade {}", tradeId);
+            if (tradeService.findTradeById(tradeId).isEmpty()) {
+                logger.warn("[TRADE-EXEC] Trade {} was already executed or removed", tradeId);
                 return false;
             }
-            logger.info("[TRADE-EXEC] Lock acquired for trade {}", tradeId);
 
             // Use the proposal we already have (already verified as ACCEPTED)
             logger.info("[TRADE-EXEC] Using proposal with status: {}", proposal.getStatus());
 
+            // Read as stored, since a cached copy may not have seen a trade or purchase made elsewhere
             logger.info("[TRADE-EXEC] Fetching players from repository");
-            Player p1 = playerRepository.findById(proposal.getProposingPlayerId()).orElse(null);
-            Player p2 = playerRepository.findById(proposal.getTargetPlayerId()).orElse(null);
+            Player p1 = playerRepository.findLatestById(proposal.getProposingPlayerId()).orElse(null);
+            Player p2 = playerRepository.findLatestById(proposal.getTargetPlayerId()).orElse(null);
 
             if (p1 == null || p2 == null) {
                 logger.error("[TRADE-EXEC] Could not find one or both players for trade {}. P1: {}, P2: {}", 
@@ -726,48 +638,40 @@ public class GameFacade {
             logger.info("[TRADE-EXEC] Both players found - P1: {} ({}), P2: {} ({})", 
                     p1.getId(), p1.getNickname(), p2.getId(), p2.getNickname());
 
-            // Synchronize on players to prevent concurrent modifications to their collections
-            logger.info("[TRADE-EXEC] Acquiring synchronized locks on both players");
-            synchronized (p1) {
-                synchronized (p2) {
-                    logger.info("[TRADE-EXEC] Verifying card ownership");
-                    logger.info("[TRADE-EXEC] P1 offered cards: {}", proposal.getOfferedCardIds());
-                    logger.info("[TRADE-EXEC] P2 requested cards: {}", proposal.getRequestedCardIds());
-                    logger.info("[TRADE-EXEC] P1 has {} cards in collection", p1.getCardCollection().size());
-                    logger.info("[TRADE-EXEC] P2 has {} cards in collection", p2.getCardCollection().size());
-                    
-                    if (!p1.hasCards(proposal.getOfferedCardIds()) || !p2.hasCards(proposal.getRequestedCardIds())) {
-                        logger.warn("[TRADE-EXEC] Trade {} invalid: one or both players missing cards.", tradeId);
-                        logger.warn("[TRADE-EXEC] P1 has offered cards: {}", p1.hasCards(proposal.getOfferedCardIds()));
-                        logger.warn("[TRADE-EXEC] P2 has requested cards: {}", p2.hasCards(proposal.getRequestedCardIds()));
-                        notifyPlayer(p1.getId(), "UPDATE:TRADE_COMPLETE:FAILED_MISSING_CARDS");
-                        notifyPlayer(p2.getId(), "UPDATE:TRADE_COMPLETE:FAILED_MISSING_CARDS");
-                        return false;
-                    }
-                    logger.info("[TRADE-EXEC] Both players have required cards");
-
-                    logger.info("[TRADE-EXEC] Filtering cards to exchange");
-                    List<Card> p1OfferedCards = p1.getCardCollection().stream().filter(c -> proposal.getOfferedCardIds().contains(c.getId())).collect(Collectors.toList());
-                    List<Card> p2RequestedCards = p2.getCardCollection().stream().filter(c -> proposal.getRequestedCardIds().contains(c.getId())).collect(Collectors.toList());
-                    logger.info("[TRADE-EXEC] P1 offering {} cards, P2 offering {} cards", 
-                            p1OfferedCards.size(), p2RequestedCards.size());
-
-                    logger.info("[TRADE-EXEC] Exchanging cards");
-                    p1.getCardCollection().removeAll(p1OfferedCards);
-                    p1.getCardCollection().addAll(p2RequestedCards);
-                    logger.info("[TRADE-EXEC] P1 cards updated. New collection size: {}", p1.getCardCollection().size());
-
-                    p2.getCardCollection().removeAll(p2RequestedCards);
-                    p2.getCardCollection().addAll(p1OfferedCards);
-                    logger.info("[TRADE-EXEC] P2 cards updated. New collection size: {}", p2.getCardCollection().size());
-
-                    logger.info("[TRADE-EXEC] Saving players to repository");
-                    playerRepository.save(p1);
-                    logger.info("[TRADE-EXEC] P1 saved");
-                    playerRepository.save(p2);
-                    logger.info("[TRADE-EXEC] P2 saved");
-                }
+            // These copies are this thread's own; the trade lock keeps other servers' trades out
+            logger.info("[TRADE-EXEC] Verifying card ownership");
+            logger.info("[TRADE-EXEC] P1 offered cards: {}", proposal.getOfferedCardIds());
+            logger.info("[TRADE-EXEC] P2 requested cards: {}", proposal.getRequestedCardIds());
+            logger.info("[TRADE-EXEC] P1 has {} cards in collection", p1.getCardCollection().size());
+            logger.info("[TRADE-EXEC] P2 has {} cards in collection", p2.getCardCollection().size());
+            
+            if (!p1.hasCards(proposal.getOfferedCardIds()) || !p2.hasCards(proposal.getRequestedCardIds())) {
+                logger.warn("[TRADE-EXEC] Trade {} invalid: one or both players missing cards.", tradeId);
+                logger.warn("[TRADE-EXEC] P1 has offered cards: {}", p1.hasCards(proposal.getOfferedCardIds()));
+                logger.warn("[TRADE-EXEC] P2 has requested cards: {}", p2.hasCards(proposal.getRequestedCardIds()));
+                notifyPlayer(p1.getId(), "UPDATE:TRADE_COMPLETE:FAILED_MISSING_CARDS");
+                notifyPlayer(p2.getId(), "UPDATE:TRADE_COMPLETE:FAILED_MISSING_CARDS");
+                return false;
             }
+            logger.info("[TRADE-EXEC] Both players have required cards");
+
+            logger.info("[TRADE-EXEC] Exchanging cards");
+            List<Card> p1OfferedCards = p1.removeCards(proposal.getOfferedCardIds());
+            List<Card> p2RequestedCards = p2.removeCards(proposal.getRequestedCardIds());
+            logger.info("[TRADE-EXEC] P1 offering {} cards, P2 offering {} cards", 
+                    p1OfferedCards.size(), p2RequestedCards.size());
+
+            p1.addCards(p2RequestedCards);
+            logger.info("[TRADE-EXEC] P1 cards updated. New collection size: {}", p1.getCardCollection().size());
+
+            p2.addCards(p1OfferedCards);
+            logger.info("[TRADE-EXEC] P2 cards updated. New collection size: {}", p2.getCardCollection().size());
+
+            logger.info("[TRADE-EXEC] Saving players to repository");
+            playerRepository.saveAndFlush(p1);
+            logger.info("[TRADE-EXEC] P1 saved");
+            playerRepository.saveAndFlush(p2);
+            logger.info("[TRADE-EXEC] P2 saved");
 
             proposal.setStatus(TradeProposal.Status.COMPLETED);
             logger.info("[TRADE-EXEC] Trade {} status changed to COMPLETED", tradeId);
@@ -786,17 +690,15 @@ public class GameFacade {
             return true;
 
         } finally {
-            if (lockAcquired) {
-                logger.info("[TRADE-EXEC] Releasing distributed lock for trade {}", tradeId);
-                lockService.release();
-            }
+            logger.info("[TRADE-EXEC] Releasing distributed lock for trade {}", tradeId);
+            lock.get().release();
         }
     }
 
-    private void handleTradeProposal(String proposerId, String targetId, String[] offeredCardIds, String[] requestedCardIds) {
+    private void handleTradeProposal(String proposerId, String targetId, List<String> offeredCardIds, List<String> requestedCardIds) {
         logger.info("[TRADE] === Starting trade proposal ===");
         logger.info("[TRADE] Proposer: {}, Target: {}", proposerId, targetId);
-        logger.info("[TRADE] Offered cards: {}, Requested cards: {}", Arrays.toString(offeredCardIds), Arrays.toString(requestedCardIds));
+        logger.info("[TRADE] Offered cards: {}, Requested cards: {}", offeredCardIds, requestedCardIds);
         
         Player proposer = playerRepository.findById(proposerId).orElse(null);
         Player target = playerRepository.findById(targetId).orElse(null);
@@ -815,25 +717,23 @@ public class GameFacade {
         }
         logger.info("[TRADE] Target found: {} (nickname: {})", targetId, target.getNickname());
 
-        List<String> offeredCardIdsList = Arrays.asList(offeredCardIds);
-        if (!proposer.hasCards(offeredCardIdsList)) {
-            logger.warn("[TRADE] Proposer {} does not have all offered cards: {}", proposerId, offeredCardIdsList);
+        if (!proposer.hasCards(offeredCardIds)) {
+            logger.warn("[TRADE] Proposer {} does not have all offered cards: {}", proposerId, offeredCardIds);
             notifyPlayer(proposerId, "ERROR:Proposer does not have all the offered cards");
             return;
         }
         logger.info("[TRADE] Proposer has all offered cards");
 
-        List<String> requestedCardIdsList = Arrays.asList(requestedCardIds);
-        if (!target.hasCards(requestedCardIdsList)) {
-            logger.warn("[TRADE] Target {} does not have all requested cards: {}", targetId, requestedCardIdsList);
+        if (!target.hasCards(requestedCardIds)) {
+            logger.warn("[TRADE] Target {} does not have all requested cards: {}", targetId, requestedCardIds);
             notifyPlayer(proposerId, "ERROR:Target player does not have all the requested cards");
             return;
         }
         logger.info("[TRADE] Target has all requested cards");
 
         TradeProposal proposal = new TradeProposal(proposerId, targetId,
-                Arrays.asList(offeredCardIds),
-                Arrays.asList(requestedCardIds));
+                offeredCardIds,
+                requestedCardIds);
         tradeService.createTrade(proposal);
         logger.info("[TRADE] Trade proposal created with ID: {}", proposal.getTradeId());
 
@@ -931,44 +831,121 @@ public class GameFacade {
         logger.info("Trade {} rejected by player {} and removed from Redis", tradeId, playerId);
     }
 
-    @Scheduled(fixedRate = 2000)
-    public void scheduledMatchmaking() {
-        tryToCreateMatch();
+    /**
+     * Handles an expired turn or response-window deadline reported by the {@link TurnTimerService}
+     * and registers the session's next deadline if the match is still running. Runs in the
+     * match's mailbox.
+     */
+    void handleTurnDeadline(String matchId) {
+        Optional<GameSession> sessionOpt = gameSessionRepository.findLocal(matchId);
+        if (sessionOpt.isEmpty()) {
+            return;
+        }
+        GameSession session = sessionOpt.get();
+        boolean turnExpired = session.getTurnManager().isTurnExpired();
+        boolean windowDue = session.isResponseWindowDue();
+        if (!session.isGameEnded() && (turnExpired || windowDue)) {
+            matchJournal.recordDeadline(matchId, turnExpired, windowDue);
+        }
+        session.forceEndTurn();
+        session.resolveResponseWindow();
+        matchJournal.inputApplied(session);
+        if (!session.isGameEnded()) {
+            gameSessionRepository.save(session);
+            turnTimerService.schedule(matchId, session.getNextDeadline());
+        }
     }
 
-    @Scheduled(cron = "0 0 0 * * ?")
-    public void awardDailyRewards() {
-        logger.info("Starting daily reward distribution task");
-
-        try {
-            List<Player> allPlayers = jpaPlayerRepository.findAll();
-
-            int dailyReward = 50;
-            for (Player player : allPlayers) {
-                player.setCoins(player.getCoins() + dailyReward);
-                playerRepository.save(player);
-                notifyPlayer(player.getId(), "DAILY_REWARD:" + dailyReward + ":Thank you for playing! Daily reward awarded.");
-                logger.debug("Daily reward of {} coins awarded to player {}", dailyReward, player.getId());
+    /**
+     * Adopts the sessions this node owned before a restart and re-registers their deadlines.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverTurnTimers() {
+        int recovered = 0;
+        String nodeUrl = gameSessionRepository.getNodeUrl();
+        List<String> owned = gameSessionRepository.findMatchIdsOwnedBy(nodeUrl);
+        // One pass over the journal rebuilds every owned match
+        Map<String, GameSession> journaled = matchJournal.recoverAll(nodeUrl, owned, this);
+        for (String matchId : owned) {
+            try {
+                Optional<GameSession> sessionOpt = journaled.containsKey(matchId)
+                        ? Optional.of(journaled.get(matchId))
+                        : gameSessionRepository.findById(matchId);
+                if (sessionOpt.isPresent() && adoptSession(sessionOpt.get(), nodeUrl)) {
+                    recovered++;
+                }
+            } catch (Exception e) {
+                logger.warn("Could not recover game session {}: {}", matchId, e.getMessage());
             }
+        }
+        logger.info("Recovered {} owned game sessions", recovered);
+    }
 
-            logger.info("Completed daily reward distribution for {} players", allPlayers.size());
-        } catch (Exception e) {
-            logger.error("Error during daily reward distribution: {}", e.getMessage(), e);
+    /**
+     * Returns the live session of a match hosted on this node. If the match has no live
+     * owner, it is rebuilt and adopted by this node. If another live node owns the match,
+     * the result is empty and commands should be forwarded to that node instead.
+     */
+    private Optional<GameSession> findHostedSession(String matchId) {
+        Optional<GameSession> local = gameSessionRepository.findLocal(matchId);
+        if (local.isPresent()) {
+            return local;
+        }
+        if (findRemoteOwner(matchId).isPresent()) {
+            return Optional.empty();
+        }
+        Optional<String> previousOwner = gameSessionRepository.findOwner(matchId);
+        Optional<GameSession> rebuilt = previousOwner.isPresent()
+                ? rebuildSession(previousOwner.get(), matchId)
+                : gameSessionRepository.findById(matchId);
+        // Another node may adopt the match at the same time; only the one whose claim wins hosts it
+        return rebuilt.filter(session -> adoptSession(session, previousOwner.orElse(null)));
+    }
+
+    /**
+     * Rebuilds a match from the journal of the node that hosted it, which holds every move up
+     * to the node's last one, or else from the snapshot in Redis, which may lag a few moves behind.
+     */
+    private Optional<GameSession> rebuildSession(String previousOwner, String matchId) {
+        Optional<GameSession> journaled = matchJournal.recover(previousOwner, matchId, this);
+        return journaled.isPresent() ? journaled : gameSessionRepository.findById(matchId);
+    }
+
+    private boolean adoptSession(GameSession session, String previousOwner) {
+        if (!gameSessionRepository.claimOwnership(session.getMatchId(), previousOwner)) {
+            logger.info("Game session {} was adopted by another node first", session.getMatchId());
+            return false;
         }
+        session.attach(this, cardRepository);
+        matchJournal.recordSnapshot(session);
+        gameSessionRepository.save(session);
+        turnTimerService.schedule(session.getMatchId(), session.getNextDeadline());
+        logger.info("Adopted game session {} on {}", session.getMatchId(), gameSessionRepository.getNodeUrl());
+        return true;
     }
 
-    @Scheduled(fixedRate = 1000)
-    public void scheduledTurnTimerCheck() {
-        Iterable<String> keys = redissonClient.getKeys().getKeysByPattern("game_session:*");
-        for (String key : keys) {
-            String matchId = key.substring("game_session:".length());
-            Optional<GameSession> sessionOpt = gameSessionRepository.findById(matchId);
-            if (sessionOpt.isPresent()) {
-                GameSession session = sessionOpt.get();
-                session.forceEndTurn();
-                session.resolveResponseWindow();
-                gameSessionRepository.save(session);
-            }
+    private Optional<String> findRemoteOwner(String matchId) {
+        return gameSessionRepository.findOwner(matchId)
+                .filter(owner -> !owner.equals(gameSessionRepository.getNodeUrl()))
+                .filter(owner -> serverRegistry.getRegisteredServers().contains(owner));
+    }
+
+    /**
+     * Forwards a game command to the node that owns the match.
+     *
+     * @return true if the command was delivered to the owner
+     */
+    private boolean forwardToOwner(String matchId, GameCommand.PlayCard command) {
+        Optional<String> owner = findRemoteOwner(matchId);
+        if (owner.isEmpty()) {
+            return false;
+        }
+        try {
+            serverApiClient.forwardGameCommand(owner.get(), matchId, command.toFacadeFrame());
+            return true;
+        } catch (Exception e) {
+            logger.warn("Could not forward command for match {} to {}: {}", matchId, owner.get(), e.getMessage());
+            return false;
         }
     }
 }
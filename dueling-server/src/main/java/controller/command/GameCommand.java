@@ -0,0 +1,100 @@
+package controller.command;
+
+import java.util.List;
+
+/**
+ * A game command sent by a player, decoded once by {@link GameCommandDecoder}.
+ * <p>
+ * Commands arrive already validated for arity, so {@link controller.GameFacade} only
+ * dispatches on the type. Malformed frames decode to {@link Invalid}.
+ */
+public sealed interface GameCommand {
+
+    String playerId();
+
+    /**
+     * @return true if handling the command needs the sender's {@link model.Player} entity,
+     *         which is then loaded before dispatching; commands that need no entity skip that read
+     */
+    default boolean requiresPlayer() {
+        return true;
+    }
+
+    record CharacterSetup(String playerId, String nickname, String race, String playerClass) implements GameCommand {
+        @Override
+        public boolean requiresPlayer() {
+            return false;
+        }
+    }
+
+    /**
+     * @param playerId the player entering the queue
+     * @param deckId   the deck to play with, or null for the player's default deck
+     */
+    record EnterMatchmaking(String playerId, String deckId) implements GameCommand {
+    }
+
+    record PlayCard(String playerId, String matchId, String cardId) implements GameCommand {
+        @Override
+        public boolean requiresPlayer() {
+            return false;
+        }
+
+        /**
+         * @return the command in the colon-separated form accepted from peer servers
+         */
+        public String toFacadeFrame() {
+            return GameCommandDecoder.FACADE_PREFIX + playerId + ":PLAY_CARD:" + matchId + ":" + cardId;
+        }
+    }
+
+    record BuyPack(String playerId, String packType) implements GameCommand {
+    }
+
+    record ProposeTrade(String playerId, String targetPlayerId, List<String> offeredCardIds,
+                        List<String> requestedCardIds) implements GameCommand {
+        @Override
+        public boolean requiresPlayer() {
+            return false;
+        }
+    }
+
+    record AcceptTrade(String playerId, String tradeId) implements GameCommand {
+    }
+
+    record RejectTrade(String playerId, String tradeId) implements GameCommand {
+    }
+
+    record SendPrivateMessage(String playerId, String recipientId, String content) implements GameCommand {
+    }
+
+    record InGameChat(String playerId, String matchId, String message) implements GameCommand {
+        @Override
+        public boolean requiresPlayer() {
+            return false;
+        }
+    }
+
+    record SendEmote(String playerId, String channelType, String channelId, String emoteId) implements GameCommand {
+        @Override
+        public boolean requiresPlayer() {
+            return false;
+        }
+    }
+
+    record ShowCards(String playerId) implements GameCommand {
+    }
+
+    /**
+     * A frame that could not be decoded; the error is sent back to the player.
+     *
+     * @param playerId the player who sent the frame
+     * @param error    the reason the frame was rejected
+     */
+    record Invalid(String playerId, String error) implements GameCommand {
+        @Override
+        public boolean requiresPlayer() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package controller.command;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes colon-separated command frames into {@link GameCommand}s in a single pass,
+ * without regex splitting or intermediate arrays.
+ * <p>
+ * Clients send {@code ACTION:ARG1:ARG2...}, optionally prefixed with {@code GAME:<playerId>:};
+ * peer servers forward commands in the prefixed form. Free-text arguments (chat and private
+ * messages) are last and keep any colons they contain.
+ */
+public final class GameCommandDecoder {
+
+    static final String FACADE_PREFIX = "GAME:";
+
+    private GameCommandDecoder() {
+    }
+
+    /**
+     * Decodes a frame received from a player's connection.
+     *
+     * @param playerId the player the connection belongs to
+     * @param frame    the frame, with or without a {@code GAME:<playerId>:} prefix
+     */
+    public static GameCommand decode(String playerId, String frame) {
+        String ownPrefix = FACADE_PREFIX + playerId + ":";
+        Cursor cursor = new Cursor(frame, frame.startsWith(ownPrefix) ? ownPrefix.length() : 0);
+        return decodeAction(playerId, cursor);
+    }
+
+    /**
+     * Decodes a {@code GAME:<playerId>:ACTION...} frame forwarded by another server.
+     *
+     * @throws IllegalArgumentException if the frame does not name a player
+     */
+    public static GameCommand decodeFacadeFrame(String frame) {
+        if (!frame.startsWith(FACADE_PREFIX)) {
+            throw new IllegalArgumentException("Command does not start with " + FACADE_PREFIX);
+        }
+        Cursor cursor = new Cursor(frame, FACADE_PREFIX.length());
+        String playerId = cursor.next();
+        if (playerId == null) {
+            throw new IllegalArgumentException("Command does not name a player");
+        }
+        return decodeAction(playerId, cursor);
+    }
+
+    private static GameCommand decodeAction(String playerId, Cursor cursor) {
+        String action = cursor.next();
+        if (action == null) {
+            return new GameCommand.Invalid(playerId, "Empty command.");
+        }
+        switch (action) {
+            case "CHARACTER_SETUP": {
+                String nickname = cursor.next();
+                String race = cursor.next();
+                String playerClass = cursor.next();
+                if (nickname == null || race == null || playerClass == null) {
+                    return new GameCommand.Invalid(playerId, "Incomplete character setup command. Expected: NICKNAME:RACE:CLASS");
+                }
+                return new GameCommand.CharacterSetup(playerId, nickname, race, playerClass);
+            }
+            case "MATCHMAKING": {
+                String matchmakingAction = cursor.next();
+                if (matchmakingAction == null || !"ENTER".equals(matchmakingAction.trim())) {
+                    return new GameCommand.Invalid(playerId, "Invalid MATCHMAKING command. Expected: MATCHMAKING:ENTER[:DECK_ID]");
+                }
+                return new GameCommand.EnterMatchmaking(playerId, cursor.next());
+            }
+            case "PLAY_CARD": {
+                String matchId = cursor.next();
+                String cardId = cursor.next();
+                if (matchId == null || cardId == null) {
+                    return new GameCommand.Invalid(playerId, "Incomplete PLAY_CARD command.");
+                }
+                return new GameCommand.PlayCard(playerId, matchId, cardId);
+            }
+            case "STORE": {
+                String storeAction = cursor.next();
+                String packType = cursor.next();
+                if (!"BUY".equals(storeAction) || packType == null) {
+                    return new GameCommand.Invalid(playerId, "Invalid STORE command. Expected: STORE:BUY:PACKTYPE");
+                }
+                return new GameCommand.BuyPack(playerId, packType);
+            }
+            case "TRADE":
+                return decodeTrade(playerId, cursor);
+            case "PRIVATE_MESSAGE": {
+                String recipientId = cursor.next();
+                if (recipientId == null) {
+                    return new GameCommand.Invalid(playerId, "Incomplete PRIVATE_MESSAGE command.");
+                }
+                return new GameCommand.SendPrivateMessage(playerId, recipientId, cursor.rest());
+            }
+            case "IN_GAME_CHAT": {
+                String matchId = cursor.next();
+                String message = cursor.rest();
+                if (matchId == null || message.isEmpty()) {
+                    return new GameCommand.Invalid(playerId, "Incomplete IN_GAME_CHAT command.");
+                }
+                return new GameCommand.InGameChat(playerId, matchId, message);
+            }
+            case "SEND_EMOTE": {
+                String channelType = cursor.next();
+                String channelId = cursor.next();
+                String emoteId = cursor.next();
+                if (channelType == null || channelId == null || emoteId == null) {
+                    return new GameCommand.Invalid(playerId, "Incomplete SEND_EMOTE command.");
+                }
+                return new GameCommand.SendEmote(playerId, channelType, channelId, emoteId);
+            }
+            case "SHOW_CARDS":
+                return new GameCommand.ShowCards(playerId);
+            default:
+                return new GameCommand.Invalid(playerId, "Unknown command '" + action + "'.");
+        }
+    }
+
+    private static GameCommand decodeTrade(String playerId, Cursor cursor) {
+        String tradeAction = cursor.next();
+        if (tradeAction == null) {
+            return new GameCommand.Invalid(playerId, "Incomplete TRADE command.");
+        }
+        switch (tradeAction) {
+            case "PROPOSE": {
+                String targetPlayerId = cursor.next();
+                String offered = cursor.next();
+                String requested = cursor.next();
+                if (targetPlayerId != null && offered != null && requested != null) {
+                    return new GameCommand.ProposeTrade(playerId, targetPlayerId, cardIds(offered), cardIds(requested));
+                }
+                break;
+            }
+            case "ACCEPT": {
+                String tradeId = cursor.next();
+                if (tradeId != null) {
+                    return new GameCommand.AcceptTrade(playerId, tradeId);
+                }
+                break;
+            }
+            case "REJECT": {
+                String tradeId = cursor.next();
+                if (tradeId != null) {
+                    return new GameCommand.RejectTrade(playerId, tradeId);
+                }
+                break;
+            }
+            default:
+                break;
+        }
+        return new GameCommand.Invalid(playerId, "Invalid trade command format or action.");
+    }
+
+    private static List<String> cardIds(String commaSeparated) {
+        List<String> ids = new ArrayList<>();
+        String trimmed = commaSeparated.trim();
+        int start = 0;
+        while (start <= trimmed.length()) {
+            int end = trimmed.indexOf(',', start);
+            if (end < 0) {
+                end = trimmed.length();
+            }
+            String id = trimmed.substring(start, end).strip();
+            // A trailing or doubled comma leaves an empty token, which names no card
+            if (!id.isEmpty()) {
+                ids.add(id);
+            }
+            start = end + 1;
+        }
+        return ids;
+    }
+
+    /**
+     * Reads colon-separated fields from a frame. Missing and empty fields read as null.
+     */
+    private static final class Cursor {
+        private final String frame;
+        private int position;
+
+        private Cursor(String frame, int position) {
+            this.frame = frame;
+            this.position = position;
+        }
+
+        String next() {
+            if (position >= frame.length()) {
+                return null;
+            }
+            int end = frame.indexOf(':', position);
+            if (end < 0) {
+                end = frame.length();
+            }
+            String field = frame.substring(position, end);
+            position = end + 1;
+            return field.isEmpty() ? null : field;
+        }
+
+        /**
+         * @return everything after the fields read so far, colons included; empty if nothing is left
+         */
+        String rest() {
+            if (position >= frame.length()) {
+                return "";
+            }
+            String rest = frame.substring(position);
+            position = frame.length();
+            return rest;
+        }
+    }
+}
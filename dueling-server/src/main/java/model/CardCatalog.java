@@ -0,0 +1,59 @@
+package model;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory definitions of every card a player can own, keyed by card ID.
+ * <p>
+ * Players store only the IDs and counts of the cards they own; the full {@link Card}s are
+ * resolved here. Cards are never changed after registration, so one instance is shared by
+ * every collection that holds it. The starter deck is always known; the cards sold in packs
+ * are registered by {@link repository.CardRepository} on startup.
+ */
+public final class CardCatalog {
+
+    private static final Map<String, Card> cards = new ConcurrentHashMap<>();
+    private static final List<String> STARTER_DECK = List.of(
+            "basic-0", "basic-1", "basic-2", "basic-3", "basic-4", "combo-1", "counter-1");
+
+    static {
+        for (int i = 0; i < 5; i++) {
+            register(new Card("basic-" + i, "Basic Card " + i, 1, 1, "Common",
+                    Card.CardType.ATTACK, "Standard attack", 1));
+        }
+        Map<String, String> comboParams = new HashMap<>();
+        comboParams.put("requiredCardName", "Basic Card 1");
+        comboParams.put("bonusDamage", "3");
+        register(new Card("combo-1", "Combo Strike", 2, 1, "Rare", Card.CardType.COMBO,
+                "Deals +3 damage if you played 'Basic Card 1' this turn.", 2, comboParams));
+        register(new Card("counter-1", "Counter Spell", 0, 0, "Rare", Card.CardType.COUNTER_SPELL,
+                "Counters a magic spell.", 3));
+    }
+
+    private CardCatalog() {
+    }
+
+    public static void register(Card card) {
+        cards.put(card.getId(), card);
+    }
+
+    public static void registerAll(Collection<Card> definitions) {
+        definitions.forEach(CardCatalog::register);
+    }
+
+    public static Optional<Card> find(String cardId) {
+        return Optional.ofNullable(cards.get(cardId));
+    }
+
+    /**
+     * @return the IDs of the cards every new player starts with
+     */
+    public static List<String> starterDeck() {
+        return STARTER_DECK;
+    }
+}
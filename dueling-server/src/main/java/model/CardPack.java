@@ -20,6 +20,14 @@ public interface CardPack {
      * @return the cost of the card pack
      */
     int getCost();
+
+    /**
+     * Gets the rarity drawn for each card slot of the pack. If a slot's rarity is out of
+     * stock, the pack cannot be opened.
+     *
+     * @return one rarity per card in the pack
+     */
+    List<String> getSlotRarities();
     
     /**
      * Opens the card pack and returns the cards inside.
@@ -16,13 +16,19 @@ import java.util.Optional;
 
 import java.io.Serializable;
 
+/**
+ * State and rules of one running match.
+ * <p>
+ * Not thread-safe: the hosting node only touches a live session from the match's mailbox
+ * (see {@link service.mailbox.MatchMailboxService}), which runs one task at a time.
+ */
 public class GameSession implements Serializable {
     private static final long serialVersionUID = 1L;
     private static final Logger logger = LoggerFactory.getLogger(GameSession.class);
 
     private final String matchId;
-    private final transient GameFacade gameFacade;
-    private final transient CardRepository cardRepository;
+    private transient GameFacade gameFacade;
+    private transient CardRepository cardRepository;
     private boolean gameEnded = false;
 
     private final PlayerStateManager playerStateManager;
@@ -46,7 +52,40 @@ public class GameSession implements Serializable {
         this.scenarioManager = new ScenarioManager();
     }
 
-    public synchronized void startGame() {
+    /**
+     * Restores a session from a snapshot. Runtime collaborators must be attached afterwards
+     * with {@link #attach(GameFacade, CardRepository)}.
+     */
+    public GameSession(String matchId, boolean gameEnded, PlayerStateManager playerStateManager,
+                       TurnManager turnManager, ScenarioManager scenarioManager,
+                       boolean isResponseWindowActive, long responseWindowEndTime,
+                       Card cardToCounter, Player originalCaster) {
+        this.matchId = matchId;
+        this.gameEnded = gameEnded;
+        this.playerStateManager = playerStateManager;
+        this.turnManager = turnManager;
+        this.cardEffectService = new CardEffectService();
+        this.scenarioManager = scenarioManager;
+        this.isResponseWindowActive = isResponseWindowActive;
+        this.responseWindowEndTime = responseWindowEndTime;
+        this.cardToCounter = cardToCounter;
+        this.originalCaster = originalCaster;
+    }
+
+    /**
+     * Re-attaches the runtime collaborators after the session has been restored from a
+     * snapshot, since they are not part of the serialized state.
+     *
+     * @param facade         the facade used for notifications and game completion
+     * @param cardCatalog    the card catalog
+     */
+    public void attach(GameFacade facade, CardRepository cardCatalog) {
+        this.gameFacade = facade;
+        this.cardRepository = cardCatalog;
+        this.playerStateManager.attach(facade);
+    }
+
+    public void startGame() {
         playerStateManager.initializeDecks();
         logger.info("Match {} started between {} and {}", matchId, getPlayer1().getId(), getPlayer2().getId());
 
@@ -88,8 +127,17 @@ public class GameSession implements Serializable {
         startNewTurn();
     }
 
-    public synchronized void forceEndTurn() {
+    public void forceEndTurn() {
         if (gameEnded || !turnManager.isTurnExpired()) return;
+        expireTurn();
+    }
+
+    /**
+     * Ends the current turn as if its timer had run out, without checking the clock. Used when
+     * replaying a journaled deadline, whose original time has already passed.
+     */
+    public void expireTurn() {
+        if (gameEnded) return;
 
         String currentPlayerId = turnManager.getCurrentPlayerId();
         logger.info("Match {}: Turn timer expired for player {}. Forcing end of turn.", matchId, currentPlayerId);
@@ -110,11 +158,11 @@ public class GameSession implements Serializable {
         }
     }
 
-    public synchronized void playCard(String playerId, String cardId) {
+    public void playCard(String playerId, String cardId) {
         playCard(playerId, cardId, false);
     }
 
-    private synchronized void playCard(String playerId, String cardId, boolean isAutoPlay) {
+    private void playCard(String playerId, String cardId, boolean isAutoPlay) {
         if (gameEnded) return;
 
         Player caster = getPlayer(playerId);
@@ -188,7 +236,23 @@ public class GameSession implements Serializable {
     }
 
     public void resolveResponseWindow() {
-        if (isResponseWindowActive && System.currentTimeMillis() >= responseWindowEndTime) {
+        if (isResponseWindowDue()) {
+            closeResponseWindow();
+        }
+    }
+
+    /**
+     * @return true if the open response window has run out and {@link #resolveResponseWindow()} would close it
+     */
+    public boolean isResponseWindowDue() {
+        return isResponseWindowActive && System.currentTimeMillis() >= responseWindowEndTime;
+    }
+
+    /**
+     * Closes the open response window and resolves the pending spell, without checking the clock.
+     */
+    public void closeResponseWindow() {
+        if (isResponseWindowActive) {
             logger.info("Response window for {} closed", cardToCounter.getName());
             isResponseWindowActive = false;
             executeCardEffect(originalCaster, getOpponent(originalCaster.getId()), cardToCounter);
@@ -285,6 +349,39 @@ public class GameSession implements Serializable {
         return gameEnded;
     }
 
+    /**
+     * Returns the earliest pending deadline of this session: the end of the current turn
+     * or, if a response window is open, the end of that window.
+     *
+     * @return the deadline in milliseconds, or -1 if the game has ended
+     */
+    public long getNextDeadline() {
+        if (gameEnded) {
+            return -1;
+        }
+        long deadline = turnManager.getTurnEndTime();
+        if (isResponseWindowActive) {
+            deadline = Math.min(deadline, responseWindowEndTime);
+        }
+        return deadline;
+    }
+
+    public boolean isResponseWindowActive() {
+        return isResponseWindowActive;
+    }
+
+    public long getResponseWindowEndTime() {
+        return responseWindowEndTime;
+    }
+
+    public Card getCardToCounter() {
+        return cardToCounter;
+    }
+
+    public Player getOriginalCaster() {
+        return originalCaster;
+    }
+
     public PlayerStateManager getPlayerStateManager() {
         return playerStateManager;
     }
@@ -5,12 +5,16 @@ import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.Serializable;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Objects;
 
 @Entity
 @Table(name = "players", indexes = {
@@ -29,6 +33,20 @@ public class Player implements Serializable {
     @Column(name = "coins", nullable = false)
     private int coins;
     
+    /**
+     * Owned cards as card ID to number of copies, one {@code player_cards} row per distinct card,
+     * so granting or trading a card writes only the rows it touches.
+     */
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "player_cards", joinColumns = @JoinColumn(name = "player_id"))
+    @MapKeyColumn(name = "card_id")
+    @Column(name = "quantity", nullable = false)
+    private Map<String, Integer> ownedCards = new LinkedHashMap<>();
+
+    /**
+     * Full card list as JSON, the format used before {@link #ownedCards}. Read once to migrate
+     * the player, then cleared on the next save.
+     */
     @Column(name = "card_collection", columnDefinition = "TEXT")
     private String cardCollectionJson;
     
@@ -53,17 +71,19 @@ public class Player implements Serializable {
     @Column(name = "base_mana", nullable = false)
     private int baseMana;
 
+    // Written only by the daily reward job, so saving a player never overwrites it
+    @Column(name = "last_daily_reward", insertable = false, updatable = false)
+    private java.time.LocalDate lastDailyReward;
+
     @OneToOne(mappedBy = "player", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private PlayerRanking playerRanking;
 
     private static final Logger logger = LoggerFactory.getLogger(Player.class);
 
     public Player() {
-        this.cardCollection = new ArrayList<>();
     }
     
     public Player(String id, String nickname) {
-        this.cardCollection = new ArrayList<>();
         this.id = id;
         this.nickname = nickname;
         this.coins = 1000;
@@ -71,129 +91,252 @@ public class Player implements Serializable {
         this.upgradePoints = 0;
         this.playerRanking = new PlayerRanking(this);
         initializeStarterDeck();
-        // Serialize cards immediately after creation
-        serializeCardCollectionNow();
         logger.debug("New player created: {} ({})", nickname, id);
     }
 
-    @Transient
-    private List<Card> cardCollection;
+    // Resolved from ownedCards on first use; rebuilt whenever the counts change
+    private transient List<Card> cardCollection;
 
+    // The player as last read or saved; null for a player that was never saved
+    private transient Player original;
+
+    /**
+     * @return every owned card, one entry per copy, resolved from {@link CardCatalog};
+     *         use {@link #addCards} and {@link #removeCards} to change it
+     */
     public List<Card> getCardCollection() {
-        if (cardCollection == null) {
-            cardCollection = new ArrayList<>();
+        List<Card> view = cardCollection;
+        if (view == null) {
+            List<Card> resolved = new ArrayList<>();
+            ownedCards.forEach((cardId, count) -> {
+                Optional<Card> card = CardCatalog.find(cardId);
+                if (card.isEmpty()) {
+                    logger.warn("[CARD-LOAD] Player {} owns unknown card {}", id, cardId);
+                    return;
+                }
+                for (int i = 0; i < count; i++) {
+                    resolved.add(card.get());
+                }
+            });
+            view = Collections.unmodifiableList(resolved);
+            cardCollection = view;
         }
-        return cardCollection;
+        return view;
     }
 
-    public void setCardCollection(List<Card> cardCollection) {
-        this.cardCollection = cardCollection;
-        // Serialize immediately when collection is set
-        serializeCardCollectionNow();
+    /**
+     * Replaces the owned cards, as when receiving a player from another server.
+     */
+    public void setCardCollection(List<Card> cards) {
+        ownedCards.clear();
+        if (cards != null) {
+            cards.forEach(card -> ownedCards.merge(card.getId(), 1, Integer::sum));
+        }
+        cardsModified();
     }
 
-    public void setCharacter(String race, String playerClassParam) {
-        this.playerRace = race;
-        this.playerClass = playerClassParam;
-        applyAttributeBonuses();
-        logger.info("Character set: {} as {} {}", id, race, playerClassParam);
+    /**
+     * Adds one copy of each card.
+     */
+    public void addCards(Collection<Card> cards) {
+        for (Card card : cards) {
+            ownedCards.merge(card.getId(), 1, Integer::sum);
+        }
+        cardsModified();
     }
 
     /**
-     * Serializes card collection to JSON before persisting to database
+     * Removes one copy per listed ID; listing an ID twice removes two copies.
+     *
+     * @return the removed cards
+     * @throws IllegalArgumentException if the player does not own enough copies, in which case nothing is removed
      */
+    public List<Card> removeCards(List<String> cardIds) {
+        if (!hasCards(cardIds)) {
+            throw new IllegalArgumentException("Player " + id + " does not own all of " + cardIds);
+        }
+        List<Card> removed = new ArrayList<>(cardIds.size());
+        for (String cardId : cardIds) {
+            ownedCards.computeIfPresent(cardId, (key, count) -> count > 1 ? count - 1 : null);
+            CardCatalog.find(cardId).ifPresent(removed::add);
+        }
+        cardsModified();
+        return removed;
+    }
+
     /**
-     * Serialize card collection immediately (not waiting for PrePersist)
+     * @return the number of copies of the card the player owns
      */
-    public void serializeCardCollectionNow() {
-        if (cardCollection != null && !cardCollection.isEmpty()) {
-            try {
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                this.cardCollectionJson = mapper.writeValueAsString(cardCollection);
-                logger.info("[CARD-PERSIST] Serialized {} cards to JSON for player {}", cardCollection.size(), id);
-            } catch (Exception e) {
-                logger.error("[CARD-PERSIST] Failed to serialize card collection for player {}: {}", id, e.getMessage(), e);
-                this.cardCollectionJson = "[]";
-            }
-        } else {
-            logger.warn("[CARD-PERSIST] No cards to serialize for player {}", id);
-            this.cardCollectionJson = "[]";
+    public int countCopies(String cardId) {
+        return ownedCards.getOrDefault(cardId, 0);
+    }
+
+    /**
+     * @return true if the owned cards changed since the player was last read or saved
+     */
+    public boolean hasUnsavedCardChanges() {
+        return !cardChanges().isEmpty();
+    }
+
+    /**
+     * @return the copies gained (positive) or lost (negative) per card since the player was last
+     *         read or saved; every owned card if it never was
+     */
+    public Map<String, Integer> cardChanges() {
+        Map<String, Integer> changes = new HashMap<>(ownedCards);
+        if (original != null) {
+            original.ownedCards.forEach((cardId, count) -> changes.merge(cardId, -count, Integer::sum));
+            changes.values().removeIf(change -> change == 0);
         }
+        return changes;
     }
-    
-    @PrePersist
-    @PreUpdate
-    private void serializeCardCollection() {
-        // Only serialize if cardCollection exists in memory
-        // Don't overwrite existing JSON if cardCollection is transient-null
-        if (cardCollection != null && !cardCollection.isEmpty()) {
-            serializeCardCollectionNow();
+
+    /**
+     * @return false for a player that was never read or saved, so its row may not exist
+     */
+    public boolean wasSaved() {
+        return original != null;
+    }
+
+    /**
+     * @return coins gained (positive) or spent (negative) since the player was last read or saved
+     */
+    public int coinsChange() {
+        return original == null ? coins : coins - original.coins;
+    }
+
+    /**
+     * @return upgrade points gained or spent since the player was last read or saved
+     */
+    public int upgradePointsChange() {
+        return original == null ? upgradePoints : upgradePoints - original.upgradePoints;
+    }
+
+    /**
+     * Adds coins the stored player already received, e.g. from a job that updates the database
+     * directly; they are not a change that still has to be written.
+     */
+    public void addSavedCoins(int amount) {
+        setCoins(coins + amount);
+        if (original != null) {
+            // The saved state may be shared with other copies, so it is replaced rather than changed
+            Player saved = original.copy();
+            saved.setCoins(saved.coins + amount);
+            original = saved;
         }
-        // If cardCollection is null but cardCollectionJson is empty, it means cards weren't loaded yet
-        // Keep existing JSON in database
     }
-    
+
     /**
-     * Deserializes card collection from JSON after loading from database
+     * Records the current state as saved; later changes are measured against it.
      */
+    public void markSaved() {
+        Player saved = copy();
+        saved.original = null;
+        original = saved;
+    }
+
+    /**
+     * @return a copy that can be changed without affecting this player; changes made to either
+     *         are measured against the same saved state
+     */
+    public Player copy() {
+        Player copy = new Player();
+        copy.id = id;
+        copy.nickname = nickname;
+        copy.coins = coins;
+        copy.ownedCards = new LinkedHashMap<>(ownedCards);
+        copy.cardCollectionJson = cardCollectionJson;
+        copy.playerRace = playerRace;
+        copy.playerClass = playerClass;
+        copy.healthPoints = healthPoints;
+        copy.upgradePoints = upgradePoints;
+        copy.baseAttack = baseAttack;
+        copy.baseDefense = baseDefense;
+        copy.baseMana = baseMana;
+        copy.lastDailyReward = lastDailyReward;
+        copy.playerRanking = playerRanking;
+        copy.original = original;
+        return copy;
+    }
+
+    /**
+     * Applies what another copy of this player changed since it was last read or saved, so
+     * changes made concurrently to different copies all survive. Coins, upgrade points and card
+     * copies move by the amount they changed; any other field takes the changed value. A player
+     * that was never saved replaces every value.
+     *
+     * @return a new player holding this player's values with the changes applied; it keeps this
+     *         player's saved state, so the changes still count as unsaved
+     */
+    public Player withChangesOf(Player changed) {
+        Player merged = changed.original == null ? changed.copy() : copy();
+        merged.original = original;
+        Player from = changed.original;
+        if (from == null) {
+            return merged;
+        }
+        merged.setCoins(coins + changed.coins - from.coins);
+        merged.setUpgradePoints(upgradePoints + changed.upgradePoints - from.upgradePoints);
+        changed.cardChanges().forEach((cardId, change) -> {
+            int count = merged.countCopies(cardId) + change;
+            if (count > 0) {
+                merged.ownedCards.put(cardId, count);
+            } else {
+                merged.ownedCards.remove(cardId);
+            }
+        });
+        if (!Objects.equals(changed.nickname, from.nickname)) merged.nickname = changed.nickname;
+        if (!Objects.equals(changed.cardCollectionJson, from.cardCollectionJson)) merged.cardCollectionJson = changed.cardCollectionJson;
+        if (!Objects.equals(changed.playerRace, from.playerRace)) merged.playerRace = changed.playerRace;
+        if (!Objects.equals(changed.playerClass, from.playerClass)) merged.playerClass = changed.playerClass;
+        if (changed.healthPoints != from.healthPoints) merged.healthPoints = changed.healthPoints;
+        if (changed.baseAttack != from.baseAttack) merged.baseAttack = changed.baseAttack;
+        if (changed.baseDefense != from.baseDefense) merged.baseDefense = changed.baseDefense;
+        if (changed.baseMana != from.baseMana) merged.baseMana = changed.baseMana;
+        return merged;
+    }
+
+    private void cardsModified() {
+        cardCollection = null;
+    }
+
+    public void setCharacter(String race, String playerClassParam) {
+        this.playerRace = race;
+        this.playerClass = playerClassParam;
+        applyAttributeBonuses();
+        logger.info("Character set: {} as {} {}", id, race, playerClassParam);
+    }
+
     @PostLoad
-    private void deserializeCardCollection() {
-        logger.info("[CARD-LOAD] PostLoad called for player {}, JSON length: {}", 
-            id, cardCollectionJson != null ? cardCollectionJson.length() : 0);
-        if (cardCollectionJson != null && !cardCollectionJson.isEmpty() && !"[]".equals(cardCollectionJson)) {
-            try {
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                com.fasterxml.jackson.core.type.TypeReference<List<Card>> typeRef = 
-                    new com.fasterxml.jackson.core.type.TypeReference<List<Card>>() {};
-                this.cardCollection = mapper.readValue(cardCollectionJson, typeRef);
-                logger.info("[CARD-LOAD] Deserialized {} cards from JSON for player {}", cardCollection.size(), id);
-            } catch (Exception e) {
-                logger.error("[CARD-LOAD] Failed to deserialize card collection for player {}: {}", id, e.getMessage(), e);
-                this.cardCollection = new ArrayList<>();
+    private void loaded() {
+        markSaved();
+        migrateLegacyCardCollection();
+    }
+
+    /**
+     * Moves a player saved in the legacy JSON format to {@link #ownedCards}, keeping only the card IDs.
+     */
+    private void migrateLegacyCardCollection() {
+        if (!ownedCards.isEmpty() || cardCollectionJson == null || cardCollectionJson.isBlank()) {
+            return;
+        }
+        try {
+            com.fasterxml.jackson.databind.JsonNode cards = new com.fasterxml.jackson.databind.ObjectMapper().readTree(cardCollectionJson);
+            for (com.fasterxml.jackson.databind.JsonNode card : cards) {
+                ownedCards.merge(card.path("id").asText(), 1, Integer::sum);
             }
-        } else {
-            logger.warn("[CARD-LOAD] No cards JSON to deserialize for player {}", id);
-            this.cardCollection = new ArrayList<>();
+            cardCollectionJson = null;
+            cardsModified();
+            logger.info("[CARD-LOAD] Migrated {} legacy cards for player {}", cards.size(), id);
+        } catch (Exception e) {
+            logger.error("[CARD-LOAD] Failed to migrate card collection for player {}: {}", id, e.getMessage(), e);
         }
     }
 
     private void initializeStarterDeck() {
-        List<Card> starterDeckCards = getCardCollection();
-        for (int i = 0; i < 5; i++) {
-            starterDeckCards.add(new Card(
-                "basic-" + i,
-                "Basic Card " + i,
-                1, 1, "Common",
-                Card.CardType.ATTACK,
-                "Standard attack", 1
-            ));
-        }
-
-        // Add a combo card
-        Map<String, String> comboParams = new HashMap<>();
-        comboParams.put("requiredCardName", "Basic Card 1");
-        comboParams.put("bonusDamage", "3");
-        starterDeckCards.add(new Card(
-            "combo-1",
-            "Combo Strike",
-            2, 1, "Rare",
-            Card.CardType.COMBO,
-            "Deals +3 damage if you played 'Basic Card 1' this turn.",
-            2,
-            comboParams
-        ));
-
-        // Add a counter-spell card
-        starterDeckCards.add(new Card(
-            "counter-1",
-            "Counter Spell",
-            0, 0, "Rare",
-            Card.CardType.COUNTER_SPELL,
-            "Counters a magic spell.",
-            3
-        ));
-
-        logger.info("[CARD-INIT] Starter deck created with {} cards for player {}", starterDeckCards.size(), id);
+        CardCatalog.starterDeck().forEach(cardId -> ownedCards.merge(cardId, 1, Integer::sum));
+        cardsModified();
+        logger.info("[CARD-INIT] Starter deck created with {} cards for player {}", CardCatalog.starterDeck().size(), id);
     }
 
     private void applyAttributeBonuses() {
@@ -295,11 +438,12 @@ public class Player implements Serializable {
         }
     }
 
+    /**
+     * @return true if the player owns at least as many copies of each card as it is listed
+     */
     public boolean hasCards(List<String> cardIds) {
-        List<String> playerCardIds = getCardCollection().stream()
-            .map(Card::getId)
-            .collect(Collectors.toList());
-        
-        return playerCardIds.containsAll(cardIds);
+        Map<String, Integer> needed = new HashMap<>();
+        cardIds.forEach(cardId -> needed.merge(cardId, 1, Integer::sum));
+        return needed.entrySet().stream().allMatch(entry -> countCopies(entry.getKey()) >= entry.getValue());
     }
 }
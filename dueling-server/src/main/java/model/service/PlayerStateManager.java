@@ -18,7 +18,7 @@ public class PlayerStateManager implements Serializable {
     private static final long serialVersionUID = 1L;
     private static final Logger logger = LoggerFactory.getLogger(PlayerStateManager.class);
 
-    private final GameFacade gameFacade;
+    private transient GameFacade gameFacade;
     private final Player player1;
     private final Player player2;
     private final List<Card> deckP1;
@@ -42,6 +42,24 @@ public class PlayerStateManager implements Serializable {
         this.resourceP2 = 3;
     }
 
+    /**
+     * Restores a player state manager from a snapshot. The facade must be attached afterwards.
+     */
+    public PlayerStateManager(Player p1, Player p2, List<Card> deckP1, List<Card> deckP2,
+                              List<Card> handP1, List<Card> handP2, int resourceP1, int resourceP2,
+                              int nextAttackBonusP1, int nextAttackBonusP2) {
+        this.player1 = p1;
+        this.player2 = p2;
+        this.deckP1 = new ArrayList<>(deckP1);
+        this.deckP2 = new ArrayList<>(deckP2);
+        this.handP1 = new ArrayList<>(handP1);
+        this.handP2 = new ArrayList<>(handP2);
+        this.resourceP1 = resourceP1;
+        this.resourceP2 = resourceP2;
+        this.nextAttackBonusP1 = nextAttackBonusP1;
+        this.nextAttackBonusP2 = nextAttackBonusP2;
+    }
+
     public void initializeDecks() {
         Collections.shuffle(deckP1);
         Collections.shuffle(deckP2);
@@ -64,6 +82,10 @@ public class PlayerStateManager implements Serializable {
         }
     }
 
+    public void attach(GameFacade facade) {
+        this.gameFacade = facade;
+    }
+
     public void regenerateResources() {
         boolean updated = false;
         if (resourceP1 < 10) { resourceP1++; updated = true; }
@@ -100,6 +122,12 @@ public class PlayerStateManager implements Serializable {
     public List<Card> getHand(String playerId) {
         return player1.getId().equals(playerId) ? handP1 : handP2;
     }
+    public List<Card> getDeck(String playerId) {
+        return player1.getId().equals(playerId) ? deckP1 : deckP2;
+    }
+    public int getNextAttackBonus(String playerId) {
+        return player1.getId().equals(playerId) ? nextAttackBonusP1 : nextAttackBonusP2;
+    }
     public int getResource(String playerId) {
         return player1.getId().equals(playerId) ? resourceP1 : resourceP2;
     }
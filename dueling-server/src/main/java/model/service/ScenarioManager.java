@@ -29,6 +29,10 @@ public class ScenarioManager implements Serializable {
         return activeScenario;
     }
 
+    public int getScenarioDuration() {
+        return scenarioDuration;
+    }
+
     public void clearScenario() {
         activeScenario = null;
         scenarioDuration = 0;
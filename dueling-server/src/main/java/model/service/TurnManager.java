@@ -23,6 +23,16 @@ public class TurnManager implements Serializable {
         this.playedCardsThisTurn = new ArrayList<>();
     }
 
+    /**
+     * Restores a turn manager from a snapshot.
+     */
+    public TurnManager(int turn, String currentPlayerId, long turnEndTime, List<Card> playedCardsThisTurn) {
+        this.turn = turn;
+        this.currentPlayerId = currentPlayerId;
+        this.turnEndTime = turnEndTime;
+        this.playedCardsThisTurn = new ArrayList<>(playedCardsThisTurn);
+    }
+
     public void startNewTurn() {
         this.turnEndTime = System.currentTimeMillis() + (TURN_DURATION_SECONDS * 1000);
         this.playedCardsThisTurn.clear();
@@ -4,6 +4,7 @@ import java.io.PrintWriter;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
@@ -19,6 +20,11 @@ import org.springframework.stereotype.Component;
 public class EventManager implements IEventManager {
     private static final Logger logger = LoggerFactory.getLogger(EventManager.class);
     private final ConcurrentHashMap<String, CopyOnWriteArrayList<PrintWriter>> subscribers = new ConcurrentHashMap<>();
+    private final EventMeters meters;
+
+    public EventManager(MeterRegistry meterRegistry) {
+        this.meters = new EventMeters(meterRegistry);
+    }
 
     /**
      * Subscribes a client's PrintWriter to a specific topic (player ID).
@@ -54,13 +60,18 @@ public class EventManager implements IEventManager {
      * @param message The message to send.
      */
     public void publish(String topic, String message) {
-        if (subscribers.containsKey(topic)) {
-            logger.debug("Publishing to topic {}: {}", topic, message);
-            for (PrintWriter subscriber : subscribers.get(topic)) {
-                subscriber.println(message);
-                subscriber.flush();
-            }
+        long start = System.nanoTime();
+        CopyOnWriteArrayList<PrintWriter> topicSubscribers = subscribers.get(topic);
+        if (topicSubscribers == null || topicSubscribers.isEmpty()) {
+            meters.dropped(start);
+            return;
+        }
+        logger.debug("Publishing to topic {}: {}", topic, message);
+        for (PrintWriter subscriber : topicSubscribers) {
+            subscriber.println(message);
+            subscriber.flush();
         }
+        meters.deliveredLocally(start, topicSubscribers.size());
     }
 
     @Override
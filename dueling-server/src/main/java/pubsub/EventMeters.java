@@ -0,0 +1,60 @@
+package pubsub;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters shared by the {@link IEventManager} implementations: how long a publish takes,
+ * tagged by where the message went, and how many subscribers received it.
+ */
+final class EventMeters {
+
+    private final Timer localPublish;
+    private final Timer remotePublish;
+    private final Timer droppedPublish;
+    private final DistributionSummary fanOut;
+
+    EventMeters(MeterRegistry meterRegistry) {
+        this.localPublish = publishTimer(meterRegistry, "local");
+        this.remotePublish = publishTimer(meterRegistry, "remote");
+        this.droppedPublish = publishTimer(meterRegistry, "dropped");
+        this.fanOut = DistributionSummary.builder("dueling.event.fanout")
+                .description("Subscribers a published event was delivered to on this server")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A publish delivered to {@code subscribers} connections on this server.
+     */
+    void deliveredLocally(long startNanos, int subscribers) {
+        localPublish.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        fanOut.record(subscribers);
+    }
+
+    /**
+     * A publish handed to Redis for the server the subscriber is connected to.
+     */
+    void forwarded(long startNanos) {
+        remotePublish.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * A publish for a topic no server has a subscriber for.
+     */
+    void dropped(long startNanos) {
+        droppedPublish.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        fanOut.record(0);
+    }
+
+    private static Timer publishTimer(MeterRegistry meterRegistry, String route) {
+        return Timer.builder("dueling.event.publish")
+                .description("Time to publish an event to its subscribers")
+                .tag("route", route)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+}
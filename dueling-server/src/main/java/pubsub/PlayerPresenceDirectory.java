@@ -0,0 +1,88 @@
+package pubsub;
+
+import api.registry.ServerIdentity;
+import jakarta.annotation.PreDestroy;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cluster-wide directory of which server each connected player's WebSocket session lives on.
+ * <p>
+ * Every server listens on its own node channel, so a message for a player connected elsewhere
+ * is published once, to the owning server only, instead of to a channel every server receives.
+ */
+@Component
+public class PlayerPresenceDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlayerPresenceDirectory.class);
+    private static final String PRESENCE_KEY = "presence:players";
+    private static final String NODE_CHANNEL_PREFIX = "node-events:";
+
+    private final RMap<String, String> presence;
+    private final String nodeId;
+    private final Set<String> localPlayers = ConcurrentHashMap.newKeySet();
+
+    public PlayerPresenceDirectory(RedissonClient redissonClient, ServerIdentity serverIdentity) {
+        this.presence = redissonClient.getMap(PRESENCE_KEY);
+        this.nodeId = serverIdentity.getSelfUrl();
+    }
+
+    /**
+     * @return the ID of this server, as recorded in the directory
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @return the Pub/Sub channel this server receives player messages on
+     */
+    public String getNodeChannel() {
+        return channelOf(nodeId);
+    }
+
+    public static String channelOf(String nodeId) {
+        return NODE_CHANNEL_PREFIX + nodeId;
+    }
+
+    /**
+     * Records that the player is connected to this server.
+     */
+    public void markOnline(String playerId) {
+        localPlayers.add(playerId);
+        presence.fastPut(playerId, nodeId);
+    }
+
+    /**
+     * Forgets the player's connection to this server, unless they have since connected to another one.
+     */
+    public void markOffline(String playerId) {
+        localPlayers.remove(playerId);
+        presence.remove(playerId, nodeId);
+    }
+
+    /**
+     * @return the ID of the server the player is connected to, or null if they are offline
+     */
+    public String findNode(String playerId) {
+        return presence.get(playerId);
+    }
+
+    @PreDestroy
+    public void clearLocalPlayers() {
+        for (String playerId : localPlayers) {
+            try {
+                presence.remove(playerId, nodeId);
+            } catch (Exception e) {
+                logger.warn("Could not clear presence of player {}: {}", playerId, e.getMessage());
+                return;
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import controller.dto.chat.GroupMessage;
 import controller.dto.chat.InGameMessage;
+import io.micrometer.core.instrument.MeterRegistry;
 import model.PrivateMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,7 +42,15 @@ public class RedisEventManager implements IEventManager {
     @Autowired
     private RedisMessageSubscriber redisMessageSubscriber;
     
+    @Autowired
+    private PlayerPresenceDirectory presenceDirectory;
+    
     private final ConcurrentHashMap<String, PrintWriter> subscribers = new ConcurrentHashMap<>();
+    private final EventMeters meters;
+
+    public RedisEventManager(MeterRegistry meterRegistry) {
+        this.meters = new EventMeters(meterRegistry);
+    }
     
     /**
      * Subscribe to private messages for a specific player
@@ -157,6 +166,7 @@ public class RedisEventManager implements IEventManager {
         subscribers.put(topic, subscriber);
         logger.debug("About to register handler for topic {} with subscriber hash {}", topic, subscriber.hashCode());
         redisMessageSubscriber.registerHandler(topic, subscriber);
+        presenceDirectory.markOnline(topic);
         logger.info("New subscriber for topic {}", topic);
     }
 
@@ -167,50 +177,54 @@ public class RedisEventManager implements IEventManager {
      * @param subscriber The PrintWriter to remove.
      */
     public void unsubscribe(String topic, PrintWriter subscriber) {
-        subscribers.remove(topic);
+        // A reconnect may already have replaced the subscriber; leave the new one in place
+        if (!subscribers.remove(topic, subscriber)) {
+            return;
+        }
         redisMessageSubscriber.unregisterHandler(topic);
+        presenceDirectory.markOffline(topic);
         logger.info("Subscriber removed from topic {}", topic);
     }
 
     /**
-     * Publishes a message to all subscribers of a specific topic via Redis.
+     * Publishes a message to the subscriber of a specific topic (a player ID).
+     * <p>
+     * If the player is connected to this server the message is delivered in-process;
+     * otherwise it is published once, to the node channel of the server the
+     * {@link PlayerPresenceDirectory} lists for the player.
      *
      * @param topic   The topic to publish the message to.
      * @param message The message to send.
      */
     public void publish(String topic, String message) {
-        logger.debug("Publishing to Redis topic {}: {}", topic, message);
-        logger.debug("Currently have {} subscribers in map", subscribers.size());
-        logger.debug("Has subscriber for topic {}: {}", topic, subscribers.containsKey(topic));
-        
-        // Log trade-related messages for debugging
-        if (message != null && message.contains("TRADE")) {
-            logger.info("[TRADE-PUBSUB] Publishing trade message to topic {}: {}", topic, message);
-            logger.info("[TRADE-PUBSUB] Local subscriber present: {}", subscribers.containsKey(topic));
-        }
-        
-        // Send to local subscriber if present (fast path for same-server)
+        long start = System.nanoTime();
+        boolean tradeMessage = message != null && message.contains("TRADE");
         PrintWriter localSubscriber = subscribers.get(topic);
         if (localSubscriber != null) {
             try {
                 localSubscriber.println(message);
                 localSubscriber.flush();
                 logger.debug("Message sent directly to local subscriber for topic {}", topic);
-                if (message != null && message.contains("TRADE")) {
+                if (tradeMessage) {
                     logger.info("[TRADE-PUBSUB] Trade message delivered locally to topic {}", topic);
                 }
             } catch (Exception e) {
                 logger.warn("Failed to send to local subscriber for topic {}: {}", topic, e.getMessage());
             }
+            meters.deliveredLocally(start, 1);
+            return;
         }
-        
-        // ALWAYS send via Redis for cross-server communication
-        if (message != null && message.contains("TRADE")) {
-            logger.info("[TRADE-PUBSUB] Sending trade message via Redis to topic {} (cross-server)", topic);
+
+        String node = presenceDirectory.findNode(topic);
+        if (node == null || node.equals(presenceDirectory.getNodeId())) {
+            logger.debug("No server has a connection for topic {}; dropping message", topic);
+            meters.dropped(start);
+            return;
         }
-        redisTemplate.convertAndSend(topic, message);
-        if (message != null && message.contains("TRADE")) {
-            logger.info("[TRADE-PUBSUB] Trade message sent via Redis successfully");
+        redisTemplate.convertAndSend(PlayerPresenceDirectory.channelOf(node), RedisMessageSubscriber.envelope(topic, message));
+        meters.forwarded(start);
+        if (tradeMessage) {
+            logger.info("[TRADE-PUBSUB] Trade message for topic {} sent via Redis to {}", topic, node);
         }
     }
 }
@@ -10,7 +10,6 @@ import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.listener.ChannelTopic;
-import org.springframework.data.redis.listener.PatternTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Component;
 
@@ -43,25 +42,34 @@ public class RedisMessageSubscriber implements MessageListener {
     @Autowired
     private RedisMessageListenerContainer redisMessageListenerContainer;
     
+    @Autowired
+    private PlayerPresenceDirectory presenceDirectory;
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     /**
-     * Initialize global pattern subscription for all player messages
-     * This replaces per-player topic subscriptions to avoid RedisMessageListenerContainer deadlock
+     * Subscribes to this server's node channel, which carries the messages for every player
+     * connected here. A single subscription avoids RedisMessageListenerContainer deadlocks
+     * when adding many per-player listeners.
      */
     @PostConstruct
     public void init() {
-        logger.info("Initializing RedisMessageSubscriber with wildcard pattern for all player topics");
+        String channel = presenceDirectory.getNodeChannel();
+        logger.info("Initializing RedisMessageSubscriber on node channel {}", channel);
         try {
-            // Subscribe to all numeric topics (player IDs are numbers)
-            // Pattern "[0-9]*" matches any sequence of digits
-            PatternTopic pattern = new PatternTopic("[0-9]*");
-            redisMessageListenerContainer.addMessageListener(this, pattern);
-            logger.info("Successfully subscribed to pattern '[0-9]*' for all player messages");
+            redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(channel));
+            logger.info("Successfully subscribed to node channel {}", channel);
         } catch (Exception e) {
-            logger.error("Failed to subscribe to wildcard pattern: {}", e.getMessage(), e);
+            logger.error("Failed to subscribe to node channel {}: {}", channel, e.getMessage(), e);
         }
     }
+
+    /**
+     * Wraps a message for a player so it can be sent on the node channel of the player's server.
+     */
+    public static String envelope(String topic, String message) {
+        return topic + '\n' + message;
+    }
     
     /**
      * Register a WebSocket handler for a specific topic
@@ -70,9 +78,8 @@ public class RedisMessageSubscriber implements MessageListener {
         logger.info("Registering handler for topic: {} (hash: {})", topic, handler.hashCode());
         sessionHandlers.put(topic, handler);
         
-        // NO LONGER subscribe to individual topics - we use a wildcard pattern instead
-        // This prevents RedisMessageListenerContainer deadlock/hang when adding many listeners
-        logger.info("Handler registered in memory for topic: {} (Redis subscription handled by wildcard pattern)", topic);
+        // No per-topic subscription; messages for this topic arrive on the node channel
+        logger.info("Handler registered in memory for topic: {} (Redis subscription handled by node channel)", topic);
     }
     
     /**
@@ -119,22 +126,21 @@ public class RedisMessageSubscriber implements MessageListener {
     }
     
     /**
-     * Handle incoming Redis messages for regular topics
+     * Handle messages arriving on this server's node channel
      */
     @Override
     public void onMessage(Message message, byte[] pattern) {
-        String topic = new String(message.getChannel());
-        
-        // Check if this is a private message channel
-        if (topic.startsWith(PRIVATE_MESSAGE_CHANNEL_PREFIX)) {
-            // This should be handled by the private message listener
+        String envelope = new String(message.getBody());
+        int separator = envelope.indexOf('\n');
+        if (separator < 0) {
+            logger.warn("Discarding malformed message on node channel: {}", envelope);
             return;
         }
-        
-        String messageBody = new String(message.getBody());
+        String topic = envelope.substring(0, separator);
+        String messageBody = envelope.substring(separator + 1);
         
         // Log trade-related messages for debugging
-        if (messageBody != null && messageBody.contains("TRADE")) {
+        if (messageBody.contains("TRADE")) {
             logger.info("[TRADE-PUBSUB] Received trade message from Redis for topic {}: {}", topic, messageBody);
         }
         
@@ -144,14 +150,9 @@ public class RedisMessageSubscriber implements MessageListener {
             logger.debug("Received message for topic {}: {}", topic, messageBody);
             handler.println(messageBody);
             handler.flush();
-            if (messageBody != null && messageBody.contains("TRADE")) {
-                logger.info("[TRADE-PUBSUB] Trade message delivered to handler for topic {}", topic);
-            }
         } else {
-            logger.warn("No handler found for topic: {}", topic);
-            if (messageBody != null && messageBody.contains("TRADE")) {
-                logger.warn("[TRADE-PUBSUB] No handler for trade message on topic: {}", topic);
-            }
+            // The player disconnected after the sender looked up their server
+            logger.debug("No handler found for topic: {}", topic);
         }
     }
     
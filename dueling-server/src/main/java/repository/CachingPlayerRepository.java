@@ -0,0 +1,563 @@
+package repository;
+
+import api.registry.ServerIdentity;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Striped;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import model.Player;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import service.reward.DailyRewardService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind cache in front of {@link PlayerRepositoryPostgreSQL}.
+ * <p>
+ * Reads are served from a bounded in-process cache, evicted by size and by time since last
+ * access. {@link #save} and {@link #update} of a cached player only mark it dirty; dirty players
+ * are written every {@code player.cache.flush-interval-ms} as a single JDBC batch, so a player
+ * updated many times between flushes costs one row write. Only what changed is written: coins,
+ * upgrade points and card counts are added to the stored values, so a daily reward or another
+ * server's write that lands between reading and flushing a player is not overwritten. A player
+ * the cache has not seen is written through JPA, which keeps inserts and their cascades
+ * immediate. {@link #saveAndFlush} writes through as well, for changes that must not be lost,
+ * such as purchases and trades, which start from {@link #findLatestById} so they are checked
+ * against what is stored rather than against a copy another server may have changed since.
+ * <p>
+ * The cache keeps its own copies of the players, which nothing else can reach: {@link #findById}
+ * hands out a copy, and saving a player applies what that copy changed to the cached one under
+ * the player's lock, so game, store, trade and reward threads changing the same player do not
+ * undo each other's changes, and a flush writes a copy no other thread is changing.
+ * <p>
+ * After each flush the written IDs are published on {@value #INVALIDATION_CHANNEL}; the other
+ * servers drop those players from their own cache and from the Hibernate second-level cache.
+ * Players are mostly changed on the server their session is on. When another server writes a
+ * player this one holds dirty, for example to settle a trade, the player is read again and the
+ * local changes that were not written yet are applied on top of what the other server wrote.
+ * <p>
+ * Hit rate is published under the {@code cache} meters with {@code cache=players}; flushes are
+ * timed as {@code dueling.player.cache.flush}.
+ */
+@Repository
+@Primary
+@Profile({"!test", "distributed-db"})
+public class CachingPlayerRepository implements PlayerRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingPlayerRepository.class);
+    static final String INVALIDATION_CHANNEL = "player-cache-invalidation";
+    // Coins and upgrade points are added rather than set, so amounts added meanwhile by others are kept
+    private static final String UPDATE_SQL = "UPDATE players SET nickname = ?, coins = GREATEST(coins + ?, 0), "
+            + "player_race = ?, player_class = ?, health_points = ?, upgrade_points = GREATEST(upgrade_points + ?, 0), "
+            + "base_attack = ?, base_defense = ?, base_mana = ?, card_collection = ? WHERE id = ?";
+    private static final String ADD_CARDS_SQL = "INSERT INTO player_cards (player_id, card_id, quantity) VALUES (?, ?, ?) "
+            + "ON CONFLICT (player_id, card_id) DO UPDATE SET quantity = player_cards.quantity + EXCLUDED.quantity";
+    private static final String DELETE_EMPTY_CARDS_SQL = "DELETE FROM player_cards WHERE player_id = ? AND quantity <= 0";
+
+    private final PlayerRepositoryPostgreSQL delegate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    // Players as last read or written; the maps below hold newer copies until they are written
+    private final Cache<String, Player> players;
+    private final Map<String, Player> dirty = new ConcurrentHashMap<>();
+    // Taken out of dirty by a flush whose batch has not committed yet
+    private final Map<String, Player> inFlight = new ConcurrentHashMap<>();
+    // Changed elsewhere while in flight, so the written copy is not cached
+    private final Set<String> overwrittenInFlight = ConcurrentHashMap.newKeySet();
+    // Held while a player's copies are replaced
+    private final Striped<Lock> playerLocks = Striped.lock(256);
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final int maxBatchSize;
+    private final String nodeId;
+    private final Timer flushTimer;
+    private final Counter flushFailures;
+
+    public CachingPlayerRepository(PlayerRepositoryPostgreSQL delegate, JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate, EntityManagerFactory entityManagerFactory, StringRedisTemplate redisTemplate,
+                                   RedisMessageListenerContainer listenerContainer, MeterRegistry meterRegistry,
+                                   @Value("${player.cache.max-size:10000}") long maxSize,
+                                   @Value("${player.cache.expire-after-access-seconds:600}") long expireAfterAccessSeconds,
+                                   @Value("${player.cache.max-batch-size:500}") int maxBatchSize,
+                                   ServerIdentity serverIdentity) {
+        this.delegate = delegate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.maxBatchSize = maxBatchSize;
+        this.nodeId = serverIdentity.getSelfUrl();
+        // Eviction may drop a dirty player; findById falls back to the dirty and in-flight maps until it is written
+        this.players = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofSeconds(expireAfterAccessSeconds))
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, players, "players");
+        this.flushTimer = Timer.builder("dueling.player.cache.flush")
+                .description("Time to write one batch of dirty players")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("dueling.player.cache.flush.failures")
+                .description("Player cache flushes that failed and were retried")
+                .register(meterRegistry);
+        Gauge.builder("dueling.player.cache.dirty", dirty, Map::size)
+                .description("Players changed in the cache but not yet written")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener((message, pattern) -> onInvalidation(new String(message.getBody())),
+                new ChannelTopic(INVALIDATION_CHANNEL));
+        listenerContainer.addMessageListener((message, pattern) -> onRewardGranted(new String(message.getBody())),
+                new ChannelTopic(DailyRewardService.REWARD_CHANNEL));
+    }
+
+    @Override
+    public Optional<Player> findById(String id) {
+        Lock lock = playerLocks.get(id);
+        lock.lock();
+        try {
+            Player latest = latestOf(id);
+            if (latest != null) {
+                return Optional.of(handOut(latest));
+            }
+        } finally {
+            lock.unlock();
+        }
+        Optional<Player> loaded = delegate.findById(id);
+        if (loaded.isEmpty()) {
+            return loaded;
+        }
+        lock.lock();
+        try {
+            Player latest = latestOf(id);
+            if (latest == null) {
+                latest = loaded.get().copy();
+                players.put(id, latest);
+            }
+            return Optional.of(handOut(latest));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void save(Player player) {
+        if (players.getIfPresent(player.getId()) == null && !dirty.containsKey(player.getId())) {
+            saveAndFlush(player);
+            return;
+        }
+        update(player);
+    }
+
+    @Override
+    public void update(Player player) {
+        Lock lock = playerLocks.get(player.getId());
+        lock.lock();
+        try {
+            dirty.put(player.getId(), pendingWith(player));
+            player.markSaved();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the player from the database, not from this cache, which may not have heard of
+     * another server's write yet. The read becomes the cached copy, and changes this server has
+     * not written yet are applied on top of it.
+     */
+    @Override
+    public Optional<Player> findLatestById(String id) {
+        Optional<Player> stored = delegate.findLatestById(id);
+        if (stored.isEmpty()) {
+            return stored;
+        }
+        Lock lock = playerLocks.get(id);
+        lock.lock();
+        try {
+            players.put(id, stored.get().copy());
+            if (inFlight.containsKey(id)) {
+                // The copy being written was read before this one
+                overwrittenInFlight.add(id);
+            }
+            Player pending = dirty.computeIfPresent(id, (key, changed) -> stored.get().copy().withChangesOf(changed));
+            return Optional.of(handOut(pending != null ? pending : players.getIfPresent(id)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the player in the caller's transaction, if there is one. The cache takes the
+     * written copy only once that transaction commits, and keeps the player's lock until then,
+     * so a rolled back purchase or trade is never handed out.
+     */
+    @Override
+    public void saveAndFlush(Player player) {
+        Lock lock = playerLocks.get(player.getId());
+        lock.lock();
+        boolean waitsForCommit = false;
+        try {
+            Player written = pendingWith(player);
+            transactionTemplate.executeWithoutResult(status -> writeChanges(List.of(written)));
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        boolean committed = status == STATUS_COMMITTED;
+                        try {
+                            if (committed) {
+                                cacheWritten(player, written);
+                            }
+                        } finally {
+                            lock.unlock();
+                        }
+                        if (committed) {
+                            announceWritten(player.getId());
+                        }
+                    }
+                });
+                waitsForCommit = true;
+                return;
+            }
+            cacheWritten(player, written);
+        } finally {
+            if (!waitsForCommit) {
+                lock.unlock();
+            }
+        }
+        announceWritten(player.getId());
+    }
+
+    // Called with the player's lock held
+    private void cacheWritten(Player player, Player written) {
+        written.markSaved();
+        dirty.remove(player.getId());
+        players.put(player.getId(), written);
+        player.markSaved();
+    }
+
+    private void announceWritten(String playerId) {
+        evictSecondLevel(playerId);
+        publishInvalidation(List.of(playerId));
+    }
+
+    // Called with the player's lock held
+    private Player latestOf(String id) {
+        Player latest = dirty.get(id);
+        if (latest == null) {
+            latest = inFlight.get(id);
+        }
+        if (latest == null) {
+            latest = players.getIfPresent(id);
+        }
+        return latest;
+    }
+
+    /**
+     * @return the unwritten copy of the player with the changes made to {@code changed} applied;
+     *         called with the player's lock held
+     */
+    private Player pendingWith(Player changed) {
+        Player pending = pendingOf(changed.getId());
+        return pending == null ? changed.copy() : pending.withChangesOf(changed);
+    }
+
+    /**
+     * @return the dirty copy of the player, or else a copy of the latest one with nothing left
+     *         to write, or null if the player is not cached; called with the player's lock held
+     */
+    private Player pendingOf(String id) {
+        Player pending = dirty.get(id);
+        if (pending != null) {
+            return pending;
+        }
+        // Changes already written, or being written by a flush, are not pending any more
+        Player written = inFlight.get(id);
+        if (written == null) {
+            written = players.getIfPresent(id);
+        }
+        if (written == null) {
+            return null;
+        }
+        pending = written.copy();
+        pending.markSaved();
+        return pending;
+    }
+
+    private static Player handOut(Player cached) {
+        Player copy = cached.copy();
+        copy.markSaved();
+        return copy;
+    }
+
+    /**
+     * Writes the players changed since the last flush, at most {@code player.cache.max-batch-size}
+     * per JDBC batch. Players whose write fails stay dirty and are retried on the next flush.
+     */
+    @Scheduled(fixedDelayString = "${player.cache.flush-interval-ms:250}")
+    public void flush() {
+        if (dirty.isEmpty() || !flushLock.tryLock()) {
+            return;
+        }
+        try {
+            flushDirty();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            flushDirty();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushDirty() {
+        List<Player> batch = new ArrayList<>(Math.min(dirty.size(), maxBatchSize));
+        for (String playerId : dirty.keySet()) {
+            if (batch.size() == maxBatchSize) {
+                writeBatch(batch);
+                batch.clear();
+            }
+            // A player saved again after this point is marked dirty again and written next time
+            Lock lock = playerLocks.get(playerId);
+            lock.lock();
+            try {
+                Player pending = dirty.remove(playerId);
+                if (pending != null) {
+                    inFlight.put(playerId, pending);
+                    batch.add(pending);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(List<Player> batch) {
+        long start = System.nanoTime();
+        boolean committed = false;
+        try {
+            List<String> written = transactionTemplate.execute(status -> writeChanges(batch));
+            committed = true;
+            written.forEach(this::evictSecondLevel);
+            publishInvalidation(written);
+            logger.debug("Flushed {} dirty players", written.size());
+        } catch (Exception e) {
+            flushFailures.increment();
+            logger.error("Failed to flush {} players, will retry: {}", batch.size(), e.getMessage(), e);
+        } finally {
+            for (Player player : batch) {
+                settle(player, committed);
+            }
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Writes what each player changed since it was last read or saved, in the caller's
+     * transaction, so a failed write can be retried without adding anything twice.
+     *
+     * @return the IDs of the players written
+     */
+    private List<String> writeChanges(List<Player> batch) {
+        List<Player> updated = new ArrayList<>(batch.size());
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        List<String> written = new ArrayList<>(batch.size());
+        for (Player player : batch) {
+            if (!player.wasSaved()) {
+                delegate.save(player);
+                written.add(player.getId());
+                continue;
+            }
+            updated.add(player);
+            rows.add(new Object[]{
+                    player.getNickname(), player.coinsChange(),
+                    player.getPlayerRace(), player.getPlayerClass(), player.getHealthPoints(),
+                    player.upgradePointsChange(), player.getBaseAttack(), player.getBaseDefense(),
+                    player.getBaseMana(), player.getCardCollectionJson(), player.getId()});
+        }
+        int[] counts = rows.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(UPDATE_SQL, rows);
+        List<Object[]> cardRows = new ArrayList<>();
+        List<Object[]> emptiedRows = new ArrayList<>();
+        for (int i = 0; i < updated.size(); i++) {
+            Player player = updated.get(i);
+            written.add(player.getId());
+            if (counts[i] == 0) {
+                // Row is gone; let JPA create it with its cards
+                delegate.save(player);
+                continue;
+            }
+            Map<String, Integer> cardChanges = player.cardChanges();
+            cardChanges.forEach((cardId, change) -> cardRows.add(new Object[]{player.getId(), cardId, change}));
+            if (cardChanges.values().stream().anyMatch(change -> change < 0)) {
+                emptiedRows.add(new Object[]{player.getId()});
+            }
+        }
+        if (!cardRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_CARDS_SQL, cardRows);
+        }
+        if (!emptiedRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_EMPTY_CARDS_SQL, emptiedRows);
+        }
+        return written;
+    }
+
+    /**
+     * Takes a player out of flight once its batch committed or failed. A failed player is dirty
+     * again, together with whatever changed since it was taken out.
+     */
+    private void settle(Player player, boolean committed) {
+        String id = player.getId();
+        Lock lock = playerLocks.get(id);
+        lock.lock();
+        try {
+            inFlight.remove(id, player);
+            boolean overwritten = overwrittenInFlight.remove(id);
+            if (!committed) {
+                dirty.merge(id, player, (newer, failed) -> failed.withChangesOf(newer));
+            } else if (overwritten) {
+                players.invalidate(id);
+            } else {
+                Player written = player.copy();
+                written.markSaved();
+                players.put(id, written);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictSecondLevel(String playerId) {
+        try {
+            entityManagerFactory.getCache().evict(Player.class, playerId);
+        } catch (Exception e) {
+            logger.warn("Could not evict player {} from the second-level cache: {}", playerId, e.getMessage());
+        }
+    }
+
+    private void publishInvalidation(List<String> playerIds) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + "\n" + String.join(",", playerIds));
+        } catch (Exception e) {
+            logger.warn("Could not publish invalidation for {} players: {}", playerIds.size(), e.getMessage());
+        }
+    }
+
+    private void onInvalidation(String message) {
+        int newline = message.indexOf('\n');
+        if (newline < 0 || message.substring(0, newline).equals(nodeId)) {
+            return;
+        }
+        for (String playerId : message.substring(newline + 1).split(",")) {
+            Lock lock = playerLocks.get(playerId);
+            boolean pending;
+            lock.lock();
+            try {
+                players.invalidate(playerId);
+                if (inFlight.containsKey(playerId)) {
+                    overwrittenInFlight.add(playerId);
+                }
+                pending = dirty.containsKey(playerId);
+            } finally {
+                lock.unlock();
+            }
+            if (pending) {
+                rebase(playerId);
+            }
+        }
+    }
+
+    /**
+     * Reads a dirty player again and applies the local changes that are not written yet on top,
+     * so flushing it keeps what another server wrote.
+     */
+    private void rebase(String playerId) {
+        Optional<Player> stored = delegate.findById(playerId);
+        if (stored.isEmpty()) {
+            return;
+        }
+        Lock lock = playerLocks.get(playerId);
+        lock.lock();
+        try {
+            dirty.computeIfPresent(playerId, (id, pending) -> stored.get().copy().withChangesOf(pending));
+        } finally {
+            lock.unlock();
+        }
+        logger.debug("Reapplied unwritten changes to player {} on top of another server's write", playerId);
+    }
+
+    /**
+     * Adds a reward the database already received to the dirty copy of each rewarded player, as
+     * coins that need no writing. A player whose flush is in flight is read again once it lands,
+     * since the copy being written does not hold the reward.
+     */
+    private void onRewardGranted(String message) {
+        int newline = message.indexOf('\n');
+        if (newline < 0) {
+            return;
+        }
+        int amount = Integer.parseInt(message.substring(0, newline));
+        for (String playerId : message.substring(newline + 1).split(",")) {
+            Lock lock = playerLocks.get(playerId);
+            lock.lock();
+            try {
+                Player pending = dirty.get(playerId);
+                if (pending != null) {
+                    Player rewarded = pending.copy();
+                    rewarded.addSavedCoins(amount);
+                    dirty.put(playerId, rewarded);
+                }
+                if (inFlight.containsKey(playerId)) {
+                    overwrittenInFlight.add(playerId);
+                }
+                players.invalidate(playerId);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
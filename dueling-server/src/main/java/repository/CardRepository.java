@@ -1,26 +1,93 @@
 package repository;
 
 import model.Card;
+import model.CardCatalog;
 import model.Card.CardType;
 import org.redisson.api.RAtomicLong;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Repository
 public class CardRepository {
     private static final String CARD_STOCK_PREFIX = "card:stock:";
     private static final String STOCK_INIT_FLAG = "card:stock:initialized";
+
+    /**
+     * Draws one card per pack slot in a single atomic step. For each slot, a card is picked
+     * among the slot's candidates with probability proportional to its remaining stock. The
+     * chosen counters are decremented only if every slot got a card; if any slot's candidates
+     * are all sold out, nothing is claimed.
+     * <p>
+     * KEYS: the stock counter of every card. ARGV: slot count, then per slot a random number
+     * in [0, 1), the candidate count and the candidates' 1-based KEYS indexes. Returns the
+     * chosen KEYS index per slot (all 0 when the pack could not be filled), followed by the
+     * remaining stock of every card.
+     */
+    private static final String CLAIM_PACK_SCRIPT = """
+            local stock = {}
+            local function stockOf(k)
+                if stock[k] == nil then stock[k] = tonumber(redis.call('GET', KEYS[k]) or '0') end
+                return stock[k]
+            end
+            local slots = tonumber(ARGV[1])
+            local chosen = {}
+            local pos = 2
+            for slot = 1, slots do
+                local r = tonumber(ARGV[pos])
+                local n = tonumber(ARGV[pos + 1])
+                pos = pos + 2
+                local candidates, total = {}, 0
+                for i = 1, n do
+                    local k = tonumber(ARGV[pos])
+                    pos = pos + 1
+                    if stockOf(k) > 0 then table.insert(candidates, k); total = total + stock[k] end
+                end
+                if total == 0 then break end
+                local target = r * total
+                local pick = candidates[#candidates]
+                for _, k in ipairs(candidates) do
+                    target = target - stock[k]
+                    if target < 0 then pick = k; break end
+                end
+                stock[pick] = stock[pick] - 1
+                table.insert(chosen, pick)
+            end
+            local result = {}
+            if #chosen == slots then
+                for _, k in ipairs(chosen) do
+                    redis.call('DECR', KEYS[k])
+                    table.insert(result, k)
+                end
+            else
+                for _, k in ipairs(chosen) do stock[k] = stock[k] + 1 end
+                for slot = 1, slots do table.insert(result, 0) end
+            end
+            for k = 1, #KEYS do table.insert(result, stockOf(k)) end
+            return result
+            """;
+
     private final Map<String, Card> allCards = new HashMap<>();
     private final SecureRandom random = new SecureRandom();
+    // Card IDs in the order of the script's KEYS
+    private final List<String> stockCardIds = new ArrayList<>();
+    private final List<Object> stockKeys = new ArrayList<>();
+    // Last known stock per card, refreshed by every claim; used to skip sold-out candidates
+    private final Map<String, Long> approximateStock = new ConcurrentHashMap<>();
+    private volatile String claimPackSha;
 
     private final RedissonClient redissonClient;
     private static final Logger logger = LoggerFactory.getLogger(CardRepository.class);
@@ -31,6 +98,11 @@ public class CardRepository {
         try {
             // Inicializa os cards em memória (pode ser otimizado para ler de um DB)
             initializeCardDefinitions();
+            CardCatalog.registerAll(allCards.values());
+            new TreeMap<>(allCards).keySet().forEach(id -> {
+                stockCardIds.add(id);
+                stockKeys.add(CARD_STOCK_PREFIX + id);
+            });
 
             // Inicializa o estoque no Redis apenas se não foi inicializado antes
             RAtomicLong initFlag = redissonClient.getAtomicLong(STOCK_INIT_FLAG);
@@ -71,6 +143,7 @@ public class CardRepository {
     }
 
     private void initializeStock() {
+        Map<String, String> initialStock = new HashMap<>();
         allCards.keySet().forEach(id -> {
             int stock = 0;
             if (id.startsWith("basic")) stock = 100;
@@ -80,17 +153,17 @@ public class CardRepository {
             else if (id.startsWith("defense")) stock = 100;
             else if (id.startsWith("scenario")) stock = 20;
             else if (id.startsWith("legendary")) stock = 5;
-            
-            getStockCounter(id).set(stock);
+
+            initialStock.put(CARD_STOCK_PREFIX + id, String.valueOf(stock));
+            approximateStock.put(id, (long) stock);
         });
-        logger.info("Initialized Redis card stock with {} entries using RAtomicLong.", allCards.size());
+        redissonClient.getBuckets(StringCodec.INSTANCE).set(initialStock);
+        logger.info("Initialized Redis card stock with {} entries.", allCards.size());
     }
     
     public void resetStockIfDepleted() {
         // Check if all or most cards are out of stock
-        long nonZeroStockCount = allCards.keySet().stream()
-            .filter(id -> getStockCounter(id).get() > 0)
-            .count();
+        long nonZeroStockCount = refreshStock();
         
         logger.info("Checking stock status: {} cards with stock > 0 out of {} total card types", nonZeroStockCount, allCards.size());
         
@@ -99,9 +172,7 @@ public class CardRepository {
             logger.info("Low stock detected ({} cards available), resetting card stock", nonZeroStockCount);
             initializeStock();
             // Re-check after reset
-            long newNonZeroStockCount = allCards.keySet().stream()
-                .filter(id -> getStockCounter(id).get() > 0)
-                .count();
+            long newNonZeroStockCount = refreshStock();
             logger.info("After reset: {} cards with stock > 0", newNonZeroStockCount);
         } else {
             logger.info("Stock level acceptable, no reset needed");
@@ -116,86 +187,95 @@ public class CardRepository {
         return new HashMap<>(allCards);
     }
 
-    public Optional<Card> claimCard(String id) {
-        try {
-            RAtomicLong counter = getStockCounter(id);
-            long newStock = counter.decrementAndGet();
-            
-            if (newStock < 0) {
-                // Revert the decrement
-                counter.incrementAndGet();
-                logger.warn("Attempt to claim card {}, but it is out of stock", id);
-                return Optional.empty();
+    /**
+     * Reserves one card per slot of a pack in a single Redis round-trip. Each slot draws a
+     * card of the given rarity, weighted by remaining stock. A rarity is never swapped for
+     * another: if one slot's rarity is sold out, no card of the pack is reserved.
+     *
+     * @param slotRarities the rarity of each slot of the pack
+     * @return the reserved cards, one per slot, or an empty list if a rarity ran out
+     */
+    public List<Card> claimPack(List<String> slotRarities) {
+        List<Object> args = new ArrayList<>();
+        args.add(String.valueOf(slotRarities.size()));
+        for (String rarity : slotRarities) {
+            List<String> ofRarity = new ArrayList<>();
+            List<String> candidates = new ArrayList<>();
+            for (int i = 0; i < stockCardIds.size(); i++) {
+                String id = stockCardIds.get(i);
+                if (allCards.get(id).getRarity().equalsIgnoreCase(rarity)) {
+                    ofRarity.add(String.valueOf(i + 1));
+                    if (approximateStock.getOrDefault(id, 1L) > 0) {
+                        candidates.add(String.valueOf(i + 1));
+                    }
+                }
             }
-            
-            logger.info("Card {} claimed atomically. New stock: {}", id, newStock);
-            return findById(id);
-            
-        } catch (Exception e) {
-            logger.error("Error claiming card {}: {}", id, e.getMessage(), e);
-            return Optional.empty();
+            if (candidates.isEmpty()) {
+                // The local stock may be stale, e.g. after another server reset it; the script checks the real one
+                candidates = ofRarity;
+            }
+            args.add(String.valueOf(random.nextDouble()));
+            args.add(String.valueOf(candidates.size()));
+            args.addAll(candidates);
         }
-    }
 
-    public Optional<Card> getRandomCardByRarity(String rarity) {
-        List<String> availableCards = allCards.values().stream()
-            .filter(c -> c.getRarity().equalsIgnoreCase(rarity) && getStockCounter(c.getId()).get() > 0)
-            .map(Card::getId)
-            .collect(Collectors.toList());
-
-        if (availableCards.isEmpty()) {
-            logger.warn("No cards of rarity {} available in stock. Attempting to reset stock.", rarity);
-            // Try to reset stock if it's depleted
-            resetStockIfDepleted();
-            
-            // After resetting, check again
-            availableCards = allCards.values().stream()
-                .filter(c -> c.getRarity().equalsIgnoreCase(rarity) && getStockCounter(c.getId()).get() > 0)
-                .map(Card::getId)
-                .collect(Collectors.toList());
-
-            if (availableCards.isEmpty()) {
-                logger.error("No cards of rarity {} available even after stock reset.", rarity);
-                return Optional.empty();
+        List<Long> result = evalClaimPack(args.toArray());
+        List<Card> cards = new ArrayList<>(slotRarities.size());
+        for (int slot = 0; slot < slotRarities.size(); slot++) {
+            int keyIndex = result.get(slot).intValue();
+            if (keyIndex > 0) {
+                cards.add(allCards.get(stockCardIds.get(keyIndex - 1)));
             }
         }
-
-        String randomCardId = availableCards.get(random.nextInt(availableCards.size()));
-        // claimCard already is atomic and thread-safe
-        return claimCard(randomCardId);
+        for (int i = 0; i < stockCardIds.size(); i++) {
+            approximateStock.put(stockCardIds.get(i), result.get(slotRarities.size() + i));
+        }
+        logger.debug("Claimed pack of {} cards for {} slots", cards.size(), slotRarities.size());
+        return cards;
     }
-    
-    public Optional<Card> getRandomCard() {
-        List<String> availableCards = allCards.values().stream()
-            .filter(c -> getStockCounter(c.getId()).get() > 0)
-            .map(Card::getId)
-            .collect(Collectors.toList());
-
-        if (availableCards.isEmpty()) {
-            logger.warn("No cards available in stock. Attempting to reset stock.");
-            // Try to reset stock if it's depleted
-            resetStockIfDepleted();
-            
-            // After resetting, check again
-            availableCards = allCards.values().stream()
-                .filter(c -> getStockCounter(c.getId()).get() > 0)
-                .map(Card::getId)
-                .collect(Collectors.toList());
-
-            if (availableCards.isEmpty()) {
-                logger.error("No cards available even after stock reset.");
-                return Optional.empty();
+
+    private List<Long> evalClaimPack(Object[] args) {
+        RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+        String sha = claimPackSha;
+        if (sha == null) {
+            sha = claimPackSha = script.scriptLoad(CLAIM_PACK_SCRIPT);
+        }
+        try {
+            return script.evalSha(RScript.Mode.READ_WRITE, sha, RScript.ReturnType.MULTI, stockKeys, args);
+        } catch (RedisException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("NOSCRIPT")) {
+                throw e;
             }
+            // Script cache was flushed, e.g. after a Redis restart
+            claimPackSha = script.scriptLoad(CLAIM_PACK_SCRIPT);
+            return script.evalSha(RScript.Mode.READ_WRITE, claimPackSha, RScript.ReturnType.MULTI, stockKeys, args);
         }
+    }
 
-        String randomCardId = availableCards.get(random.nextInt(availableCards.size()));
-        // claimCard already is atomic and thread-safe
-        return claimCard(randomCardId);
+    /**
+     * Reloads the stock cache with one MGET.
+     *
+     * @return the number of card types that still have stock
+     */
+    private long refreshStock() {
+        Map<String, String> stock = redissonClient.getBuckets(StringCodec.INSTANCE)
+                .get(stockKeys.toArray(new String[0]));
+        long nonZero = 0;
+        for (String id : stockCardIds) {
+            String value = stock.get(CARD_STOCK_PREFIX + id);
+            long count = value != null ? Long.parseLong(value) : 0;
+            approximateStock.put(id, count);
+            if (count > 0) {
+                nonZero++;
+            }
+        }
+        return nonZero;
     }
-    
+
     // Method for testing: set stock for a specific card
     public void setStock(String cardId, int stock) {
         getStockCounter(cardId).set(stock);
+        approximateStock.put(cardId, (long) stock);
         logger.info("Set stock for card {} to {}", cardId, stock);
     }
     
@@ -203,7 +283,10 @@ public class CardRepository {
     public void clearStock() {
         RAtomicLong initFlag = redissonClient.getAtomicLong(STOCK_INIT_FLAG);
         initFlag.set(0);
-        allCards.keySet().forEach(id -> getStockCounter(id).set(0));
+        allCards.keySet().forEach(id -> {
+            getStockCounter(id).set(0);
+            approximateStock.put(id, 0L);
+        });
         logger.info("Cleared all card stock");
     }
 }
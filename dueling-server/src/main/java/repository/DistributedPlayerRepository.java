@@ -1,67 +1,99 @@
 package repository;
 
 import api.ServerApiClient;
+import api.registry.ServerIdentity;
 import api.registry.ServerRegistry;
+import common.cluster.ConsistentHashRing;
+import jakarta.annotation.PreDestroy;
 import model.Player;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.annotation.Value;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Spreads players over the cluster: each player is stored on the server that owns it on the
+ * {@link ServerRegistry}'s consistent-hash ring, and other servers read and write it there.
+ * <p>
+ * When servers join or leave, only the players in the ring ranges that changed hands move.
+ * This server hands the players it stored but no longer owns over to their new owners, in
+ * the background, and a server shutting down hands over all of its players. Until a player
+ * is handed over, a read that misses on the new owner pulls the player from its owner on the
+ * previous ring. Both directions go through {@link #handOver}, so each player moves once, and
+ * a server receiving a player keeps the copy it already stores.
+ * <p>
+ * No lock is held while a player is sent to another server. A player is deleted once sent,
+ * unless it changed meanwhile.
+ */
 @Profile("!distributed-db")
 @Repository
 public class DistributedPlayerRepository implements PlayerRepository {
 
-    private final PlayerRepository localRepository;
+    private static final Logger logger = LoggerFactory.getLogger(DistributedPlayerRepository.class);
+
+    private final PlayerRepositoryJson localRepository;
     private final ServerRegistry serverRegistry;
     private final ServerApiClient serverApiClient;
+    private final ExecutorService handoffExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "player-handoff");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    @Value("${server.name}")
-    private String serverName;
-    
-    @Value("${server.port}")
-    private String serverPort;
-
-    private String selfUrl;
+    private final String selfUrl;
+    private volatile ConsistentHashRing previousRing = ConsistentHashRing.empty();
 
     @Autowired
-    public DistributedPlayerRepository(@Qualifier("playerRepositoryJson") PlayerRepository localRepository, 
+    public DistributedPlayerRepository(@Qualifier("playerRepositoryJson") PlayerRepositoryJson localRepository,
                                        ServerRegistry serverRegistry,
-                                       ServerApiClient serverApiClient) {
+                                       ServerApiClient serverApiClient,
+                                       ServerIdentity serverIdentity) {
         this.localRepository = localRepository;
+        this.selfUrl = serverIdentity.getSelfUrl();
         this.serverRegistry = serverRegistry;
         this.serverApiClient = serverApiClient;
+        serverRegistry.addMembershipListener((previous, current) -> {
+            previousRing = previous;
+            if (!handoffExecutor.isShutdown()) {
+                handoffExecutor.execute(() -> handOff(previous, current));
+            }
+        });
     }
-    
-    private String getSelfUrl() {
-        if (selfUrl == null) {
-            selfUrl = "http://" + serverName + ":" + serverPort;
+
+    @PreDestroy
+    public void stop() {
+        handoffExecutor.shutdownNow();
+        ConsistentHashRing ring = serverRegistry.getRing();
+        Set<String> remaining = new HashSet<>(ring.nodes());
+        remaining.remove(selfUrl);
+        if (ring.contains(selfUrl) && !remaining.isEmpty()) {
+            // Leaving: the servers that stay take over this server's players
+            moveStoredPlayers(ring, ConsistentHashRing.of(remaining));
         }
-        return selfUrl;
     }
 
     private String getServerForPlayer(String playerId) {
-        List<String> servers = new ArrayList<>(serverRegistry.getRegisteredServers());
-        if (servers.isEmpty()) {
-            return getSelfUrl();
-        }
-        servers.add(getSelfUrl());
-        servers.sort(String::compareTo);
+        return ownerOf(serverRegistry.getRing(), playerId);
+    }
 
-        int serverIndex = Math.abs(playerId.hashCode() % servers.size());
-        return servers.get(serverIndex);
+    private String ownerOf(ConsistentHashRing ring, String playerId) {
+        // Before this server registers itself, everything is local
+        return ring.isEmpty() ? selfUrl : ring.nodeFor(playerId);
     }
 
     @Override
     public void save(Player player) {
         String responsibleServer = getServerForPlayer(player.getId());
-        if (getSelfUrl().equals(responsibleServer)) {
+        if (selfUrl.equals(responsibleServer)) {
             localRepository.save(player);
         } else {
             serverApiClient.savePlayer(responsibleServer, player);
@@ -71,15 +103,112 @@ public class DistributedPlayerRepository implements PlayerRepository {
     @Override
     public Optional<Player> findById(String id) {
         String responsibleServer = getServerForPlayer(id);
-        if (getSelfUrl().equals(responsibleServer)) {
-            return localRepository.findById(id);
-        } else {
-            return Optional.ofNullable(serverApiClient.getPlayer(responsibleServer, id));
+        if (selfUrl.equals(responsibleServer)) {
+            Optional<Player> local = localRepository.findById(id);
+            return local.isPresent() ? local : takeOver(id);
         }
+        Player remote = serverApiClient.getPlayer(responsibleServer, id);
+        // A player this server has not handed over yet is still only here
+        return remote != null ? Optional.of(remote) : localRepository.findById(id);
     }
 
     @Override
     public void update(Player player) {
         save(player);
     }
+
+    /**
+     * Removes and returns this server's copy of a player, for the server that now owns the
+     * player to store instead.
+     *
+     * @return the player, or empty if this server does not store it
+     */
+    public Optional<Player> handOver(String id) {
+        return localRepository.removeById(id);
+    }
+
+    /**
+     * Stores a player another server handed over to this one, as it is, without routing it.
+     * A copy this server already stores, e.g. one it pulled and changed since, is kept.
+     */
+    public void receive(Player player) {
+        if (!localRepository.saveIfAbsent(player)) {
+            logger.debug("Kept the stored copy of player {} over the one handed over", player.getId());
+        }
+    }
+
+    /**
+     * Pulls a player this server owns but does not store yet from its owner on the previous
+     * ring, which may not have handed it over.
+     */
+    private Optional<Player> takeOver(String id) {
+        String previousOwner = ownerOf(previousRing, id);
+        if (selfUrl.equals(previousOwner) || !serverRegistry.getRegisteredServers().contains(previousOwner)) {
+            return Optional.empty();
+        }
+        try {
+            Player player = serverApiClient.takePlayer(previousOwner, id);
+            if (player != null && localRepository.saveIfAbsent(player)) {
+                logger.debug("Took player {} over from {}", id, previousOwner);
+                return Optional.of(player);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not take player {} over from {}: {}", id, previousOwner, e.getMessage());
+        }
+        // The background handoff may have delivered it meanwhile
+        return localRepository.findById(id);
+    }
+
+    /**
+     * Sends the players this server owned on the previous ring, and does not own on the
+     * current one, to their new owners, and deletes the local copies once sent.
+     */
+    private void handOff(ConsistentHashRing previous, ConsistentHashRing current) {
+        if (!current.contains(selfUrl)) {
+            // Not part of the ring (yet, or any more): there is no owner to hand over to reliably
+            return;
+        }
+        moveStoredPlayers(previous, current);
+    }
+
+    private void moveStoredPlayers(ConsistentHashRing previous, ConsistentHashRing current) {
+        String self = selfUrl;
+        int moved = 0;
+        int failed = 0;
+        for (String id : localRepository.findAllIds()) {
+            // Only the players that change hands are loaded
+            if (!self.equals(ownerOf(previous, id))) {
+                continue;
+            }
+            String newOwner = ownerOf(current, id);
+            if (self.equals(newOwner)) {
+                continue;
+            }
+            // Taken before the read, so a save in between keeps the player here
+            long stamp = localRepository.saveStamp(id);
+            Optional<Player> player = localRepository.findById(id);
+            if (player.isEmpty()) {
+                // Pulled by its new owner meanwhile
+                continue;
+            }
+            try {
+                serverApiClient.handOverPlayer(newOwner, player.get());
+            } catch (Exception e) {
+                // Kept locally; still readable through the fallback in findById
+                logger.warn("Could not hand player {} over to {}: {}", id, newOwner, e.getMessage());
+                failed++;
+                continue;
+            }
+            if (localRepository.deleteIfNotSavedSince(id, stamp)) {
+                moved++;
+            } else if (localRepository.findById(id).isPresent()) {
+                logger.warn("Player {} changed while being handed over to {}; kept the local copy", id, newOwner);
+                failed++;
+            }
+        }
+        if (moved > 0 || failed > 0) {
+            logger.info("Handed {} player(s) over to their new owners across {}; {} failed",
+                    moved, current.nodes(), failed);
+        }
+    }
 }
@@ -1,10 +1,14 @@
 package repository;
 
+import jakarta.persistence.QueryHint;
 import model.Player;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-
+import java.util.Optional;
 
 /**
  * JPA repository interface for Player entities.
@@ -20,4 +24,11 @@ public interface JpaPlayerRepository extends JpaRepository<Player, String> {
     
     // Additional custom methods can be added here if needed
     // For example: Optional<Player> findByNickname(String nickname);
+
+    /**
+     * Find a player as stored in the database, skipping the second-level cache
+     */
+    @QueryHints(@QueryHint(name = "jakarta.persistence.cache.retrieveMode", value = "BYPASS"))
+    @Query("SELECT p FROM Player p WHERE p.id = :id")
+    Optional<Player> findStoredById(@Param("id") String id);
 }
\ No newline at end of file
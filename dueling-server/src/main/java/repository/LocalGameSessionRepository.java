@@ -0,0 +1,314 @@
+package repository;
+
+import api.registry.ServerIdentity;
+import common.cluster.ClusterDirectoryKeys;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import model.GameSession;
+import org.redisson.api.RMap;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import service.mailbox.MatchMailboxService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Node-local, authoritative store for the game sessions hosted on this server.
+ * <p>
+ * The node that creates (or adopts) a match keeps the live {@link GameSession} in memory
+ * and records itself as the match owner in Redis, so other nodes can route commands to it
+ * and the gateway can route the match's players to it. Ownership is claimed atomically, so
+ * when two nodes adopt the same match only one hosts it.
+ * <p>
+ * A node that was paused long enough to be removed from the cluster may find on waking that
+ * its matches were adopted elsewhere. Each claim raises the match's epoch in Redis, and a
+ * snapshot is only written while the writer's epoch is still the latest, so a former owner
+ * cannot overwrite the new owner's snapshots. The owner is checked again before a live
+ * session is handed out or saved, and a node that lost the match drops its copy.
+ * <p>
+ * Snapshots are written behind to {@link RedisGameSessionRepository}: dirty sessions are
+ * flushed every {@value #FLUSH_INTERVAL_MS} ms, and immediately whenever the turn changes.
+ * Each snapshot is encoded by a task on the match's mailbox, so it never overlaps a game command.
+ * The number of live sessions is published as {@code dueling.match.active}.
+ */
+@Profile("server")
+@Primary
+@Repository
+public class LocalGameSessionRepository implements GameSessionRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalGameSessionRepository.class);
+    private static final long FLUSH_INTERVAL_MS = 500;
+    private static final long SHUTDOWN_FLUSH_TIMEOUT_MS = 5000;
+    // KEYS: owners, epochs; ARGV: match ID, this node, owner to replace or '' for none.
+    // Returns the epoch this node holds the match with, or 0 if another node holds it.
+    private static final String CLAIM_SCRIPT =
+            "local owner = redis.call('HGET', KEYS[1], ARGV[1]) "
+            + "if owner == ARGV[2] then "
+            + "  local epoch = redis.call('HGET', KEYS[2], ARGV[1]) "
+            + "  if epoch then return tonumber(epoch) end "
+            + "elseif (ARGV[3] == '' and owner) or (ARGV[3] ~= '' and owner ~= ARGV[3]) then "
+            + "  return 0 "
+            + "end "
+            + "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) "
+            + "return redis.call('HINCRBY', KEYS[2], ARGV[1], 1)";
+
+    private final RedisGameSessionRepository snapshotRepository;
+    private final RMap<String, String> owners;
+    private final RMap<String, String> epochs;
+    private final RScript script;
+    private final MatchMailboxService matchMailboxes;
+    private final String nodeUrl;
+
+    private final Map<String, GameSession> liveSessions = new ConcurrentHashMap<>();
+    private final Set<String> dirtySessions = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> flushedTurns = new ConcurrentHashMap<>();
+    // Epoch of this node's claim on each match it hosts
+    private final Map<String, Long> claimedEpochs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "game-session-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LocalGameSessionRepository(RedisGameSessionRepository snapshotRepository,
+                                      RedissonClient redissonClient,
+                                      ServerIdentity serverIdentity,
+                                      MatchMailboxService matchMailboxes,
+                                      MeterRegistry meterRegistry) {
+        this.snapshotRepository = snapshotRepository;
+        this.owners = redissonClient.getMap(ClusterDirectoryKeys.MATCH_OWNER, StringCodec.INSTANCE);
+        this.epochs = redissonClient.getMap(ClusterDirectoryKeys.MATCH_EPOCH, StringCodec.INSTANCE);
+        this.script = redissonClient.getScript(StringCodec.INSTANCE);
+        this.matchMailboxes = matchMailboxes;
+        this.nodeUrl = serverIdentity.getSelfUrl();
+        Gauge.builder("dueling.match.active", liveSessions, Map::size)
+                .description("Matches hosted on this server")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the number of matches hosted on this server
+     */
+    public int liveSessionCount() {
+        return liveSessions.size();
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::flushDirtySessions, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        // Final flush so a graceful shutdown leaves up-to-date snapshots behind
+        List<CompletableFuture<Void>> writes = Set.copyOf(dirtySessions).stream()
+                .filter(dirtySessions::remove)
+                .map(matchId -> CompletableFuture.runAsync(() -> {
+                    GameSession session = liveSessions.get(matchId);
+                    Long epoch = claimedEpochs.get(matchId);
+                    if (session != null && epoch != null) {
+                        snapshotRepository.saveAsync(session, epoch).toCompletableFuture().join();
+                    }
+                }, task -> matchMailboxes.post(matchId, task)))
+                .toList();
+        try {
+            CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new))
+                    .get(SHUTDOWN_FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Final snapshot flush incomplete: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Records this node as the owner of a match, unless another node got there first.
+     *
+     * @param matchId       the match to claim
+     * @param previousOwner the owner recorded when this node decided to adopt the match, or
+     *                      null if none was recorded; the claim only replaces that owner
+     * @return true if this node now owns the match
+     */
+    public boolean claimOwnership(String matchId, String previousOwner) {
+        String replaced = previousOwner == null || previousOwner.equals(nodeUrl) ? "" : previousOwner;
+        Long epoch = script.eval(ClusterDirectoryKeys.MATCH_OWNER, RScript.Mode.READ_WRITE, CLAIM_SCRIPT,
+                RScript.ReturnType.INTEGER, List.<Object>of(ClusterDirectoryKeys.MATCH_OWNER, ClusterDirectoryKeys.MATCH_EPOCH),
+                matchId, nodeUrl, replaced);
+        if (epoch == null || epoch == 0) {
+            return false;
+        }
+        claimedEpochs.put(matchId, epoch);
+        return true;
+    }
+
+    @Override
+    public void save(GameSession gameSession) {
+        String matchId = gameSession.getMatchId();
+        if (!liveSessions.containsKey(matchId)) {
+            if (!claimOwnership(matchId, null)) {
+                logger.warn("Not hosting match {}: it is owned by {}", matchId, owners.get(matchId));
+                return;
+            }
+            liveSessions.putIfAbsent(matchId, gameSession);
+        } else if (!stillOwns(matchId)) {
+            return;
+        }
+        dirtySessions.add(matchId);
+
+        Integer flushedTurn = flushedTurns.get(matchId);
+        if (flushedTurn == null || flushedTurn != gameSession.getTurnManager().getTurn()) {
+            flush(matchId);
+        }
+    }
+
+    /**
+     * Returns the live session if this node hosts the match, otherwise the latest snapshot
+     * from Redis. Snapshots are detached copies and must not be mutated unless adopted.
+     */
+    @Override
+    public Optional<GameSession> findById(String matchId) {
+        GameSession live = liveSessions.get(matchId);
+        if (live != null) {
+            return Optional.of(live);
+        }
+        return snapshotRepository.findById(matchId);
+    }
+
+    @Override
+    public void deleteById(String matchId) {
+        forget(matchId);
+        owners.fastRemove(matchId);
+        epochs.fastRemove(matchId);
+        snapshotRepository.deleteById(matchId);
+    }
+
+    /**
+     * @return the live session if this node hosts the match and is still its recorded owner
+     */
+    public Optional<GameSession> findLocal(String matchId) {
+        GameSession live = liveSessions.get(matchId);
+        if (live == null || !stillOwns(matchId)) {
+            return Optional.empty();
+        }
+        return Optional.of(live);
+    }
+
+    /**
+     * @return the URL of the node recorded as the owner of the match, if any
+     */
+    public Optional<String> findOwner(String matchId) {
+        return Optional.ofNullable(owners.get(matchId));
+    }
+
+    /**
+     * @return the IDs of all matches recorded as owned by the given node
+     */
+    public List<String> findMatchIdsOwnedBy(String ownerUrl) {
+        return owners.readAllMap().entrySet().stream()
+                .filter(entry -> ownerUrl.equals(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * @return the URL this node records as owner, in the same form used by the server registry
+     */
+    public String getNodeUrl() {
+        return nodeUrl;
+    }
+
+    /**
+     * Checks that no other node claimed a match this node hosts, and drops the live session if
+     * one did. While Redis cannot be reached the session is kept; its snapshots stay fenced.
+     */
+    private boolean stillOwns(String matchId) {
+        String owner;
+        try {
+            owner = owners.get(matchId);
+        } catch (RedisException e) {
+            logger.debug("Could not check the owner of match {}: {}", matchId, e.getMessage());
+            return true;
+        }
+        if (nodeUrl.equals(owner)) {
+            return true;
+        }
+        logger.warn("Dropping match {}: it is now owned by {}", matchId, owner);
+        forget(matchId);
+        return false;
+    }
+
+    private void forget(String matchId) {
+        liveSessions.remove(matchId);
+        dirtySessions.remove(matchId);
+        flushedTurns.remove(matchId);
+        claimedEpochs.remove(matchId);
+    }
+
+    private void flushDirtySessions() {
+        for (String matchId : Set.copyOf(dirtySessions)) {
+            flush(matchId);
+        }
+    }
+
+    private void flush(String matchId) {
+        if (dirtySessions.remove(matchId)) {
+            matchMailboxes.post(matchId, () -> writeSnapshot(matchId));
+        }
+    }
+
+    /**
+     * Encodes and writes a snapshot of a live session. Runs on the match's mailbox, which is
+     * the only thread that mutates the session.
+     */
+    private void writeSnapshot(String matchId) {
+        GameSession session = liveSessions.get(matchId);
+        Long epoch = claimedEpochs.get(matchId);
+        if (session == null || epoch == null) {
+            return;
+        }
+        try {
+            int turn = session.getTurnManager().getTurn();
+            snapshotRepository.saveAsync(session, epoch).whenComplete((written, error) -> {
+                if (error != null) {
+                    logger.warn("Failed to write snapshot of match {}: {}", matchId, error.getMessage());
+                    dirtySessions.add(matchId);
+                } else if (Boolean.FALSE.equals(written)) {
+                    // Unless this node has claimed the match again since, another node holds it now
+                    if (claimedEpochs.remove(matchId, epoch)) {
+                        logger.warn("Dropping match {}: another node claimed it after epoch {}", matchId, epoch);
+                        forget(matchId);
+                    }
+                } else if (!liveSessions.containsKey(matchId)) {
+                    // The match ended while the snapshot was in flight
+                    snapshotRepository.deleteById(matchId);
+                }
+            });
+            if (liveSessions.containsKey(matchId)) {
+                flushedTurns.put(matchId, turn);
+            }
+        } catch (Exception e) {
+            logger.error("Error writing snapshot of match {}: {}", matchId, e.getMessage(), e);
+            dirtySessions.add(matchId);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package repository;
+
+import common.cluster.ClusterDirectoryKeys;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cluster-wide index from player ID to the ID of the match the player is currently in.
+ * Maintained when matches start and end, so match lookups by player take a single
+ * Redis read instead of scanning every stored game session. Stored as plain strings, so the
+ * gateway can read it to route a reconnecting player to the node hosting the match.
+ */
+@Repository
+public class PlayerMatchIndex {
+
+    private final RedissonClient redissonClient;
+
+    public PlayerMatchIndex(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    /**
+     * Records that the given players are in the given match.
+     */
+    public void bind(String matchId, String... playerIds) {
+        Map<String, String> entries = new HashMap<>();
+        for (String playerId : playerIds) {
+            entries.put(playerId, matchId);
+        }
+        getIndex().putAll(entries);
+    }
+
+    /**
+     * Removes the given players from the index, but only if they are still recorded in
+     * the given match, so a player who already joined a new match keeps that entry.
+     */
+    public void unbind(String matchId, String... playerIds) {
+        RMap<String, String> index = getIndex();
+        for (String playerId : playerIds) {
+            index.remove(playerId, matchId);
+        }
+    }
+
+    /**
+     * @return the ID of the match the player is in, if any
+     */
+    public Optional<String> findMatchId(String playerId) {
+        return Optional.ofNullable(getIndex().get(playerId));
+    }
+
+    public boolean isInMatch(String playerId) {
+        return getIndex().containsKey(playerId);
+    }
+
+    private RMap<String, String> getIndex() {
+        return redissonClient.getMap(ClusterDirectoryKeys.PLAYER_MATCH, StringCodec.INSTANCE);
+    }
+}
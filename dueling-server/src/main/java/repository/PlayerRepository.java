@@ -22,6 +22,18 @@ public interface PlayerRepository {
      * @return an Optional containing the player if found, or empty if not found
      */
     Optional<Player> findById(String id);
+
+    /**
+     * Finds a player as currently stored, rather than as any cache in front of the repository
+     * last saw it. Used to start changes that are checked against the player's state, such as
+     * spending coins or trading cards, while the player's lock is held.
+     *
+     * @param id the unique identifier of the player
+     * @return an Optional containing the player if found, or empty if not found
+     */
+    default Optional<Player> findLatestById(String id) {
+        return findById(id);
+    }
     
     /**
      * Updates an existing player in the repository.
@@ -29,4 +41,14 @@ public interface PlayerRepository {
      * @param player the player to update
      */
     void update(Player player);
+
+    /**
+     * Saves a player and makes the change durable before returning, bypassing any write-behind
+     * caching in front of the repository.
+     *
+     * @param player the player to save
+     */
+    default void saveAndFlush(Player player) {
+        save(player);
+    }
 }
\ No newline at end of file
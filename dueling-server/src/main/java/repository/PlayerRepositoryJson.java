@@ -4,6 +4,9 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import model.Player;
 import java.io.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.slf4j.Logger;
@@ -19,6 +22,11 @@ import org.springframework.stereotype.Repository;
 public class PlayerRepositoryJson implements PlayerRepository {
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
     private final String basePath = "players/";
+    // Player ID by file name, built on first use; IDs do not always survive sanitizing
+    private Map<String, String> playerIdsByFileName;
+    // Stamp of each player's last save by this process, by file name
+    private final Map<String, Long> saveStamps = new HashMap<>();
+    private long lastSaveStamp;
     
     private static final Logger logger = LoggerFactory.getLogger(PlayerRepositoryJson.class);
 
@@ -64,6 +72,10 @@ public class PlayerRepositoryJson implements PlayerRepository {
             FileWriter writer = new FileWriter(basePath + sanitizedId + ".json");
             gson.toJson(player, writer);
             writer.close();
+            if (playerIdsByFileName != null) {
+                playerIdsByFileName.put(sanitizedId, player.getId());
+            }
+            saveStamps.put(sanitizedId, ++lastSaveStamp);
             logger.debug("Player {} saved successfully", player.getId());
         } catch (IOException e) {
             logger.error("Error saving player {}: {}", player.getId(), e.getMessage(), e);
@@ -107,5 +119,99 @@ public class PlayerRepositoryJson implements PlayerRepository {
     public synchronized void update(Player player) {
         save(player);
     }
-}
 
+    /**
+     * Saves a player unless one with the same ID is already stored.
+     *
+     * @param player the player to save
+     * @return true if the player was saved
+     */
+    public synchronized boolean saveIfAbsent(Player player) {
+        if (findById(player.getId()).isPresent()) {
+            return false;
+        }
+        save(player);
+        return true;
+    }
+
+    /**
+     * Lists the IDs of the stored players. The IDs are read from the files once and kept up to
+     * date as players are saved and deleted, so listing them loads no player.
+     *
+     * @return the stored player IDs
+     */
+    public synchronized List<String> findAllIds() {
+        if (playerIdsByFileName == null) {
+            playerIdsByFileName = readPlayerIds();
+        }
+        return List.copyOf(playerIdsByFileName.values());
+    }
+
+    private Map<String, String> readPlayerIds() {
+        Map<String, String> ids = new HashMap<>();
+        File[] files = new File(basePath).listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null) {
+            return ids;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            String fileName = name.substring(0, name.length() - ".json".length());
+            findById(fileName).ifPresent(player -> ids.put(fileName, player.getId()));
+        }
+        return ids;
+    }
+
+    /**
+     * Deletes a player's JSON file, if there is one.
+     *
+     * @param id the unique identifier of the player
+     */
+    public synchronized void deleteById(String id) {
+        String sanitizedId = sanitizePlayerId(id);
+        File file = new File(basePath + sanitizedId + ".json");
+        if (file.exists() && !file.delete()) {
+            logger.warn("Could not delete player file {}", file);
+            return;
+        }
+        if (playerIdsByFileName != null) {
+            playerIdsByFileName.remove(sanitizedId);
+        }
+        saveStamps.remove(sanitizedId);
+    }
+
+    /**
+     * Deletes a player and returns what was stored, in one step.
+     *
+     * @param id the unique identifier of the player
+     * @return the deleted player, or empty if none was stored
+     */
+    public synchronized Optional<Player> removeById(String id) {
+        Optional<Player> player = findById(id);
+        player.ifPresent(stored -> deleteById(stored.getId()));
+        return player;
+    }
+
+    /**
+     * @param id the unique identifier of the player
+     * @return a stamp that changes whenever the player is saved, for {@link #deleteIfNotSavedSince}
+     */
+    public synchronized long saveStamp(String id) {
+        return saveStamps.getOrDefault(sanitizePlayerId(id), 0L);
+    }
+
+    /**
+     * Deletes a player only if it was not saved again since {@code stamp} was taken, e.g. once
+     * the copy read at that point was sent elsewhere.
+     *
+     * @param id    the unique identifier of the player
+     * @param stamp the player's {@link #saveStamp} when it was read
+     * @return true if the player was deleted
+     */
+    public synchronized boolean deleteIfNotSavedSince(String id, long stamp) {
+        if (saveStamp(id) != stamp) {
+            return false;
+        }
+        deleteById(id);
+        return true;
+    }
+}
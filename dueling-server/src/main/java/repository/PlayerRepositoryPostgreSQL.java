@@ -2,7 +2,6 @@ package repository;
 
 import model.Player;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
@@ -11,9 +10,9 @@ import java.util.Optional;
 /**
  * PostgreSQL-based implementation of the PlayerRepository interface.
  * Uses JPA to persist player data in a centralized database.
+ * Reached through {@link CachingPlayerRepository}, which batches its writes.
  */
 @Repository
-@Primary  // This makes this implementation preferred over others
 @Profile({"!test", "distributed-db"})  // Use this when not in test and distributed-db profile is active
 public class PlayerRepositoryPostgreSQL implements PlayerRepository {
     
@@ -42,6 +41,18 @@ public class PlayerRepositoryPostgreSQL implements PlayerRepository {
         return jpaPlayerRepository.findById(id);
     }
     
+    /**
+     * Finds a player by their unique identifier, reading the database rather than the
+     * second-level cache.
+     *
+     * @param id the unique identifier of the player
+     * @return an Optional containing the player if found, or empty if not found
+     */
+    @Override
+    public Optional<Player> findLatestById(String id) {
+        return jpaPlayerRepository.findStoredById(id);
+    }
+
     /**
      * Updates an existing player in the database.
      * In JPA, save() handles both create and update operations.
@@ -1,36 +1,172 @@
 package repository;
 
+import common.cluster.ClusterDirectoryKeys;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.buffer.ByteBuf;
 import model.GameSession;
+import org.redisson.api.RFuture;
 import org.redisson.api.RMap;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.protocol.Decoder;
+import org.redisson.client.protocol.Encoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
+import repository.codec.GameSessionCodec;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Game session snapshots in Redis, one hash per match, encoded with {@link GameSessionCodec}.
+ * <p>
+ * Load and save round trips are published as {@code dueling.session.store} and the encoded
+ * snapshot sizes as {@code dueling.session.payload}, both tagged by operation.
+ */
 @Repository
 public class RedisGameSessionRepository implements GameSessionRepository {
 
-    private final RedissonClient redissonClient;
+    private static final Logger logger = LoggerFactory.getLogger(RedisGameSessionRepository.class);
     private static final String GAME_SESSION_KEY_PREFIX = "game_session:";
+    // KEYS: snapshot hash, epoch hash; ARGV: match ID, writer's epoch, encoded session
+    private static final String FENCED_SAVE_SCRIPT =
+            "if redis.call('HGET', KEYS[2], ARGV[1]) ~= ARGV[2] then return 0 end "
+            + "redis.call('HSET', KEYS[1], 'data', ARGV[3]) "
+            + "return 1";
+
+    private final RedissonClient redissonClient;
+    private final GameSessionCodec codec;
+    private final DistributionSummary savePayload;
+    private final Timer loadTimer;
+    private final Timer saveTimer;
 
-    public RedisGameSessionRepository(RedissonClient redissonClient) {
+    public RedisGameSessionRepository(RedissonClient redissonClient, CardRepository cardRepository,
+                                      MeterRegistry meterRegistry) {
         this.redissonClient = redissonClient;
+        this.savePayload = payloadSummary(meterRegistry, "save");
+        this.codec = new MeteredCodec(cardRepository, savePayload, payloadSummary(meterRegistry, "load"));
+        this.loadTimer = storeTimer(meterRegistry, "load");
+        this.saveTimer = storeTimer(meterRegistry, "save");
     }
 
     @Override
     public void save(GameSession gameSession) {
-        RMap<String, GameSession> map = redissonClient.getMap(GAME_SESSION_KEY_PREFIX + gameSession.getMatchId());
-        map.put("data", gameSession);
+        long start = System.nanoTime();
+        getSessionMap(gameSession.getMatchId()).fastPut("data", gameSession);
+        saveTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Writes a snapshot without waiting for Redis to acknowledge it, unless the match was claimed
+     * again since the writer's claim, e.g. by a node that took over while the writer was paused.
+     * The session is encoded on the calling thread before this method returns.
+     *
+     * @param epoch the {@link ClusterDirectoryKeys#MATCH_EPOCH} the writer claimed the match with
+     * @return completes with false if the snapshot was not written because of a newer claim
+     */
+    public RFuture<Boolean> saveAsync(GameSession gameSession, long epoch) {
+        long start = System.nanoTime();
+        String matchId = gameSession.getMatchId();
+        byte[] data;
+        try {
+            data = codec.toBytes(gameSession);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        savePayload.record(data.length);
+        String sessionKey = GAME_SESSION_KEY_PREFIX + matchId;
+        RFuture<Boolean> future = redissonClient.getScript(ByteArrayCodec.INSTANCE).evalAsync(sessionKey,
+                RScript.Mode.READ_WRITE, FENCED_SAVE_SCRIPT, RScript.ReturnType.BOOLEAN,
+                List.<Object>of(sessionKey, ClusterDirectoryKeys.MATCH_EPOCH),
+                matchId.getBytes(StandardCharsets.UTF_8), Long.toString(epoch).getBytes(StandardCharsets.UTF_8), data);
+        future.whenComplete((result, error) -> {
+            if (error == null) {
+                saveTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+        return future;
     }
 
     @Override
     public Optional<GameSession> findById(String matchId) {
-        RMap<String, GameSession> map = redissonClient.getMap(GAME_SESSION_KEY_PREFIX + matchId);
-        return Optional.ofNullable(map.get("data"));
+        long start = System.nanoTime();
+        try {
+            return Optional.ofNullable(getSessionMap(matchId).get("data"));
+        } catch (Exception e) {
+            // Snapshots written in an unknown or outdated format cannot be resumed
+            logger.warn("Could not read snapshot of match {}: {}", matchId, e.getMessage());
+            return Optional.empty();
+        } finally {
+            loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     @Override
     public void deleteById(String matchId) {
         redissonClient.getMap(GAME_SESSION_KEY_PREFIX + matchId).delete();
     }
+
+    private RMap<String, GameSession> getSessionMap(String matchId) {
+        return redissonClient.getMap(GAME_SESSION_KEY_PREFIX + matchId, codec);
+    }
+
+    private static Timer storeTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("dueling.session.store")
+                .description("Round trip to read or write a game session snapshot in Redis")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    private static DistributionSummary payloadSummary(MeterRegistry meterRegistry, String operation) {
+        return DistributionSummary.builder("dueling.session.payload")
+                .description("Encoded size of a game session snapshot")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records the size of every snapshot it encodes or decodes.
+     */
+    private static final class MeteredCodec extends GameSessionCodec {
+
+        private final Encoder encoder;
+        private final Decoder<Object> decoder;
+
+        private MeteredCodec(CardRepository cardRepository, DistributionSummary encodedBytes,
+                             DistributionSummary decodedBytes) {
+            super(cardRepository);
+            Encoder sessionEncoder = super.getValueEncoder();
+            Decoder<Object> sessionDecoder = super.getValueDecoder();
+            this.encoder = in -> {
+                ByteBuf buf = sessionEncoder.encode(in);
+                encodedBytes.record(buf.readableBytes());
+                return buf;
+            };
+            this.decoder = (buf, state) -> {
+                decodedBytes.record(buf.readableBytes());
+                return sessionDecoder.decode(buf, state);
+            };
+        }
+
+        @Override
+        public Decoder<Object> getValueDecoder() {
+            return decoder;
+        }
+
+        @Override
+        public Encoder getValueEncoder() {
+            return encoder;
+        }
+    }
 }
@@ -0,0 +1,327 @@
+package repository.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import model.Card;
+import model.GameSession;
+import model.Player;
+import model.service.PlayerStateManager;
+import model.service.ScenarioManager;
+import model.service.TurnManager;
+import org.redisson.client.codec.BaseCodec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.client.handler.State;
+import org.redisson.client.protocol.Decoder;
+import org.redisson.client.protocol.Encoder;
+import repository.CardRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, versioned binary codec for {@link GameSession} snapshots.
+ * <p>
+ * Only the state needed to resume a match is written: the in-game attributes of both
+ * players, decks, hands, resources, turn and scenario state, and the open response
+ * window. Catalog cards are written as their ID and resolved from {@link CardRepository}
+ * on load; cards missing from the catalog are written inline. Map keys use plain strings.
+ * <p>
+ * Layout: magic {@code 'G' 'S'}, format version byte, then the session fields.
+ * Increment {@link #FORMAT_VERSION} whenever the layout changes and keep reading the
+ * older versions that may still be stored in Redis.
+ */
+public class GameSessionCodec extends BaseCodec {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = ('G' << 8) | 'S';
+    private static final int CARD_NULL = 0;
+    private static final int CARD_CATALOG = 1;
+    private static final int CARD_INLINE = 2;
+    private static final int CASTER_NONE = 0;
+    private static final int CASTER_PLAYER1 = 1;
+    private static final int CASTER_PLAYER2 = 2;
+
+    private final CardRepository cardRepository;
+
+    private final Encoder encoder = new Encoder() {
+        @Override
+        public ByteBuf encode(Object in) throws IOException {
+            ByteBuf out = ByteBufAllocator.DEFAULT.buffer();
+            try (ByteBufOutputStream os = new ByteBufOutputStream(out)) {
+                writeSession(os, (GameSession) in);
+                return os.buffer();
+            } catch (IOException | RuntimeException e) {
+                out.release();
+                throw e;
+            }
+        }
+    };
+
+    private final Decoder<Object> decoder = new Decoder<Object>() {
+        @Override
+        public Object decode(ByteBuf buf, State state) throws IOException {
+            try (ByteBufInputStream is = new ByteBufInputStream(buf)) {
+                return readSession(is);
+            }
+        }
+    };
+
+    public GameSessionCodec(CardRepository cardRepository) {
+        this.cardRepository = cardRepository;
+    }
+
+    /**
+     * Encodes a session outside of Redis, e.g. for the match journal.
+     */
+    public byte[] toBytes(GameSession session) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeSession(out, session);
+        }
+        return bytes.toByteArray();
+    }
+
+    public GameSession fromBytes(byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return readSession(in);
+        }
+    }
+
+    @Override
+    public Decoder<Object> getValueDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public Encoder getValueEncoder() {
+        return encoder;
+    }
+
+    @Override
+    public Decoder<Object> getMapKeyDecoder() {
+        return StringCodec.INSTANCE.getMapKeyDecoder();
+    }
+
+    @Override
+    public Encoder getMapKeyEncoder() {
+        return StringCodec.INSTANCE.getMapKeyEncoder();
+    }
+
+    private void writeSession(DataOutput out, GameSession session) throws IOException {
+        out.writeShort(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+
+        PlayerStateManager state = session.getPlayerStateManager();
+        Player player1 = state.getPlayer1();
+        Player player2 = state.getPlayer2();
+
+        out.writeUTF(session.getMatchId());
+        out.writeBoolean(session.isGameEnded());
+        writePlayer(out, player1);
+        writePlayer(out, player2);
+        writePlayerState(out, state, player1.getId());
+        writePlayerState(out, state, player2.getId());
+
+        TurnManager turnManager = session.getTurnManager();
+        out.writeInt(turnManager.getTurn());
+        out.writeUTF(turnManager.getCurrentPlayerId());
+        out.writeLong(turnManager.getTurnEndTime());
+        writeCards(out, turnManager.getPlayedCardsThisTurn());
+
+        ScenarioManager scenarioManager = session.getScenarioManager();
+        writeCard(out, scenarioManager.getActiveScenario());
+        out.writeInt(scenarioManager.getScenarioDuration());
+
+        out.writeBoolean(session.isResponseWindowActive());
+        out.writeLong(session.getResponseWindowEndTime());
+        writeCard(out, session.getCardToCounter());
+        Player caster = session.getOriginalCaster();
+        if (caster == null) {
+            out.writeByte(CASTER_NONE);
+        } else {
+            out.writeByte(caster.getId().equals(player1.getId()) ? CASTER_PLAYER1 : CASTER_PLAYER2);
+        }
+    }
+
+    private GameSession readSession(DataInput in) throws IOException {
+        int magic = in.readUnsignedShort();
+        if (magic != MAGIC) {
+            throw new IOException("Not a GameSession snapshot");
+        }
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported GameSession snapshot version: " + version);
+        }
+
+        String matchId = in.readUTF();
+        boolean gameEnded = in.readBoolean();
+        Player player1 = readPlayer(in);
+        Player player2 = readPlayer(in);
+
+        List<Card> deckP1 = readCards(in);
+        List<Card> handP1 = readCards(in);
+        int resourceP1 = in.readInt();
+        int bonusP1 = in.readInt();
+        List<Card> deckP2 = readCards(in);
+        List<Card> handP2 = readCards(in);
+        int resourceP2 = in.readInt();
+        int bonusP2 = in.readInt();
+        PlayerStateManager state = new PlayerStateManager(player1, player2, deckP1, deckP2, handP1, handP2,
+                resourceP1, resourceP2, bonusP1, bonusP2);
+
+        int turn = in.readInt();
+        String currentPlayerId = in.readUTF();
+        long turnEndTime = in.readLong();
+        List<Card> playedCards = readCards(in);
+        TurnManager turnManager = new TurnManager(turn, currentPlayerId, turnEndTime, playedCards);
+
+        ScenarioManager scenarioManager = new ScenarioManager();
+        Card activeScenario = readCard(in);
+        int scenarioDuration = in.readInt();
+        if (activeScenario != null) {
+            scenarioManager.setActiveScenario(activeScenario, scenarioDuration);
+        }
+
+        boolean responseWindowActive = in.readBoolean();
+        long responseWindowEndTime = in.readLong();
+        Card cardToCounter = readCard(in);
+        int caster = in.readUnsignedByte();
+        Player originalCaster = caster == CASTER_PLAYER1 ? player1 : caster == CASTER_PLAYER2 ? player2 : null;
+
+        return new GameSession(matchId, gameEnded, state, turnManager, scenarioManager,
+                responseWindowActive, responseWindowEndTime, cardToCounter, originalCaster);
+    }
+
+    private void writePlayer(DataOutput out, Player player) throws IOException {
+        out.writeUTF(player.getId());
+        out.writeUTF(player.getNickname());
+        writeNullableString(out, player.getPlayerRace());
+        writeNullableString(out, player.getPlayerClass());
+        out.writeInt(player.getHealthPoints());
+        out.writeInt(player.getBaseAttack());
+        out.writeInt(player.getBaseDefense());
+        out.writeInt(player.getBaseMana());
+    }
+
+    private Player readPlayer(DataInput in) throws IOException {
+        Player player = new Player();
+        player.setId(in.readUTF());
+        player.setNickname(in.readUTF());
+        player.setPlayerRace(readNullableString(in));
+        player.setPlayerClass(readNullableString(in));
+        player.setHealthPoints(in.readInt());
+        player.setBaseAttack(in.readInt());
+        player.setBaseDefense(in.readInt());
+        player.setBaseMana(in.readInt());
+        return player;
+    }
+
+    private void writePlayerState(DataOutput out, PlayerStateManager state, String playerId) throws IOException {
+        writeCards(out, state.getDeck(playerId));
+        writeCards(out, state.getHand(playerId));
+        out.writeInt(state.getResource(playerId));
+        out.writeInt(state.getNextAttackBonus(playerId));
+    }
+
+    private void writeCards(DataOutput out, List<Card> cards) throws IOException {
+        out.writeShort(cards.size());
+        for (Card card : cards) {
+            writeCard(out, card);
+        }
+    }
+
+    private List<Card> readCards(DataInput in) throws IOException {
+        int size = in.readUnsignedShort();
+        List<Card> cards = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            cards.add(readCard(in));
+        }
+        return cards;
+    }
+
+    private void writeCard(DataOutput out, Card card) throws IOException {
+        if (card == null) {
+            out.writeByte(CARD_NULL);
+        } else if (cardRepository.findById(card.getId()).isPresent()) {
+            out.writeByte(CARD_CATALOG);
+            out.writeUTF(card.getId());
+        } else {
+            out.writeByte(CARD_INLINE);
+            out.writeUTF(card.getId());
+            out.writeUTF(card.getName());
+            out.writeInt(card.getAttack());
+            out.writeInt(card.getDefense());
+            out.writeUTF(card.getRarity());
+            out.writeUTF(card.getCardType().name());
+            out.writeUTF(card.getEffectDescription());
+            out.writeInt(card.getManaCost());
+            Map<String, String> parameters = card.getEffectParameters();
+            if (parameters == null) {
+                out.writeShort(-1);
+            } else {
+                out.writeShort(parameters.size());
+                for (Map.Entry<String, String> entry : parameters.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue());
+                }
+            }
+        }
+    }
+
+    private Card readCard(DataInput in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case CARD_NULL:
+                return null;
+            case CARD_CATALOG: {
+                String id = in.readUTF();
+                return cardRepository.findById(id)
+                        .orElseThrow(() -> new IOException("Card " + id + " is no longer in the catalog"));
+            }
+            case CARD_INLINE: {
+                String id = in.readUTF();
+                String name = in.readUTF();
+                int attack = in.readInt();
+                int defense = in.readInt();
+                String rarity = in.readUTF();
+                Card.CardType cardType = Card.CardType.valueOf(in.readUTF());
+                String effectDescription = in.readUTF();
+                int manaCost = in.readInt();
+                int parameterCount = in.readShort();
+                Map<String, String> parameters = null;
+                if (parameterCount >= 0) {
+                    parameters = new HashMap<>();
+                    for (int i = 0; i < parameterCount; i++) {
+                        parameters.put(in.readUTF(), in.readUTF());
+                    }
+                }
+                return new Card(id, name, attack, defense, rarity, cardType, effectDescription, manaCost, parameters);
+            }
+            default:
+                throw new IOException("Unknown card tag: " + tag);
+        }
+    }
+
+    private void writeNullableString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private String readNullableString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
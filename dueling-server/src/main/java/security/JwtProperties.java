@@ -8,6 +8,7 @@ import org.springframework.stereotype.Component;
 public class JwtProperties {
     private String secret;
     private long expiration;
+    private long verifiedCacheSize = 10_000;
 
     // Getters
     public String getSecret() {
@@ -18,6 +19,10 @@ public class JwtProperties {
         return expiration;
     }
 
+    public long getVerifiedCacheSize() {
+        return verifiedCacheSize;
+    }
+
     // Setters
     public void setSecret(String secret) {
         this.secret = secret;
@@ -26,4 +31,8 @@ public class JwtProperties {
     public void setExpiration(long expiration) {
         this.expiration = expiration;
     }
+
+    public void setVerifiedCacheSize(long verifiedCacheSize) {
+        this.verifiedCacheSize = verifiedCacheSize;
+    }
 }
\ No newline at end of file
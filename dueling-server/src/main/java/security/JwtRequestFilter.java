@@ -1,6 +1,9 @@
 package security;
 
+import common.auth.VerifiedToken;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import model.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,15 +13,20 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import repository.UserRepository;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
 
 /**
- * Filter to validate JWT tokens in HTTP requests
+ * Filter to validate JWT tokens in HTTP requests.
+ * <p>
+ * The token is verified once through {@link JwtUtil#verify} and the user is looked up once
+ * per token, not once per request: both results are cached with the verified token.
  */
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
@@ -26,7 +34,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtRequestFilter.class);
 
     @Autowired
-    private CustomUserDetailsService userDetailsService;
+    private UserRepository userRepository;
 
     @Autowired
     private JwtUtil jwtUtil;
@@ -42,28 +50,29 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwtToken = null;
+        VerifiedToken verifiedToken = null;
 
         // JWT Token is in the form "Bearer token". Remove Bearer word and get only the Token
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+            String jwtToken = requestTokenHeader.substring(7);
             try {
-                username = jwtUtil.getUsernameFromToken(jwtToken);
+                verifiedToken = jwtUtil.verify(jwtToken);
             } catch (IllegalArgumentException e) {
                 logger.warn("Unable to get JWT Token: {}", e.getMessage());
             } catch (ExpiredJwtException e) {
                 logger.warn("JWT Token has expired: {}", e.getMessage());
+            } catch (JwtException e) {
+                logger.warn("Invalid JWT Token: {}", e.getMessage());
             }
         }
 
-        // Once we get the token validate it.
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // Token is valid; authenticate its user if they still exist
+        if (verifiedToken != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-            // if token is valid configure Spring Security to manually set authentication
-            if (jwtUtil.validateToken(jwtToken)) {
+            String playerId = verifiedToken.playerId(this::findPlayerId);
+            if (playerId != null) {
+                UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+                        verifiedToken.subject(), "", List.of());
 
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = 
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
@@ -73,8 +82,14 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                 // After setting the Authentication in the context, we specify
                 // that the current user is authenticated
                 SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+            } else {
+                logger.warn("User '{}' from JWT Token not found", verifiedToken.subject());
             }
         }
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private String findPlayerId(String username) {
+        return userRepository.findByUsername(username).map(User::getPlayerId).orElse(null);
+    }
+}
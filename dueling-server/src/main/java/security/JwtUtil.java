@@ -1,55 +1,61 @@
 package security;
 
+import common.auth.JwtVerifier;
+import common.auth.VerifiedToken;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
 import java.util.Date;
 
 /**
  * Utility class for generating and validating JWT tokens.
+ * <p>
+ * Validation goes through a {@link JwtVerifier}, so the signing key and parser are built
+ * once and a token presented again is not re-parsed until it expires.
  */
 @Component
 public class JwtUtil {
 
     private final JwtProperties jwtProperties;
+    private final JwtVerifier jwtVerifier;
 
     public JwtUtil(JwtProperties jwtProperties) {
         this.jwtProperties = jwtProperties;
-    }
-
-    // Generate a secure key from the secret
-    private Key getSignKey() {
-        return Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes());
+        this.jwtVerifier = new JwtVerifier(jwtProperties.getSecret(), jwtProperties.getVerifiedCacheSize());
     }
 
     /**
-     * Generate a JWT token for a given username
+     * Generate a JWT token for a given username, carrying the user's player id so the
+     * gateway can route the player without a lookup
      */
-    public String generateToken(String username) {
+    public String generateToken(String username, String playerId) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtProperties.getExpiration());
 
         return Jwts.builder()
                 .setSubject(username)
+                .claim(VerifiedToken.PLAYER_ID_CLAIM, playerId)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .signWith(jwtVerifier.signingKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Verify a JWT token and return its claims
+     *
+     * @throws JwtException if the token is malformed, badly signed or expired
+     * @throws IllegalArgumentException if the token is null or empty
+     */
+    public VerifiedToken verify(String token) {
+        return jwtVerifier.verify(token);
+    }
+
     /**
      * Extract username from JWT token
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject();
+        return verify(token).subject();
     }
 
     /**
@@ -57,14 +63,11 @@ public class JwtUtil {
      */
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token);
+            verify(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             // Log the exception if needed
             return false;
         }
     }
-}
\ No newline at end of file
+}
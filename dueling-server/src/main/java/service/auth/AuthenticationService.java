@@ -1,6 +1,7 @@
 package service.auth;
 
 
+import io.jsonwebtoken.JwtException;
 import model.Player;
 import model.User;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -98,7 +99,8 @@ public class AuthenticationService {
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
             // Generate JWT token
-            return jwtUtil.generateToken(username);
+            String playerId = userRepository.findByUsername(username).map(User::getPlayerId).orElse(null);
+            return jwtUtil.generateToken(username, playerId);
         } catch (Exception e) {
             // Authentication failed
             return null;
@@ -112,10 +114,11 @@ public class AuthenticationService {
      * @return The username associated with the token if valid, otherwise {@code null}.
      */
     public String validateTokenAndGetUsername(String token) {
-        if (jwtUtil.validateToken(token)) {
-            return jwtUtil.getUsernameFromToken(token);
+        try {
+            return jwtUtil.verify(token).subject();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
         }
-        return null;
     }
 
     /**
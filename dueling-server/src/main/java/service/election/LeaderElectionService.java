@@ -1,13 +1,12 @@
 package service.election;
 
+import api.registry.ServerIdentity;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
-import service.lock.LockService;
 
 import jakarta.annotation.PostConstruct;
 
@@ -21,17 +20,12 @@ public class LeaderElectionService {
 
     private final RedissonClient redissonClient;
     private final String selfUrl;
-    private final LockService lockService;
     private RLock leaderLock;
 
-    public LeaderElectionService(RedissonClient redissonClient,
-                                 @Value("${server.name}") String serverName,
-                                 @Value("${server.port}") String serverPort,
-                                 LockService lockService) {
+    public LeaderElectionService(RedissonClient redissonClient, ServerIdentity serverIdentity) {
         this.redissonClient = redissonClient;
-        this.selfUrl = "http://" + serverName + ":" + serverPort;
+        this.selfUrl = serverIdentity.getSelfUrl();
         this.leaderLock = redissonClient.getLock(LEADER_ELECTION_KEY);
-        this.lockService = lockService;
     }
 
     @PostConstruct
@@ -51,9 +45,6 @@ public class LeaderElectionService {
                         logger.info("This server ({}) has been elected as the new leader.", selfUrl);
                         redissonClient.getBucket(LEADER_URL_KEY).set(selfUrl);
 
-                        // Clean up potentially orphaned locks from a previous leader
-                        lockService.cleanOrphanedPurchaseLock();
-
                         // Keep the lock as long as we're running
                         try {
                             Thread.sleep(Long.MAX_VALUE); // Keep the lock indefinitely (until interrupted)
@@ -1,34 +1,28 @@
 package service.ingamechat;
 
-import model.GameSession;
 import org.springframework.stereotype.Service;
 import pubsub.IEventManager;
-import repository.GameSessionRepository;
+import repository.PlayerMatchIndex;
 
 import java.util.Optional;
 
 @Service
 public class InGameChatService {
 
-    private final GameSessionRepository gameSessionRepository;
+    private final PlayerMatchIndex playerMatchIndex;
     private final IEventManager eventManager;
 
-    public InGameChatService(GameSessionRepository gameSessionRepository, IEventManager eventManager) {
-        this.gameSessionRepository = gameSessionRepository;
+    public InGameChatService(PlayerMatchIndex playerMatchIndex, IEventManager eventManager) {
+        this.playerMatchIndex = playerMatchIndex;
         this.eventManager = eventManager;
     }
 
     public void handleInGameChatMessage(String senderId, String matchId, String message) {
-        Optional<GameSession> sessionOpt = gameSessionRepository.findById(matchId);
-        if (sessionOpt.isPresent()) {
-            GameSession session = sessionOpt.get();
-            if (session.getPlayer1().getId().equals(senderId) || session.getPlayer2().getId().equals(senderId)) {
-                eventManager.sendInGameMessage(matchId, senderId, message);
-            } else {
-                eventManager.publish(senderId, "ERROR:You are not in this match.");
-            }
+        Optional<String> senderMatchId = playerMatchIndex.findMatchId(senderId);
+        if (senderMatchId.isPresent() && senderMatchId.get().equals(matchId)) {
+            eventManager.sendInGameMessage(matchId, senderId, message);
         } else {
-            eventManager.publish(senderId, "ERROR:Match not found.");
+            eventManager.publish(senderId, "ERROR:You are not in this match.");
         }
     }
 }
@@ -0,0 +1,31 @@
+package service.journal;
+
+/**
+ * One entry of the match journal.
+ *
+ * @param timestamp when the entry was appended, in epoch milliseconds
+ * @param type      what happened to the match
+ * @param matchId   the match the entry belongs to
+ * @param payload   type-specific data, see {@link Type}
+ */
+public record JournalRecord(long timestamp, Type type, String matchId, byte[] payload) {
+
+    public enum Type {
+        /** The match started; the payload is the encoded session right after its first draw. */
+        START,
+        /** A player played a card; the payload holds the player and card IDs. */
+        PLAY_CARD,
+        /** A deadline fired; the payload flags whether the turn, the response window or both ran out. */
+        DEADLINE,
+        /** A periodic snapshot; the payload is the encoded session. Replay starts from the latest one. */
+        SNAPSHOT,
+        /** The match is over; the payload holds the winner and loser IDs, empty if it was abandoned. */
+        END;
+
+        private static final Type[] VALUES = values();
+
+        static Type of(int ordinal) {
+            return VALUES[ordinal];
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package service.journal;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * A fixed-size, memory-mapped journal file that records are appended to until it is full.
+ * <p>
+ * Record layout: body length (int), CRC32C of the body (int), then the body: timestamp (long),
+ * type (byte), match ID length (short) and UTF-8 bytes, payload length (int) and bytes. The
+ * mapped file is zero-filled, so a zero length marks the end of the written records; a record
+ * torn by a crash fails its checksum and ends the segment as well.
+ */
+final class JournalSegment implements AutoCloseable {
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private JournalSegment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment create(Path path, int sizeBytes) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new JournalSegment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, sizeBytes));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * @return false if the record does not fit in the rest of the segment
+     */
+    boolean tryAppend(JournalRecord record) {
+        byte[] matchId = record.matchId().getBytes(StandardCharsets.UTF_8);
+        int bodyLength = Long.BYTES + 1 + Short.BYTES + matchId.length + Integer.BYTES + record.payload().length;
+        if (buffer.remaining() < HEADER_BYTES + bodyLength) {
+            return false;
+        }
+        ByteBuffer body = ByteBuffer.allocate(bodyLength)
+                .putLong(record.timestamp())
+                .put((byte) record.type().ordinal())
+                .putShort((short) matchId.length)
+                .put(matchId)
+                .putInt(record.payload().length)
+                .put(record.payload())
+                .flip();
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+
+        // The length goes in last, so a reader never sees a length without the body behind it
+        int start = buffer.position();
+        buffer.position(start + Integer.BYTES);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(body);
+        buffer.putInt(start, bodyLength);
+        return true;
+    }
+
+    /**
+     * Writes the appended records through to the file, so they also survive an operating system crash.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Reads the complete records of a segment file in the order they were appended.
+     */
+    static void read(Path path, Consumer<JournalRecord> consumer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        CRC32C crc = new CRC32C();
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int bodyLength = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (bodyLength <= 0 || bodyLength > buffer.remaining()) {
+                return;
+            }
+            ByteBuffer body = buffer.slice(buffer.position(), bodyLength);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return;
+            }
+            buffer.position(buffer.position() + bodyLength);
+            try {
+                long timestamp = body.getLong();
+                JournalRecord.Type type = JournalRecord.Type.of(body.get());
+                byte[] matchId = new byte[body.getShort()];
+                body.get(matchId);
+                byte[] payload = new byte[body.getInt()];
+                body.get(payload);
+                consumer.accept(new JournalRecord(timestamp, type, new String(matchId, StandardCharsets.UTF_8), payload));
+            } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+                return;
+            }
+        }
+    }
+}
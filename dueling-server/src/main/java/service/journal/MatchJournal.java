@@ -0,0 +1,393 @@
+package service.journal;
+
+import api.registry.ServerIdentity;
+import controller.GameFacade;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import model.GameSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import repository.CardRepository;
+import repository.codec.GameSessionCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of the matches hosted on this server, kept in memory-mapped segment files.
+ * <p>
+ * Every input that changes a match is appended: its start, each card played and each deadline
+ * that fired, followed by its end. Draws, counters and scenario ticks follow from those inputs
+ * and are not journaled separately. Every {@code match-journal.snapshot-every} inputs the
+ * session is appended in the compact {@link GameSessionCodec} form, so rebuilding a match
+ * replays at most that many inputs on top of its latest snapshot.
+ * <p>
+ * Each server writes to its own directory under {@code match-journal.dir}. With that directory
+ * on a volume shared by the servers, a server adopting a match whose owner died rebuilds it
+ * from the owner's journal with {@link #recover}; otherwise the journal still restores the
+ * server's own matches after a restart. Only the newest {@code match-journal.max-segments}
+ * segments are kept; {@link #replay} reads them for debugging and analytics.
+ */
+@Profile("server")
+@Service
+public class MatchJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchJournal.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int TURN_EXPIRED = 1;
+    private static final int WINDOW_DUE = 2;
+
+    private final GameSessionCodec codec;
+    private final CardRepository cardRepository;
+    private final Path baseDir;
+    private final Path nodeDir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final int snapshotEvery;
+    private final Map<String, Integer> inputsSinceSnapshot = new ConcurrentHashMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Timer appendTimer;
+    private final Counter appendFailures;
+
+    private JournalSegment current;
+    private long nextSegmentIndex;
+
+    public MatchJournal(CardRepository cardRepository, MeterRegistry meterRegistry,
+                        @Value("${match-journal.dir:match-journal}") String baseDir,
+                        @Value("${match-journal.segment-bytes:8388608}") int segmentBytes,
+                        @Value("${match-journal.max-segments:16}") int maxSegments,
+                        @Value("${match-journal.snapshot-every:16}") int snapshotEvery,
+                        ServerIdentity serverIdentity) {
+        this.cardRepository = cardRepository;
+        this.codec = new GameSessionCodec(cardRepository);
+        this.baseDir = Paths.get(baseDir);
+        this.nodeDir = directoryOf(serverIdentity.getSelfUrl());
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.snapshotEvery = snapshotEvery;
+        this.appendTimer = Timer.builder("dueling.match.journal.append")
+                .description("Time to append one record to the match journal")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.appendFailures = Counter.builder("dueling.match.journal.failures")
+                .description("Match journal records that could not be written")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(nodeDir);
+        List<Path> existing = segmentsOf(nodeDir);
+        nextSegmentIndex = existing.isEmpty() ? 0 : indexOf(existing.get(existing.size() - 1)) + 1;
+        // Earlier segments are left as they are for recovery; appending always starts a fresh one
+        roll();
+        logger.info("Match journal open in {}", nodeDir);
+    }
+
+    @PreDestroy
+    public void close() {
+        appendLock.lock();
+        try {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        } catch (IOException e) {
+            logger.warn("Could not close journal segment: {}", e.getMessage());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the mapped pages to disk. A crash of the process alone never loses appended
+     * records; this bounds what an operating system crash can lose.
+     */
+    @Scheduled(fixedDelayString = "${match-journal.force-interval-ms:1000}")
+    public void force() {
+        appendLock.lock();
+        try {
+            if (current != null) {
+                current.force();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public void recordStart(GameSession session) {
+        inputsSinceSnapshot.put(session.getMatchId(), 0);
+        appendSession(JournalRecord.Type.START, session);
+    }
+
+    /**
+     * Records a card played, before the session applies it. Call {@link #inputApplied} afterwards.
+     */
+    public void recordPlayCard(String matchId, String playerId, String cardId) {
+        append(JournalRecord.Type.PLAY_CARD, matchId, strings(playerId, cardId));
+    }
+
+    /**
+     * Records a deadline, before the session applies it. Call {@link #inputApplied} afterwards.
+     *
+     * @param turnExpired true if the turn has run out
+     * @param windowDue   true if the response window has run out
+     */
+    public void recordDeadline(String matchId, boolean turnExpired, boolean windowDue) {
+        int flags = (turnExpired ? TURN_EXPIRED : 0) | (windowDue ? WINDOW_DUE : 0);
+        append(JournalRecord.Type.DEADLINE, matchId, new byte[]{(byte) flags});
+    }
+
+    /**
+     * Counts an input the session has applied, and snapshots the session once enough have accumulated.
+     */
+    public void inputApplied(GameSession session) {
+        if (session.isGameEnded()) {
+            inputsSinceSnapshot.remove(session.getMatchId());
+            return;
+        }
+        if (inputsSinceSnapshot.merge(session.getMatchId(), 1, Integer::sum) >= snapshotEvery) {
+            recordSnapshot(session);
+        }
+    }
+
+    /**
+     * Records the session in full, e.g. after this server adopted it.
+     */
+    public void recordSnapshot(GameSession session) {
+        inputsSinceSnapshot.put(session.getMatchId(), 0);
+        appendSession(JournalRecord.Type.SNAPSHOT, session);
+    }
+
+    /**
+     * Records the end of a match.
+     *
+     * @param winnerId the winner, or null if the match was abandoned
+     */
+    public void recordEnd(String matchId, String winnerId, String loserId) {
+        inputsSinceSnapshot.remove(matchId);
+        append(JournalRecord.Type.END, matchId, winnerId == null ? new byte[0] : strings(winnerId, loserId));
+    }
+
+    /**
+     * Rebuilds a match from the journal of the server that hosted it: its latest snapshot, with
+     * the inputs journaled after it replayed on top. Replaying sends the resulting updates to
+     * the players again.
+     *
+     * @param nodeUrl the server that hosted the match
+     * @param facade  attached to the rebuilt session before replaying
+     * @return the session, or empty if the journal does not have the match or the match is over
+     */
+    public Optional<GameSession> recover(String nodeUrl, String matchId, GameFacade facade) {
+        return Optional.ofNullable(recoverAll(nodeUrl, List.of(matchId), facade).get(matchId));
+    }
+
+    /**
+     * Rebuilds several matches hosted by the same server, as {@link #recover} does, reading its
+     * journal once for all of them.
+     *
+     * @return the sessions that could be rebuilt, by match ID
+     */
+    public Map<String, GameSession> recoverAll(String nodeUrl, Collection<String> matchIds, GameFacade facade) {
+        Set<String> wanted = Set.copyOf(matchIds);
+        Map<String, List<JournalRecord>> histories = new HashMap<>();
+        try {
+            readAll(directoryOf(nodeUrl), record -> {
+                if (!wanted.contains(record.matchId())) {
+                    return;
+                }
+                List<JournalRecord> history = histories.computeIfAbsent(record.matchId(), id -> new ArrayList<>());
+                if (record.type() == JournalRecord.Type.START || record.type() == JournalRecord.Type.SNAPSHOT) {
+                    history.clear();
+                }
+                history.add(record);
+            });
+        } catch (IOException e) {
+            logger.warn("Could not read the journal of {}: {}", nodeUrl, e.getMessage());
+            return Map.of();
+        }
+        Map<String, GameSession> recovered = new HashMap<>();
+        histories.forEach((matchId, history) -> rebuild(nodeUrl, matchId, history, facade)
+                .ifPresent(session -> recovered.put(matchId, session)));
+        return recovered;
+    }
+
+    private Optional<GameSession> rebuild(String nodeUrl, String matchId, List<JournalRecord> history,
+                                          GameFacade facade) {
+        if (history.isEmpty() || history.stream().anyMatch(record -> record.type() == JournalRecord.Type.END)) {
+            return Optional.empty();
+        }
+        JournalRecord.Type first = history.get(0).type();
+        if (first != JournalRecord.Type.START && first != JournalRecord.Type.SNAPSHOT) {
+            // Its latest snapshot was in a segment that has since been deleted
+            return Optional.empty();
+        }
+
+        try {
+            GameSession session = codec.fromBytes(history.get(0).payload());
+            session.attach(facade, cardRepository);
+            for (JournalRecord input : history.subList(1, history.size())) {
+                apply(session, input);
+            }
+            logger.info("Rebuilt match {} from the journal of {} ({} inputs replayed)",
+                    matchId, nodeUrl, history.size() - 1);
+            return session.isGameEnded() ? Optional.empty() : Optional.of(session);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not rebuild match {} from the journal of {}: {}", matchId, nodeUrl, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Reads every retained record of a server's journal, oldest first.
+     */
+    public void replay(String nodeUrl, Consumer<JournalRecord> consumer) throws IOException {
+        readAll(directoryOf(nodeUrl), consumer);
+    }
+
+    private void apply(GameSession session, JournalRecord input) throws IOException {
+        switch (input.type()) {
+            case PLAY_CARD -> {
+                String[] ids = readStrings(input.payload(), 2);
+                session.playCard(ids[0], ids[1]);
+            }
+            case DEADLINE -> {
+                int flags = input.payload()[0];
+                if ((flags & TURN_EXPIRED) != 0) {
+                    session.expireTurn();
+                }
+                if ((flags & WINDOW_DUE) != 0) {
+                    session.closeResponseWindow();
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void appendSession(JournalRecord.Type type, GameSession session) {
+        try {
+            append(type, session.getMatchId(), codec.toBytes(session));
+        } catch (IOException e) {
+            appendFailures.increment();
+            logger.warn("Could not encode match {} for the journal: {}", session.getMatchId(), e.getMessage());
+        }
+    }
+
+    private void append(JournalRecord.Type type, String matchId, byte[] payload) {
+        JournalRecord record = new JournalRecord(System.currentTimeMillis(), type, matchId, payload);
+        long start = System.nanoTime();
+        appendLock.lock();
+        try {
+            if (current == null) {
+                return;
+            }
+            if (!current.tryAppend(record)) {
+                roll();
+                if (!current.tryAppend(record)) {
+                    appendFailures.increment();
+                    logger.error("{} record of match {} does not fit in a journal segment", type, matchId);
+                }
+            }
+        } catch (IOException e) {
+            appendFailures.increment();
+            logger.error("Could not append {} record of match {}: {}", type, matchId, e.getMessage(), e);
+        } finally {
+            appendLock.unlock();
+            appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void roll() throws IOException {
+        if (current != null) {
+            current.close();
+        }
+        current = JournalSegment.create(nodeDir.resolve(segmentName(nextSegmentIndex++)), segmentBytes);
+        List<Path> segments = segmentsOf(nodeDir);
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private Path directoryOf(String nodeUrl) {
+        return baseDir.resolve(nodeUrl.replaceAll("[^A-Za-z0-9.-]", "_"));
+    }
+
+    private static void readAll(Path dir, Consumer<JournalRecord> consumer) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        for (Path segment : segmentsOf(dir)) {
+            JournalSegment.read(segment, consumer);
+        }
+    }
+
+    private static List<Path> segmentsOf(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static String segmentName(long index) {
+        // Zero-padded so name order is append order
+        return String.format("%s%016d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    private static long indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] strings(String... values) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (String value : values) {
+                out.writeUTF(value);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String[] readStrings(byte[] payload, int count) throws IOException {
+        String[] values = new String[count];
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            for (int i = 0; i < count; i++) {
+                values[i] = in.readUTF();
+            }
+        }
+        return values;
+    }
+}
@@ -1,56 +1,171 @@
 package service.lock;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Distributed locks keyed by the resource they protect, so operations on unrelated
+ * players or trades run in parallel across the cluster.
+ * <p>
+ * Locks spanning several resources are taken as a single Redisson multi-lock over the
+ * keys in sorted order, so two servers locking the same set never wait on each other
+ * in opposite orders. Wait and hold times and failed acquisitions are published as
+ * {@code dueling.lock.wait}, {@code dueling.lock.held} and {@code dueling.lock.failures},
+ * tagged by resource type. The meters are registered up front, so taking a lock does not
+ * look them up or allocate tags.
+ */
 @Service
 public class LockService {
 
     private static final Logger logger = LoggerFactory.getLogger(LockService.class);
-    private static final String PURCHASE_LOCK = "purchaseLock";
+    private static final String PLAYER_LOCK_PREFIX = "lock:player:";
+    private static final String TRADE_LOCK_PREFIX = "lock:trade:";
+    private static final String JOB_LOCK_PREFIX = "lock:job:";
+    private static final long WAIT_SECONDS = 5;
+    // Released automatically if the holder dies before unlocking
+    private static final long LEASE_SECONDS = 30;
+    // Lets Redisson's watchdog extend the lease for as long as the holder is alive
+    private static final long WATCHDOG_LEASE = -1;
+
     private final RedissonClient redissonClient;
+    private final LockMeters playerMeters;
+    private final LockMeters tradeMeters;
+    private final LockMeters jobMeters;
 
-    public LockService(RedissonClient redissonClient) {
+    public LockService(RedissonClient redissonClient, MeterRegistry meterRegistry) {
         this.redissonClient = redissonClient;
+        this.playerMeters = LockMeters.register(meterRegistry, "player");
+        this.tradeMeters = LockMeters.register(meterRegistry, "trade");
+        this.jobMeters = LockMeters.register(meterRegistry, "job");
+    }
+
+    /**
+     * Locks a single player, e.g. while spending their coins.
+     *
+     * @return the held lock, or empty if it could not be acquired in time
+     */
+    public Optional<HeldLock> tryLockPlayer(String playerId) {
+        return tryLock(playerMeters, WAIT_SECONDS, LEASE_SECONDS, PLAYER_LOCK_PREFIX + playerId);
+    }
+
+    /**
+     * Claims a cluster-wide job so only one server runs it. Does not wait; the lease is
+     * renewed while this server is alive, however long the job takes.
+     *
+     * @return the held lock, or empty if another server is running the job
+     */
+    public Optional<HeldLock> tryLockJob(String jobName) {
+        return tryLock(jobMeters, 0, WATCHDOG_LEASE, JOB_LOCK_PREFIX + jobName);
     }
 
-    public boolean acquire() {
-        RLock lock = redissonClient.getLock(PURCHASE_LOCK);
+    /**
+     * Locks a trade together with both players taking part in it.
+     *
+     * @return the held lock, or empty if any of the three could not be acquired in time
+     */
+    public Optional<HeldLock> tryLockTrade(String tradeId, String proposingPlayerId, String targetPlayerId) {
+        return tryLock(tradeMeters, WAIT_SECONDS, LEASE_SECONDS, TRADE_LOCK_PREFIX + tradeId,
+                PLAYER_LOCK_PREFIX + proposingPlayerId, PLAYER_LOCK_PREFIX + targetPlayerId);
+    }
+
+    private Optional<HeldLock> tryLock(LockMeters meters, long waitSeconds, long leaseSeconds, String... keys) {
+        TreeSet<String> sortedKeys = new TreeSet<>(Arrays.asList(keys));
+        RLock lock;
+        if (sortedKeys.size() == 1) {
+            lock = redissonClient.getLock(sortedKeys.first());
+        } else {
+            lock = redissonClient.getMultiLock(sortedKeys.stream().map(redissonClient::getLock).toArray(RLock[]::new));
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
         try {
-            // Tenta adquirir o lock, esperando no máximo 10 segundos.
-            // O lock será liberado automaticamente após 60 segundos se algo der errado.
-            return lock.tryLock(10, 60, TimeUnit.SECONDS);
+            acquired = lock.tryLock(waitSeconds, leaseSeconds, TimeUnit.SECONDS);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            return false;
+            acquired = false;
         }
-    }
+        (acquired ? meters.acquiredWait : meters.failedWait).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
-    public void release() {
-        RLock lock = redissonClient.getLock(PURCHASE_LOCK);
-        if (lock.isHeldByCurrentThread()) {
-            lock.unlock();
+        if (!acquired) {
+            meters.failures.increment();
+            logger.warn("Could not acquire {} lock on {} within {} s", meters.resourceType, sortedKeys, waitSeconds);
+            return Optional.empty();
         }
+        return Optional.of(new HeldLock(lock, meters));
     }
 
     /**
-     * Forcibly unlocks the distributed purchase lock. This method should only be called
-     * by a newly elected leader to clean up a potentially orphaned lock left by a
-     * previous leader that failed. Forcing an unlock is an aggressive action and should
-     * be used with caution, as the lock could theoretically be held by a slow but
-     * still-alive process. The primary safety mechanism remains the lock's lease time.
+     * A lock acquired through {@link LockService}. Release it in a {@code finally} block
+     * or with try-with-resources.
      */
-    public void cleanOrphanedPurchaseLock() {
-        RLock lock = redissonClient.getLock(PURCHASE_LOCK);
-        if (lock.isLocked()) {
-            logger.warn("Purchase lock is currently locked. Forcing unlock as the new leader. " +
-                        "This assumes the previous holder has failed.");
-            lock.forceUnlock();
+    public final class HeldLock implements AutoCloseable {
+
+        private final RLock lock;
+        private final LockMeters meters;
+        private final long acquiredAt = System.nanoTime();
+        private boolean released;
+
+        private HeldLock(RLock lock, LockMeters meters) {
+            this.lock = lock;
+            this.meters = meters;
+        }
+
+        public void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            meters.held.record(System.nanoTime() - acquiredAt, TimeUnit.NANOSECONDS);
+            try {
+                lock.unlock();
+            } catch (IllegalMonitorStateException e) {
+                // The lease expired while the lock was held; another holder may already own it
+                logger.warn("{} lock lease expired before release", meters.resourceType);
+            }
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+
+    private record LockMeters(String resourceType, Timer acquiredWait, Timer failedWait, Timer held, Counter failures) {
+
+        static LockMeters register(MeterRegistry meterRegistry, String resourceType) {
+            return new LockMeters(resourceType,
+                    waitTimer(meterRegistry, resourceType, true),
+                    waitTimer(meterRegistry, resourceType, false),
+                    Timer.builder("dueling.lock.held")
+                            .description("Time a distributed lock was held")
+                            .tag("resource", resourceType)
+                            .publishPercentiles(0.5, 0.99)
+                            .register(meterRegistry),
+                    Counter.builder("dueling.lock.failures")
+                            .description("Distributed lock acquisitions that timed out")
+                            .tag("resource", resourceType)
+                            .register(meterRegistry));
+        }
+
+        private static Timer waitTimer(MeterRegistry meterRegistry, String resourceType, boolean acquired) {
+            return Timer.builder("dueling.lock.wait")
+                    .description("Time spent waiting for a distributed lock")
+                    .tag("resource", resourceType)
+                    .tag("acquired", String.valueOf(acquired))
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
         }
     }
-}
\ No newline at end of file
+}
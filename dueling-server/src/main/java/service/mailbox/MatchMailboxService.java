@@ -0,0 +1,124 @@
+package service.mailbox;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the work of each match one task at a time, in the order it was posted.
+ * <p>
+ * Player commands, turn deadlines and disconnects for a match are posted to the match's
+ * mailbox instead of touching its {@link model.GameSession} from the calling thread. While a
+ * mailbox has work, a virtual thread drains it; mailboxes of different matches drain in
+ * parallel. A {@code GameSession} is therefore only ever used by one thread at a time and
+ * needs no locking of its own. Mailboxes are dropped once empty, so idle matches cost nothing.
+ * <p>
+ * Depth at posting and time spent queued are published as {@code dueling.match.mailbox.depth}
+ * and {@code dueling.match.mailbox.wait}; {@code dueling.match.mailbox.active} counts the
+ * mailboxes with pending work.
+ */
+@Service
+public class MatchMailboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchMailboxService.class);
+
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("match-mailbox-", 0).factory());
+    private final DistributionSummary depth;
+    private final Timer waitTime;
+
+    public MatchMailboxService(MeterRegistry meterRegistry) {
+        this.depth = DistributionSummary.builder("dueling.match.mailbox.depth")
+                .description("Tasks queued in a match mailbox, including the one just posted")
+                .register(meterRegistry);
+        this.waitTime = Timer.builder("dueling.match.mailbox.wait")
+                .description("Time a match task waited in its mailbox before running")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("dueling.match.mailbox.active", mailboxes, Map::size)
+                .description("Match mailboxes with pending or running tasks")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues a task for a match. It runs after every task posted earlier for the same match
+     * and never concurrently with them.
+     */
+    public void post(String matchId, Runnable task) {
+        mailboxes.compute(matchId, (id, mailbox) -> {
+            if (mailbox == null) {
+                mailbox = new Mailbox(id);
+            }
+            mailbox.tasks.add(new Task(task, System.nanoTime()));
+            depth.record(mailbox.size.incrementAndGet());
+            if (!mailbox.draining) {
+                mailbox.draining = true;
+                Mailbox toDrain = mailbox;
+                executor.execute(() -> drain(toDrain));
+            }
+            return mailbox;
+        });
+    }
+
+    private void drain(Mailbox mailbox) {
+        while (true) {
+            Task task = mailbox.tasks.poll();
+            if (task == null) {
+                // Posting happens inside compute as well, so nothing slips in between the check and the removal
+                Mailbox remaining = mailboxes.compute(mailbox.matchId, (id, current) -> {
+                    if (!current.tasks.isEmpty()) {
+                        return current;
+                    }
+                    current.draining = false;
+                    return null;
+                });
+                if (remaining == null) {
+                    return;
+                }
+                continue;
+            }
+            mailbox.size.decrementAndGet();
+            waitTime.record(System.nanoTime() - task.postedAt(), TimeUnit.NANOSECONDS);
+            try {
+                task.action().run();
+            } catch (Exception e) {
+                logger.error("Task for match {} failed: {}", mailbox.matchId, e.getMessage(), e);
+            }
+        }
+    }
+
+    private static final class Mailbox {
+        private final String matchId;
+        private final Queue<Task> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        // Only read and written inside compute on the mailbox map
+        private boolean draining;
+
+        private Mailbox(String matchId) {
+            this.matchId = matchId;
+        }
+    }
+
+    private record Task(Runnable action, long postedAt) {
+    }
+}
@@ -0,0 +1,37 @@
+package service.matchmaking;
+
+import model.Player;
+
+/**
+ * A peer server's answer to a {@link PartnerClaim}: the player it removed from its queue
+ * to face the requester.
+ */
+public class ClaimedPartner {
+
+    private String requesterId;
+    private Player partner;
+
+    public ClaimedPartner() {
+    }
+
+    public ClaimedPartner(String requesterId, Player partner) {
+        this.requesterId = requesterId;
+        this.partner = partner;
+    }
+
+    public String getRequesterId() {
+        return requesterId;
+    }
+
+    public void setRequesterId(String requesterId) {
+        this.requesterId = requesterId;
+    }
+
+    public Player getPartner() {
+        return partner;
+    }
+
+    public void setPartner(Player partner) {
+        this.partner = partner;
+    }
+}
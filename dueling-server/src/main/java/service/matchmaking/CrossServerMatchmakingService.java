@@ -0,0 +1,184 @@
+package service.matchmaking;
+
+import api.ServerApiClient;
+import api.registry.ServerIdentity;
+import api.registry.ServerRegistry;
+import jakarta.annotation.PreDestroy;
+import model.Match;
+import model.Player;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pairs players that could not be matched locally with players waiting on peer servers.
+ * <p>
+ * Every round, each server publishes a {@link QueueSummary} of its remaining queue to Redis.
+ * For each pair of servers only the one with the lower URL initiates, so two servers never
+ * claim each other's players at the same time. The initiator takes its longest-waiting
+ * players out of the queue, assigns each to a peer whose summary has players within the
+ * player's rating window, and sends one batched claim per peer. Claims to all peers run
+ * concurrently and are bounded by {@value #CLAIM_TIMEOUT_MS} ms; players left without a
+ * partner go back to the local queue with their waiting time intact.
+ */
+@Profile("server")
+@Service
+public class CrossServerMatchmakingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrossServerMatchmakingService.class);
+    private static final String SUMMARIES_KEY = "matchmaking_queue_summaries";
+    private static final int MAX_CLAIMS_PER_ROUND = 256;
+    private static final long CLAIM_TIMEOUT_MS = 1500;
+    private static final long SUMMARY_MAX_AGE_MS = 6000;
+
+    private final MatchmakingService matchmakingService;
+    private final ServerApiClient serverApiClient;
+    private final ServerRegistry serverRegistry;
+    private final RMap<String, QueueSummary> summaries;
+    private final String selfUrl;
+
+    public CrossServerMatchmakingService(MatchmakingService matchmakingService,
+                                         ServerApiClient serverApiClient,
+                                         ServerRegistry serverRegistry,
+                                         RedissonClient redissonClient,
+                                         ServerIdentity serverIdentity) {
+        this.matchmakingService = matchmakingService;
+        this.serverApiClient = serverApiClient;
+        this.serverRegistry = serverRegistry;
+        this.summaries = redissonClient.getMap(SUMMARIES_KEY);
+        this.selfUrl = serverIdentity.getSelfUrl();
+    }
+
+    @PreDestroy
+    public void stop() {
+        summaries.fastRemove(selfUrl);
+    }
+
+    /**
+     * Publishes this server's queue summary and claims partners from peer servers.
+     * Call after local matching, so only players without a local opponent are offered.
+     *
+     * @return the cross-server matches formed; the caller starts them
+     */
+    public List<Match> exchangePartners() {
+        long now = System.currentTimeMillis();
+        summaries.fastPut(selfUrl, new QueueSummary(selfUrl, now, matchmakingService.summarizeQueue()));
+
+        List<QueueSummary> peers = findPeersToClaimFrom(now);
+        if (peers.isEmpty()) {
+            return List.of();
+        }
+        // Only players a peer has a partner in range for leave the queue, so the rest stay
+        // visible to local matching while the claims are in flight
+        Map<String, List<PartnerClaim>> claimsByPeer = new LinkedHashMap<>();
+        List<PlayerWithDeck> candidates = matchmakingService.lockPartners(MAX_CLAIMS_PER_ROUND, candidate -> {
+            Player player = candidate.getPlayer();
+            int rating = EloMatchmakingIndex.ratingOf(player);
+            int window = EloMatchmakingIndex.windowFor(candidate.getQueuedAt(), now);
+            String peer = reserveBand(peers, rating, window);
+            if (peer == null) {
+                return false;
+            }
+            claimsByPeer.computeIfAbsent(peer, k -> new ArrayList<>())
+                    .add(new PartnerClaim(player.getId(), rating, window));
+            return true;
+        });
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, PlayerWithDeck> candidatesById = new LinkedHashMap<>();
+        for (PlayerWithDeck candidate : candidates) {
+            candidatesById.put(candidate.getPlayer().getId(), candidate);
+        }
+
+        Map<String, CompletableFuture<List<ClaimedPartner>>> calls = new LinkedHashMap<>();
+        claimsByPeer.forEach((peer, claims) -> calls.put(peer, claim(peer, claims)));
+        CompletableFuture.allOf(calls.values().toArray(new CompletableFuture[0])).join();
+
+        List<Match> matches = new ArrayList<>();
+        for (CompletableFuture<List<ClaimedPartner>> call : calls.values()) {
+            for (ClaimedPartner claimed : call.join()) {
+                PlayerWithDeck requester = candidatesById.remove(claimed.getRequesterId());
+                if (requester != null) {
+                    matches.add(new Match(requester.getPlayer(), claimed.getPartner()));
+                }
+            }
+        }
+        // Candidates still in the map did not get a partner this round
+        matchmakingService.requeue(new ArrayList<>(candidatesById.values()));
+
+        logger.info("[MATCH] Cross-server round: {} candidates, {} peers contacted, {} matches",
+                candidates.size(), calls.size(), matches.size());
+        return matches;
+    }
+
+    /**
+     * @return fresh summaries of registered peers with waiting players, for which this server initiates
+     */
+    private List<QueueSummary> findPeersToClaimFrom(long now) {
+        List<String> initiatedPeers = new ArrayList<>();
+        for (String peer : serverRegistry.getRegisteredServers()) {
+            if (selfUrl.compareTo(peer) < 0) {
+                initiatedPeers.add(peer);
+            }
+        }
+        if (initiatedPeers.isEmpty()) {
+            return List.of();
+        }
+        List<QueueSummary> peers = new ArrayList<>();
+        for (QueueSummary summary : summaries.getAll(Set.copyOf(initiatedPeers)).values()) {
+            if (summary != null && now - summary.getPublishedAt() <= SUMMARY_MAX_AGE_MS && !summary.getBands().isEmpty()) {
+                peers.add(summary);
+            }
+        }
+        return peers;
+    }
+
+    /**
+     * Picks a peer with a waiting player in range and counts that player as reserved.
+     *
+     * @return the peer URL, or null if no peer has a player in range
+     */
+    private String reserveBand(List<QueueSummary> peers, int rating, int window) {
+        for (QueueSummary peer : peers) {
+            for (QueueSummary.RatingBand band : peer.getBands()) {
+                if (band.getCount() > 0 && band.overlaps(rating, window)) {
+                    band.setCount(band.getCount() - 1);
+                    return peer.getServerUrl();
+                }
+            }
+        }
+        return null;
+    }
+
+    private CompletableFuture<List<ClaimedPartner>> claim(String peer, List<PartnerClaim> claims) {
+        CompletableFuture<List<ClaimedPartner>> call = serverApiClient.claimPartnersAsync(peer, claims);
+        return call.copy()
+                .orTimeout(CLAIM_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    logger.warn("[MATCH] Partner claim to {} failed: {}", peer, e.toString());
+                    // A late answer still removed players from the peer's queue; hand them back
+                    call.thenAccept(late -> late.forEach(claimed -> returnToPeer(peer, claimed.getPartner())));
+                    return List.of();
+                });
+    }
+
+    private void returnToPeer(String peer, Player player) {
+        serverApiClient.enqueuePlayerAsync(peer, player).exceptionally(e -> {
+            logger.warn("[MATCH] Could not return player {} to {}: {}", player.getId(), peer, e.getMessage());
+            return null;
+        });
+    }
+}
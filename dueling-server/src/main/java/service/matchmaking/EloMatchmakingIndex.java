@@ -0,0 +1,221 @@
+package service.matchmaking;
+
+import model.Player;
+import model.PlayerRanking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Matchmaking queue indexed by Elo rating.
+ * <p>
+ * Waiting players are kept in a set ordered by rating (ties broken by arrival order) and in
+ * an ID map that preserves arrival order. Adding, removing and looking up a player are
+ * O(log n) or better, and the nearest-rated opponent of a player is found with a single
+ * floor/ceiling lookup. A player's acceptable rating difference starts at
+ * {@link #BASE_ELO_WINDOW} and widens by {@link #ELO_WINDOW_GROWTH_PER_SECOND} per second
+ * of waiting, up to {@link #MAX_ELO_WINDOW}.
+ * <p>
+ * This class is not thread-safe; callers must synchronize access.
+ */
+public class EloMatchmakingIndex {
+
+    public static final int DEFAULT_ELO_RATING = 1200;
+    public static final int BASE_ELO_WINDOW = 100;
+    public static final int ELO_WINDOW_GROWTH_PER_SECOND = 25;
+    public static final int MAX_ELO_WINDOW = 600;
+
+    private final TreeSet<Entry> byRating = new TreeSet<>(
+            Comparator.comparingInt(Entry::getRating).thenComparingLong(Entry::getSequence));
+    private final Map<String, Entry> byPlayerId = new LinkedHashMap<>();
+    private long nextSequence;
+
+    /**
+     * Adds a player to the index. A player that was queued before, as recorded by
+     * {@link PlayerWithDeck#getQueuedAt()}, keeps their original waiting time.
+     *
+     * @return false if the player was already waiting
+     */
+    public boolean add(PlayerWithDeck playerWithDeck, long now) {
+        String playerId = playerWithDeck.getPlayer().getId();
+        if (byPlayerId.containsKey(playerId)) {
+            return false;
+        }
+        if (playerWithDeck.getQueuedAt() == 0) {
+            playerWithDeck.setQueuedAt(now);
+        }
+        Entry entry = new Entry(playerWithDeck, ratingOf(playerWithDeck.getPlayer()),
+                playerWithDeck.getQueuedAt(), nextSequence++);
+        byPlayerId.put(playerId, entry);
+        byRating.add(entry);
+        return true;
+    }
+
+    public boolean contains(String playerId) {
+        return byPlayerId.containsKey(playerId);
+    }
+
+    public Optional<PlayerWithDeck> remove(String playerId) {
+        Entry entry = byPlayerId.remove(playerId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        byRating.remove(entry);
+        return Optional.of(entry.playerWithDeck);
+    }
+
+    public int size() {
+        return byPlayerId.size();
+    }
+
+    /**
+     * Pairs waiting players, longest-waiting first, each with the nearest-rated opponent
+     * inside that player's current window. Paired players are removed from the index.
+     *
+     * @param maxPairs the maximum number of pairs to form
+     * @param now      the current time in milliseconds
+     * @return the pairs formed, each as a two-element array
+     */
+    public List<PlayerWithDeck[]> pollPairs(int maxPairs, long now) {
+        List<PlayerWithDeck[]> pairs = new ArrayList<>();
+        Iterator<Entry> waiting = byPlayerId.values().iterator();
+        while (pairs.size() < maxPairs && waiting.hasNext()) {
+            Entry entry = waiting.next();
+            if (entry.matched) {
+                continue;
+            }
+            Entry opponent = findNearest(entry, windowFor(entry.enqueuedAt, now));
+            if (opponent != null) {
+                // Only the rating set changes while walking the ID map; matched IDs are dropped afterwards
+                entry.matched = true;
+                opponent.matched = true;
+                byRating.remove(entry);
+                byRating.remove(opponent);
+                pairs.add(new PlayerWithDeck[]{entry.playerWithDeck, opponent.playerWithDeck});
+            }
+        }
+        for (PlayerWithDeck[] pair : pairs) {
+            byPlayerId.remove(pair[0].getPlayer().getId());
+            byPlayerId.remove(pair[1].getPlayer().getId());
+        }
+        return pairs;
+    }
+
+    /**
+     * Removes and returns up to {@code max} of the longest-waiting players accepted by
+     * {@code wanted}; the others stay in the index. Players are offered oldest first.
+     */
+    public List<PlayerWithDeck> pollOldest(int max, Predicate<PlayerWithDeck> wanted) {
+        List<PlayerWithDeck> polled = new ArrayList<>();
+        Iterator<Entry> waiting = byPlayerId.values().iterator();
+        while (polled.size() < max && waiting.hasNext()) {
+            Entry entry = waiting.next();
+            if (!wanted.test(entry.playerWithDeck)) {
+                continue;
+            }
+            waiting.remove();
+            byRating.remove(entry);
+            polled.add(entry.playerWithDeck);
+        }
+        return polled;
+    }
+
+    /**
+     * Removes and returns the waiting player whose rating is closest to {@code rating},
+     * if that player is within {@code window} of it.
+     */
+    public Optional<PlayerWithDeck> pollNearest(int rating, int window) {
+        Entry probe = new Entry(null, rating, 0, Long.MAX_VALUE);
+        Entry lower = byRating.floor(probe);
+        Entry higher = byRating.higher(probe);
+        Entry best = null;
+        if (lower != null && rating - lower.rating <= window) {
+            best = lower;
+        }
+        if (higher != null && higher.rating - rating <= window
+                && (best == null || higher.rating - rating < rating - best.rating)) {
+            best = higher;
+        }
+        if (best == null) {
+            return Optional.empty();
+        }
+        byRating.remove(best);
+        byPlayerId.remove(best.playerWithDeck.getPlayer().getId());
+        return Optional.of(best.playerWithDeck);
+    }
+
+    /**
+     * Summarizes the waiting players as rating bands of {@code bandWidth}, in ascending order.
+     */
+    public List<QueueSummary.RatingBand> summarize(int bandWidth, long now) {
+        List<QueueSummary.RatingBand> bands = new ArrayList<>();
+        QueueSummary.RatingBand current = null;
+        for (Entry entry : byRating) {
+            int floor = Math.floorDiv(entry.rating, bandWidth) * bandWidth;
+            if (current == null || current.getRatingFloor() != floor) {
+                current = new QueueSummary.RatingBand(floor, bandWidth, 0, 0);
+                bands.add(current);
+            }
+            current.setCount(current.getCount() + 1);
+            current.setLongestWaitMs(Math.max(current.getLongestWaitMs(), now - entry.enqueuedAt));
+        }
+        return bands;
+    }
+
+    /**
+     * @return the rating window a player accepts after waiting since {@code enqueuedAt}
+     */
+    public static int windowFor(long enqueuedAt, long now) {
+        long waitedSeconds = Math.max(0, now - enqueuedAt) / 1000;
+        return (int) Math.min(MAX_ELO_WINDOW, BASE_ELO_WINDOW + waitedSeconds * ELO_WINDOW_GROWTH_PER_SECOND);
+    }
+
+    public static int ratingOf(Player player) {
+        PlayerRanking ranking = player.getPlayerRanking();
+        return ranking != null ? ranking.getEloRating() : DEFAULT_ELO_RATING;
+    }
+
+    private Entry findNearest(Entry entry, int window) {
+        Entry lower = byRating.lower(entry);
+        Entry higher = byRating.higher(entry);
+        Entry best = null;
+        if (lower != null && entry.rating - lower.rating <= window) {
+            best = lower;
+        }
+        if (higher != null && higher.rating - entry.rating <= window
+                && (best == null || higher.rating - entry.rating < entry.rating - best.rating)) {
+            best = higher;
+        }
+        return best;
+    }
+
+    private static final class Entry {
+        private final PlayerWithDeck playerWithDeck;
+        private final int rating;
+        private final long enqueuedAt;
+        private final long sequence;
+        private boolean matched;
+
+        private Entry(PlayerWithDeck playerWithDeck, int rating, long enqueuedAt, long sequence) {
+            this.playerWithDeck = playerWithDeck;
+            this.rating = rating;
+            this.enqueuedAt = enqueuedAt;
+            this.sequence = sequence;
+        }
+
+        private int getRating() {
+            return rating;
+        }
+
+        private long getSequence() {
+            return sequence;
+        }
+    }
+}
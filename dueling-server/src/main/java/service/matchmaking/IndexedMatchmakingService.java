@@ -0,0 +1,213 @@
+package service.matchmaking;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import model.Match;
+import model.Player;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Thread-safe base for matchmaking services backed by an {@link EloMatchmakingIndex}.
+ * Queue operations and opponent lookups are logarithmic in the queue size, and a single
+ * pass can form many matches. Subclasses only decide which server URL new matches carry.
+ * <p>
+ * The queue size is published as {@code dueling.matchmaking.queue.size}, and the time each
+ * player waited between entering the queue and being paired as {@code dueling.matchmaking.wait},
+ * tagged by whether the pair was formed in this queue or by answering a peer server's partner claim.
+ */
+public abstract class IndexedMatchmakingService implements MatchmakingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexedMatchmakingService.class);
+
+    private final EloMatchmakingIndex matchmakingQueue = new EloMatchmakingIndex();
+    private final Object lock = new Object();
+    private final Timer localWait;
+    private final Timer peerWait;
+    private volatile Runnable queueChangeListener = () -> { };
+
+    protected IndexedMatchmakingService(MeterRegistry meterRegistry) {
+        this.localWait = waitTimer(meterRegistry, "local");
+        this.peerWait = waitTimer(meterRegistry, "peer");
+        // Read without the queue lock; a scrape may see a size that is a moment old
+        Gauge.builder("dueling.matchmaking.queue.size", matchmakingQueue, EloMatchmakingIndex::size)
+                .description("Players waiting in this server's matchmaking queue")
+                .register(meterRegistry);
+    }
+
+    private static Timer waitTimer(MeterRegistry meterRegistry, String opponent) {
+        return Timer.builder("dueling.matchmaking.wait")
+                .description("Time a player waited in the matchmaking queue before being paired")
+                .tag("opponent", opponent)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Adds a player to the matchmaking queue if they are not already in it.
+     *
+     * @param player the player to add to the queue
+     */
+    @Override
+    public void addPlayerToQueue(Player player) {
+        addPlayerToQueueWithDeck(player, null);
+    }
+
+    /**
+     * Adds a player to the matchmaking queue with their selected deck.
+     *
+     * @param player the player to add to the queue
+     * @param deckId the ID of the deck the player wants to use
+     */
+    @Override
+    public void addPlayerToQueueWithDeck(Player player, String deckId) {
+        if (player == null) {
+            logger.warn("Attempt to add null player to matchmaking queue");
+            return;
+        }
+
+        boolean added;
+        synchronized (lock) {
+            added = matchmakingQueue.add(new PlayerWithDeck(player, deckId), System.currentTimeMillis());
+        }
+        if (added) {
+            logger.info("{} entered the matchmaking queue with deck {}", player.getNickname(), deckId);
+            queueChangeListener.run();
+        } else {
+            logger.debug("{} is already in the matchmaking queue", player.getNickname());
+        }
+    }
+
+    /**
+     * Pairs waiting players by Elo rating. The acceptable rating difference of each player
+     * widens the longer they wait, see {@link EloMatchmakingIndex}.
+     *
+     * @param maxMatches the maximum number of matches to form
+     * @return the matches formed, possibly empty
+     */
+    @Override
+    public List<Match> findMatches(int maxMatches) {
+        List<PlayerWithDeck[]> pairs;
+        synchronized (lock) {
+            if (matchmakingQueue.size() < 2) {
+                return List.of();
+            }
+            pairs = matchmakingQueue.pollPairs(maxMatches, System.currentTimeMillis());
+        }
+
+        long now = System.currentTimeMillis();
+        List<Match> matches = new ArrayList<>(pairs.size());
+        for (PlayerWithDeck[] pair : pairs) {
+            recordWait(localWait, pair[0], now);
+            recordWait(localWait, pair[1], now);
+            Player player1 = pair[0].getPlayer();
+            Player player2 = pair[1].getPlayer();
+            logger.info("Match found (Elo-based): {} ({}) vs {} ({})",
+                        player1.getNickname(), EloMatchmakingIndex.ratingOf(player1),
+                        player2.getNickname(), EloMatchmakingIndex.ratingOf(player2));
+            Match match = new Match(player1, player2);
+            match.setServerUrl(getMatchServerUrl());
+            matches.add(match);
+        }
+        return matches;
+    }
+
+    @Override
+    public boolean isPlayerInQueue(Player player) {
+        if (player == null) {
+            return false;
+        }
+        synchronized (lock) {
+            return matchmakingQueue.contains(player.getId());
+        }
+    }
+
+    /**
+     * Removes up to {@code max} of the longest-waiting players that {@code wanted} accepts, so
+     * they can be offered to peer servers. Players not matched remotely must be handed back
+     * with {@link #requeue(List)}.
+     */
+    @Override
+    public List<PlayerWithDeck> lockPartners(int max, Predicate<PlayerWithDeck> wanted) {
+        synchronized (lock) {
+            return matchmakingQueue.pollOldest(max, wanted);
+        }
+    }
+
+    /**
+     * Puts players taken with {@link #lockPartners(int, Predicate)} back, keeping their waiting time.
+     */
+    @Override
+    public void requeue(List<PlayerWithDeck> players) {
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            for (PlayerWithDeck player : players) {
+                matchmakingQueue.add(player, now);
+            }
+        }
+    }
+
+    /**
+     * Answers partner claims from a peer server with the closest-rated waiting players.
+     * Claims that cannot be satisfied are left out of the result.
+     */
+    @Override
+    public List<ClaimedPartner> claimPartners(List<PartnerClaim> claims) {
+        List<ClaimedPartner> claimed = new ArrayList<>();
+        List<PlayerWithDeck> partners = new ArrayList<>();
+        synchronized (lock) {
+            for (PartnerClaim claim : claims) {
+                matchmakingQueue.pollNearest(claim.getRating(), claim.getWindow()).ifPresent(partner -> {
+                    partners.add(partner);
+                    claimed.add(new ClaimedPartner(claim.getRequesterId(), partner.getPlayer()));
+                });
+            }
+        }
+        long now = System.currentTimeMillis();
+        for (PlayerWithDeck partner : partners) {
+            recordWait(peerWait, partner, now);
+        }
+        if (!claimed.isEmpty()) {
+            logger.info("[MATCHMAKING] {} of {} partner claims satisfied", claimed.size(), claims.size());
+            queueChangeListener.run();
+        }
+        return claimed;
+    }
+
+    @Override
+    public List<QueueSummary.RatingBand> summarizeQueue() {
+        synchronized (lock) {
+            return matchmakingQueue.summarize(EloMatchmakingIndex.BASE_ELO_WINDOW, System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public int queueSize() {
+        synchronized (lock) {
+            return matchmakingQueue.size();
+        }
+    }
+
+    @Override
+    public void setQueueChangeListener(Runnable listener) {
+        this.queueChangeListener = listener;
+    }
+
+    private static void recordWait(Timer timer, PlayerWithDeck player, long now) {
+        if (player.getQueuedAt() > 0) {
+            timer.record(now - player.getQueuedAt(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return the server URL stored on matches formed from this queue
+     */
+    protected abstract String getMatchServerUrl();
+}
@@ -0,0 +1,141 @@
+package service.matchmaking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import model.Match;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Forms matches on a dedicated thread, so request threads only enqueue players and never
+ * pair them or call peer servers.
+ * <p>
+ * The engine sleeps until the queue reports a change: players entering it, or players
+ * claimed by a peer server. Each pass pairs local players until no more pairs form, then
+ * offers the players still waiting to peer servers through {@link CrossServerMatchmakingService}.
+ * Players left waiting accept wider rating gaps the longer they wait (see
+ * {@link EloMatchmakingIndex#windowFor}), so while the queue is not empty the engine also
+ * wakes on its own: {@value #MIN_BACKOFF_MS} ms after a pass, doubling up to
+ * {@value #MAX_BACKOFF_MS} ms, the interval at which a window widens by one step. With an
+ * empty queue it sleeps until signalled.
+ */
+@Profile("server")
+@Service
+public class MatchmakingEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchmakingEngine.class);
+    private static final int MAX_MATCHES_PER_PASS = 256;
+    private static final long MIN_BACKOFF_MS = 50;
+    private static final long MAX_BACKOFF_MS = 1000;
+
+    private final MatchmakingService matchmakingService;
+    private final CrossServerMatchmakingService crossServerMatchmakingService;
+    private final Counter passes;
+    private final AtomicBoolean signalled = new AtomicBoolean();
+    private final Thread thread = new Thread(this::run, "matchmaking-engine");
+
+    private volatile boolean running = true;
+    private volatile Consumer<Match> matchStarter;
+
+    public MatchmakingEngine(MatchmakingService matchmakingService,
+                             CrossServerMatchmakingService crossServerMatchmakingService,
+                             MeterRegistry meterRegistry) {
+        this.matchmakingService = matchmakingService;
+        this.crossServerMatchmakingService = crossServerMatchmakingService;
+        this.passes = Counter.builder("dueling.matchmaking.passes")
+                .description("Matchmaking passes run by the matchmaking engine")
+                .register(meterRegistry);
+        thread.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        thread.start();
+        matchmakingService.setQueueChangeListener(this::signal);
+        logger.info("Matchmaking engine started");
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Sets the callback that starts each match formed. It runs on the engine thread.
+     */
+    public void setMatchStarter(Consumer<Match> matchStarter) {
+        this.matchStarter = matchStarter;
+        signal();
+    }
+
+    /**
+     * Asks for a matchmaking pass and returns immediately. Signals arriving while a pass
+     * runs are coalesced into one more pass.
+     */
+    public void signal() {
+        if (!signalled.getAndSet(true)) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void run() {
+        long backoffMs = MIN_BACKOFF_MS;
+        while (running) {
+            if (signalled.getAndSet(false)) {
+                backoffMs = MIN_BACKOFF_MS;
+            }
+            Consumer<Match> starter = matchStarter;
+            if (starter != null && runPass(starter) > 0) {
+                backoffMs = MIN_BACKOFF_MS;
+            }
+            if (!running || signalled.get()) {
+                continue;
+            }
+            if (starter == null || matchmakingService.queueSize() == 0) {
+                LockSupport.park(this);
+            } else {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(backoffMs));
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    /**
+     * @return the number of matches formed
+     */
+    private int runPass(Consumer<Match> starter) {
+        passes.increment();
+        int formed = 0;
+        try {
+            List<Match> matches;
+            do {
+                matches = matchmakingService.findMatches(MAX_MATCHES_PER_PASS);
+                matches.forEach(starter);
+                formed += matches.size();
+            } while (matches.size() == MAX_MATCHES_PER_PASS && running);
+            if (formed > 0) {
+                logger.info("[MATCH] {} local match(es) formed", formed);
+            }
+
+            // Players still waiting are offered to peer servers in one batched round
+            List<Match> crossServerMatches = crossServerMatchmakingService.exchangePartners();
+            crossServerMatches.forEach(starter);
+            formed += crossServerMatches.size();
+        } catch (RuntimeException e) {
+            logger.error("Matchmaking pass failed: {}", e.getMessage(), e);
+        }
+        return formed;
+    }
+}
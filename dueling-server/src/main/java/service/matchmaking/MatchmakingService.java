@@ -2,7 +2,9 @@ package service.matchmaking;
 
 import model.Player;
 import model.Match;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 /**
  * Interface for matchmaking services.
@@ -29,15 +31,18 @@ public interface MatchmakingService {
      *
      * @return an Optional containing a Match if two players are available, or empty if not enough players
      */
-    Optional<Match> findMatch();
+    default Optional<Match> findMatch() {
+        return findMatches(1).stream().findFirst();
+    }
 
     /**
-     * Atomically finds and removes a single player from the queue to be matched remotely.
+     * Pairs as many waiting players as possible in a single pass.
      *
-     * @return an Optional containing a Player if one is available, or empty otherwise.
+     * @param maxMatches the maximum number of matches to form
+     * @return the matches formed, possibly empty
      */
-    Optional<Player> findAndLockPartner();
-    
+    List<Match> findMatches(int maxMatches);
+
     /**
      * Checks if a player is already in the matchmaking queue.
      *
@@ -47,10 +52,49 @@ public interface MatchmakingService {
     boolean isPlayerInQueue(Player player);
     
     /**
-     * Returns a player to the queue after a failed match attempt.
-     * Adds a cooldown to prevent immediate re-locking.
+     * Removes up to {@code max} of the longest-waiting players that {@code wanted} accepts, so
+     * they can be offered to peer servers; the others stay in the queue. {@code wanted} is
+     * called oldest player first, while the queue is locked, and must not block.
+     * Players who are not matched must be handed back with {@link #requeue(List)}.
+     *
+     * @param max    the maximum number of players to remove
+     * @param wanted decides which players to remove
+     * @return the removed players, possibly empty
+     */
+    List<PlayerWithDeck> lockPartners(int max, Predicate<PlayerWithDeck> wanted);
+
+    /**
+     * Puts players taken with {@link #lockPartners(int, Predicate)} back into the queue, keeping
+     * their original waiting time.
+     *
+     * @param players the players to put back
+     */
+    void requeue(List<PlayerWithDeck> players);
+
+    /**
+     * Removes, for each claim from a peer server, the closest-rated waiting player within
+     * the claim's window.
+     *
+     * @param claims the claims sent by the peer
+     * @return the claims that could be satisfied, with the removed player
+     */
+    List<ClaimedPartner> claimPartners(List<PartnerClaim> claims);
+
+    /**
+     * @return the players currently waiting, grouped into rating bands
+     */
+    List<QueueSummary.RatingBand> summarizeQueue();
+
+    /**
+     * @return the number of players currently waiting
+     */
+    int queueSize();
+
+    /**
+     * Registers a callback run after players enter the queue or are claimed by a peer server.
+     * It runs on the thread that changed the queue and must not block.
      *
-     * @param player the player to return to the queue
+     * @param listener the callback, replacing any previous one
      */
-    void returnPlayerToQueue(Player player);
-}
\ No newline at end of file
+    void setQueueChangeListener(Runnable listener);
+}
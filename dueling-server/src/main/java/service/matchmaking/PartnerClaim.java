@@ -0,0 +1,45 @@
+package service.matchmaking;
+
+/**
+ * Request sent to a peer server to claim an opponent for one of the sender's waiting players.
+ * The peer removes its waiting player closest to {@code rating}, if one is within {@code window}.
+ */
+public class PartnerClaim {
+
+    private String requesterId;
+    private int rating;
+    private int window;
+
+    public PartnerClaim() {
+    }
+
+    public PartnerClaim(String requesterId, int rating, int window) {
+        this.requesterId = requesterId;
+        this.rating = rating;
+        this.window = window;
+    }
+
+    public String getRequesterId() {
+        return requesterId;
+    }
+
+    public void setRequesterId(String requesterId) {
+        this.requesterId = requesterId;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public void setRating(int rating) {
+        this.rating = rating;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public void setWindow(int window) {
+        this.window = window;
+    }
+}
@@ -9,6 +9,7 @@ import model.Player;
 public class PlayerWithDeck {
     private Player player;
     private String deckId;
+    private long queuedAt;
 
     /**
      * Constructor to create a PlayerWithDeck instance.
@@ -38,6 +39,17 @@ public class PlayerWithDeck {
         this.deckId = deckId;
     }
 
+    /**
+     * @return the time the player first entered the queue, or 0 if not queued yet
+     */
+    public long getQueuedAt() {
+        return queuedAt;
+    }
+
+    public void setQueuedAt(long queuedAt) {
+        this.queuedAt = queuedAt;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,108 @@
+package service.matchmaking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Snapshot of the players a server could not match locally, grouped into rating bands.
+ * Servers publish their summary every matchmaking round so that peers only send partner
+ * claims to servers that have players in a compatible rating range.
+ */
+public class QueueSummary {
+
+    private String serverUrl;
+    private long publishedAt;
+    private List<RatingBand> bands = new ArrayList<>();
+
+    public QueueSummary() {
+    }
+
+    public QueueSummary(String serverUrl, long publishedAt, List<RatingBand> bands) {
+        this.serverUrl = serverUrl;
+        this.publishedAt = publishedAt;
+        this.bands = bands;
+    }
+
+    public String getServerUrl() {
+        return serverUrl;
+    }
+
+    public void setServerUrl(String serverUrl) {
+        this.serverUrl = serverUrl;
+    }
+
+    public long getPublishedAt() {
+        return publishedAt;
+    }
+
+    public void setPublishedAt(long publishedAt) {
+        this.publishedAt = publishedAt;
+    }
+
+    public List<RatingBand> getBands() {
+        return bands;
+    }
+
+    public void setBands(List<RatingBand> bands) {
+        this.bands = bands;
+    }
+
+    /**
+     * Waiting players whose rating falls in {@code [ratingFloor, ratingFloor + width)}.
+     */
+    public static class RatingBand {
+        private int ratingFloor;
+        private int width;
+        private int count;
+        private long longestWaitMs;
+
+        public RatingBand() {
+        }
+
+        public RatingBand(int ratingFloor, int width, int count, long longestWaitMs) {
+            this.ratingFloor = ratingFloor;
+            this.width = width;
+            this.count = count;
+            this.longestWaitMs = longestWaitMs;
+        }
+
+        /**
+         * @return true if a player in this band could be within {@code window} of {@code rating}
+         */
+        public boolean overlaps(int rating, int window) {
+            return ratingFloor <= rating + window && ratingFloor + width > rating - window;
+        }
+
+        public int getRatingFloor() {
+            return ratingFloor;
+        }
+
+        public void setRatingFloor(int ratingFloor) {
+            this.ratingFloor = ratingFloor;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public void setWidth(int width) {
+            this.width = width;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public long getLongestWaitMs() {
+            return longestWaitMs;
+        }
+
+        public void setLongestWaitMs(long longestWaitMs) {
+            this.longestWaitMs = longestWaitMs;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package service.registry;
+
+import api.registry.ServerIdentity;
+import api.registry.ServerRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import common.cluster.ClusterDirectoryKeys;
+import common.cluster.PhiAccrualFailureDetector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import repository.LocalGameSessionRepository;
+import service.matchmaking.MatchmakingService;
+import websocket.WebSocketSessionManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link ServerRegistry} in step with the servers that are alive.
+ * <p>
+ * Every server publishes a {@link NodeHeartbeat} with its load on
+ * {@value #HEARTBEAT_CHANNEL} every {@code cluster.membership.heartbeat-interval}, so each
+ * server sends one message per interval whatever the cluster size, and every server hears
+ * the same heartbeats, as does the gateway. A server joins the registry with its first
+ * heartbeat. Each peer has a {@link PhiAccrualFailureDetector}, checked after every heartbeat
+ * this server sends; a peer whose suspicion reaches {@code cluster.membership.phi-threshold}
+ * is removed, which with the defaults happens within a second of its last heartbeat. A server
+ * that was only paused, e.g. by a long collection, may come back to find its matches adopted
+ * elsewhere; {@link LocalGameSessionRepository} then stops hosting them, and fences off any
+ * snapshot it still writes. A server shutting down announces it and is removed at once.
+ * <p>
+ * Heartbeats are sent and checked on a dedicated thread, so a busy scheduler cannot delay
+ * them into a false suspicion. The cluster size is published as
+ * {@code dueling.cluster.members}, and peers removed for silence are counted as
+ * {@code dueling.cluster.evictions}.
+ */
+@Profile("server")
+@Service
+public class ClusterMembershipService implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterMembershipService.class);
+    static final String HEARTBEAT_CHANNEL = ClusterDirectoryKeys.HEARTBEAT_CHANNEL;
+    private static final int MAX_SAMPLE_SIZE = 200;
+
+    private final ServerRegistry serverRegistry;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final WebSocketSessionManager webSocketSessionManager;
+    private final LocalGameSessionRepository gameSessionRepository;
+    private final MatchmakingService matchmakingService;
+    private final ObjectMapper objectMapper;
+    private final String selfUrl;
+    private final boolean distributedEnabled;
+    private final Duration heartbeatInterval;
+    private final double phiThreshold;
+    private final Duration minStdDeviation;
+    private final Duration acceptablePause;
+    private final Counter evictions;
+
+    private final Map<String, PhiAccrualFailureDetector> detectors = new ConcurrentHashMap<>();
+    private final Map<String, NodeHeartbeat> loads = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cluster-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean started;
+
+    public ClusterMembershipService(ServerRegistry serverRegistry,
+                                    StringRedisTemplate redisTemplate,
+                                    RedisMessageListenerContainer listenerContainer,
+                                    WebSocketSessionManager webSocketSessionManager,
+                                    LocalGameSessionRepository gameSessionRepository,
+                                    MatchmakingService matchmakingService,
+                                    ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry,
+                                    ServerIdentity serverIdentity,
+                                    @Value("${distributed.enabled:true}") boolean distributedEnabled,
+                                    @Value("${cluster.membership.heartbeat-interval:250ms}") Duration heartbeatInterval,
+                                    @Value("${cluster.membership.phi-threshold:8.0}") double phiThreshold,
+                                    @Value("${cluster.membership.min-std-deviation:100ms}") Duration minStdDeviation,
+                                    @Value("${cluster.membership.acceptable-pause:100ms}") Duration acceptablePause) {
+        this.serverRegistry = serverRegistry;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.webSocketSessionManager = webSocketSessionManager;
+        this.gameSessionRepository = gameSessionRepository;
+        this.matchmakingService = matchmakingService;
+        this.objectMapper = objectMapper;
+        this.selfUrl = serverIdentity.getSelfUrl();
+        this.distributedEnabled = distributedEnabled;
+        this.heartbeatInterval = heartbeatInterval;
+        this.phiThreshold = phiThreshold;
+        this.minStdDeviation = minStdDeviation;
+        this.acceptablePause = acceptablePause;
+        this.evictions = Counter.builder("dueling.cluster.evictions")
+                .description("Peer servers removed after their heartbeats stopped")
+                .register(meterRegistry);
+        Gauge.builder("dueling.cluster.members", serverRegistry, registry -> registry.getRegisteredServers().size())
+                .description("Servers in this server's view of the cluster")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        serverRegistry.registerServer(selfUrl);
+        logger.info("Registered self as: {}", selfUrl);
+
+        // Skip heartbeats if running in standalone mode
+        if (!distributedEnabled) {
+            logger.info("Running in standalone mode - cluster heartbeats skipped");
+            return;
+        }
+        listenerContainer.addMessageListener((message, pattern) -> onHeartbeat(new String(message.getBody())),
+                new ChannelTopic(HEARTBEAT_CHANNEL));
+        long intervalMs = heartbeatInterval.toMillis();
+        heartbeats.scheduleAtFixedRate(this::beat, 0, intervalMs, TimeUnit.MILLISECONDS);
+        started = true;
+        logger.info("Publishing heartbeats every {} ms on {}", intervalMs, HEARTBEAT_CHANNEL);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeats.shutdownNow();
+        if (started) {
+            // Let the peers drop this server now instead of waiting for the detector
+            publish(currentHeartbeat(true));
+        }
+    }
+
+    /**
+     * @return the last heartbeat of each server in the cluster, this one included
+     */
+    public Map<String, NodeHeartbeat> getMemberLoads() {
+        return Map.copyOf(loads);
+    }
+
+    private void beat() {
+        try {
+            NodeHeartbeat heartbeat = currentHeartbeat(false);
+            loads.put(selfUrl, heartbeat);
+            publish(heartbeat);
+            evictSuspectedPeers();
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; a failed beat is only a late heartbeat to the peers
+            logger.warn("Cluster heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private NodeHeartbeat currentHeartbeat(boolean leaving) {
+        return new NodeHeartbeat(selfUrl, webSocketSessionManager.getActiveSessions().size(),
+                gameSessionRepository.liveSessionCount(), matchmakingService.queueSize(), leaving);
+    }
+
+    private void publish(NodeHeartbeat heartbeat) {
+        try {
+            redisTemplate.convertAndSend(HEARTBEAT_CHANNEL, objectMapper.writeValueAsString(heartbeat));
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.debug("Could not publish heartbeat: {}", e.getMessage());
+        }
+    }
+
+    private void onHeartbeat(String message) {
+        NodeHeartbeat heartbeat;
+        try {
+            heartbeat = objectMapper.readValue(message, NodeHeartbeat.class);
+        } catch (JsonProcessingException e) {
+            logger.warn("Discarding malformed heartbeat: {}", message);
+            return;
+        }
+        String node = heartbeat.node();
+        if (node == null || node.equals(selfUrl)) {
+            return;
+        }
+        if (heartbeat.leaving()) {
+            detectors.remove(node);
+            loads.remove(node);
+            serverRegistry.unregisterServer(node);
+            logger.info("Server {} left the cluster", node);
+            return;
+        }
+        detectors.computeIfAbsent(node, n -> new PhiAccrualFailureDetector(MAX_SAMPLE_SIZE, minStdDeviation,
+                acceptablePause, heartbeatInterval)).heartbeat(nowMillis());
+        loads.put(node, heartbeat);
+        if (!serverRegistry.getRegisteredServers().contains(node)) {
+            serverRegistry.registerServer(node);
+            logger.info("Server {} joined the cluster", node);
+        }
+    }
+
+    private void evictSuspectedPeers() {
+        long now = nowMillis();
+        for (Map.Entry<String, PhiAccrualFailureDetector> entry : detectors.entrySet()) {
+            double phi = entry.getValue().phi(now);
+            if (phi >= phiThreshold && detectors.remove(entry.getKey(), entry.getValue())) {
+                String node = entry.getKey();
+                loads.remove(node);
+                serverRegistry.unregisterServer(node);
+                evictions.increment();
+                logger.warn("Removed server {} from the cluster: no heartbeat, phi {}", node,
+                        String.format("%.1f", phi));
+            }
+        }
+    }
+
+    private static long nowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
@@ -0,0 +1,14 @@
+package service.registry;
+
+/**
+ * Heartbeat a server publishes on {@value ClusterMembershipService#HEARTBEAT_CHANNEL}, with
+ * its current load. {@code leaving} is set on the last heartbeat of a server shutting down.
+ *
+ * @param node           the URL of the server
+ * @param activeSessions WebSocket sessions connected to the server
+ * @param activeMatches  matches hosted on the server
+ * @param queueDepth     players waiting in the server's matchmaking queue
+ * @param leaving        whether the server is shutting down
+ */
+public record NodeHeartbeat(String node, int activeSessions, int activeMatches, int queueDepth, boolean leaving) {
+}
@@ -0,0 +1,180 @@
+package service.reward;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import model.Player;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pubsub.IEventManager;
+import service.lock.LockService;
+import websocket.WebSocketSessionManager;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Grants every player the daily coin reward.
+ * <p>
+ * Players are walked in ID order, {@code daily-rewards.batch-size} at a time, and each batch is
+ * rewarded with a single {@code UPDATE}; no player is loaded into memory. One server claims the
+ * run through {@link LockService#tryLockJob}, and the last finished batch is checkpointed in
+ * Redis, so a run interrupted by a crash is picked up by another server where it stopped. The
+ * {@code last_daily_reward} column makes a repeated batch a no-op.
+ * <p>
+ * The IDs rewarded by each batch are published once on {@value #REWARD_CHANNEL}. Every server
+ * notifies the rewarded players connected to it, and {@link repository.CachingPlayerRepository}
+ * adds the reward to the copies it holds in memory.
+ */
+@Profile("server")
+@Service
+public class DailyRewardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyRewardService.class);
+    public static final String REWARD_CHANNEL = "daily-rewards";
+    private static final String JOB_NAME = "daily-rewards";
+    private static final String RUN_KEY_PREFIX = "daily-rewards:run:";
+    private static final String CURSOR_FIELD = "cursor";
+    private static final String STATUS_FIELD = "status";
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_DONE = "DONE";
+
+    private static final String NEXT_BATCH_SQL = "SELECT id FROM players WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String REWARD_BATCH_SQL = "UPDATE players SET coins = coins + ?, last_daily_reward = ? "
+            + "WHERE id > ? AND id <= ? AND (last_daily_reward IS NULL OR last_daily_reward < ?) RETURNING id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RedissonClient redissonClient;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final EntityManagerFactory entityManagerFactory;
+    private final LockService lockService;
+    private final IEventManager eventManager;
+    private final WebSocketSessionManager sessionManager;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${daily-rewards.amount:50}")
+    private int rewardAmount;
+    @Value("${daily-rewards.batch-size:1000}")
+    private int batchSize;
+
+    public DailyRewardService(JdbcTemplate jdbcTemplate, RedissonClient redissonClient,
+                              StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer,
+                              EntityManagerFactory entityManagerFactory, LockService lockService,
+                              IEventManager eventManager, WebSocketSessionManager sessionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redissonClient = redissonClient;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.entityManagerFactory = entityManagerFactory;
+        this.lockService = lockService;
+        this.eventManager = eventManager;
+        this.sessionManager = sessionManager;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener((message, pattern) -> notifyConnectedPlayers(new String(message.getBody())),
+                new ChannelTopic(REWARD_CHANNEL));
+    }
+
+    /**
+     * Starts today's run at midnight.
+     */
+    @Scheduled(cron = "${daily-rewards.cron:0 0 0 * * ?}")
+    public void awardDailyRewards() {
+        start(LocalDate.now(), false);
+    }
+
+    /**
+     * Resumes today's run if the server running it stopped before finishing.
+     */
+    @Scheduled(fixedDelayString = "${daily-rewards.resume-check-ms:60000}", initialDelayString = "${daily-rewards.resume-check-ms:60000}")
+    public void resumeInterruptedRun() {
+        start(LocalDate.now(), true);
+    }
+
+    private void start(LocalDate day, boolean onlyIfStarted) {
+        RMap<String, String> run = redissonClient.getMap(RUN_KEY_PREFIX + day);
+        String status = run.get(STATUS_FIELD);
+        if (STATUS_DONE.equals(status) || (onlyIfStarted && status == null)) {
+            return;
+        }
+        // Runs off the scheduler thread, which other scheduled tasks share
+        if (running.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("daily-rewards").start(() -> {
+                try {
+                    runExclusively(day, run);
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+    }
+
+    private void runExclusively(LocalDate day, RMap<String, String> run) {
+        Optional<LockService.HeldLock> claimed = lockService.tryLockJob(JOB_NAME);
+        if (claimed.isEmpty()) {
+            logger.debug("Daily rewards for {} are being granted by another server", day);
+            return;
+        }
+        try (LockService.HeldLock ignored = claimed.get()) {
+            if (STATUS_DONE.equals(run.get(STATUS_FIELD))) {
+                return;
+            }
+            run.fastPut(STATUS_FIELD, STATUS_RUNNING);
+            run.expire(Duration.ofDays(2));
+            String cursor = run.getOrDefault(CURSOR_FIELD, "");
+            logger.info("Granting daily rewards for {} from player ID '{}'", day, cursor);
+
+            long rewarded = 0;
+            Date rewardDay = Date.valueOf(day);
+            while (true) {
+                List<String> batch = jdbcTemplate.queryForList(NEXT_BATCH_SQL, String.class, cursor, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                String last = batch.get(batch.size() - 1);
+                List<String> rewardedIds = jdbcTemplate.queryForList(REWARD_BATCH_SQL, String.class,
+                        rewardAmount, rewardDay, cursor, last, rewardDay);
+                if (!rewardedIds.isEmpty()) {
+                    rewardedIds.forEach(id -> entityManagerFactory.getCache().evict(Player.class, id));
+                    redisTemplate.convertAndSend(REWARD_CHANNEL, rewardAmount + "\n" + String.join(",", rewardedIds));
+                }
+                rewarded += rewardedIds.size();
+                cursor = last;
+                run.fastPut(CURSOR_FIELD, cursor);
+            }
+            run.fastPut(STATUS_FIELD, STATUS_DONE);
+            logger.info("Completed daily rewards for {}: {} players rewarded", day, rewarded);
+        } catch (Exception e) {
+            logger.error("Daily rewards for {} stopped, will resume from the last checkpoint: {}", day, e.getMessage(), e);
+        }
+    }
+
+    private void notifyConnectedPlayers(String message) {
+        int newline = message.indexOf('\n');
+        if (newline < 0) {
+            return;
+        }
+        String notification = "DAILY_REWARD:" + message.substring(0, newline) + ":Thank you for playing! Daily reward awarded.";
+        for (String playerId : message.substring(newline + 1).split(",")) {
+            if (sessionManager.isPlayerConnected(playerId)) {
+                eventManager.publish(playerId, notification);
+            }
+        }
+    }
+}
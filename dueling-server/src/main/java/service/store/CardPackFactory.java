@@ -11,7 +11,6 @@ import repository.CardRepository;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
 @Component
 public class CardPackFactory {
@@ -42,135 +41,70 @@ public class CardPackFactory {
 
 }
 
-class BasicCardPack implements CardPack {
+/**
+ * Base for packs whose contents are drawn from the card stock, one card per slot.
+ * The whole pack is reserved with a single atomic claim.
+ */
+abstract class StockCardPack implements CardPack {
     private final CardRepository cardRepository;
-    protected static final Logger logger = LoggerFactory.getLogger(CardPack.class);
 
-    public BasicCardPack(CardRepository cardRepository) { 
+    protected StockCardPack(CardRepository cardRepository) {
         this.cardRepository = cardRepository;
     }
 
+    @Override
+    public List<Card> open() {
+        List<Card> cards = new ArrayList<>(cardRepository.claimPack(getSlotRarities()));
+        CardPackFactory.logger.debug("{} opened with {} cards.", getName(), cards.size());
+        Collections.shuffle(cards);
+        return cards;
+    }
+}
+
+class BasicCardPack extends StockCardPack {
+
+    public BasicCardPack(CardRepository cardRepository) {
+        super(cardRepository);
+    }
+
     @Override
     public String getName() { return "Basic Pack"; }
     @Override
     public int getCost() { return 100; }
-
     @Override
-    public List<Card> open() {
-        List<Card> cards = new ArrayList<>();
-        logger.debug("Opening BasicCardPack...");
-        for (int i = 0; i < 5; i++) {
-            // Try to get a Common card, fallback to any available card if out of stock
-            Optional<Card> cardOpt = cardRepository.getRandomCardByRarity("Common");
-            if (cardOpt.isPresent()) {
-                Card newCard = cardOpt.get();
-                cards.add(newCard);
-                logger.trace("Added card to pack: {}", newCard.getName());
-            } else {
-                // If Common cards are out of stock, get any card
-                cardRepository.getRandomCard().ifPresent(fallbackCard -> {
-                    cards.add(fallbackCard);
-                    logger.trace("Added fallback card to pack: {}", fallbackCard.getName());
-                });
-            }
-        }
-        logger.debug("BasicCardPack opened with {} cards.", cards.size());
-        Collections.shuffle(cards);
-        return cards;
+    public List<String> getSlotRarities() {
+        return List.of("Common", "Common", "Common", "Common", "Common");
     }
 }
 
-class PremiumCardPack implements CardPack {
-    private final CardRepository cardRepository;
-    
-    public PremiumCardPack(CardRepository cardRepository) { 
-        this.cardRepository = cardRepository;
+class PremiumCardPack extends StockCardPack {
+
+    public PremiumCardPack(CardRepository cardRepository) {
+        super(cardRepository);
     }
 
     @Override
     public String getName() { return "Premium Pack"; }
     @Override
     public int getCost() { return 500; }
-
     @Override
-    public List<Card> open() {
-        List<Card> cards = new ArrayList<>();
-        
-        // Try to get 3 Rare cards with fallback to any available card if out of stock
-        for (int i = 0; i < 3; i++) {
-            Optional<Card> card = cardRepository.getRandomCardByRarity("Rare");
-            if (card.isPresent()) {
-                cards.add(card.get());
-            } else {
-                // Fallback to any card if Rare is out of stock
-                cardRepository.getRandomCard().ifPresent(cards::add);
-            }
-        }
-        
-        // Try to get 2 Common cards with fallback to any available card if out of stock
-        for (int i = 0; i < 2; i++) {
-            Optional<Card> card = cardRepository.getRandomCardByRarity("Common");
-            if (card.isPresent()) {
-                cards.add(card.get());
-            } else {
-                // Fallback to any card if Common is out of stock
-                cardRepository.getRandomCard().ifPresent(cards::add);
-            }
-        }
-        
-        Collections.shuffle(cards);
-        return cards;
+    public List<String> getSlotRarities() {
+        return List.of("Rare", "Rare", "Rare", "Common", "Common");
     }
 }
 
-class LegendaryCardPack implements CardPack {
-    private final CardRepository cardRepository;
-    
-    public LegendaryCardPack(CardRepository cardRepository) { 
-        this.cardRepository = cardRepository;
+class LegendaryCardPack extends StockCardPack {
+
+    public LegendaryCardPack(CardRepository cardRepository) {
+        super(cardRepository);
     }
 
     @Override
     public String getName() { return "Legendary Pack"; }
     @Override
     public int getCost() { return 1500; }
-
     @Override
-    public List<Card> open() {
-        List<Card> cards = new ArrayList<>();
-        
-        // Try to get 1 Legendary card with fallback to any available card if out of stock
-        Optional<Card> card = cardRepository.getRandomCardByRarity("Legendary");
-        if (card.isPresent()) {
-            cards.add(card.get());
-        } else {
-            // Fallback to any card if Legendary is out of stock
-            cardRepository.getRandomCard().ifPresent(cards::add);
-        }
-        
-        // Try to get 2 Rare cards with fallback to any available card if out of stock
-        for (int i = 0; i < 2; i++) {
-            Optional<Card> rareCard = cardRepository.getRandomCardByRarity("Rare");
-            if (rareCard.isPresent()) {
-                cards.add(rareCard.get());
-            } else {
-                // Fallback to any card if Rare is out of stock
-                cardRepository.getRandomCard().ifPresent(cards::add);
-            }
-        }
-        
-        // Try to get 2 Common cards with fallback to any available card if out of stock
-        for (int i = 0; i < 2; i++) {
-            Optional<Card> commonCard = cardRepository.getRandomCardByRarity("Common");
-            if (commonCard.isPresent()) {
-                cards.add(commonCard.get());
-            } else {
-                // Fallback to any card if Common is out of stock
-                cardRepository.getRandomCard().ifPresent(cards::add);
-            }
-        }
-        
-        Collections.shuffle(cards);
-        return cards;
+    public List<String> getSlotRarities() {
+        return List.of("Legendary", "Rare", "Rare", "Common", "Common");
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,7 @@
 package service.store;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import model.Card;
 import model.CardPack;
 import model.Player;
@@ -9,83 +9,107 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.PlayerRepository;
 import service.lock.LockService;
 
 @Service
-@Transactional
 public class StoreServiceImpl implements StoreService {
     
     private static final Logger logger = LoggerFactory.getLogger(StoreServiceImpl.class);
     private final CardPackFactory cardPackFactory;
     private final LockService lockService;
+    private final PlayerRepository playerRepository;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public StoreServiceImpl(CardPackFactory cardPackFactory, LockService lockService) {
+    public StoreServiceImpl(CardPackFactory cardPackFactory, LockService lockService, PlayerRepository playerRepository,
+                            TransactionTemplate transactionTemplate) {
         this.cardPackFactory = cardPackFactory;
         this.lockService = lockService;
+        this.playerRepository = playerRepository;
+        // A transaction of its own, so the purchase commits even when the caller's is still open
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
+    /**
+     * {@inheritDoc}
+     * The player is reloaded once their lock is held, and the purchase is written before the
+     * lock is released, so concurrent purchases by the same player cannot spend the same coins.
+     */
     @Override
-    public PurchaseResult purchaseCardPack(Player player, String packType) {
-        logger.debug("Attempting to purchase pack of type '{}' for player '{}'", packType, player != null ? player.getId() : "null");
+    public PurchaseResult purchaseCardPack(Player buyer, String packType) {
+        logger.debug("Attempting to purchase pack of type '{}' for player '{}'", packType, buyer != null ? buyer.getId() : "null");
         CardPack pack = cardPackFactory.createCardPack(packType);
 
+        // Only this player's purchases are serialized; card stock is claimed atomically per card
+        Optional<LockService.HeldLock> lock = lockService.tryLockPlayer(buyer.getId());
+        if (lock.isEmpty()) {
+            logger.warn("Could not acquire distributed lock for purchase by {}.", buyer.getNickname());
+            return PurchaseResult.failure(PurchaseResult.PurchaseStatus.SERVER_BUSY);
+        }
+
+        try {
+            // Committed before the lock is released, so the next purchase reloads this one's result
+            return transactionTemplate.execute(status -> purchaseLocked(buyer.getId(), pack, packType));
+        } catch (Exception e) {
+            logger.error("Error buying pack {} for player {}: {}", 
+                        packType, buyer.getId(), e.getMessage(), e);
+            return PurchaseResult.failure(PurchaseResult.PurchaseStatus.INTERNAL_SERVER_ERROR);
+        } finally {
+            lock.get().release();
+        }
+    }
+
+    /**
+     * Reloads the player and applies the purchase; runs while the player's lock is held.
+     */
+    private PurchaseResult purchaseLocked(String playerId, CardPack pack, String packType) {
+        // The caller's copy, or a cached one, may predate a purchase made while we waited for the lock
+        Optional<Player> current = playerRepository.findLatestById(playerId);
+        if (current.isEmpty()) {
+            logger.error("Player {} not found while buying pack {}", playerId, packType);
+            return PurchaseResult.failure(PurchaseResult.PurchaseStatus.INTERNAL_SERVER_ERROR);
+        }
+        Player player = current.get();
         if (player.getCoins() < pack.getCost()) {
             logger.warn("{} tried to buy {} but doesn't have enough coins (has: {}, needs: {})", 
                        player.getNickname(), pack.getName(), player.getCoins(), pack.getCost());
             return PurchaseResult.failure(PurchaseResult.PurchaseStatus.INSUFFICIENT_FUNDS);
         }
 
-        boolean lockAcquired = false;
-        try {
-            lockAcquired = lockService.acquire();
-            if (!lockAcquired) {
-                logger.warn("Could not acquire distributed lock for purchase by {}.", player.getNickname());
-                // Retornar um status mais apropriado, como SERVER_BUSY ou CONFLICT
-                return PurchaseResult.failure(PurchaseResult.PurchaseStatus.SERVER_BUSY);
-            }
-
-            // A lógica de abrir o pacote agora usa o CardRepository com estoque no Redis
-            List<Card> newCards = pack.open();
+        // A lógica de abrir o pacote agora usa o CardRepository com estoque no Redis
+        List<Card> newCards = pack.open();
+        if (newCards.isEmpty()) {
+            logger.warn("{} failed to get cards from pack {}. Probably out of stock.", 
+                       player.getNickname(), pack.getName());
+            // Tentar resetar o estoque e tentar novamente
+            cardPackFactory.getCardRepository().resetStockIfDepleted();
+            // Tentar abrir o pacote novamente após o reset
+            newCards = pack.open();
             if (newCards.isEmpty()) {
-                logger.warn("{} failed to get cards from pack {}. Probably out of stock.", 
+                logger.error("{} failed again to get cards from pack {} after stock reset.", 
                            player.getNickname(), pack.getName());
-                // Tentar resetar o estoque e tentar novamente
-                cardPackFactory.getCardRepository().resetStockIfDepleted();
-                // Tentar abrir o pacote novamente após o reset
-                newCards = pack.open();
-                if (newCards.isEmpty()) {
-                    logger.error("{} failed again to get cards from pack {} after stock reset.", 
-                               player.getNickname(), pack.getName());
-                    return PurchaseResult.failure(PurchaseResult.PurchaseStatus.OUT_OF_STOCK);
-                } else {
-                    logger.info("Stock reset successful, {} got {} cards after reset", 
-                               player.getNickname(), newCards.size());
-                }
-            }
-            
-            // Atualiza o jogador (isso também pode precisar de sincronização dependendo de como Player é gerenciado)
-            player.setCoins(player.getCoins() - pack.getCost());
-            // Create new list to force JPA to detect change
-            int cardsBefore = player.getCardCollection().size();
-            List<Card> updatedCards = new ArrayList<>(player.getCardCollection());
-            updatedCards.addAll(newCards);
-            player.setCardCollection(updatedCards);
-            int cardsAfter = player.getCardCollection().size();
-            
-            logger.info("{} bought a {} for {} coins and got {} cards. Cards before: {}, after: {}", 
-                       player.getNickname(), pack.getName(), pack.getCost(), newCards.size(), cardsBefore, cardsAfter);
-            return PurchaseResult.success(newCards);
-
-        } catch (Exception e) {
-            logger.error("Error buying pack {} for player {}: {}", 
-                        packType, player.getId(), e.getMessage(), e);
-            return PurchaseResult.failure(PurchaseResult.PurchaseStatus.INTERNAL_SERVER_ERROR);
-        } finally {
-            if (lockAcquired) {
-                lockService.release();
+                return PurchaseResult.failure(PurchaseResult.PurchaseStatus.OUT_OF_STOCK);
+            } else {
+                logger.info("Stock reset successful, {} got {} cards after reset", 
+                           player.getNickname(), newCards.size());
             }
         }
+        
+        // Atualiza o jogador
+        player.setCoins(player.getCoins() - pack.getCost());
+        int cardsBefore = player.getCardCollection().size();
+        player.addCards(newCards);
+        int cardsAfter = player.getCardCollection().size();
+        
+        // Coins and cards must survive a crash, so this write does not wait for the next flush
+        playerRepository.saveAndFlush(player);
+
+        logger.info("{} bought a {} for {} coins and got {} cards. Cards before: {}, after: {}", 
+                   player.getNickname(), pack.getName(), pack.getCost(), newCards.size(), cardsBefore, cardsAfter);
+        return PurchaseResult.success(newCards);
     }
-}
\ No newline at end of file
+}
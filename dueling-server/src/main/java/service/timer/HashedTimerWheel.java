@@ -0,0 +1,162 @@
+package service.timer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timer wheel keyed by an identifier (e.g. a match ID).
+ * <p>
+ * Each key holds at most one pending deadline: scheduling a key again replaces the
+ * previous deadline. {@link #schedule(String, long)} and {@link #cancel(String)} are
+ * thread-safe and O(1); {@link #advance(long)} must be called from a single thread and
+ * only touches the buckets that became due, so its cost depends on the number of
+ * expiring keys rather than on the total number of registered keys.
+ */
+public class HashedTimerWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final ArrayDeque<Timeout>[] buckets;
+    private final long startTime;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<String, Timeout> activeTimeouts = new ConcurrentHashMap<>();
+
+    private long currentTick;
+
+    /**
+     * Creates a new timer wheel.
+     *
+     * @param tickMillis the duration of one tick in milliseconds
+     * @param wheelSize  the number of buckets, rounded up to the next power of two
+     * @param startTime  the reference time in milliseconds for tick zero
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimerWheel(long tickMillis, int wheelSize, long startTime) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize must be between 1 and 2^30");
+        }
+        int normalizedSize = Integer.highestOneBit(wheelSize - 1) << 1;
+        if (normalizedSize <= 0) {
+            normalizedSize = 1;
+        }
+        this.tickMillis = tickMillis;
+        this.mask = normalizedSize - 1;
+        this.buckets = new ArrayDeque[normalizedSize];
+        for (int i = 0; i < normalizedSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.startTime = startTime;
+    }
+
+    /**
+     * Registers (or replaces) the deadline for the given key.
+     *
+     * @param key      the key to schedule
+     * @param deadline the absolute deadline in milliseconds
+     */
+    public void schedule(String key, long deadline) {
+        Timeout timeout = new Timeout(key, deadline);
+        Timeout previous = activeTimeouts.put(key, timeout);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        pendingTimeouts.add(timeout);
+    }
+
+    /**
+     * Removes the pending deadline for the given key, if any.
+     *
+     * @param key the key to cancel
+     */
+    public void cancel(String key) {
+        Timeout previous = activeTimeouts.remove(key);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+    }
+
+    /**
+     * Advances the wheel up to the given time and returns every timeout that expired.
+     * Must only be called by a single thread.
+     *
+     * @param now the current time in milliseconds
+     * @return the expired timeouts, in bucket order
+     */
+    public List<Timeout> advance(long now) {
+        transferPendingTimeouts();
+
+        long targetTick = (now - startTime) / tickMillis;
+        List<Timeout> expired = new ArrayList<>();
+        while (currentTick <= targetTick) {
+            ArrayDeque<Timeout> bucket = buckets[(int) (currentTick & mask)];
+            Iterator<Timeout> iterator = bucket.iterator();
+            while (iterator.hasNext()) {
+                Timeout timeout = iterator.next();
+                if (timeout.cancelled) {
+                    iterator.remove();
+                } else if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                } else {
+                    iterator.remove();
+                    // Only forget the key if nobody re-scheduled it in the meantime
+                    activeTimeouts.remove(timeout.key, timeout);
+                    expired.add(timeout);
+                }
+            }
+            currentTick++;
+        }
+        return expired;
+    }
+
+    /**
+     * @return the number of keys with a pending deadline
+     */
+    public int size() {
+        return activeTimeouts.size();
+    }
+
+    private void transferPendingTimeouts() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            // Round up so a timeout never fires before its deadline
+            long deadlineTick = Math.max(Math.floorDiv(timeout.deadline - startTime + tickMillis - 1, tickMillis), currentTick);
+            long ticksAhead = deadlineTick - currentTick;
+            timeout.remainingRounds = ticksAhead / buckets.length;
+            buckets[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * A single scheduled deadline.
+     */
+    public static final class Timeout {
+        private final String key;
+        private final long deadline;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(String key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package service.timer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tracks turn and response-window deadlines for the matches hosted on this node.
+ * <p>
+ * Instead of scanning every stored game session each second, each match registers its
+ * next deadline here when it starts and after every state change. A dedicated thread
+ * advances a {@link HashedTimerWheel} and hands expired match IDs to the registered
+ * expiry handler.
+ */
+@Profile("server")
+@Service
+public class TurnTimerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TurnTimerService.class);
+    private static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SIZE = 512;
+
+    private final HashedTimerWheel wheel = new HashedTimerWheel(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "turn-timer-wheel");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Timer firingLag;
+    private final Counter firedCounter;
+
+    private volatile Consumer<String> expiryHandler = matchId -> { };
+
+    @Autowired
+    public TurnTimerService(MeterRegistry meterRegistry) {
+        this.firingLag = Timer.builder("dueling.turn.timer.lag")
+                .description("Delay between a turn deadline and the moment it was handled")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.firedCounter = Counter.builder("dueling.turn.timer.fired")
+                .description("Number of turn deadlines that expired")
+                .register(meterRegistry);
+        Gauge.builder("dueling.turn.timer.pending", wheel, HashedTimerWheel::size)
+                .description("Number of matches with a pending turn deadline")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        logger.info("Turn timer wheel started with {} ms ticks", TICK_MILLIS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Sets the callback invoked with the match ID whenever a deadline expires.
+     * The callback runs on the timer thread and is expected to re-register the
+     * match's next deadline if the match is still running.
+     */
+    public void setExpiryHandler(Consumer<String> expiryHandler) {
+        this.expiryHandler = expiryHandler;
+    }
+
+    /**
+     * Registers or replaces the next deadline of a match.
+     *
+     * @param matchId  the match ID
+     * @param deadline the absolute deadline in milliseconds, or a negative value to cancel
+     */
+    public void schedule(String matchId, long deadline) {
+        if (deadline < 0) {
+            wheel.cancel(matchId);
+            return;
+        }
+        wheel.schedule(matchId, deadline);
+    }
+
+    /**
+     * Removes any pending deadline of a match.
+     */
+    public void cancel(String matchId) {
+        wheel.cancel(matchId);
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        List<HashedTimerWheel.Timeout> expired = wheel.advance(now);
+        for (HashedTimerWheel.Timeout timeout : expired) {
+            firingLag.record(Math.max(0, now - timeout.getDeadline()), TimeUnit.MILLISECONDS);
+            firedCounter.increment();
+            try {
+                expiryHandler.accept(timeout.getKey());
+            } catch (Exception e) {
+                logger.error("Error handling turn deadline for match {}: {}", timeout.getKey(), e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package websocket;
 
+import common.auth.VerifiedToken;
 import controller.GameFacade;
+import controller.command.GameCommandDecoder;
+import io.jsonwebtoken.JwtException;
 import model.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,7 +20,6 @@ import security.JwtUtil;
 
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.io.StringWriter;
 
 @Component
 public class GameWebSocketHandler extends TextWebSocketHandler {
@@ -28,64 +30,41 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
     private final WebSocketSessionManager sessionManager;
+    private final WebSocketWriterFactory writerFactory;
     
     @org.springframework.beans.factory.annotation.Value("${websocket.auth.required:true}")
     private boolean authRequired;
 
     @Autowired
-    public GameWebSocketHandler(GameFacade gameFacade, UserRepository userRepository, JwtUtil jwtUtil, WebSocketSessionManager sessionManager) {
+    public GameWebSocketHandler(GameFacade gameFacade, UserRepository userRepository, JwtUtil jwtUtil, WebSocketSessionManager sessionManager,
+                                WebSocketWriterFactory writerFactory) {
         this.gameFacade = gameFacade;
         this.eventManager = gameFacade.getEventManager();
         this.userRepository = userRepository;
         this.jwtUtil = jwtUtil;
         this.sessionManager = sessionManager;
+        this.writerFactory = writerFactory;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         String username = null;
+        VerifiedToken verifiedToken = null;
 
         logger.info("WebSocket connection attempt from session: {}", session.getId());
-        
-        // 1. Get username from session attributes (populated by HttpHandshakeInterceptor)
-        Object userIdFromAttribute = session.getAttributes().get("userId");
-        if (userIdFromAttribute != null) {
-            username = userIdFromAttribute.toString();
-            logger.info("Authenticated user '{}' via session attribute from handshake interceptor.", username);
-        }
-
-        // 2. Fallback for direct connections (no gateway) or if interceptor fails
-        if (username == null) {
-            logger.info("Could not find user in session attribute. Falling back to token validation.");
-            String token = getJwtTokenFromSession(session);
-            if (token == null) {
-                // Allow anonymous connections if auth is not required (test mode)
-                if (!authRequired) {
-                    String anonymousId = "anonymous_" + session.getId();
-                    logger.warn("Authentication NOT required (test mode). Allowing anonymous connection for session: {}", session.getId());
-                    // Store session without authentication - playerId will be extracted from first message
-                    sessionManager.registerSession(session, anonymousId);
-                    
-                    // Setup PrintWriter for anonymous session so it can receive messages
-                    PrintWriter writer = new PrintWriter(new WebSocketWriter(session));
-                    sessionManager.storePlayerWriter(anonymousId, writer);
-                    logger.info("Anonymous session setup complete with PrintWriter");
-                    return;
-                } else {
-                    logger.error("Authentication failed: No token found in query parameters for session: {}", session.getId());
-                    session.close(CloseStatus.POLICY_VIOLATION.withReason("Authentication token is required"));
-                    return;
-                }
-            }
 
+        // 1. Token from the query string, sent directly or forwarded by the gateway. Its
+        //    verification and player id are cached, so reconnects skip both.
+        String token = getJwtTokenFromSession(session);
+        if (token != null) {
             try {
-                if (!jwtUtil.validateToken(token)) {
-                    logger.error("Authentication failed: Invalid token for session: {}", session.getId());
-                    session.close(CloseStatus.POLICY_VIOLATION.withReason("Invalid authentication token"));
-                    return;
-                }
-                username = jwtUtil.getUsernameFromToken(token);
+                verifiedToken = jwtUtil.verify(token);
+                username = verifiedToken.subject();
                 logger.info("Successfully authenticated user '{}' using JWT token from query parameter.", username);
+            } catch (JwtException | IllegalArgumentException e) {
+                logger.error("Authentication failed: Invalid token for session: {}", session.getId());
+                session.close(CloseStatus.POLICY_VIOLATION.withReason("Invalid authentication token"));
+                return;
             } catch (Exception e) {
                 logger.error("Token validation failed for session: {}", session.getId(), e);
                 session.close(CloseStatus.POLICY_VIOLATION.withReason("Token validation error"));
@@ -93,23 +72,44 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
             }
         }
 
+        // 2. Username from session attributes (populated by HttpHandshakeInterceptor from gateway headers)
+        if (username == null) {
+            Object userIdFromAttribute = session.getAttributes().get("userId");
+            if (userIdFromAttribute != null) {
+                username = userIdFromAttribute.toString();
+                logger.info("Authenticated user '{}' via session attribute from handshake interceptor.", username);
+            }
+        }
+
         if (username == null) {
-            logger.error("Unable to determine user for session {}. Closing connection.", session.getId());
-            session.close(CloseStatus.POLICY_VIOLATION.withReason("User could not be authenticated"));
+            // Allow anonymous connections if auth is not required (test mode)
+            if (!authRequired) {
+                String anonymousId = "anonymous_" + session.getId();
+                logger.warn("Authentication NOT required (test mode). Allowing anonymous connection for session: {}", session.getId());
+                // Store session without authentication - playerId will be extracted from first message
+                sessionManager.registerSession(session, anonymousId);
+                
+                // Setup PrintWriter for anonymous session so it can receive messages
+                PrintWriter writer = writerFactory.create(session);
+                sessionManager.storePlayerWriter(anonymousId, writer);
+                logger.info("Anonymous session setup complete with PrintWriter");
+                return;
+            }
+            logger.error("Authentication failed: No token or gateway user found for session: {}", session.getId());
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Authentication token is required"));
             return;
         }
 
-        User user = userRepository.findByUsername(username).orElse(null);
-        if (user == null) {
+        String playerId = verifiedToken != null ? verifiedToken.playerId(this::findPlayerId) : findPlayerId(username);
+        if (playerId == null) {
             logger.error("User '{}' not found in database. Closing session {}.", username, session.getId());
             session.close(CloseStatus.POLICY_VIOLATION.withReason("User not found"));
             return;
         }
 
-        String playerId = user.getPlayerId();
         sessionManager.registerSession(session, playerId);
 
-        PrintWriter writer = new PrintWriter(new WebSocketWriter(session));
+        PrintWriter writer = writerFactory.create(session);
         sessionManager.storePlayerWriter(playerId, writer);
 
         System.out.println("[DEBUG] About to call gameFacade.registerPlayer for player: " + playerId);
@@ -140,11 +140,18 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        logger.info("Received WebSocket message: {} from session {}", message.getPayload(), session.getId());
+        logger.debug("Received WebSocket message: {} from session {}", message.getPayload(), session.getId());
         sessionManager.updateSessionActivity(session.getId().toString());
         String payload = message.getPayload();
 
         if ("PING".equals(payload)) {
+            // Once the session has a writer, only its sender thread may send on the session
+            PrintWriter sessionWriter = sessionManager.getSessionWriter(session.getId());
+            if (sessionWriter != null) {
+                sessionWriter.println("PONG");
+                sessionWriter.flush();
+                return;
+            }
             try {
                 if (session.isOpen()) {
                     session.sendMessage(new TextMessage("PONG"));
@@ -189,33 +196,21 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
             return;
         }
 
-        logger.info("Received command from player {}: {} (session: {})", playerId, payload, session.getId());
-        String[] command = payload.split(":");
-
-        // If message already starts with "GAME:playerId:", just use it as-is
-        String[] facadeCommand;
-        if (command.length >= 2 && "GAME".equals(command[0]) && playerId.equals(command[1])) {
-            facadeCommand = command;
-            logger.info("Message already in facade format, using as-is");
-        } else {
-            // Add GAME and playerId prefix
-            facadeCommand = new String[command.length + 2];
-            facadeCommand[0] = "GAME";
-            facadeCommand[1] = playerId;
-            System.arraycopy(command, 0, facadeCommand, 2, command.length);
-        }
-
-        logger.info("Processing facade command for player {}: [{}]", playerId, String.join(", ", facadeCommand));
-        gameFacade.processGameCommand(facadeCommand);
+        logger.debug("Received command from player {}: {} (session: {})", playerId, payload, session.getId());
+        gameFacade.processGameCommand(GameCommandDecoder.decode(playerId, payload));
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        // Take the writer before unregistering, which forgets it
+        PrintWriter writer = sessionManager.getSessionWriter(session.getId());
         String playerId = sessionManager.unregisterSession(session.getId().toString());
+        if (writer != null) {
+            writer.close();
+        }
         if (playerId != null) {
             logger.info("WebSocket connection closed for player {}: session {} with status {}", playerId, session.getId().toString(), status);
 
-            PrintWriter writer = sessionManager.removePlayerWriter(playerId);
             if (writer != null) {
                 eventManager.unsubscribe(playerId, writer);
             }
@@ -224,6 +219,10 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
+    private String findPlayerId(String username) {
+        return userRepository.findByUsername(username).map(User::getPlayerId).orElse(null);
+    }
+
     private String getJwtTokenFromSession(WebSocketSession session) {
         String query = session.getUri().getQuery();
         if (query != null) {
@@ -236,47 +235,4 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         }
         return null;
     }
-
-    private static class WebSocketWriter extends StringWriter {
-        private final WebSocketSession session;
-        private static final Logger logger = LoggerFactory.getLogger(WebSocketWriter.class);
-
-        public WebSocketWriter(WebSocketSession session) {
-            this.session = session;
-            logger.info("WebSocketWriter created for session: {}", session.getId());
-        }
-
-        @Override
-        public void flush() {
-            try {
-                logger.info("WebSocketWriter.flush() called for session: {}, message: {}", session.getId(), this.toString());
-                if (session.isOpen()) {
-                    String message = this.toString();
-                    if (!message.isEmpty()) {
-                        logger.info("Sending message via WebSocket: {} to session: {}", message, session.getId());
-                        synchronized (session) {
-                            if (session.isOpen()) {
-                                session.sendMessage(new TextMessage(message));
-                            }
-                        }
-                        getBuffer().setLength(0);
-                    } else {
-                        logger.info("No message to send, buffer is empty");
-                    }
-                } else {
-                    logger.info("Session is not open, cannot send message");
-                }
-            } catch (IOException e) {
-                if (e.getMessage() != null && 
-                    (e.getMessage().contains("Broken pipe") || 
-                     e.getMessage().contains("Connection reset"))) {
-                    logger.info("Connection already closed for session {}", session.getId());
-                } else {
-                    logger.info("Error sending message via WebSocket for session {}: {}", session.getId().toString(), e.getMessage());
-                }
-            } catch (IllegalStateException e) {
-                logger.info("Session {} already closed", session.getId());
-            }
-        }
-    }
 }
@@ -1,5 +1,7 @@
 package websocket;
 
+import common.auth.VerifiedToken;
+import io.jsonwebtoken.JwtException;
 import model.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,7 +18,6 @@ import security.JwtUtil;
 
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.io.StringWriter;
 
 @Component
 @Profile("local-dev")
@@ -27,19 +28,23 @@ public class LocalDevWebSocketHandler extends TextWebSocketHandler {
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
     private final WebSocketSessionManager sessionManager;
+    private final WebSocketWriterFactory writerFactory;
 
     @Autowired
     public LocalDevWebSocketHandler(UserRepository userRepository, JwtUtil jwtUtil, 
-                                   WebSocketSessionManager sessionManager, IEventManager eventManager) {
+                                   WebSocketSessionManager sessionManager, IEventManager eventManager,
+                                   WebSocketWriterFactory writerFactory) {
         this.userRepository = userRepository;
         this.jwtUtil = jwtUtil;
         this.sessionManager = sessionManager;
         this.eventManager = eventManager;
+        this.writerFactory = writerFactory;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         String username = null;
+        VerifiedToken verifiedToken = null;
         
         // First, try to get username from X-User-Id header (from gateway authentication)
         if (session.getHandshakeHeaders() != null) {
@@ -61,28 +66,28 @@ public class LocalDevWebSocketHandler extends TextWebSocketHandler {
                 return;
             }
 
-            if (!jwtUtil.validateToken(token)) {
+            try {
+                verifiedToken = jwtUtil.verify(token);
+            } catch (JwtException | IllegalArgumentException e) {
                 logger.error("Invalid authentication token provided for session: {}", session.getId());
                 session.close(CloseStatus.BAD_DATA.withReason("Invalid authentication token"));
                 return;
             }
 
-            username = jwtUtil.getUsernameFromToken(token);
+            username = verifiedToken.subject();
             logger.info("Successfully authenticated WebSocket connection using JWT token for user: {}", username);
         } else {
             logger.info("Authenticated WebSocket connection using gateway headers for user: {}", username);
         }
 
-        User user = userRepository.findByUsername(username).orElse(null);
-        if (user == null) {
+        String playerId = verifiedToken != null ? verifiedToken.playerId(this::findPlayerId) : findPlayerId(username);
+        if (playerId == null) {
             session.close(CloseStatus.BAD_DATA.withReason("User not found"));
             return;
         }
-
-        String playerId = user.getPlayerId();
         sessionManager.registerSession(session, playerId);
 
-        PrintWriter writer = new PrintWriter(new WebSocketWriter(session));
+        PrintWriter writer = writerFactory.create(session);
         sessionManager.storePlayerWriter(playerId, writer);
 
         eventManager.subscribe(playerId, writer);
@@ -98,6 +103,12 @@ public class LocalDevWebSocketHandler extends TextWebSocketHandler {
         String payload = message.getPayload();
 
         if ("PING".equals(payload)) {
+            PrintWriter sessionWriter = sessionManager.getSessionWriter(session.getId());
+            if (sessionWriter != null) {
+                sessionWriter.println("PONG");
+                sessionWriter.flush();
+                return;
+            }
             try {
                 if (session.isOpen()) {
                     session.sendMessage(new TextMessage("PONG"));
@@ -145,17 +156,24 @@ public class LocalDevWebSocketHandler extends TextWebSocketHandler {
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        PrintWriter writer = sessionManager.getSessionWriter(session.getId());
         String playerId = sessionManager.unregisterSession(session.getId().toString());
+        if (writer != null) {
+            writer.close();
+        }
         if (playerId != null) {
             logger.info("WebSocket connection closed for player {}: session {} with status {}", playerId, session.getId().toString(), status);
 
-            PrintWriter writer = sessionManager.removePlayerWriter(playerId);
             if (writer != null) {
                 eventManager.unsubscribe(playerId, writer);
             }
         }
     }
 
+    private String findPlayerId(String username) {
+        return userRepository.findByUsername(username).map(User::getPlayerId).orElse(null);
+    }
+
     private String getJwtTokenFromSession(WebSocketSession session) {
         String query = session.getUri().getQuery();
         if (query != null) {
@@ -168,39 +186,4 @@ public class LocalDevWebSocketHandler extends TextWebSocketHandler {
         }
         return null;
     }
-
-    private static class WebSocketWriter extends StringWriter {
-        private final WebSocketSession session;
-
-        public WebSocketWriter(WebSocketSession session) {
-            this.session = session;
-        }
-
-        @Override
-        public void flush() {
-            try {
-                if (session.isOpen()) {
-                    String message = this.toString();
-                    if (!message.isEmpty()) {
-                        synchronized (session) {
-                            if (session.isOpen()) {
-                                session.sendMessage(new TextMessage(message));
-                            }
-                        }
-                        getBuffer().setLength(0);
-                    }
-                }
-            } catch (IOException e) {
-                if (e.getMessage() != null && 
-                    (e.getMessage().contains("Broken pipe") || 
-                     e.getMessage().contains("Connection reset"))) {
-                    logger.debug("Connection already closed for session {}", session.getId());
-                } else {
-                    logger.warn("Error sending message via WebSocket for session {}: {}", session.getId().toString(), e.getMessage());
-                }
-            } catch (IllegalStateException e) {
-                logger.debug("Session {} already closed", session.getId());
-            }
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package websocket;
+
+/**
+ * What a session's outbound queue does when a new message arrives while it is full,
+ * i.e. when the client reads slower than the server produces messages for it.
+ */
+public enum OutboundOverflowPolicy {
+
+    /**
+     * Discards the new message.
+     */
+    DROP,
+
+    /**
+     * Discards the queued state update that the new message supersedes, such as an older
+     * health value of the same player. Disconnects the client if there is none, so events
+     * like game over or a trade proposal are never lost.
+     */
+    COALESCE,
+
+    /**
+     * Closes the session; the client reconnects and resynchronizes.
+     */
+    DISCONNECT
+}
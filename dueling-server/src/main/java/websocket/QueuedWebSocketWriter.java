@@ -0,0 +1,287 @@
+package websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writer behind a session's {@link java.io.PrintWriter}. Each flushed line is put on a bounded
+ * queue instead of being sent by the calling thread, so game and pub/sub threads never block
+ * on a client's socket.
+ * <p>
+ * A virtual thread per session drains the queue. Consecutive {@code UPDATE:} lines that piled
+ * up during the previous send go out as a single newline-separated frame, which clients split
+ * on newlines; every other line is sent as a frame of its own, as clients that do not split
+ * frames expect. That thread is the only one sending on the session, so other writers (e.g.
+ * heartbeat PONGs) must go through this writer too.
+ */
+final class QueuedWebSocketWriter extends Writer {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueuedWebSocketWriter.class);
+    private static final String UPDATE_PREFIX = "UPDATE:";
+    private static final String HEALTH_PREFIX = "UPDATE:HEALTH:";
+    private static final String RESOURCE_PREFIX = "UPDATE:RESOURCE:";
+
+    private final WebSocketSession session;
+    private final int capacity;
+    private final int maxFrameChars;
+    private final OutboundOverflowPolicy overflowPolicy;
+    private final WebSocketWriterFactory.OutboundMeters meters;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    private final StringBuilder pending = new StringBuilder();
+    private final ArrayDeque<QueuedLine> queue = new ArrayDeque<>();
+    private boolean closed;
+    private boolean disconnectRequested;
+
+    QueuedWebSocketWriter(WebSocketSession session, int capacity, int maxFrameChars,
+                          OutboundOverflowPolicy overflowPolicy, WebSocketWriterFactory.OutboundMeters meters) {
+        this.session = session;
+        this.capacity = capacity;
+        this.maxFrameChars = maxFrameChars;
+        this.overflowPolicy = overflowPolicy;
+        this.meters = meters;
+        Thread.ofVirtual().name("ws-out-" + session.getId()).start(this::drain);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        lock.lock();
+        try {
+            if (!closed) {
+                pending.append(cbuf, off, len);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues every complete line written since the last flush; a trailing partial line is
+     * queued as well, as the previous writer sent whatever was buffered.
+     */
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            if (closed || pending.isEmpty()) {
+                return;
+            }
+            long now = System.nanoTime();
+            int start = 0;
+            for (int i = 0; i <= pending.length(); i++) {
+                if (i == pending.length() || pending.charAt(i) == '\n') {
+                    int end = i > start && pending.charAt(i - 1) == '\r' ? i - 1 : i;
+                    if (end > start) {
+                        offer(new QueuedLine(pending.substring(start, end), now));
+                    }
+                    start = i + 1;
+                }
+            }
+            pending.setLength(0);
+            ready.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            meters.queued().addAndGet(-queue.size());
+            queue.clear();
+            pending.setLength(0);
+            ready.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held
+    private void offer(QueuedLine line) {
+        if (disconnectRequested) {
+            return;
+        }
+        if (queue.size() >= capacity) {
+            switch (overflowPolicy) {
+                case DROP -> {
+                    meters.dropped().increment();
+                    return;
+                }
+                case COALESCE -> {
+                    if (!evictSuperseded(line.text())) {
+                        requestDisconnect();
+                        return;
+                    }
+                    meters.coalesced().increment();
+                }
+                case DISCONNECT -> {
+                    requestDisconnect();
+                    return;
+                }
+            }
+        }
+        queue.addLast(line);
+        meters.queued().incrementAndGet();
+        meters.queueDepth().record(queue.size());
+    }
+
+    /**
+     * Removes the queued line that {@code text} supersedes, if any. Only state updates are
+     * superseded, by a newer update of the same state: a player's health, or the resources.
+     * Events such as game start or a trade proposal are never discarded.
+     */
+    private boolean evictSuperseded(String text) {
+        String state = stateOf(text);
+        if (state == null) {
+            return false;
+        }
+        Iterator<QueuedLine> it = queue.iterator();
+        while (it.hasNext()) {
+            if (state.equals(stateOf(it.next().text()))) {
+                it.remove();
+                meters.queued().decrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the state a line sets, e.g. {@code UPDATE:HEALTH:p1:} for {@code UPDATE:HEALTH:p1:7},
+     * or null if the line is an event rather than a state update
+     */
+    private static String stateOf(String text) {
+        if (text.startsWith(HEALTH_PREFIX)) {
+            // UPDATE:HEALTH:<player>:<points>
+            return text.substring(0, text.lastIndexOf(':') + 1);
+        }
+        if (text.startsWith(RESOURCE_PREFIX)) {
+            return RESOURCE_PREFIX;
+        }
+        return null;
+    }
+
+    private void requestDisconnect() {
+        disconnectRequested = true;
+        meters.disconnected().increment();
+        meters.queued().addAndGet(-queue.size());
+        queue.clear();
+    }
+
+    private void drain() {
+        while (true) {
+            List<QueuedLine> batch;
+            boolean disconnect;
+            lock.lock();
+            try {
+                while (queue.isEmpty() && !closed && !disconnectRequested) {
+                    ready.await();
+                }
+                if (closed) {
+                    return;
+                }
+                disconnect = disconnectRequested;
+                batch = disconnect ? List.of() : takeFrame();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            if (disconnect) {
+                logger.warn("Outbound queue of session {} overflowed; closing it", session.getId());
+                closeSession();
+                close();
+                return;
+            }
+            if (!send(batch)) {
+                close();
+                return;
+            }
+        }
+    }
+
+    // Called with the lock held
+    private List<QueuedLine> takeFrame() {
+        List<QueuedLine> batch = new ArrayList<>();
+        QueuedLine first = queue.pollFirst();
+        batch.add(first);
+        int chars = first.text().length() + 1;
+        if (first.text().startsWith(UPDATE_PREFIX)) {
+            while (!queue.isEmpty() && queue.peekFirst().text().startsWith(UPDATE_PREFIX)
+                    && chars + queue.peekFirst().text().length() < maxFrameChars) {
+                QueuedLine line = queue.pollFirst();
+                chars += line.text().length() + 1;
+                batch.add(line);
+            }
+        }
+        meters.queued().addAndGet(-batch.size());
+        return batch;
+    }
+
+    /**
+     * @return false if the session can no longer be written to
+     */
+    private boolean send(List<QueuedLine> batch) {
+        if (!session.isOpen()) {
+            logger.debug("Session {} is not open, discarding {} outbound messages", session.getId(), batch.size());
+            return false;
+        }
+        StringBuilder frame = new StringBuilder();
+        for (QueuedLine line : batch) {
+            if (!frame.isEmpty()) {
+                frame.append('\n');
+            }
+            frame.append(line.text());
+        }
+        try {
+            session.sendMessage(new TextMessage(frame.toString()));
+            meters.sendLatency().record(System.nanoTime() - batch.get(0).enqueuedAt(), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (IOException e) {
+            if (e.getMessage() != null &&
+                (e.getMessage().contains("Broken pipe") ||
+                 e.getMessage().contains("Connection reset"))) {
+                logger.debug("Connection already closed for session {}", session.getId());
+            } else {
+                logger.warn("Error sending message via WebSocket for session {}: {}", session.getId(), e.getMessage());
+            }
+        } catch (IllegalStateException e) {
+            logger.debug("Session {} already closed", session.getId());
+        }
+        return false;
+    }
+
+    private void closeSession() {
+        try {
+            if (session.isOpen()) {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE.withReason("Client is not reading messages"));
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Could not close session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private record QueuedLine(String text, long enqueuedAt) {
+    }
+}
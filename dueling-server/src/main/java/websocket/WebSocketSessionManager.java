@@ -92,6 +92,21 @@ public class WebSocketSessionManager {
         return playerWriters.get(playerId);
     }
 
+    /**
+     * @return true if the player has an open WebSocket session on this server
+     */
+    public boolean isPlayerConnected(String playerId) {
+        return playerWriters.containsKey(playerId);
+    }
+
+    /**
+     * @return the writer of the player connected through the given session, or null if none
+     */
+    public PrintWriter getSessionWriter(String sessionId) {
+        String playerId = sessionToPlayerId.get(sessionId);
+        return playerId != null ? playerWriters.get(playerId) : null;
+    }
+
     public PrintWriter removePlayerWriter(String playerId) {
         return playerWriters.remove(playerId);
     }
@@ -0,0 +1,76 @@
+package websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the {@link PrintWriter} through which the server writes to a WebSocket session.
+ * <p>
+ * Writers queue messages and send them from a dedicated virtual thread per session; see
+ * {@link QueuedWebSocketWriter}. Queue depth, time from queueing to sending and overflows are
+ * published as {@code dueling.websocket.outbound.depth}, {@code dueling.websocket.send.latency}
+ * and {@code dueling.websocket.outbound.overflow}; {@code dueling.websocket.outbound.queued}
+ * counts the messages waiting across all sessions.
+ */
+@Component
+public class WebSocketWriterFactory {
+
+    private final int capacity;
+    private final int maxFrameChars;
+    private final OutboundOverflowPolicy overflowPolicy;
+    private final OutboundMeters meters;
+
+    public WebSocketWriterFactory(MeterRegistry meterRegistry,
+                                  @Value("${websocket.outbound.capacity:256}") int capacity,
+                                  @Value("${websocket.outbound.max-frame-chars:16384}") int maxFrameChars,
+                                  @Value("${websocket.outbound.overflow-policy:COALESCE}") OutboundOverflowPolicy overflowPolicy) {
+        this.capacity = capacity;
+        this.maxFrameChars = maxFrameChars;
+        this.overflowPolicy = overflowPolicy;
+
+        AtomicInteger queued = new AtomicInteger();
+        Gauge.builder("dueling.websocket.outbound.queued", queued, AtomicInteger::get)
+                .description("Messages waiting to be sent across all WebSocket sessions")
+                .register(meterRegistry);
+        this.meters = new OutboundMeters(
+                queued,
+                DistributionSummary.builder("dueling.websocket.outbound.depth")
+                        .description("Depth of a session's outbound queue after queueing a message")
+                        .register(meterRegistry),
+                Timer.builder("dueling.websocket.send.latency")
+                        .description("Time from queueing a message until its frame was written")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                overflowCounter(meterRegistry, "dropped"),
+                overflowCounter(meterRegistry, "coalesced"),
+                overflowCounter(meterRegistry, "disconnected"));
+    }
+
+    /**
+     * Creates a writer for a newly connected session. Close it when the session closes so
+     * its sender thread ends.
+     */
+    public PrintWriter create(WebSocketSession session) {
+        return new PrintWriter(new QueuedWebSocketWriter(session, capacity, maxFrameChars, overflowPolicy, meters));
+    }
+
+    private static Counter overflowCounter(MeterRegistry meterRegistry, String action) {
+        return Counter.builder("dueling.websocket.outbound.overflow")
+                .description("Messages handled by the overflow policy of a full outbound queue")
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+
+    record OutboundMeters(AtomicInteger queued, DistributionSummary queueDepth, Timer sendLatency,
+                          Counter dropped, Counter coalesced, Counter disconnected) {
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.web.socket.WebSocketSession;
 import websocket.WebSocketSessionManager;
 
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.Map;
 
 @Service
@@ -67,6 +68,13 @@ public class WebSocketHeartbeatService {
     }
 
     private void sendPongSafely(WebSocketSession session) {
+        // The session's writer owns sending on it; PONGs queue behind pending messages
+        PrintWriter writer = sessionManager.getSessionWriter(session.getId());
+        if (writer != null) {
+            writer.println("PONG");
+            writer.flush();
+            return;
+        }
         try {
             if (session.isOpen()) {
                 synchronized (session) {
@@ -0,0 +1,92 @@
+package api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PeerRpcClientTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HttpServer server;
+    private String peer;
+    private PeerRpcClient client;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            respond(exchange, 200, new String(body, StandardCharsets.UTF_8));
+        });
+        server.createContext("/missing", exchange -> respond(exchange, 404, ""));
+        server.createContext("/slow", exchange -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "late");
+        });
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        peer = "http://localhost:" + server.getAddress().getPort();
+        client = new PeerRpcClient(new ObjectMapper(), meterRegistry, Duration.ofSeconds(2), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        client.stop();
+        server.stop(0);
+    }
+
+    @Test
+    void roundTripsJsonBodies() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> echoed = PeerRpcClient.await(client.post(peer, "/echo", Map.of("id", "p1"), Map.class));
+
+        assertThat(echoed).containsEntry("id", "p1");
+        assertThat(meterRegistry.get("dueling.peer.rpc").tag("peer", peer).tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void failsWithTheStatusOfAnErrorAnswer() {
+        assertThatThrownBy(() -> PeerRpcClient.await(client.get(peer, "/missing", String.class)))
+                .isInstanceOfSatisfying(PeerRpcException.class, e -> assertThat(e.getStatus()).isEqualTo(404));
+        assertThat(meterRegistry.get("dueling.peer.rpc").tag("outcome", "error").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void failsOnceTheDeadlinePasses() {
+        CompletableFuture<String> call = client.get(peer, "/slow", String.class, Duration.ofMillis(100));
+
+        assertThatThrownBy(() -> PeerRpcClient.await(call))
+                .isInstanceOfSatisfying(PeerRpcException.class, e -> assertThat(e.getStatus()).isZero());
+        assertThat(meterRegistry.get("dueling.peer.rpc").tag("outcome", "timeout").timer().count()).isEqualTo(1);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -24,6 +24,7 @@ public class TestRedissonConfig {
         
         // Mock the methods that are actually used by the application
         when(mockClient.getMap(anyString())).thenReturn(mock(org.redisson.api.RMap.class));
+        when(mockClient.getMap(anyString(), any(org.redisson.client.codec.Codec.class))).thenReturn(mock(org.redisson.api.RMap.class));
         when(mockClient.getBucket(anyString())).thenReturn(mock(org.redisson.api.RBucket.class));
         when(mockClient.getLock(anyString())).thenReturn(mock(org.redisson.api.RLock.class));
         
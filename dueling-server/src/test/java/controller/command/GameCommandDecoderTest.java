@@ -0,0 +1,58 @@
+package controller.command;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GameCommandDecoderTest {
+
+    @Test
+    void decodesWithOrWithoutOwnPrefix() {
+        GameCommand expected = new GameCommand.PlayCard("p1", "m1", "basic-0");
+
+        assertThat(GameCommandDecoder.decode("p1", "PLAY_CARD:m1:basic-0")).isEqualTo(expected);
+        assertThat(GameCommandDecoder.decode("p1", "GAME:p1:PLAY_CARD:m1:basic-0")).isEqualTo(expected);
+        assertThat(GameCommandDecoder.decodeFacadeFrame("GAME:p1:PLAY_CARD:m1:basic-0")).isEqualTo(expected);
+    }
+
+    @Test
+    void freeTextKeepsColons() {
+        assertThat(GameCommandDecoder.decode("p1", "IN_GAME_CHAT:m1:gg: well played"))
+                .isEqualTo(new GameCommand.InGameChat("p1", "m1", "gg: well played"));
+        assertThat(GameCommandDecoder.decode("p1", "PRIVATE_MESSAGE:p2:hi:there"))
+                .isEqualTo(new GameCommand.SendPrivateMessage("p1", "p2", "hi:there"));
+    }
+
+    @Test
+    void decodesArgumentsAfterTheAction() {
+        assertThat(GameCommandDecoder.decode("p1", "SEND_EMOTE:match:m1:wave"))
+                .isEqualTo(new GameCommand.SendEmote("p1", "match", "m1", "wave"));
+        assertThat(GameCommandDecoder.decode("p1", "TRADE:PROPOSE:p2: a,b :c"))
+                .isEqualTo(new GameCommand.ProposeTrade("p1", "p2", List.of("a", "b"), List.of("c")));
+        assertThat(GameCommandDecoder.decode("p1", "MATCHMAKING:ENTER"))
+                .isEqualTo(new GameCommand.EnterMatchmaking("p1", null));
+    }
+
+    @Test
+    void skipsEmptyCardIds() {
+        assertThat(GameCommandDecoder.decode("p1", "TRADE:PROPOSE:p2:a,,b,:c,"))
+                .isEqualTo(new GameCommand.ProposeTrade("p1", "p2", List.of("a", "b"), List.of("c")));
+    }
+
+    @Test
+    void rejectsIncompleteAndUnknownCommands() {
+        assertThat(GameCommandDecoder.decode("p1", "PLAY_CARD:m1"))
+                .isEqualTo(new GameCommand.Invalid("p1", "Incomplete PLAY_CARD command."));
+        assertThat(GameCommandDecoder.decode("p1", "CHARACTER_SETUP:nick"))
+                .isInstanceOf(GameCommand.Invalid.class);
+        assertThat(GameCommandDecoder.decode("p1", "TRADE:ACCEPT"))
+                .isEqualTo(new GameCommand.Invalid("p1", "Invalid trade command format or action."));
+        assertThat(GameCommandDecoder.decode("p1", "DANCE"))
+                .isEqualTo(new GameCommand.Invalid("p1", "Unknown command 'DANCE'."));
+        assertThatThrownBy(() -> GameCommandDecoder.decodeFacadeFrame("PLAY_CARD:m1:c1"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,62 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PlayerCardsTest {
+
+    @Test
+    void startsWithTheStarterDeckResolvedFromTheCatalog() {
+        Player player = new Player("p1", "alice");
+
+        assertThat(player.getCardCollection()).extracting(Card::getId)
+                .containsExactlyInAnyOrderElementsOf(CardCatalog.starterDeck());
+        assertThat(player.getCardCollection().get(0)).isSameAs(CardCatalog.find(player.getCardCollection().get(0).getId()).get());
+    }
+
+    @Test
+    void countsCopiesAndRemovesOnePerListedId() {
+        Player player = new Player("p1", "alice");
+        Card basic = CardCatalog.find("basic-0").get();
+
+        player.addCards(List.of(basic, basic));
+        assertThat(player.countCopies("basic-0")).isEqualTo(3);
+        assertThat(player.hasCards(List.of("basic-0", "basic-0", "basic-0"))).isTrue();
+        assertThat(player.hasCards(List.of("basic-0", "basic-0", "basic-0", "basic-0"))).isFalse();
+
+        assertThat(player.removeCards(List.of("basic-0", "basic-0"))).containsExactly(basic, basic);
+        assertThat(player.countCopies("basic-0")).isEqualTo(1);
+        assertThat(player.getCardCollection()).filteredOn(card -> card.getId().equals("basic-0")).hasSize(1);
+    }
+
+    @Test
+    void removesNothingWhenACardIsMissing() {
+        Player player = new Player("p1", "alice");
+
+        assertThatThrownBy(() -> player.removeCards(List.of("basic-0", "legendary-1")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(player.countCopies("basic-0")).isEqualTo(1);
+    }
+
+    @Test
+    void migratesTheLegacyJsonCollection() throws Exception {
+        Player player = new Player();
+        player.setId("p1");
+        player.setCardCollectionJson("[{\"id\":\"basic-1\",\"name\":\"Basic Card 1\"},"
+                + "{\"id\":\"basic-1\",\"name\":\"Basic Card 1\"},{\"id\":\"counter-1\",\"name\":\"Counter Spell\"}]");
+
+        Method postLoad = Player.class.getDeclaredMethod("migrateLegacyCardCollection");
+        postLoad.setAccessible(true);
+        postLoad.invoke(player);
+
+        assertThat(player.countCopies("basic-1")).isEqualTo(2);
+        assertThat(player.countCopies("counter-1")).isEqualTo(1);
+        assertThat(player.getCardCollectionJson()).isNull();
+        assertThat(player.hasUnsavedCardChanges()).isTrue();
+    }
+}
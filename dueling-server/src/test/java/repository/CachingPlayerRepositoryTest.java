@@ -0,0 +1,381 @@
+package repository;
+
+import api.registry.ServerIdentity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import model.Player;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import service.reward.DailyRewardService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingPlayerRepositoryTest {
+
+    private final PlayerRepositoryPostgreSQL delegate = mock(PlayerRepositoryPostgreSQL.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    // Listeners of every repository in the test by channel, standing in for Redis pub/sub
+    private final Map<String, List<MessageListener>> listeners = new ConcurrentHashMap<>();
+    private final ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.captor();
+    private CachingPlayerRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            publish(invocation.getArgument(0), invocation.getArgument(1));
+            return 1L;
+        }).when(redisTemplate).convertAndSend(anyString(), anyString());
+        repository = newRepository("server-1");
+    }
+
+    private void publish(String channel, String message) {
+        for (MessageListener listener : List.copyOf(listeners.getOrDefault(channel, List.of()))) {
+            listener.onMessage(new DefaultMessage(channel.getBytes(StandardCharsets.UTF_8),
+                    message.getBytes(StandardCharsets.UTF_8)), null);
+        }
+    }
+
+    private CachingPlayerRepository newRepository(String serverName) {
+        return newRepository(serverName, delegate, jdbcTemplate);
+    }
+
+    private CachingPlayerRepository newRepository(String serverName, PlayerRepositoryPostgreSQL delegate,
+                                                  JdbcTemplate jdbcTemplate) {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(mock(Cache.class));
+        RedisMessageListenerContainer listenerContainer = mock(RedisMessageListenerContainer.class);
+        doAnswer(invocation -> {
+            listeners.computeIfAbsent(invocation.<ChannelTopic>getArgument(1).getTopic(), channel -> new ArrayList<>())
+                    .add(invocation.getArgument(0));
+            return null;
+        }).when(listenerContainer).addMessageListener(any(MessageListener.class), any(ChannelTopic.class));
+        CachingPlayerRepository created = new CachingPlayerRepository(delegate, jdbcTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), entityManagerFactory,
+                redisTemplate, listenerContainer, new SimpleMeterRegistry(), 100, 60, 500,
+                new ServerIdentity(serverName, "8080"));
+        created.subscribe();
+        return created;
+    }
+
+    @Test
+    void readsEachPlayerFromTheDatabaseOnce() {
+        Player player = new Player("p1", "alice");
+        when(delegate.findById("p1")).thenReturn(Optional.of(player));
+
+        Player first = repository.findById("p1").orElseThrow();
+        Player second = repository.findById("p1").orElseThrow();
+
+        verify(delegate, times(1)).findById("p1");
+        assertThat(second.getNickname()).isEqualTo("alice");
+        // Each caller gets a copy of its own
+        assertThat(first).isNotSameAs(player).isNotSameAs(second);
+    }
+
+    @Test
+    void writesRepeatedUpdatesInOneBatch() {
+        Player alice = new Player("p1", "alice");
+        Player bob = new Player("p2", "bob");
+        alice.markSaved();
+        bob.markSaved();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1});
+
+        for (int i = 0; i < 10; i++) {
+            alice.setCoins(alice.getCoins() + 1);
+            repository.update(alice);
+            repository.update(bob);
+        }
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        repository.flush();
+        repository.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        // Coins are written as the amount they changed by
+        assertThat(rows.getValue()).extracting(row -> row[1]).containsExactlyInAnyOrder(10, 0);
+        verify(delegate, never()).save(any());
+        verify(redisTemplate).convertAndSend(eq(CachingPlayerRepository.INVALIDATION_CHANNEL), anyString());
+    }
+
+    @Test
+    void keepsConcurrentChangesToTheSamePlayer() throws Exception {
+        Player alice = new Player("p1", "alice");
+        alice.markSaved();
+        when(delegate.findById("p1")).thenReturn(Optional.of(alice));
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+
+        List<Future<?>> changes = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            changes.add(threads.submit(() -> {
+                Player player = repository.findById("p1").orElseThrow();
+                player.setCoins(player.getCoins() + 1);
+                repository.update(player);
+            }));
+        }
+        for (Future<?> change : changes) {
+            change.get(5, TimeUnit.SECONDS);
+        }
+        threads.shutdown();
+
+        assertThat(repository.findById("p1")).get().extracting(Player::getCoins).isEqualTo(1400);
+    }
+
+    @Test
+    void writesTheStateThePlayerHadWhenSaved() {
+        Player alice = new Player("p1", "alice");
+        alice.markSaved();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+
+        alice.setCoins(500);
+        repository.update(alice);
+        alice.setCoins(0);
+        repository.flush();
+
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertThat(rows.getValue().get(0)[1]).isEqualTo(-500);
+    }
+
+    @Test
+    void keepsPlayersDirtyWhenTheBatchFails() {
+        Player alice = new Player("p1", "alice");
+        alice.markSaved();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(new int[]{0});
+
+        repository.update(alice);
+        repository.flush();
+        repository.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        // The row did not exist, so the retry inserts it through JPA
+        verify(delegate).save(argThat(player -> player.getId().equals("p1")));
+        assertThat(repository.findById("p1")).isPresent();
+        verify(delegate, never()).findById("p1");
+    }
+
+    @Test
+    void savesUnseenPlayersImmediately() {
+        Player alice = new Player("p1", "alice");
+
+        repository.save(alice);
+
+        verify(delegate).save(argThat(player -> player.getNickname().equals("alice")));
+        assertThat(repository.findById("p1")).get().extracting(Player::getNickname).isEqualTo("alice");
+        repository.flush();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void writesCardChangesAsCountChanges() {
+        Player alice = new Player("p1", "alice");
+        alice.markSaved();
+        alice.removeCards(List.of("basic-0"));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+
+        repository.update(alice);
+        repository.flush();
+
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO player_cards"), rows.capture());
+        assertThat(rows.getValue()).containsExactly(new Object[]{"p1", "basic-0", -1});
+        verify(jdbcTemplate).batchUpdate(startsWith("DELETE FROM player_cards"), anyList());
+        verify(delegate, never()).save(any());
+        assertThat(alice.hasUnsavedCardChanges()).isFalse();
+    }
+
+    @Test
+    void reappliesLocalChangesOnTopOfAnotherServersWrite() {
+        InMemoryPlayerDatabase database = new InMemoryPlayerDatabase();
+        database.insert(new Player("p1", "alice"));
+        CachingPlayerRepository local = newRepository("server-1", database.delegate(), database.jdbcTemplate());
+        CachingPlayerRepository other = newRepository("server-2", database.delegate(), database.jdbcTemplate());
+        Player won = local.findById("p1").orElseThrow();
+        Player bought = other.findById("p1").orElseThrow();
+
+        // This server rewards a win while the other one settles a purchase
+        won.setUpgradePoints(won.getUpgradePoints() + 10);
+        local.update(won);
+        bought.setCoins(bought.getCoins() - 100);
+        other.saveAndFlush(bought);
+
+        assertThat(local.findById("p1")).get().extracting(Player::getCoins, Player::getUpgradePoints)
+                .containsExactly(900, 10);
+        local.flush();
+        assertThat(database.read("p1")).extracting(Player::getCoins, Player::getUpgradePoints)
+                .containsExactly(900, 10);
+    }
+
+    @Test
+    void readsTheLatestStoredStateAndKeepsLocalChanges() {
+        InMemoryPlayerDatabase database = new InMemoryPlayerDatabase();
+        database.insert(new Player("p1", "alice"));
+        CachingPlayerRepository cache = newRepository("server-1", database.delegate(), database.jdbcTemplate());
+        Player alice = cache.findById("p1").orElseThrow();
+        alice.setUpgradePoints(10);
+        cache.update(alice);
+
+        // Another server's purchase, whose invalidation has not arrived yet
+        database.addCoins("p1", -300);
+
+        assertThat(cache.findById("p1")).get().extracting(Player::getCoins).isEqualTo(1000);
+        assertThat(cache.findLatestById("p1")).get().extracting(Player::getCoins, Player::getUpgradePoints)
+                .containsExactly(700, 10);
+        assertThat(cache.findById("p1")).get().extracting(Player::getCoins).isEqualTo(700);
+        cache.flush();
+        assertThat(database.read("p1")).extracting(Player::getCoins, Player::getUpgradePoints)
+                .containsExactly(700, 10);
+    }
+
+    @Test
+    void cachesAWrittenPlayerOnlyOnceItsTransactionCommits() {
+        InMemoryPlayerDatabase database = new InMemoryPlayerDatabase();
+        database.insert(new Player("p1", "alice"));
+        CachingPlayerRepository cache = newRepository("server-1", database.delegate(), database.jdbcTemplate());
+        TransactionTemplate transactions = new TransactionTemplate(new NoOpTransactionManager());
+        Player alice = cache.findLatestById("p1").orElseThrow();
+        alice.setCoins(900);
+
+        transactions.executeWithoutResult(status -> {
+            cache.saveAndFlush(alice);
+            status.setRollbackOnly();
+        });
+
+        assertThat(cache.findById("p1")).get().extracting(Player::getCoins).isEqualTo(1000);
+        verify(redisTemplate, never()).convertAndSend(eq(CachingPlayerRepository.INVALIDATION_CHANNEL), anyString());
+
+        transactions.executeWithoutResult(status -> cache.saveAndFlush(alice));
+
+        assertThat(cache.findById("p1")).get().extracting(Player::getCoins).isEqualTo(900);
+        verify(redisTemplate).convertAndSend(eq(CachingPlayerRepository.INVALIDATION_CHANNEL), anyString());
+    }
+
+    @Test
+    void ignoresItsOwnInvalidations() {
+        CachingPlayerRepository other = newRepository("server-2");
+        Player alice = new Player("p1", "alice");
+        when(delegate.findById("p1")).thenReturn(Optional.of(alice));
+        other.findById("p1");
+
+        repository.saveAndFlush(alice);
+
+        assertThat(repository.findById("p1")).isPresent();
+        other.findById("p1");
+        // Only the other server dropped its copy and read the player again
+        verify(delegate, times(2)).findById("p1");
+    }
+
+    @Test
+    void keepsARewardGrantedBeforeTheFlush() {
+        InMemoryPlayerDatabase database = new InMemoryPlayerDatabase();
+        database.insert(new Player("p1", "alice"));
+        CachingPlayerRepository cache = newRepository("server-1", database.delegate(), database.jdbcTemplate());
+        Player alice = cache.findById("p1").orElseThrow();
+        alice.setCoins(alice.getCoins() - 100);
+        cache.update(alice);
+
+        // The reward is in the database, but its message has not arrived when the flush runs
+        database.addCoins("p1", 50);
+        cache.flush();
+        publish(DailyRewardService.REWARD_CHANNEL, "50\np1");
+
+        assertThat(database.read("p1").getCoins()).isEqualTo(950);
+        assertThat(cache.findById("p1")).get().extracting(Player::getCoins).isEqualTo(950);
+    }
+
+    @Test
+    void doesNotWriteARewardAddedToADirtyPlayer() {
+        InMemoryPlayerDatabase database = new InMemoryPlayerDatabase();
+        database.insert(new Player("p1", "alice"));
+        CachingPlayerRepository cache = newRepository("server-1", database.delegate(), database.jdbcTemplate());
+        Player alice = cache.findById("p1").orElseThrow();
+        alice.setCoins(alice.getCoins() - 100);
+        cache.update(alice);
+
+        database.addCoins("p1", 50);
+        publish(DailyRewardService.REWARD_CHANNEL, "50\np1");
+        assertThat(cache.findById("p1")).get().extracting(Player::getCoins).isEqualTo(950);
+        cache.flush();
+
+        assertThat(database.read("p1").getCoins()).isEqualTo(950);
+    }
+
+    @Test
+    void keepsRewardsGrantedWhileABatchIsInFlight() {
+        InMemoryPlayerDatabase database = new InMemoryPlayerDatabase();
+        database.insert(new Player("p1", "alice"));
+        CachingPlayerRepository cache = newRepository("server-1", database.delegate(), database.jdbcTemplate());
+        Player alice = cache.findById("p1").orElseThrow();
+        alice.setCoins(100);
+        cache.update(alice);
+        database.beforeNextBatch(() -> {
+            // The reward lands in the database while this batch is being written
+            database.addCoins("p1", 50);
+            publish(DailyRewardService.REWARD_CHANNEL, "50\np1");
+        });
+
+        cache.flush();
+        cache.flush();
+
+        assertThat(database.read("p1").getCoins()).isEqualTo(150);
+        assertThat(cache.findById("p1")).get().extracting(Player::getCoins).isEqualTo(150);
+    }
+
+    /**
+     * Runs transaction synchronizations like a real transaction manager, without a database.
+     */
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
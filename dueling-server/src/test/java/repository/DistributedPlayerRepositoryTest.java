@@ -0,0 +1,194 @@
+package repository;
+
+import api.ServerApiClient;
+import api.registry.ServerIdentity;
+import api.registry.ServerRegistry;
+import common.cluster.ConsistentHashRing;
+import model.Player;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DistributedPlayerRepositoryTest {
+
+    private static final String SERVER_1 = "http://server-1:8080";
+    private static final String SERVER_2 = "http://server-2:8080";
+
+    // Servers that are running, by URL; calls to any other server fail
+    private final Map<String, Node> cluster = new ConcurrentHashMap<>();
+
+    @Test
+    void movesPlayersToAServerThatJoins() {
+        Node first = start("server-1", SERVER_1);
+        List<String> ids = savePlayers(first, 40);
+
+        Node second = start("server-2", SERVER_1, SERVER_2);
+        first.registry().registerServer(SERVER_2);
+
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of(SERVER_1, SERVER_2));
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            for (String id : ids) {
+                boolean ownedBySecond = ring.nodeFor(id).equals(SERVER_2);
+                assertThat(second.storage().findById(id).isPresent()).as(id).isEqualTo(ownedBySecond);
+                assertThat(first.storage().findById(id).isPresent()).as(id).isEqualTo(!ownedBySecond);
+            }
+        });
+        for (String id : ids) {
+            assertThat(first.repository().findById(id)).as(id).isPresent();
+            assertThat(second.repository().findById(id)).as(id).isPresent();
+        }
+    }
+
+    @Test
+    void pullsPlayersThePreviousOwnerHasNotHandedOverYet() {
+        Node first = start("server-1", SERVER_1);
+        List<String> ids = savePlayers(first, 40);
+        // The new server already sees both, the old one has not heard of it yet
+        Node second = start("server-2", SERVER_1, SERVER_2);
+        String moved = ids.stream()
+                .filter(id -> ConsistentHashRing.of(List.of(SERVER_1, SERVER_2)).nodeFor(id).equals(SERVER_2))
+                .findFirst()
+                .orElseThrow();
+
+        Player pulled = second.repository().findById(moved).orElseThrow();
+        pulled.setCoins(pulled.getCoins() + 100);
+        second.repository().save(pulled);
+        first.registry().registerServer(SERVER_2);
+
+        assertThat(first.storage().findById(moved)).isEmpty();
+        // The background handoff does not send the old copy over the new owner's
+        verify(first.client(), after(500).never())
+                .handOverPlayer(eq(SERVER_2), argThat(player -> player.getId().equals(moved)));
+        assertThat(second.repository().findById(moved)).get().extracting(Player::getCoins)
+                .isEqualTo(pulled.getCoins());
+    }
+
+    @Test
+    void theServersThatStayTakeOverTheLeavingServersPlayers() {
+        Node first = start("server-1", SERVER_1, SERVER_2);
+        Node second = start("server-2", SERVER_1, SERVER_2);
+        List<String> ids = savePlayers(first, 40);
+        assertThat(second.storage().findAllIds()).isNotEmpty();
+
+        second.repository().stop();
+        cluster.remove(SERVER_2);
+        first.registry().unregisterServer(SERVER_2);
+
+        assertThat(second.storage().findAllIds()).isEmpty();
+        for (String id : ids) {
+            assertThat(first.repository().findById(id)).as(id).isPresent();
+        }
+    }
+
+    @Test
+    void keepsTheStoredCopyOverOneHandedOverLater() {
+        Node first = start("server-1", SERVER_1);
+        Player stored = new Player("player-1", "alice");
+        stored.setCoins(500);
+        first.storage().save(stored);
+
+        first.repository().receive(new Player("player-1", "alice"));
+
+        assertThat(first.storage().findById("player-1")).get().extracting(Player::getCoins).isEqualTo(500);
+    }
+
+    private List<String> savePlayers(Node node, int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Half of the IDs are stored under a sanitized file name
+            String id = i % 2 == 0 ? "player-" + i : "player " + i + "@example.com";
+            node.repository().save(new Player(id, "name-" + i));
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private Node start(String serverName, String... members) {
+        StoredPlayers storage = new StoredPlayers();
+        ServerRegistry registry = new ServerRegistry();
+        ServerApiClient client = mock(ServerApiClient.class);
+        when(client.getPlayer(anyString(), anyString())).thenAnswer(invocation ->
+                peer(invocation.getArgument(0)).repository().findById(invocation.getArgument(1)).orElse(null));
+        doAnswer(invocation -> {
+            peer(invocation.getArgument(0)).repository().save(invocation.getArgument(1));
+            return null;
+        }).when(client).savePlayer(anyString(), any(Player.class));
+        doAnswer(invocation -> {
+            peer(invocation.getArgument(0)).repository().receive(invocation.getArgument(1));
+            return null;
+        }).when(client).handOverPlayer(anyString(), any(Player.class));
+        when(client.takePlayer(anyString(), anyString())).thenAnswer(invocation ->
+                peer(invocation.getArgument(0)).repository().handOver(invocation.getArgument(1)).orElse(null));
+
+        DistributedPlayerRepository repository = new DistributedPlayerRepository(storage, registry, client,
+                new ServerIdentity(serverName, "8080"));
+        Node node = new Node(repository, storage, registry, client);
+        cluster.put("http://" + serverName + ":8080", node);
+        for (String member : members) {
+            registry.registerServer(member);
+        }
+        return node;
+    }
+
+    private Node peer(String url) {
+        Node node = cluster.get(url);
+        if (node == null) {
+            throw new IllegalStateException("Could not call " + url);
+        }
+        return node;
+    }
+
+    private record Node(DistributedPlayerRepository repository, StoredPlayers storage, ServerRegistry registry,
+                        ServerApiClient client) {
+    }
+
+    /**
+     * Keeps the players in memory, under sanitized IDs like the JSON files.
+     */
+    private static class StoredPlayers extends PlayerRepositoryJson {
+
+        private final Map<String, Player> players = new ConcurrentHashMap<>();
+
+        @Override
+        public void save(Player player) {
+            players.put(sanitize(player.getId()), player);
+        }
+
+        @Override
+        public Optional<Player> findById(String id) {
+            return Optional.ofNullable(players.get(sanitize(id)));
+        }
+
+        @Override
+        public List<String> findAllIds() {
+            return players.values().stream().map(Player::getId).toList();
+        }
+
+        @Override
+        public void deleteById(String id) {
+            players.remove(sanitize(id));
+        }
+
+        private static String sanitize(String id) {
+            return id.replaceAll("[^a-zA-Z0-9\\-_.]", "_");
+        }
+    }
+}
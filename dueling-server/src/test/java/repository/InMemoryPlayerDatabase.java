@@ -0,0 +1,131 @@
+package repository;
+
+import model.CardCatalog;
+import model.Player;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The players table in memory, behind a {@link PlayerRepositoryPostgreSQL} and a
+ * {@link JdbcTemplate} that apply the statements {@link CachingPlayerRepository} writes with.
+ */
+public class InMemoryPlayerDatabase {
+
+    private final Map<String, Player> rows = new ConcurrentHashMap<>();
+    private final PlayerRepositoryPostgreSQL delegate = mock(PlayerRepositoryPostgreSQL.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<Runnable> beforeNextBatch = Collections.synchronizedList(new ArrayList<>());
+
+    public InMemoryPlayerDatabase() {
+        when(delegate.findById(anyString())).thenAnswer(invocation -> Optional.ofNullable(read(invocation.getArgument(0))));
+        when(delegate.findLatestById(anyString())).thenAnswer(invocation -> Optional.ofNullable(read(invocation.getArgument(0))));
+        doAnswer(invocation -> {
+            insert(invocation.getArgument(0));
+            return null;
+        }).when(delegate).save(any(Player.class));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenAnswer(invocation -> batchUpdate(invocation.getArgument(0), invocation.getArgument(1)));
+    }
+
+    public PlayerRepositoryPostgreSQL delegate() {
+        return delegate;
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public synchronized void insert(Player player) {
+        rows.put(player.getId(), player.copy());
+    }
+
+    /**
+     * @return the stored player as JPA would load it, or null
+     */
+    public synchronized Player read(String id) {
+        Player row = rows.get(id);
+        if (row == null) {
+            return null;
+        }
+        Player loaded = row.copy();
+        loaded.markSaved();
+        return loaded;
+    }
+
+    /**
+     * Adds coins straight to the row, as the daily reward job does.
+     */
+    public synchronized void addCoins(String id, int amount) {
+        Player row = rows.get(id);
+        row.setCoins(row.getCoins() + amount);
+    }
+
+    /**
+     * Runs an action right before the next batch is applied, e.g. another write landing first.
+     */
+    public void beforeNextBatch(Runnable action) {
+        beforeNextBatch.add(action);
+    }
+
+    private int[] batchUpdate(String sql, List<Object[]> args) {
+        List<Runnable> actions;
+        synchronized (beforeNextBatch) {
+            actions = List.copyOf(beforeNextBatch);
+            beforeNextBatch.clear();
+        }
+        actions.forEach(Runnable::run);
+        synchronized (this) {
+            int[] counts = new int[args.size()];
+            for (int i = 0; i < args.size(); i++) {
+                counts[i] = apply(sql, args.get(i));
+            }
+            return counts;
+        }
+    }
+
+    private int apply(String sql, Object[] args) {
+        if (sql.startsWith("UPDATE players")) {
+            Player row = rows.get((String) args[10]);
+            if (row == null) {
+                return 0;
+            }
+            row.setNickname((String) args[0]);
+            row.setCoins(Math.max(row.getCoins() + (Integer) args[1], 0));
+            row.setPlayerRace((String) args[2]);
+            row.setPlayerClass((String) args[3]);
+            row.setHealthPoints((Integer) args[4]);
+            row.setUpgradePoints(Math.max(row.getUpgradePoints() + (Integer) args[5], 0));
+            row.setBaseAttack((Integer) args[6]);
+            row.setBaseDefense((Integer) args[7]);
+            row.setBaseMana((Integer) args[8]);
+            row.setCardCollectionJson((String) args[9]);
+            return 1;
+        }
+        if (sql.startsWith("INSERT INTO player_cards")) {
+            Player row = rows.get((String) args[0]);
+            String cardId = (String) args[1];
+            int change = (Integer) args[2];
+            if (change > 0) {
+                row.addCards(Collections.nCopies(change, CardCatalog.find(cardId).orElseThrow()));
+            } else {
+                row.removeCards(Collections.nCopies(-change, cardId));
+            }
+            return 1;
+        }
+        // Emptied card rows are already gone
+        return 1;
+    }
+}
@@ -0,0 +1,143 @@
+package service.journal;
+
+import api.registry.ServerIdentity;
+import controller.GameFacade;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.Card;
+import model.GameSession;
+import model.Player;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import repository.CardRepository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MatchJournalTest {
+
+    private static final String NODE = "http://server-1:8080";
+
+    @TempDir
+    Path dir;
+
+    private final GameFacade facade = mock(GameFacade.class);
+    private final CardRepository cardRepository = mock(CardRepository.class);
+    private final List<MatchJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        journals.forEach(MatchJournal::close);
+    }
+
+    @Test
+    void rebuildsAMatchFromItsLatestSnapshotAndTheInputsAfterIt() throws Exception {
+        MatchJournal journal = open(3, 1 << 20);
+        GameSession session = startMatch(journal, "m1");
+
+        for (int i = 0; i < 5; i++) {
+            playCheapestCard(journal, session);
+        }
+        journal.close();
+
+        Optional<GameSession> rebuilt = open(3, 1 << 20).recover(NODE, "m1", facade);
+
+        assertThat(rebuilt).isPresent();
+        GameSession copy = rebuilt.get();
+        assertThat(copy.getTurnManager().getTurn()).isEqualTo(session.getTurnManager().getTurn());
+        assertThat(copy.getTurnManager().getCurrentPlayerId()).isEqualTo(session.getTurnManager().getCurrentPlayerId());
+        for (Player player : List.of(session.getPlayer1(), session.getPlayer2())) {
+            assertThat(copy.getPlayer(player.getId()).getHealthPoints()).isEqualTo(player.getHealthPoints());
+            assertThat(copy.getPlayerStateManager().getHand(player.getId())).extracting(Card::getId)
+                    .isEqualTo(session.getPlayerStateManager().getHand(player.getId()).stream().map(Card::getId).toList());
+        }
+    }
+
+    @Test
+    void doesNotRebuildFinishedMatches() throws Exception {
+        MatchJournal journal = open(16, 1 << 20);
+        GameSession session = startMatch(journal, "m1");
+        journal.recordEnd("m1", session.getPlayer1().getId(), session.getPlayer2().getId());
+
+        assertThat(journal.recover(NODE, "m1", facade)).isEmpty();
+        assertThat(journal.recover(NODE, "unknown", facade)).isEmpty();
+    }
+
+    @Test
+    void rebuildsSeveralMatchesFromOneRead() throws Exception {
+        MatchJournal journal = open(3, 1 << 20);
+        GameSession first = startMatch(journal, "m1");
+        GameSession second = startMatch(journal, "m2");
+        startMatch(journal, "m3");
+        journal.recordEnd("m3", null, null);
+        playCheapestCard(journal, first);
+        playCheapestCard(journal, second);
+        playCheapestCard(journal, first);
+
+        Map<String, GameSession> rebuilt = journal.recoverAll(NODE, List.of("m1", "m2", "m3", "unknown"), facade);
+
+        assertThat(rebuilt).containsOnlyKeys("m1", "m2");
+        assertThat(rebuilt.get("m1").getTurnManager().getTurn()).isEqualTo(first.getTurnManager().getTurn());
+        assertThat(rebuilt.get("m2").getTurnManager().getTurn()).isEqualTo(second.getTurnManager().getTurn());
+    }
+
+    @Test
+    void rollsOverToNewSegmentsAndReplaysThemInOrder() throws Exception {
+        MatchJournal journal = open(1000, 4096);
+        GameSession session = startMatch(journal, "m1");
+        for (int i = 0; i < 300; i++) {
+            journal.recordDeadline("m1", false, false);
+        }
+
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(NODE, records::add);
+
+        assertThat(records).hasSize(301);
+        assertThat(records.get(0).type()).isEqualTo(JournalRecord.Type.START);
+        assertThat(records.get(0).matchId()).isEqualTo(session.getMatchId());
+        assertThat(records).extracting(JournalRecord::timestamp).isSorted();
+    }
+
+    private MatchJournal open(int snapshotEvery, int segmentBytes) throws Exception {
+        when(cardRepository.findById(anyString())).thenReturn(Optional.empty());
+        MatchJournal journal = new MatchJournal(cardRepository, new SimpleMeterRegistry(), dir.toString(),
+                segmentBytes, 64, snapshotEvery, new ServerIdentity("server-1", "8080"));
+        journal.open();
+        journals.add(journal);
+        return journal;
+    }
+
+    private GameSession startMatch(MatchJournal journal, String matchId) {
+        Player p1 = new Player("p1", "alice");
+        Player p2 = new Player("p2", "bob");
+        GameSession session = new GameSession(matchId, p1, p2, new ArrayList<>(p1.getCardCollection()),
+                new ArrayList<>(p2.getCardCollection()), facade, cardRepository);
+        session.startGame();
+        journal.recordStart(session);
+        return session;
+    }
+
+    private void playCheapestCard(MatchJournal journal, GameSession session) {
+        String playerId = session.getTurnManager().getCurrentPlayerId();
+        Optional<Card> card = session.getPlayerStateManager().getHand(playerId).stream()
+                .filter(c -> c.getManaCost() <= session.getPlayerStateManager().getResource(playerId))
+                .min(Comparator.comparingInt(Card::getManaCost));
+        if (card.isEmpty()) {
+            journal.recordDeadline(session.getMatchId(), true, false);
+            session.expireTurn();
+        } else {
+            journal.recordPlayCard(session.getMatchId(), playerId, card.get().getId());
+            session.playCard(playerId, card.get().getId());
+        }
+        journal.inputApplied(session);
+    }
+}
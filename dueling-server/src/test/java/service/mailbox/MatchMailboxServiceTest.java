@@ -0,0 +1,98 @@
+package service.mailbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MatchMailboxServiceTest {
+
+    private final MatchMailboxService mailboxes = new MatchMailboxService(new SimpleMeterRegistry());
+
+    @AfterEach
+    void stop() {
+        mailboxes.stop();
+    }
+
+    @Test
+    void runsTasksOfOneMatchInOrderAndNeverConcurrently() throws Exception {
+        int posters = 8;
+        int tasksPerPoster = 500;
+        List<String> order = new CopyOnWriteArrayList<>();
+        AtomicBoolean running = new AtomicBoolean();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(posters * tasksPerPoster);
+
+        Thread[] threads = new Thread[posters];
+        for (int p = 0; p < posters; p++) {
+            int poster = p;
+            threads[p] = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < tasksPerPoster; i++) {
+                    int task = i;
+                    mailboxes.post("match-1", () -> {
+                        if (!running.compareAndSet(false, true)) {
+                            overlaps.incrementAndGet();
+                        }
+                        order.add(poster + ":" + task);
+                        running.set(false);
+                        done.countDown();
+                    });
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(overlaps).hasValue(0);
+        for (int p = 0; p < posters; p++) {
+            String prefix = p + ":";
+            List<String> fromPoster = order.stream().filter(entry -> entry.startsWith(prefix)).toList();
+            assertThat(fromPoster).hasSize(tasksPerPoster);
+            for (int i = 0; i < tasksPerPoster; i++) {
+                assertThat(fromPoster.get(i)).isEqualTo(prefix + i);
+            }
+        }
+    }
+
+    @Test
+    void differentMatchesRunInParallel() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        for (String matchId : List.of("match-1", "match-2")) {
+            mailboxes.post(matchId, () -> {
+                bothStarted.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+    }
+
+    @Test
+    void keepsWorkingAfterAFailedTask() throws Exception {
+        CountDownLatch ran = new CountDownLatch(1);
+
+        mailboxes.post("match-1", () -> {
+            throw new IllegalStateException("boom");
+        });
+        mailboxes.post("match-1", ran::countDown);
+
+        assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
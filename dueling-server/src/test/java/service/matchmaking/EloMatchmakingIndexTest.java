@@ -0,0 +1,94 @@
+package service.matchmaking;
+
+import model.Player;
+import model.PlayerRanking;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EloMatchmakingIndexTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void pairsNearestRatingWithinWindow() {
+        EloMatchmakingIndex index = new EloMatchmakingIndex();
+        index.add(player("a", 1200), START);
+        index.add(player("b", 1290), START);
+        index.add(player("c", 1230), START);
+
+        List<PlayerWithDeck[]> pairs = index.pollPairs(10, START);
+
+        assertThat(pairs).hasSize(1);
+        assertThat(ids(pairs.get(0))).containsExactly("a", "c");
+        assertThat(index.contains("b")).isTrue();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void windowWidensWithWaitingTime() {
+        EloMatchmakingIndex index = new EloMatchmakingIndex();
+        index.add(player("a", 1200), START);
+        index.add(player("b", 1400), START);
+
+        assertThat(index.pollPairs(10, START + 1_000)).isEmpty();
+        List<PlayerWithDeck[]> pairs = index.pollPairs(10, START + 4_000);
+
+        assertThat(pairs).hasSize(1);
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void claimTakesClosestRatingWithinWindow() {
+        EloMatchmakingIndex index = new EloMatchmakingIndex();
+        index.add(player("a", 1100), START);
+        index.add(player("b", 1260), START);
+        index.add(player("c", 1500), START);
+
+        assertThat(index.pollNearest(1200, 150).map(p -> p.getPlayer().getId())).contains("b");
+        assertThat(index.pollNearest(1200, 50)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void requeuedPlayerKeepsWaitingTime() {
+        EloMatchmakingIndex index = new EloMatchmakingIndex();
+        index.add(player("a", 1200), START);
+        index.add(player("b", 1400), START + 4_000);
+
+        List<PlayerWithDeck> polled = index.pollOldest(1, candidate -> true);
+        index.add(polled.get(0), START + 4_000);
+
+        assertThat(index.pollPairs(10, START + 4_000)).hasSize(1);
+    }
+
+    @Test
+    void pollOldestLeavesUnwantedPlayersQueued() {
+        EloMatchmakingIndex index = new EloMatchmakingIndex();
+        index.add(player("a", 1200), START);
+        index.add(player("b", 1800), START + 1_000);
+        index.add(player("c", 1850), START + 2_000);
+
+        List<PlayerWithDeck> polled = index.pollOldest(1, candidate -> EloMatchmakingIndex.ratingOf(candidate.getPlayer()) > 1500);
+
+        assertThat(polled).extracting(candidate -> candidate.getPlayer().getId()).containsExactly("b");
+        assertThat(index.contains("a")).isTrue();
+        assertThat(index.contains("c")).isTrue();
+    }
+
+    private static PlayerWithDeck player(String id, int elo) {
+        Player player = new Player();
+        player.setId(id);
+        player.setNickname(id);
+        PlayerRanking ranking = new PlayerRanking();
+        ranking.setEloRating(elo);
+        player.setPlayerRanking(ranking);
+        return new PlayerWithDeck(player, null);
+    }
+
+    private static List<String> ids(PlayerWithDeck[] pair) {
+        return List.of(pair[0].getPlayer().getId(), pair[1].getPlayer().getId());
+    }
+}
@@ -0,0 +1,83 @@
+package service.matchmaking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.Match;
+import model.Player;
+import model.PlayerRanking;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MatchmakingEngineTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MatchmakingService matchmakingService = new LocalDevMatchmakingService(null, meterRegistry);
+    private final CrossServerMatchmakingService crossServer = mock(CrossServerMatchmakingService.class);
+    private final LinkedBlockingQueue<Match> started = new LinkedBlockingQueue<>();
+    private MatchmakingEngine engine;
+
+    @BeforeEach
+    void start() {
+        when(crossServer.exchangePartners()).thenReturn(List.of());
+        engine = new MatchmakingEngine(matchmakingService, crossServer, meterRegistry);
+        engine.start();
+        engine.setMatchStarter(started::add);
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        engine.stop();
+    }
+
+    @Test
+    void pairsPlayersAsSoonAsTheyEnterTheQueue() throws InterruptedException {
+        matchmakingService.addPlayerToQueue(player("a", 1200));
+        matchmakingService.addPlayerToQueue(player("b", 1250));
+
+        Match match = started.poll(500, TimeUnit.MILLISECONDS);
+
+        assertThat(match).isNotNull();
+        assertThat(List.of(match.getPlayer1().getId(), match.getPlayer2().getId())).containsExactlyInAnyOrder("a", "b");
+        assertThat(matchmakingService.queueSize()).isZero();
+    }
+
+    @Test
+    void retriesWithoutSignalsWhileRatingWindowsWiden() throws InterruptedException {
+        // 150 apart: out of the base window, in range after two seconds of waiting
+        matchmakingService.addPlayerToQueue(player("a", 1200));
+        matchmakingService.addPlayerToQueue(player("b", 1350));
+
+        assertThat(started.poll(500, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(started.poll(3, TimeUnit.SECONDS)).isNotNull();
+        verify(crossServer, atLeast(2)).exchangePartners();
+    }
+
+    @Test
+    void idlesWhileTheQueueIsEmpty() throws InterruptedException {
+        Thread.sleep(300);
+        double passes = meterRegistry.counter("dueling.matchmaking.passes").count();
+        Thread.sleep(1_500);
+
+        assertThat(meterRegistry.counter("dueling.matchmaking.passes").count()).isEqualTo(passes);
+    }
+
+    private static Player player(String id, int elo) {
+        Player player = new Player();
+        player.setId(id);
+        player.setNickname(id);
+        PlayerRanking ranking = new PlayerRanking();
+        ranking.setEloRating(elo);
+        player.setPlayerRanking(ranking);
+        return player;
+    }
+}
@@ -0,0 +1,161 @@
+package service.store;
+
+import api.registry.ServerIdentity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import model.Card;
+import model.CardPack;
+import model.Player;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.CachingPlayerRepository;
+import repository.InMemoryPlayerDatabase;
+import repository.PlayerRepository;
+import service.lock.LockService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StoreServiceImplTest {
+
+    private static final int PACK_COST = 100;
+
+    @Test
+    void concurrentPurchasesCannotSpendTheSameCoins() throws Exception {
+        StoredPlayerRepository playerRepository = new StoredPlayerRepository(PACK_COST);
+        StoreServiceImpl store = new StoreServiceImpl(packFactory(), lockService(), playerRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+        // Both purchases start from a copy loaded before either one took the lock
+        Player first = playerRepository.findById("p1").orElseThrow();
+        Player second = playerRepository.findById("p1").orElseThrow();
+        CountDownLatch start = new CountDownLatch(1);
+        CompletableFuture<PurchaseResult> firstPurchase = CompletableFuture.supplyAsync(() -> buyAfter(start, store, first));
+        CompletableFuture<PurchaseResult> secondPurchase = CompletableFuture.supplyAsync(() -> buyAfter(start, store, second));
+        start.countDown();
+
+        List<PurchaseResult.PurchaseStatus> statuses = List.of(
+                firstPurchase.get(5, TimeUnit.SECONDS).getStatus(), secondPurchase.get(5, TimeUnit.SECONDS).getStatus());
+
+        assertThat(statuses).containsExactlyInAnyOrder(
+                PurchaseResult.PurchaseStatus.SUCCESS, PurchaseResult.PurchaseStatus.INSUFFICIENT_FUNDS);
+        assertThat(playerRepository.coins.get()).isZero();
+        assertThat(playerRepository.cardsSaved).hasSize(1);
+    }
+
+    @Test
+    void checksCoinsAgainstTheStoredBalanceRatherThanTheCachedOne() throws Exception {
+        InMemoryPlayerDatabase database = new InMemoryPlayerDatabase();
+        Player stored = new Player("p1", "alice");
+        stored.setCoins(PACK_COST);
+        database.insert(stored);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(mock(Cache.class));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        CachingPlayerRepository playerRepository = new CachingPlayerRepository(database.delegate(), database.jdbcTemplate(),
+                transactionTemplate, entityManagerFactory, mock(StringRedisTemplate.class),
+                mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry(), 100, 60, 500,
+                new ServerIdentity("server-1", "8080"));
+        StoreServiceImpl store = new StoreServiceImpl(packFactory(), lockService(), playerRepository, transactionTemplate);
+        Player buyer = playerRepository.findById("p1").orElseThrow();
+        int cardsBefore = buyer.getCardCollection().size();
+
+        // Another server spent the coins; its invalidation has not reached this server yet
+        database.addCoins("p1", -PACK_COST);
+
+        assertThat(store.purchaseCardPack(buyer, "BASIC").getStatus())
+                .isEqualTo(PurchaseResult.PurchaseStatus.INSUFFICIENT_FUNDS);
+        assertThat(database.read("p1").getCardCollection()).hasSize(cardsBefore);
+        assertThat(playerRepository.findById("p1")).get().extracting(Player::getCoins).isEqualTo(0);
+    }
+
+    private static PurchaseResult buyAfter(CountDownLatch start, StoreServiceImpl store, Player player) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return store.purchaseCardPack(player, "BASIC");
+    }
+
+    private static CardPackFactory packFactory() {
+        CardPack pack = mock(CardPack.class);
+        when(pack.getCost()).thenReturn(PACK_COST);
+        when(pack.getName()).thenReturn("Basic Pack");
+        when(pack.open()).thenAnswer(invocation -> {
+            // Widen the window between the coin check and the write
+            Thread.sleep(50);
+            return List.of(new Card("c1", "Spark", 1, 1, "COMMON", Card.CardType.ATTACK, "", 1));
+        });
+        CardPackFactory factory = mock(CardPackFactory.class);
+        when(factory.createCardPack(anyString())).thenReturn(pack);
+        return factory;
+    }
+
+    private static LockService lockService() throws InterruptedException {
+        ReentrantLock playerLock = new ReentrantLock();
+        RLock lock = mock(RLock.class);
+        when(lock.tryLock(anyLong(), anyLong(), eq(TimeUnit.SECONDS)))
+                .thenAnswer(invocation -> playerLock.tryLock(invocation.getArgument(0), TimeUnit.SECONDS));
+        doAnswer(invocation -> {
+            playerLock.unlock();
+            return null;
+        }).when(lock).unlock();
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        return new LockService(redissonClient, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Keeps only the stored coin balance, and hands out a new copy of the player on every load.
+     */
+    private static final class StoredPlayerRepository implements PlayerRepository {
+
+        private final AtomicInteger coins;
+        private final List<Player> cardsSaved = new ArrayList<>();
+
+        StoredPlayerRepository(int coins) {
+            this.coins = new AtomicInteger(coins);
+        }
+
+        @Override
+        public void save(Player player) {
+            coins.set(player.getCoins());
+            synchronized (cardsSaved) {
+                cardsSaved.add(player);
+            }
+        }
+
+        @Override
+        public Optional<Player> findById(String id) {
+            Player player = new Player(id, "alice");
+            player.setCoins(coins.get());
+            return Optional.of(player);
+        }
+
+        @Override
+        public void update(Player player) {
+            save(player);
+        }
+    }
+}
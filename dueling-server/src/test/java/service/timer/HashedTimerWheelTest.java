@@ -0,0 +1,65 @@
+package service.timer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HashedTimerWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void firesOnlyOnceDeadlineIsReached() {
+        HashedTimerWheel wheel = new HashedTimerWheel(100, 8, START);
+        wheel.schedule("match-1", START + 250);
+
+        assertThat(wheel.advance(START + 200)).isEmpty();
+        List<HashedTimerWheel.Timeout> expired = wheel.advance(START + 300);
+
+        assertThat(expired).extracting(HashedTimerWheel.Timeout::getKey).containsExactly("match-1");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void deadlinesBeyondOneRotationWaitForTheirRound() {
+        HashedTimerWheel wheel = new HashedTimerWheel(100, 8, START);
+        wheel.schedule("match-1", START + 2_000);
+
+        assertThat(wheel.advance(START + 1_900)).isEmpty();
+        assertThat(wheel.advance(START + 2_000)).hasSize(1);
+    }
+
+    @Test
+    void reschedulingReplacesPreviousDeadline() {
+        HashedTimerWheel wheel = new HashedTimerWheel(100, 8, START);
+        wheel.schedule("match-1", START + 100);
+        wheel.schedule("match-1", START + 500);
+
+        assertThat(wheel.advance(START + 400)).isEmpty();
+        assertThat(wheel.advance(START + 500)).extracting(HashedTimerWheel.Timeout::getDeadline)
+                .containsExactly(START + 500);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelledDeadlinesNeverFire() {
+        HashedTimerWheel wheel = new HashedTimerWheel(100, 8, START);
+        wheel.schedule("match-1", START + 100);
+        wheel.advance(START);
+        wheel.cancel("match-1");
+
+        assertThat(wheel.advance(START + 1_000)).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void pastDeadlinesFireOnNextTick() {
+        HashedTimerWheel wheel = new HashedTimerWheel(100, 8, START);
+        wheel.advance(START + 1_000);
+        wheel.schedule("match-1", START + 50);
+
+        assertThat(wheel.advance(START + 1_100)).hasSize(1);
+    }
+}
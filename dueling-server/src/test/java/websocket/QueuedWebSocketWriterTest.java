@@ -0,0 +1,121 @@
+package websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class QueuedWebSocketWriterTest {
+
+    private final List<String> frames = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstSendStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstSend = new CountDownLatch(1);
+
+    @Test
+    void linesQueuedDuringASendGoOutAsOneFrame() throws Exception {
+        PrintWriter writer = writerFor(slowSession(), 16, OutboundOverflowPolicy.COALESCE);
+
+        send(writer, "SUCCESS:CONNECTED");
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        send(writer, "UPDATE:GAME_START:m1");
+        send(writer, "UPDATE:TURN:p1");
+        releaseFirstSend.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> frames.size() == 2);
+        assertThat(frames).containsExactly("SUCCESS:CONNECTED", "UPDATE:GAME_START:m1\nUPDATE:TURN:p1");
+        writer.close();
+    }
+
+    @Test
+    void linesOtherThanUpdatesAreSentOnePerFrame() throws Exception {
+        PrintWriter writer = writerFor(slowSession(), 16, OutboundOverflowPolicy.COALESCE);
+
+        send(writer, "SUCCESS:CONNECTED");
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        send(writer, "UPDATE:HEALTH:10");
+        send(writer, "INFO:Player ID: p1");
+        send(writer, "UPDATE:HEALTH:7");
+        send(writer, "UPDATE:TURN:p2");
+        releaseFirstSend.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> frames.size() == 4);
+        assertThat(frames).containsExactly("SUCCESS:CONNECTED", "UPDATE:HEALTH:10", "INFO:Player ID: p1",
+                "UPDATE:HEALTH:7\nUPDATE:TURN:p2");
+        writer.close();
+    }
+
+    @Test
+    void coalescePolicyReplacesASupersededStateUpdateWhenFull() throws Exception {
+        PrintWriter writer = writerFor(slowSession(), 3, OutboundOverflowPolicy.COALESCE);
+
+        send(writer, "SUCCESS:CONNECTED");
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        send(writer, "UPDATE:HEALTH:p1:10");
+        send(writer, "UPDATE:HEALTH:p2:9");
+        send(writer, "ERROR:Not your turn");
+        send(writer, "UPDATE:HEALTH:p1:7");
+        releaseFirstSend.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> frames.size() == 4);
+        assertThat(frames).containsExactly("SUCCESS:CONNECTED", "UPDATE:HEALTH:p2:9", "ERROR:Not your turn",
+                "UPDATE:HEALTH:p1:7");
+        writer.close();
+    }
+
+    @Test
+    void coalescePolicyDisconnectsRatherThanDiscardAnEvent() throws Exception {
+        WebSocketSession session = slowSession();
+        PrintWriter writer = writerFor(session, 2, OutboundOverflowPolicy.COALESCE);
+
+        send(writer, "SUCCESS:CONNECTED");
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        send(writer, "UPDATE:GAME_START:m1");
+        send(writer, "UPDATE:HEALTH:p1:10");
+        send(writer, "UPDATE:GAME_OVER:VICTORY");
+        releaseFirstSend.countDown();
+
+        verify(session, timeout(5000)).close(any(CloseStatus.class));
+        assertThat(frames).containsExactly("SUCCESS:CONNECTED");
+        writer.close();
+    }
+
+    private WebSocketSession slowSession() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            if (frames.isEmpty()) {
+                firstSendStarted.countDown();
+                releaseFirstSend.await(5, TimeUnit.SECONDS);
+            }
+            frames.add(invocation.<TextMessage>getArgument(0).getPayload());
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+
+    private static PrintWriter writerFor(WebSocketSession session, int capacity, OutboundOverflowPolicy policy) {
+        return new WebSocketWriterFactory(new SimpleMeterRegistry(), capacity, 16384, policy).create(session);
+    }
+
+    private static void send(PrintWriter writer, String message) {
+        writer.println(message);
+        writer.flush();
+    }
+}
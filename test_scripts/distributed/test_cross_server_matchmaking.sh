@@ -130,10 +130,10 @@ echo ">>> Verificando logs do server-1 (deve tentar pareamento remoto)..."
 # O server-1 (onde o client-1 se conectou) deve tentar buscar um parceiro remoto
 docker compose -f "$DOCKER_COMPOSE_FILE" --env-file "$ENV_FILE_S1" logs server-1 > "$PROJECT_ROOT/server1_logs.txt"
 # Procuramos pela lógica no GameFacade
-if grep -i "Found remote partner" "$PROJECT_ROOT/server1_logs.txt"; then
+if grep -iE "Cross-server round: .* [1-9][0-9]* matches" "$PROJECT_ROOT/server1_logs.txt"; then
   echo -e "\e[32m>>> SUCESSO: Server-1 encontrou um parceiro remoto.\e[0m"
-elif grep -i "findAndLockPartner" "$PROJECT_ROOT/server1_logs.txt"; then
-  echo -e "\e[32m>>> SUCESSO: Server-1 buscou um parceiro (findAndLockPartner).\e[0m"
+elif grep -i "Cross-server round" "$PROJECT_ROOT/server1_logs.txt"; then
+  echo -e "\e[32m>>> SUCESSO: Server-1 buscou um parceiro (claim-partners).\e[0m"
 else
   echo -e "\e[33m>>> AVISO: Não foi encontrado log explícito de busca remota no server-1.\e[0m"
 fi
@@ -142,8 +142,8 @@ echo ">>> Verificando logs do server-2 (deve receber a solicitação)..."
 # O server-2 (onde o client-2 se conectou) deve receber a chamada da API
 docker compose -f "$DOCKER_COMPOSE_FILE" --env-file "$ENV_FILE_S2" logs server-2 > "$PROJECT_ROOT/server2_logs.txt"
 # Procuramos pela lógica no ServerSynchronizationController
-if grep -i "findAndLockPartner" "$PROJECT_ROOT/server2_logs.txt"; then
-  echo -e "\e[32m>>> SUCESSO: Server-2 recebeu solicitação de pareamento (findAndLockPartner).\e[0m"
+if grep -i "partner claims satisfied" "$PROJECT_ROOT/server2_logs.txt"; then
+  echo -e "\e[32m>>> SUCESSO: Server-2 recebeu solicitação de pareamento (claim-partners).\e[0m"
 else
   echo -e "\e[33m>>> AVISO: Não foi encontrado log de recebimento de pareamento no server-2.\e[0m"
 fi
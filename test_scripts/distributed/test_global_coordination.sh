@@ -15,17 +15,17 @@ echo "Baseado na análise do código-fonte:"
 
 echo
 echo "1. Matchmaking distribuído:"
-echo "   - Usa ConcurrentMatchmakingService com fila ConcurrentLinkedQueue local"
+echo "   - Usa ConcurrentMatchmakingService com índice local por faixa de Elo"
 echo "   - Coordenação entre servidores via ServerApiClient"
-echo "   - findAndLockPartner() para obter jogadores de outros servidores"
+echo "   - claim-partners em lote para obter jogadores de outros servidores"
 echo "   - Mecanismo de sincronização com 'synchronized (lock)' para atomicidade"
 
 echo
 echo "2. Compras com recursos globais:"
 echo "   - Usa LockService com Redisson para locks distribuídos"
-echo "   - Chave do lock: 'purchaseLock' compartilhado entre todos os servidores"
-echo "   - Aquisição do lock antes de processar cada compra"
-echo "   - Garante atomicidade da transação (moedas, cartas) globalmente"
+echo "   - Locks por recurso: 'lock:player:<id>' nas compras, 'lock:trade:<id>' + jogadores nas trocas"
+echo "   - Compras de jogadores diferentes e trocas independentes rodam em paralelo"
+echo "   - Estoque de cartas é decrementado atomicamente por carta"
 
 echo
 echo "3. Evidência nos logs dos servidores:"
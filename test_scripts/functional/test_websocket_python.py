@@ -57,8 +57,10 @@ def authenticate(server_url, username, password):
     return token
 
 def on_message(ws, message):
-    """Handle WebSocket messages"""
-    print(f"{Colors.BLUE}[WS] Received: {message}{Colors.END}")
+    """Handle WebSocket messages; the server writes lines, and several can share a frame"""
+    for line in message.split("\n"):
+        if line.strip():
+            print(f"{Colors.BLUE}[WS] Received: {line.strip()}{Colors.END}")
 
 def on_error(ws, error):
     """Handle WebSocket errors"""
@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+
+# Runs the JMH microbenchmarks of dueling-bench and stores the results as JSON, one file per commit.
+#
+# Usage: run_benchmarks.sh [baseline-commit-or-json] [-- extra JMH options, e.g. GameSession -f 2]
+# With a baseline, the results are compared to it and the script fails if a benchmark regressed.
+
+set -e
+
+SCRIPT_DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" &> /dev/null && pwd )"
+PROJECT_ROOT="$SCRIPT_DIR/../.."
+RESULTS_DIR="$PROJECT_ROOT/bench-results"
+BENCH_JAR="$PROJECT_ROOT/dueling-bench/target/dueling-bench-1.0-SNAPSHOT-benchmarks.jar"
+THRESHOLD_PERCENT="${THRESHOLD_PERCENT:-10}"
+
+BASELINE=""
+if [ $# -gt 0 ] && [ "$1" != "--" ]; then
+  BASELINE=$1
+  shift
+fi
+if [ "$1" == "--" ]; then
+  shift
+fi
+
+COMMIT=$(git -C "$PROJECT_ROOT" rev-parse --short HEAD)
+if [ -n "$(git -C "$PROJECT_ROOT" status --porcelain -- '*.java' '*pom.xml')" ]; then
+  COMMIT="$COMMIT-dirty"
+fi
+RESULT_FILE="$RESULTS_DIR/$COMMIT.json"
+mkdir -p "$RESULTS_DIR"
+
+echo ">>> Building dueling-bench..."
+(cd "$PROJECT_ROOT" && mvn -q -B package -pl dueling-bench -am -DskipTests -Dcheckstyle.skip=true)
+
+echo ">>> Running benchmarks, results in $RESULT_FILE"
+java -jar "$BENCH_JAR" -rf json -rff "$RESULT_FILE" "$@"
+
+if [ -n "$BASELINE" ]; then
+  BASELINE_FILE=$BASELINE
+  if [ ! -f "$BASELINE_FILE" ]; then
+    BASELINE_FILE="$RESULTS_DIR/$(git -C "$PROJECT_ROOT" rev-parse --short "$BASELINE").json"
+  fi
+  if [ ! -f "$BASELINE_FILE" ]; then
+    echo ">>> No results for baseline $BASELINE; run this script on that commit first" >&2
+    exit 2
+  fi
+  echo ">>> Comparing with $BASELINE_FILE"
+  java -cp "$BENCH_JAR" benchmark.BenchmarkComparison "$BASELINE_FILE" "$RESULT_FILE" "$THRESHOLD_PERCENT"
+fi
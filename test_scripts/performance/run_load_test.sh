@@ -0,0 +1,20 @@
+#!/usr/bin/env bash
+
+# Runs the load generator of dueling-client against a running cluster.
+#
+# Usage: run_load_test.sh [--url=http://localhost:8080] [--players=1000] [--arrival-rate=50] [...]
+# Without arguments the generator prints its defaults; all options are listed in LoadTestConfig.
+
+set -e
+
+SCRIPT_DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" &> /dev/null && pwd )"
+PROJECT_ROOT="$SCRIPT_DIR/../.."
+CLIENT_JAR="$PROJECT_ROOT/dueling-client/target/dueling-client-1.0-SNAPSHOT.jar"
+
+if [ ! -f "$CLIENT_JAR" ] || [ -n "$REBUILD" ]; then
+  echo ">>> Building dueling-client..."
+  (cd "$PROJECT_ROOT" && mvn -q -B package -pl dueling-client -am -DskipTests -Dcheckstyle.skip=true)
+fi
+
+java -Dloader.main=client.load.LoadGenerator -cp "$CLIENT_JAR" \
+  org.springframework.boot.loader.launch.PropertiesLauncher "$@"
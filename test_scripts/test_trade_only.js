@@ -17,6 +17,15 @@ async function httpPost(url, data) {
     });
 }
 
+// The server writes lines, and several can share a frame
+function onLines(ws, handler) {
+    ws.on('message', (data) => {
+        data.toString().split('\n')
+            .filter(line => line.trim())
+            .forEach(line => handler(line.trim()));
+    });
+}
+
 async function registerAndLogin(username) {
     await httpPost(`${API_URL}/api/auth/register`, {username, password: 'pass'});
     const resp = await httpPost(`${API_URL}/api/auth/login`, {username, password: 'pass'});
@@ -34,7 +43,7 @@ async function main() {
     let p1id, p2id;
     let tradeId;
     
-    ws1.on('message', msg => {
+    onLines(ws1, msg => {
         console.log('P1:', msg.toString());
         if (msg.includes('Player ID:')) {
             p1id = msg.toString().match(/Player ID: (\d+)/)[1];
@@ -46,7 +55,7 @@ async function main() {
         }
     });
     
-    ws2.on('message', msg => {
+    onLines(ws2, msg => {
         console.log('P2:', msg.toString());
         if (msg.includes('Player ID:')) {
             p2id = msg.toString().match(/Player ID: (\d+)/)[1];
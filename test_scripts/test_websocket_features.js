@@ -27,6 +27,15 @@ function log(msg, color = colors.blue) {
     console.log(`${color}${msg}${colors.reset}`);
 }
 
+// The server writes lines, and several can share a frame
+function onLines(ws, handler) {
+    ws.on('message', (data) => {
+        data.toString().split('\n')
+            .filter(line => line.trim())
+            .forEach(line => handler(line.trim()));
+    });
+}
+
 async function httpPost(url, data) {
     return new Promise((resolve, reject) => {
         const options = {
@@ -107,8 +116,7 @@ async function testPurchase(token, username) {
         
         let characterCreated = false;
         
-        ws.on('message', async (data) => {
-            const msg = data.toString();
+        onLines(ws, async (msg) => {
             log(`← Received: ${msg}`);
             
             if (msg.includes('SUCCESS:CONNECTED') && !characterCreated) {
@@ -178,8 +186,7 @@ async function testTrade(token1, username1, token2, username2) {
         let player1Cards = [];
         let player2Cards = [];
         
-        ws1.on('message', (data) => {
-            const msg = data.toString();
+        onLines(ws1, (msg) => {
             log(`← ${username1} received: ${msg}`);
             
             if (msg.includes('TRADE_COMPLETE') || msg.includes('TRADE_ACCEPTED')) {
@@ -234,8 +241,7 @@ async function testTrade(token1, username1, token2, username2) {
             }
         });
         
-        ws2.on('message', (data) => {
-            const msg = data.toString();
+        onLines(ws2, (msg) => {
             log(`← ${username2} received: ${msg}`);
             
             if (msg.includes('SUCCESS:CONNECTED') && !ws2CharCreated) {
@@ -353,8 +359,7 @@ async function testMatchmaking(token1, username1, token2, username2) {
             ws2Connected = true;
         });
         
-        ws1.on('message', (data) => {
-            const msg = data.toString();
+        onLines(ws1, (msg) => {
             log(`← ${username1} received: ${msg}`);
             
             if (msg.includes('SUCCESS:CONNECTED') && !ws1CharCreated) {
@@ -397,8 +402,7 @@ async function testMatchmaking(token1, username1, token2, username2) {
             }
         });
         
-        ws2.on('message', (data) => {
-            const msg = data.toString();
+        onLines(ws2, (msg) => {
             log(`← ${username2} received: ${msg}`);
             
             if (msg.includes('SUCCESS:CONNECTED') && !ws2CharCreated) {
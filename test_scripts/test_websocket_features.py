@@ -13,6 +13,16 @@ from datetime import datetime
 API_URL = "http://localhost:8080"
 WS_URL = "ws://localhost:8080/ws"
 
+_pending_lines = {}
+
+async def recv_line(websocket, timeout):
+    """Receive the next line; the server writes lines, and several can share a frame"""
+    pending = _pending_lines.setdefault(id(websocket), [])
+    while not pending:
+        frame = await asyncio.wait_for(websocket.recv(), timeout=timeout)
+        pending.extend(line.strip() for line in frame.split("\n") if line.strip())
+    return pending.pop(0)
+
 class Colors:
     GREEN = '\033[92m'
     RED = '\033[91m'
@@ -53,7 +63,7 @@ async def test_purchase(token, username):
             log("✓ WebSocket connected")
             
             # Wait for initial SUCCESS:CONNECTED
-            response = await asyncio.wait_for(websocket.recv(), timeout=5.0)
+            response = await recv_line(websocket, 5.0)
             log(f"Initial: {response}")
             messages_received.append(response)
             
@@ -63,7 +73,7 @@ async def test_purchase(token, username):
             
             # Wait for response (timeout 10s)
             try:
-                response = await asyncio.wait_for(websocket.recv(), timeout=10.0)
+                response = await recv_line(websocket, 10.0)
                 log(f"← Response: {response}", Colors.GREEN)
                 messages_received.append(response)
                 
@@ -97,8 +107,8 @@ async def test_trade(token1, username1, token2, username2):
             log("✓ Both WebSockets connected")
             
             # Wait for initial messages
-            await asyncio.wait_for(ws1.recv(), timeout=5.0)
-            await asyncio.wait_for(ws2.recv(), timeout=5.0)
+            await recv_line(ws1, 5.0)
+            await recv_line(ws2, 5.0)
             
             # User 1 proposes trade
             # Format: TRADE:PROPOSE:targetPlayerId:offeredCardIds:requestedCardIds
@@ -110,7 +120,7 @@ async def test_trade(token1, username1, token2, username2):
             
             # Check if user2 received proposal
             try:
-                msg2 = await asyncio.wait_for(ws2.recv(), timeout=5.0)
+                msg2 = await recv_line(ws2, 5.0)
                 log(f"← {username2} received: {msg2}", Colors.GREEN)
                 messages2.append(msg2)
                 
@@ -127,7 +137,7 @@ async def test_trade(token1, username1, token2, username2):
                     
                     # Check both users for completion
                     try:
-                        msg1 = await asyncio.wait_for(ws1.recv(), timeout=5.0)
+                        msg1 = await recv_line(ws1, 5.0)
                         log(f"← {username1} received: {msg1}", Colors.GREEN)
                         if "COMPLETE" in msg1 or "SUCCESS" in msg1:
                             log("✅ TRADE COMPLETE", Colors.GREEN)
@@ -157,8 +167,8 @@ async def test_matchmaking(token1, username1, token2, username2):
             log("✓ Both WebSockets connected")
             
             # Wait for initial messages
-            await asyncio.wait_for(ws1.recv(), timeout=5.0)
-            await asyncio.wait_for(ws2.recv(), timeout=5.0)
+            await recv_line(ws1, 5.0)
+            await recv_line(ws2, 5.0)
             
             # Both enter matchmaking
             await ws1.send("MATCHMAKING")
@@ -173,7 +183,7 @@ async def test_matchmaking(token1, username1, token2, username2):
             
             # Check for match messages
             try:
-                msg1 = await asyncio.wait_for(ws1.recv(), timeout=10.0)
+                msg1 = await recv_line(ws1, 10.0)
                 log(f"← {username1} received: {msg1}", Colors.GREEN)
                 
                 if "MATCH" in msg1 or "OPPONENT" in msg1 or "GAME" in msg1: